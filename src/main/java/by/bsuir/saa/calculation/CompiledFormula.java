@@ -0,0 +1,12 @@
+package by.bsuir.saa.calculation;
+
+import java.math.BigDecimal;
+
+/**
+ * Скомпилированная формула: дерево замыканий без разбора и поиска имен при вычислении
+ */
+@FunctionalInterface
+public interface CompiledFormula {
+
+    BigDecimal evaluate(FormulaContext context);
+}
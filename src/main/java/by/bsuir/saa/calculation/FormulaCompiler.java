@@ -0,0 +1,231 @@
+package by.bsuir.saa.calculation;
+
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Компилирует формулы типов оплаты в {@link CompiledFormula}. Имена переменных разрешаются
+ * при компиляции, константные подвыражения сворачиваются; результат кэшируется по тексту формулы
+ */
+@Component
+public class FormulaCompiler {
+
+    private static final MathContext DIVISION_CONTEXT = MathContext.DECIMAL64;
+
+    private final Map<String, CompiledFormula> cache = new ConcurrentHashMap<>();
+
+    public CompiledFormula compile(String formula) {
+        return cache.computeIfAbsent(formula.trim(), text -> compile(FormulaParser.parse(text)));
+    }
+
+    /**
+     * Проверяет формулу и возвращает текст ошибки или null, если формула корректна
+     */
+    public String validate(String formula) {
+        try {
+            compile(formula);
+            return null;
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+
+    /**
+     * Коды типов оплаты, на которые ссылается формула, в порядке появления
+     */
+    public Set<String> paymentReferences(String formula) {
+        Set<String> codes = new LinkedHashSet<>();
+        collectReferences(FormulaParser.parse(formula.trim()), codes);
+        return codes;
+    }
+
+    /**
+     * Порядок вычисления формул по кодам типов оплаты: формула идет после формул, на чьи коды
+     * она ссылается. Циклическая ссылка, в том числе на собственный код, — ошибка
+     */
+    public List<String> evaluationOrder(Map<String, String> formulasByCode) {
+        Map<String, Set<String>> dependencies = new LinkedHashMap<>();
+        formulasByCode.forEach((code, formula) -> {
+            Set<String> references = paymentReferences(formula);
+            references.retainAll(formulasByCode.keySet());
+            dependencies.put(code, references);
+        });
+
+        List<String> order = new ArrayList<>();
+        Set<String> visited = new HashSet<>();
+        for (String code : dependencies.keySet()) {
+            visit(code, dependencies, visited, new ArrayList<>(), order);
+        }
+        return order;
+    }
+
+    private void visit(String code, Map<String, Set<String>> dependencies, Set<String> visited,
+                       List<String> path, List<String> order) {
+        if (visited.contains(code)) {
+            return;
+        }
+        int cycleStart = path.indexOf(code);
+        if (cycleStart >= 0) {
+            List<String> cycle = new ArrayList<>(path.subList(cycleStart, path.size()));
+            cycle.add(code);
+            throw new IllegalArgumentException("циклическая ссылка между формулами: " + String.join(" → ", cycle));
+        }
+
+        path.add(code);
+        for (String dependency : dependencies.get(code)) {
+            visit(dependency, dependencies, visited, path, order);
+        }
+        path.remove(path.size() - 1);
+        visited.add(code);
+        order.add(code);
+    }
+
+    private void collectReferences(FormulaNode node, Set<String> codes) {
+        if (node instanceof FormulaNode.PaymentRef ref) {
+            codes.add(ref.code());
+        } else if (node instanceof FormulaNode.Negate negate) {
+            collectReferences(negate.operand(), codes);
+        } else if (node instanceof FormulaNode.Binary binary) {
+            collectReferences(binary.left(), codes);
+            collectReferences(binary.right(), codes);
+        } else if (node instanceof FormulaNode.Call call) {
+            call.arguments().forEach(argument -> collectReferences(argument, codes));
+        }
+    }
+
+    private CompiledFormula compile(FormulaNode node) {
+        CompiledFormula compiled = compileNode(node);
+        if (isConstant(node)) {
+            BigDecimal value;
+            try {
+                value = compiled.evaluate(null);
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException(e.getMessage());
+            }
+            return context -> value;
+        }
+        return compiled;
+    }
+
+    private CompiledFormula compileNode(FormulaNode node) {
+        if (node instanceof FormulaNode.Constant constant) {
+            BigDecimal value = constant.value();
+            return context -> value;
+        }
+        if (node instanceof FormulaNode.VariableRef ref) {
+            FormulaContext.Variable variable = ref.variable();
+            return context -> context.get(variable);
+        }
+        if (node instanceof FormulaNode.PaymentRef ref) {
+            String code = ref.code();
+            return context -> context.payment(code);
+        }
+        if (node instanceof FormulaNode.Negate negate) {
+            CompiledFormula operand = compile(negate.operand());
+            return context -> operand.evaluate(context).negate();
+        }
+        if (node instanceof FormulaNode.Binary binary) {
+            return compileBinary(binary);
+        }
+        return compileCall((FormulaNode.Call) node);
+    }
+
+    private CompiledFormula compileBinary(FormulaNode.Binary binary) {
+        CompiledFormula left = compile(binary.left());
+        CompiledFormula right = compile(binary.right());
+        return switch (binary.operator()) {
+            case ADD -> context -> left.evaluate(context).add(right.evaluate(context));
+            case SUBTRACT -> context -> left.evaluate(context).subtract(right.evaluate(context));
+            case MULTIPLY -> context -> left.evaluate(context).multiply(right.evaluate(context));
+            case DIVIDE -> context -> {
+                BigDecimal divisor = right.evaluate(context);
+                if (divisor.signum() == 0) {
+                    throw new ArithmeticException("Деление на ноль в формуле");
+                }
+                return left.evaluate(context).divide(divisor, DIVISION_CONTEXT);
+            };
+            case LESS -> context -> truth(left.evaluate(context).compareTo(right.evaluate(context)) < 0);
+            case LESS_OR_EQUAL -> context -> truth(left.evaluate(context).compareTo(right.evaluate(context)) <= 0);
+            case GREATER -> context -> truth(left.evaluate(context).compareTo(right.evaluate(context)) > 0);
+            case GREATER_OR_EQUAL -> context -> truth(left.evaluate(context).compareTo(right.evaluate(context)) >= 0);
+            case EQUAL -> context -> truth(left.evaluate(context).compareTo(right.evaluate(context)) == 0);
+            case NOT_EQUAL -> context -> truth(left.evaluate(context).compareTo(right.evaluate(context)) != 0);
+        };
+    }
+
+    private CompiledFormula compileCall(FormulaNode.Call call) {
+        CompiledFormula[] arguments = call.arguments().stream()
+                .map(this::compile)
+                .toArray(CompiledFormula[]::new);
+        return switch (call.function()) {
+            case MIN -> context -> {
+                BigDecimal result = arguments[0].evaluate(context);
+                for (int i = 1; i < arguments.length; i++) {
+                    result = result.min(arguments[i].evaluate(context));
+                }
+                return result;
+            };
+            case MAX -> context -> {
+                BigDecimal result = arguments[0].evaluate(context);
+                for (int i = 1; i < arguments.length; i++) {
+                    result = result.max(arguments[i].evaluate(context));
+                }
+                return result;
+            };
+            case ROUND -> {
+                int scale = arguments.length > 1 ? roundingScale(call.arguments().get(1)) : 2;
+                CompiledFormula value = arguments[0];
+                yield context -> value.evaluate(context).setScale(scale, RoundingMode.HALF_UP);
+            }
+            case IF -> {
+                CompiledFormula condition = arguments[0];
+                CompiledFormula then = arguments[1];
+                CompiledFormula otherwise = arguments[2];
+                yield context -> condition.evaluate(context).signum() != 0
+                        ? then.evaluate(context) : otherwise.evaluate(context);
+            }
+        };
+    }
+
+    private int roundingScale(FormulaNode node) {
+        if (node instanceof FormulaNode.Constant constant) {
+            try {
+                return constant.value().intValueExact();
+            } catch (ArithmeticException ignored) {
+                // сообщение ниже
+            }
+        }
+        throw new IllegalArgumentException("число знаков в функции 'округл' должно быть целой константой");
+    }
+
+    private boolean isConstant(FormulaNode node) {
+        if (node instanceof FormulaNode.Constant) {
+            return true;
+        }
+        if (node instanceof FormulaNode.Negate negate) {
+            return isConstant(negate.operand());
+        }
+        if (node instanceof FormulaNode.Binary binary) {
+            return isConstant(binary.left()) && isConstant(binary.right());
+        }
+        if (node instanceof FormulaNode.Call call) {
+            return call.arguments().stream().allMatch(this::isConstant);
+        }
+        return false;
+    }
+
+    private static BigDecimal truth(boolean value) {
+        return value ? BigDecimal.ONE : BigDecimal.ZERO;
+    }
+}
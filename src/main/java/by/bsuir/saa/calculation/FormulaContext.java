@@ -0,0 +1,82 @@
+package by.bsuir.saa.calculation;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Значения переменных для вычисления формулы по одному сотруднику. Встроенные переменные
+ * хранятся в массиве по порядковому номеру, суммы начислений — по коду типа оплаты
+ */
+public final class FormulaContext {
+
+    public enum Variable {
+        BASE_SALARY("оклад"),
+        HOURS("часы"),
+        NORM_HOURS("норма_часов"),
+        TENURE_YEARS("стаж_лет"),
+        SICK_LEAVE_DAYS("дни_больничного"),
+        VACATION_DAYS("дни_отпуска"),
+        ACCRUED("начислено");
+
+        private static final Map<String, Variable> BY_NAME = new HashMap<>();
+
+        static {
+            for (Variable variable : values()) {
+                BY_NAME.put(variable.name, variable);
+            }
+        }
+
+        private final String name;
+
+        Variable(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public static Variable byName(String name) {
+            return BY_NAME.get(name.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    private final BigDecimal[] values = new BigDecimal[Variable.values().length];
+    private final Map<String, BigDecimal> payments = new HashMap<>();
+
+    public FormulaContext() {
+        Arrays.fill(values, BigDecimal.ZERO);
+    }
+
+    public FormulaContext set(Variable variable, BigDecimal value) {
+        values[variable.ordinal()] = value != null ? value : BigDecimal.ZERO;
+        return this;
+    }
+
+    public BigDecimal get(Variable variable) {
+        return values[variable.ordinal()];
+    }
+
+    /**
+     * Учитывает платеж: сумма доступна в формулах по коду, к переменной «начислено»
+     * добавляются только начисления
+     */
+    public FormulaContext addPayment(String code, BigDecimal amount, boolean accrual) {
+        payments.merge(code, amount, BigDecimal::add);
+        if (accrual) {
+            values[Variable.ACCRUED.ordinal()] = values[Variable.ACCRUED.ordinal()].add(amount);
+        }
+        return this;
+    }
+
+    public BigDecimal payment(String code) {
+        return payments.getOrDefault(code, BigDecimal.ZERO);
+    }
+
+    public boolean hasPayment(String code) {
+        return payments.containsKey(code);
+    }
+}
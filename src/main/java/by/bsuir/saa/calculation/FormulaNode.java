@@ -0,0 +1,57 @@
+package by.bsuir.saa.calculation;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Узлы дерева разбора формулы типа оплаты
+ */
+public sealed interface FormulaNode {
+
+    enum Operator {
+        ADD, SUBTRACT, MULTIPLY, DIVIDE, LESS, LESS_OR_EQUAL, GREATER, GREATER_OR_EQUAL, EQUAL, NOT_EQUAL
+    }
+
+    enum Function {
+        MIN("мин", 1, Integer.MAX_VALUE),
+        MAX("макс", 1, Integer.MAX_VALUE),
+        ROUND("округл", 1, 2),
+        IF("если", 3, 3);
+
+        private final String name;
+        private final int minArguments;
+        private final int maxArguments;
+
+        Function(String name, int minArguments, int maxArguments) {
+            this.name = name;
+            this.minArguments = minArguments;
+            this.maxArguments = maxArguments;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean acceptsArguments(int count) {
+            return count >= minArguments && count <= maxArguments;
+        }
+    }
+
+    record Constant(BigDecimal value) implements FormulaNode {
+    }
+
+    record VariableRef(FormulaContext.Variable variable) implements FormulaNode {
+    }
+
+    record PaymentRef(String code) implements FormulaNode {
+    }
+
+    record Negate(FormulaNode operand) implements FormulaNode {
+    }
+
+    record Binary(Operator operator, FormulaNode left, FormulaNode right) implements FormulaNode {
+    }
+
+    record Call(Function function, List<FormulaNode> arguments) implements FormulaNode {
+    }
+}
@@ -0,0 +1,222 @@
+package by.bsuir.saa.calculation;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Рекурсивный спуск по грамматике формулы:
+ * <pre>
+ * выражение  := сумма [( &lt; | &lt;= | &gt; | &gt;= | = | &lt;&gt; ) сумма]
+ * сумма      := произведение {( + | - ) произведение}
+ * произв.    := унарное {( * | / ) унарное}
+ * унарное    := - унарное | число | переменная | КОД | функция ( аргументы ) | ( выражение )
+ * </pre>
+ * Имена переменных и функций регистронезависимы, коды типов оплаты пишутся заглавными буквами.
+ * Глубина дерева разбора ограничена {@link #MAX_DEPTH}, чтобы разбор и компиляция не переполняли стек
+ */
+public final class FormulaParser {
+
+    public static final int MAX_DEPTH = 64;
+
+    private final String source;
+    private int position;
+    private int depth;
+
+    private FormulaParser(String source) {
+        this.source = source;
+    }
+
+    public static FormulaNode parse(String formula) {
+        if (formula == null || formula.isBlank()) {
+            throw new IllegalArgumentException("формула пуста");
+        }
+        FormulaParser parser = new FormulaParser(formula);
+        FormulaNode node = parser.parseComparison();
+        parser.skipWhitespace();
+        if (parser.position < formula.length()) {
+            throw parser.error("неожиданный символ '" + formula.charAt(parser.position) + "'");
+        }
+        return node;
+    }
+
+    private FormulaNode parseComparison() {
+        FormulaNode left = parseSum();
+        FormulaNode.Operator operator = null;
+        if (accept("<=")) {
+            operator = FormulaNode.Operator.LESS_OR_EQUAL;
+        } else if (accept(">=")) {
+            operator = FormulaNode.Operator.GREATER_OR_EQUAL;
+        } else if (accept("<>") || accept("!=")) {
+            operator = FormulaNode.Operator.NOT_EQUAL;
+        } else if (accept("<")) {
+            operator = FormulaNode.Operator.LESS;
+        } else if (accept(">")) {
+            operator = FormulaNode.Operator.GREATER;
+        } else if (accept("==") || accept("=")) {
+            operator = FormulaNode.Operator.EQUAL;
+        }
+        return operator == null ? left : new FormulaNode.Binary(operator, left, parseSum());
+    }
+
+    private FormulaNode parseSum() {
+        FormulaNode node = parseProduct();
+        int chain = 0;
+        while (true) {
+            if (accept("+")) {
+                checkDepth(++chain);
+                node = new FormulaNode.Binary(FormulaNode.Operator.ADD, node, parseProduct());
+            } else if (accept("-")) {
+                checkDepth(++chain);
+                node = new FormulaNode.Binary(FormulaNode.Operator.SUBTRACT, node, parseProduct());
+            } else {
+                return node;
+            }
+        }
+    }
+
+    private FormulaNode parseProduct() {
+        FormulaNode node = parseUnary();
+        int chain = 0;
+        while (true) {
+            if (accept("*")) {
+                checkDepth(++chain);
+                node = new FormulaNode.Binary(FormulaNode.Operator.MULTIPLY, node, parseUnary());
+            } else if (accept("/")) {
+                checkDepth(++chain);
+                node = new FormulaNode.Binary(FormulaNode.Operator.DIVIDE, node, parseUnary());
+            } else {
+                return node;
+            }
+        }
+    }
+
+    private FormulaNode parseUnary() {
+        checkDepth(1);
+        depth++;
+        try {
+            return parseOperand();
+        } finally {
+            depth--;
+        }
+    }
+
+    private FormulaNode parseOperand() {
+        if (accept("-")) {
+            return new FormulaNode.Negate(parseUnary());
+        }
+        if (accept("(")) {
+            FormulaNode node = parseComparison();
+            expect(")");
+            return node;
+        }
+
+        skipWhitespace();
+        if (position >= source.length()) {
+            throw error("неожиданный конец формулы");
+        }
+        char current = source.charAt(position);
+        if (Character.isDigit(current)) {
+            return parseNumber();
+        }
+        if (Character.isLetter(current) || current == '_') {
+            return parseIdentifier();
+        }
+        throw error("неожиданный символ '" + current + "'");
+    }
+
+    private FormulaNode parseNumber() {
+        int start = position;
+        while (position < source.length()
+                && (Character.isDigit(source.charAt(position)) || source.charAt(position) == '.')) {
+            position++;
+        }
+        String text = source.substring(start, position);
+        try {
+            return new FormulaNode.Constant(new BigDecimal(text));
+        } catch (NumberFormatException e) {
+            throw error("некорректное число '" + text + "'");
+        }
+    }
+
+    private FormulaNode parseIdentifier() {
+        int start = position;
+        while (position < source.length()
+                && (Character.isLetterOrDigit(source.charAt(position)) || source.charAt(position) == '_')) {
+            position++;
+        }
+        String name = source.substring(start, position);
+
+        if (accept("(")) {
+            return parseCall(name);
+        }
+
+        FormulaContext.Variable variable = FormulaContext.Variable.byName(name);
+        if (variable != null) {
+            return new FormulaNode.VariableRef(variable);
+        }
+        if (name.matches("^[А-ЯЁ]+$")) {
+            return new FormulaNode.PaymentRef(name);
+        }
+        throw error("неизвестная переменная '" + name + "'");
+    }
+
+    private FormulaNode parseCall(String name) {
+        FormulaNode.Function function = null;
+        for (FormulaNode.Function candidate : FormulaNode.Function.values()) {
+            if (candidate.getName().equals(name.toLowerCase(Locale.ROOT))) {
+                function = candidate;
+            }
+        }
+        if (function == null) {
+            throw error("неизвестная функция '" + name + "'");
+        }
+
+        List<FormulaNode> arguments = new ArrayList<>();
+        if (!accept(")")) {
+            do {
+                arguments.add(parseComparison());
+            } while (accept(";") || accept(","));
+            expect(")");
+        }
+        if (!function.acceptsArguments(arguments.size())) {
+            throw error("неверное число аргументов функции '" + function.getName() + "'");
+        }
+        return new FormulaNode.Call(function, List.copyOf(arguments));
+    }
+
+    /**
+     * Цепочка из {@code extra} операторов одного уровня углубляет дерево так же, как скобки
+     */
+    private void checkDepth(int extra) {
+        if (depth + extra > MAX_DEPTH) {
+            throw error("слишком глубокая вложенность формулы (не более " + MAX_DEPTH + " уровней)");
+        }
+    }
+
+    private boolean accept(String token) {
+        skipWhitespace();
+        if (source.startsWith(token, position)) {
+            position += token.length();
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(String token) {
+        if (!accept(token)) {
+            throw error("ожидается '" + token + "'");
+        }
+    }
+
+    private void skipWhitespace() {
+        while (position < source.length() && Character.isWhitespace(source.charAt(position))) {
+            position++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " (позиция " + (position + 1) + ")");
+    }
+}
@@ -0,0 +1,76 @@
+package by.bsuir.saa.calculation;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Денежная сумма в копейках. Перевод из BigDecimal округляет до 2 знаков HALF_UP,
+ * обратный перевод дает BigDecimal со scale 2, поэтому результаты совпадают с расчетами на BigDecimal
+ */
+public record Money(long kopecks) implements Comparable<Money> {
+
+    public static final Money ZERO = new Money(0);
+
+    public static Money of(BigDecimal amount) {
+        return ofKopecks(toKopecks(amount));
+    }
+
+    public static Money ofKopecks(long kopecks) {
+        return kopecks == 0 ? ZERO : new Money(kopecks);
+    }
+
+    /**
+     * Копейки из суммы в рублях; null считается нулем. Суммы из БД уже имеют scale 2,
+     * для них копейки берутся из немасштабированного значения без промежуточного округления
+     */
+    public static long toKopecks(BigDecimal amount) {
+        if (amount == null) {
+            return 0;
+        }
+        if (amount.scale() == 2) {
+            return amount.unscaledValue().longValueExact();
+        }
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public Money plus(Money other) {
+        return ofKopecks(Math.addExact(kopecks, other.kopecks));
+    }
+
+    public Money minus(Money other) {
+        return ofKopecks(Math.subtractExact(kopecks, other.kopecks));
+    }
+
+    public Money negate() {
+        return ofKopecks(Math.negateExact(kopecks));
+    }
+
+    public Money abs() {
+        return kopecks < 0 ? negate() : this;
+    }
+
+    /**
+     * Процент от суммы, ставка в десятитысячных долях (0.13 = 1300)
+     */
+    public Money percentage(long rate) {
+        return ofKopecks(PayrollKernel.percentage(kopecks, rate));
+    }
+
+    public boolean isPositive() {
+        return kopecks > 0;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(kopecks, 2);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(kopecks, other.kopecks);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
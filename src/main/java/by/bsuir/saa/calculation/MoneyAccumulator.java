@@ -0,0 +1,99 @@
+package by.bsuir.saa.calculation;
+
+import java.math.BigDecimal;
+import java.util.function.Function;
+import java.util.stream.Collector;
+
+/**
+ * Сумма, минимум, максимум и среднее по денежным значениям на примитивах long.
+ * Пустые (null) значения пропускаются; среднее округляется до копейки HALF_UP
+ */
+public final class MoneyAccumulator {
+
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+    private long count;
+
+    public static <T> Collector<T, MoneyAccumulator, MoneyAccumulator> collecting(Function<? super T, BigDecimal> mapper) {
+        return Collector.of(MoneyAccumulator::new,
+                (accumulator, item) -> accumulator.add(mapper.apply(item)),
+                MoneyAccumulator::combine);
+    }
+
+    public static <T> Collector<T, MoneyAccumulator, BigDecimal> summing(Function<? super T, BigDecimal> mapper) {
+        return Collector.of(MoneyAccumulator::new,
+                (accumulator, item) -> accumulator.add(mapper.apply(item)),
+                MoneyAccumulator::combine,
+                MoneyAccumulator::getSum);
+    }
+
+    /**
+     * Сумма модулей, например удержаний, которые хранятся отрицательными
+     */
+    public static <T> Collector<T, MoneyAccumulator, BigDecimal> summingAbsolute(Function<? super T, BigDecimal> mapper) {
+        return Collector.of(MoneyAccumulator::new,
+                (accumulator, item) -> accumulator.add(Math.abs(Money.toKopecks(mapper.apply(item)))),
+                MoneyAccumulator::combine,
+                MoneyAccumulator::getSum);
+    }
+
+    public MoneyAccumulator add(BigDecimal amount) {
+        if (amount != null) {
+            add(Money.toKopecks(amount));
+        }
+        return this;
+    }
+
+    public MoneyAccumulator add(Money amount) {
+        return add(amount.kopecks());
+    }
+
+    public MoneyAccumulator add(long kopecks) {
+        sum = Math.addExact(sum, kopecks);
+        min = Math.min(min, kopecks);
+        max = Math.max(max, kopecks);
+        count++;
+        return this;
+    }
+
+    public MoneyAccumulator combine(MoneyAccumulator other) {
+        sum = Math.addExact(sum, other.sum);
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        count += other.count;
+        return this;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public BigDecimal getSum() {
+        return BigDecimal.valueOf(sum, 2);
+    }
+
+    public BigDecimal getMin() {
+        return count == 0 ? BigDecimal.ZERO : BigDecimal.valueOf(min, 2);
+    }
+
+    public BigDecimal getMax() {
+        return count == 0 ? BigDecimal.ZERO : BigDecimal.valueOf(max, 2);
+    }
+
+    public BigDecimal getAverage() {
+        return count == 0 ? BigDecimal.ZERO : BigDecimal.valueOf(PayrollKernel.divideHalfUp(sum, count), 2);
+    }
+
+    public Money getTotal() {
+        return Money.ofKopecks(sum);
+    }
+
+    public long getSumKopecks() {
+        return sum;
+    }
+}
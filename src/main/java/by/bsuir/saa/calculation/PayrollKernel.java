@@ -0,0 +1,136 @@
+package by.bsuir.saa.calculation;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Расчетные правила зарплаты в виде чистых функций над целыми числами.
+ * Суммы передаются в копейках, часы — в сотых долях часа, ставки — в десятитысячных долях
+ * (0.25 = 2500). Округление HALF_UP на тех же шагах, что и в сервисах расчета,
+ * поэтому результат совпадает с вычислениями на BigDecimal до копейки
+ */
+public final class PayrollKernel {
+
+    public static final int STANDARD_HOURS_PER_DAY = 8;
+    public static final int WORKING_DAYS_IN_MONTH = 20;
+
+    public static final long ITR_RATE = 2500;
+    public static final long SENIORITY_RATE_ONE_YEAR = 500;
+    public static final long SENIORITY_RATE_THREE_YEARS = 1500;
+    public static final long SENIORITY_RATE_TEN_YEARS = 2500;
+    public static final long SICK_LEAVE_RATE = 5000;
+    public static final long VACATION_RATE = 15000;
+    public static final long INCOME_TAX_RATE = 1300;
+    public static final long SOCIAL_TAX_RATE = 100;
+
+    private static final long RATE_SCALE = 10_000;
+
+    private PayrollKernel() {
+    }
+
+    /**
+     * Часовая ставка в десятитысячных долях рубля: оклад / норма часов, 4 знака HALF_UP
+     */
+    public static long hourlyRate(long baseSalaryKopecks, int standardMonthlyHours) {
+        if (standardMonthlyHours <= 0) {
+            throw new IllegalArgumentException("Норма часов должна быть положительной");
+        }
+        return divideHalfUp(baseSalaryKopecks * 100, standardMonthlyHours);
+    }
+
+    /**
+     * Оплата по окладу за отработанные часы: часовая ставка × часы, 2 знака HALF_UP
+     */
+    public static long baseSalary(long baseSalaryKopecks, int standardMonthlyHours, long hoursHundredths) {
+        long rate = hourlyRate(baseSalaryKopecks, standardMonthlyHours);
+        return divideHalfUp(rate * hoursHundredths, RATE_SCALE);
+    }
+
+    /**
+     * Процент от суммы с округлением до копейки
+     */
+    public static long percentage(long amountKopecks, long rate) {
+        return divideHalfUp(amountKopecks * rate, RATE_SCALE);
+    }
+
+    public static long seniorityRate(long seniorityYears) {
+        return seniorityRate(seniorityYears, SENIORITY_RATE_ONE_YEAR, SENIORITY_RATE_THREE_YEARS, SENIORITY_RATE_TEN_YEARS);
+    }
+
+    public static long seniorityRate(long seniorityYears, long oneYearRate, long threeYearsRate, long tenYearsRate) {
+        if (seniorityYears >= 10) {
+            return tenYearsRate;
+        } else if (seniorityYears >= 3) {
+            return threeYearsRate;
+        } else if (seniorityYears >= 1) {
+            return oneYearRate;
+        }
+        return 0;
+    }
+
+    /**
+     * Среднедневной заработок для отпускных и больничных: оклад / 20, 2 знака HALF_UP
+     */
+    public static long dailyRate(long baseSalaryKopecks) {
+        return divideHalfUp(baseSalaryKopecks, WORKING_DAYS_IN_MONTH);
+    }
+
+    /**
+     * Оплата дней по среднедневному заработку: дневная ставка × коэффициент × дни
+     */
+    public static long dayPayment(long dailyRateKopecks, long rate, long days) {
+        return divideHalfUp(dailyRateKopecks * rate * days, RATE_SCALE);
+    }
+
+    public static long sickLeave(long dailyRateKopecks, long days) {
+        return dayPayment(dailyRateKopecks, SICK_LEAVE_RATE, days);
+    }
+
+    public static long vacation(long dailyRateKopecks, long days) {
+        return dayPayment(dailyRateKopecks, VACATION_RATE, days);
+    }
+
+    public static long incomeTax(long totalAccruedKopecks) {
+        return percentage(totalAccruedKopecks, INCOME_TAX_RATE);
+    }
+
+    public static long socialTax(long totalAccruedKopecks) {
+        return percentage(totalAccruedKopecks, SOCIAL_TAX_RATE);
+    }
+
+    /**
+     * Целочисленное деление с округлением HALF_UP (половина — от нуля), как у BigDecimal
+     */
+    public static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (Math.abs(remainder) * 2 >= Math.abs(divisor)) {
+            quotient += (dividend < 0) == (divisor < 0) ? 1 : -1;
+        }
+        return quotient;
+    }
+
+    /**
+     * Копейки из суммы в рублях, округление до 2 знаков HALF_UP; null считается нулем
+     */
+    public static long toKopecks(BigDecimal amount) {
+        return Money.toKopecks(amount);
+    }
+
+    public static long toHundredths(BigDecimal hours) {
+        return toKopecks(hours);
+    }
+
+    public static long toRate(BigDecimal rate) {
+        return rate == null ? 0 : rate.setScale(4, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal fromKopecks(long kopecks) {
+        return BigDecimal.valueOf(kopecks, 2);
+    }
+
+    public static BigDecimal fromRate(long rate) {
+        BigDecimal value = BigDecimal.valueOf(rate, 4).stripTrailingZeros();
+        return value.scale() < 2 ? value.setScale(2) : value;
+    }
+}
@@ -0,0 +1,27 @@
+package by.bsuir.saa.config;
+
+import by.bsuir.saa.datasource.ArchiveMaintenance;
+import by.bsuir.saa.datasource.ArchiveProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import javax.sql.DataSource;
+
+/**
+ * Архив старых лет. Перенос секций включается свойством {@code saa.datasource.archive.enabled=true},
+ * чтение уже перенесенных лет работает всегда
+ */
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(ArchiveProperties.class)
+public class ArchiveConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "saa.datasource.archive", name = "enabled", havingValue = "true")
+    public ArchiveMaintenance archiveMaintenance(DataSource dataSource, ArchiveProperties properties) {
+        return new ArchiveMaintenance(dataSource, properties);
+    }
+}
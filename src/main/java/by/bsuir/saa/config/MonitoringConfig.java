@@ -0,0 +1,55 @@
+package by.bsuir.saa.config;
+
+import by.bsuir.saa.monitoring.EntityLoadCountingInterceptor;
+import by.bsuir.saa.monitoring.InstrumentedDataSource;
+import by.bsuir.saa.monitoring.MonitoringProperties;
+import by.bsuir.saa.monitoring.ProfilerInterceptor;
+import by.bsuir.saa.monitoring.RequestMetricsInterceptor;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+
+@Configuration
+@EnableConfigurationProperties(MonitoringProperties.class)
+public class MonitoringConfig implements WebMvcConfigurer {
+
+    private final RequestMetricsInterceptor requestMetricsInterceptor;
+    private final ProfilerInterceptor profilerInterceptor;
+
+    public MonitoringConfig(RequestMetricsInterceptor requestMetricsInterceptor,
+                            ProfilerInterceptor profilerInterceptor) {
+        this.requestMetricsInterceptor = requestMetricsInterceptor;
+        this.profilerInterceptor = profilerInterceptor;
+    }
+
+    @Bean
+    public static BeanPostProcessor instrumentedDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof InstrumentedDataSource)) {
+                    return new InstrumentedDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer entityLoadCountingCustomizer() {
+        return properties -> properties.put(AvailableSettings.INTERCEPTOR, new EntityLoadCountingInterceptor());
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(requestMetricsInterceptor);
+        registry.addInterceptor(profilerInterceptor);
+    }
+}
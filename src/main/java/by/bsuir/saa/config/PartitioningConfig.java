@@ -0,0 +1,27 @@
+package by.bsuir.saa.config;
+
+import by.bsuir.saa.datasource.PartitionMaintenance;
+import by.bsuir.saa.datasource.PartitioningProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import javax.sql.DataSource;
+
+/**
+ * Обслуживание секций payments, salary_payments и timesheet_entries.
+ * Отключается свойством {@code saa.datasource.partitioning.enabled=false}
+ */
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(PartitioningProperties.class)
+@ConditionalOnProperty(prefix = "saa.datasource.partitioning", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class PartitioningConfig {
+
+    @Bean
+    public PartitionMaintenance partitionMaintenance(DataSource dataSource, PartitioningProperties properties) {
+        return new PartitionMaintenance(dataSource, properties);
+    }
+}
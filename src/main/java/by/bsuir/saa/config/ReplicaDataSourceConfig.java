@@ -0,0 +1,82 @@
+package by.bsuir.saa.config;
+
+import by.bsuir.saa.datasource.ReplicaLagMonitor;
+import by.bsuir.saa.datasource.ReplicaProperties;
+import by.bsuir.saa.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Основная БД и реплика для транзакций только на чтение. Включается свойством
+ * {@code saa.datasource.replica.enabled=true}; без него используется обычный автоконфигурируемый пул.
+ * Пулы не регистрируются бинами, чтобы обертка мониторинга учитывала запросы только один раз
+ */
+@Configuration
+@EnableConfigurationProperties(ReplicaProperties.class)
+@ConditionalOnProperty(prefix = "saa.datasource.replica", name = "enabled", havingValue = "true")
+public class ReplicaDataSourceConfig implements DisposableBean {
+
+    private final ReplicaProperties replicaProperties;
+    private final Environment environment;
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    public ReplicaDataSourceConfig(ReplicaProperties replicaProperties, Environment environment) {
+        this.replicaProperties = replicaProperties;
+        this.environment = environment;
+    }
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties dataSourceProperties, MeterRegistry meterRegistry) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("primary");
+        primary.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        pools.add(primary);
+
+        HikariDataSource replica = new HikariDataSource();
+        replica.setPoolName("replica");
+        replica.setJdbcUrl(replicaProperties.getUrl());
+        replica.setUsername(replicaProperties.getUsername() != null
+                ? replicaProperties.getUsername() : dataSourceProperties.determineUsername());
+        replica.setPassword(replicaProperties.getPassword() != null
+                ? replicaProperties.getPassword() : dataSourceProperties.determinePassword());
+        replica.setDriverClassName(dataSourceProperties.determineDriverClassName());
+        replica.setMaximumPoolSize(replicaProperties.getMaximumPoolSize());
+        replica.setAutoCommit(primary.isAutoCommit());
+        replica.setConnectionTimeout(primary.getConnectionTimeout());
+        replica.setReadOnly(true);
+        replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        replica.setInitializationFailTimeout(-1);
+        pools.add(replica);
+
+        ReplicaLagMonitor lagMonitor = new ReplicaLagMonitor(replica, replicaProperties, meterRegistry);
+        LazyConnectionDataSourceProxy lazyProxy = new LazyConnectionDataSourceProxy();
+        lazyProxy.setTargetDataSource(new ReplicaRoutingDataSource(primary, replica, lagMonitor));
+        lazyProxy.setDefaultAutoCommit(primary.isAutoCommit());
+        lazyProxy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        return lazyProxy;
+    }
+
+    @Override
+    public void destroy() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
@@ -1,14 +1,27 @@
 package by.bsuir.saa.config;
 
+import by.bsuir.saa.view.FragmentCacheDialect;
+import by.bsuir.saa.view.FragmentCacheProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.thymeleaf.extras.springsecurity6.dialect.SpringSecurityDialect;
 
 @Configuration
+@EnableConfigurationProperties(FragmentCacheProperties.class)
 public class ThymeleafConfig {
 
     @Bean
     public SpringSecurityDialect springSecurityDialect() {
         return new SpringSecurityDialect();
     }
-}
\ No newline at end of file
+
+    /**
+     * Диалект регистрируется всегда, чтобы атрибут saa:cache не попадал в HTML;
+     * сам кэш включается свойством {@code saa.view.fragment-cache.enabled=true}
+     */
+    @Bean
+    public FragmentCacheDialect fragmentCacheDialect(FragmentCacheProperties properties) {
+        return new FragmentCacheDialect(properties);
+    }
+}
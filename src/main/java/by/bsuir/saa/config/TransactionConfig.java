@@ -0,0 +1,26 @@
+package by.bsuir.saa.config;
+
+import by.bsuir.saa.datasource.ReadOnlyAwareJpaDialect;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+
+@Configuration
+public class TransactionConfig {
+
+    @Bean
+    public static BeanPostProcessor readOnlyAwareJpaDialectPostProcessor(Environment environment) {
+        boolean openInView = environment.getProperty("spring.jpa.open-in-view", Boolean.class, true);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof LocalContainerEntityManagerFactoryBean factoryBean) {
+                    factoryBean.setJpaDialect(new ReadOnlyAwareJpaDialect(!openInView));
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -1,23 +1,30 @@
 package by.bsuir.saa.controller;
 
+import by.bsuir.saa.calculation.Money;
+import by.bsuir.saa.calculation.MoneyAccumulator;
+import by.bsuir.saa.calculation.PayrollKernel;
 import by.bsuir.saa.entity.*;
+import by.bsuir.saa.projection.PaymentRow;
 import by.bsuir.saa.repository.PaymentRepository;
 import by.bsuir.saa.repository.SalaryPaymentRepository;
+import by.bsuir.saa.security.AuthenticatedUser;
 import by.bsuir.saa.service.*;
 import by.bsuir.saa.util.MonthUtil;
 import lombok.Data;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Controller
 @RequestMapping("/accountant")
@@ -35,6 +42,7 @@ public class AccountantController {
     private final PaymentRepository paymentRepository;
     private final FinalSalaryCalculationService finalSalaryCalculationService;
     private final SalaryPaymentRepository salaryPaymentRepository;
+    private final PeriodClosingService periodClosingService;
 
     public AccountantController(EmployeeService employeeService,
                                 DepartmentService departmentService,
@@ -46,7 +54,8 @@ public class AccountantController {
                                 VacationSickLeaveCalculationService vacationSickLeaveService,
                                 PaymentRepository paymentRepository,
                                 FinalSalaryCalculationService finalSalaryCalculationService,
-                                SalaryPaymentRepository salaryPaymentRepository) {
+                                SalaryPaymentRepository salaryPaymentRepository,
+                                PeriodClosingService periodClosingService) {
         this.employeeService = employeeService;
         this.departmentService = departmentService;
         this.paymentTypeService = paymentTypeService;
@@ -58,12 +67,13 @@ public class AccountantController {
         this.paymentRepository = paymentRepository;
         this.finalSalaryCalculationService = finalSalaryCalculationService;
         this.salaryPaymentRepository = salaryPaymentRepository;
+        this.periodClosingService = periodClosingService;
     }
 
     @Data
     public static class EmployeeBonusInfo {
         private Employee employee;
-        private List<Payment> existingBonuses;
+        private List<PaymentRow> existingBonuses;
         private BigDecimal totalBonuses;
         private boolean hasEnterpriseBonus;
         private boolean hasItrBonus;
@@ -86,7 +96,7 @@ public class AccountantController {
     @Data
     public static class EmployeeDeductionInfo {
         private Employee employee;
-        private List<Payment> existingDeductions;
+        private List<PaymentRow> existingDeductions;
         private BigDecimal totalDeductions = BigDecimal.ZERO;
         private BigDecimal totalAccruals = BigDecimal.ZERO;
         private BigDecimal calculatedIncomeTax = BigDecimal.ZERO;
@@ -391,49 +401,50 @@ public class AccountantController {
                     .toList();
         }
 
+        Map<Integer, List<PaymentRow>> paymentsByEmployee = paymentService.getPaymentRowsByEmployee(month, year);
+        Set<Integer> withFinalSalary = finalSalaryCalculationService.getEmployeeIdsWithFinalSalary(month, year);
+
         List<EmployeeBonusInfo> bonusInfos = employees.stream()
                 .map(employee -> {
                     EmployeeBonusInfo info = new EmployeeBonusInfo();
                     info.setEmployee(employee);
 
-                    List<Payment> allPayments = paymentService.getEmployeePayments(employee, month, year);
+                    List<PaymentRow> allPayments = paymentsByEmployee.getOrDefault(employee.getId(), List.of());
 
-                    List<Payment> accountantBonuses = allPayments.stream()
-                            .filter(p -> "ПРЕД".equals(p.getPaymentType().getCode()) ||
-                                    "ИТР".equals(p.getPaymentType().getCode()))
+                    List<PaymentRow> accountantBonuses = allPayments.stream()
+                            .filter(p -> "ПРЕД".equals(p.getPaymentTypeCode()) ||
+                                    "ИТР".equals(p.getPaymentTypeCode()))
                             .toList();
 
                     info.setExistingBonuses(accountantBonuses);
                     info.setTotalBonuses(accountantBonuses.stream()
-                            .map(Payment::getAmount)
-                            .reduce(BigDecimal.ZERO, BigDecimal::add));
+                            .collect(MoneyAccumulator.summing(PaymentRow::getAmount)));
 
                     boolean hasEnterpriseBonus = allPayments.stream()
-                            .anyMatch(p -> "ПРЕД".equals(p.getPaymentType().getCode()));
+                            .anyMatch(p -> "ПРЕД".equals(p.getPaymentTypeCode()));
                     boolean hasItrBonus = allPayments.stream()
-                            .anyMatch(p -> "ИТР".equals(p.getPaymentType().getCode()));
+                            .anyMatch(p -> "ИТР".equals(p.getPaymentTypeCode()));
 
                     info.setHasEnterpriseBonus(hasEnterpriseBonus);
                     info.setHasItrBonus(hasItrBonus);
 
                     BigDecimal enterpriseBonusAmount = allPayments.stream()
-                            .filter(p -> "ПРЕД".equals(p.getPaymentType().getCode()))
-                            .map(Payment::getAmount)
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
+                            .filter(p -> "ПРЕД".equals(p.getPaymentTypeCode()))
+                            .collect(MoneyAccumulator.summing(PaymentRow::getAmount));
                     info.setEnterpriseBonusAmount(enterpriseBonusAmount);
 
                     BigDecimal itrBonusAmount = allPayments.stream()
-                            .filter(p -> "ИТР".equals(p.getPaymentType().getCode()))
-                            .map(Payment::getAmount)
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
+                            .filter(p -> "ИТР".equals(p.getPaymentTypeCode()))
+                            .collect(MoneyAccumulator.summing(PaymentRow::getAmount));
                     info.setItrBonusAmount(itrBonusAmount);
 
                     boolean hasBaseSalary = allPayments.stream()
-                            .anyMatch(p -> "ОКЛ".equals(p.getPaymentType().getCode()));
+                            .anyMatch(p -> "ОКЛ".equals(p.getPaymentTypeCode()));
                     info.setHasBaseSalary(hasBaseSalary);
 
-                    boolean hasTaxes = taxCalculationService.hasTaxesCalculated(employee, month, year);
-                    boolean hasFinalSalary = finalSalaryCalculationService.isFinalSalaryCalculated(employee, month, year);
+                    boolean hasTaxes = allPayments.stream().anyMatch(p -> "ПН".equals(p.getPaymentTypeCode()))
+                            && allPayments.stream().anyMatch(p -> "ФСЗН".equals(p.getPaymentTypeCode()));
+                    boolean hasFinalSalary = withFinalSalary.contains(employee.getId());
                     info.setHasTaxes(hasTaxes);
                     info.setHasFinalSalary(hasFinalSalary);
                     info.setCanModifyBonuses(!hasTaxes && !hasFinalSalary);
@@ -447,16 +458,14 @@ public class AccountantController {
                 .count();
 
         BigDecimal totalEnterpriseBonuses = bonusInfos.stream()
-                .map(EmployeeBonusInfo::getEnterpriseBonusAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .collect(MoneyAccumulator.summing(EmployeeBonusInfo::getEnterpriseBonusAmount));
 
         long employeesWithoutItrBonus = bonusInfos.stream()
                 .filter(info -> info.hasBaseSalary && !info.hasItrBonus && info.canModifyBonuses)
                 .count();
 
         BigDecimal totalItrBonuses = bonusInfos.stream()
-                .map(EmployeeBonusInfo::getItrBonusAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .collect(MoneyAccumulator.summing(EmployeeBonusInfo::getItrBonusAmount));
 
         long employeesWithItrBonus = bonusInfos.stream()
                 .filter(EmployeeBonusInfo::isHasItrBonus)
@@ -524,7 +533,7 @@ public class AccountantController {
                     .orElseThrow(() -> new RuntimeException("Тип оплаты ПРЕД не найден"));
 
             boolean alreadyExists = paymentService.getEmployeePayments(employee, month, year).stream()
-                    .anyMatch(p -> "ПРЕД".equals(p.getPaymentType().getCode()));
+                    .anyMatch(p -> "ПРЕД".equals(p.getPaymentTypeCode()));
 
             if (alreadyExists) {
                 throw new RuntimeException("Премия по предприятию уже была начислена за этот период");
@@ -557,7 +566,7 @@ public class AccountantController {
             Payment payment = paymentService.getPaymentById(id)
                     .orElseThrow(() -> new RuntimeException("Премия не найдена"));
 
-            String paymentCode = payment.getPaymentType().getCode();
+            String paymentCode = payment.getPaymentTypeCode();
 
             if (!"ПРЕД".equals(paymentCode) && !"ИТР".equals(paymentCode)) {
                 throw new RuntimeException("Бухгалтер может удалять только премии ПРЕД и ИТР");
@@ -624,7 +633,7 @@ public class AccountantController {
             for (Employee employee : employees) {
                 if (bonusCalculationService.isBaseSalaryCalculated(employee, month, year) &&
                         paymentService.getEmployeePayments(employee, month, year).stream()
-                                .noneMatch(p -> "ИТР".equals(p.getPaymentType().getCode()))) {
+                                .noneMatch(p -> "ИТР".equals(p.getPaymentTypeCode()))) {
                     try {
                         bonusCalculationService.calculateItrBonus(employee, month, year);
                         calculatedCount++;
@@ -667,41 +676,42 @@ public class AccountantController {
                     .toList();
         }
 
+        Map<Integer, List<PaymentRow>> paymentsByEmployee = paymentService.getPaymentRowsByEmployee(month, year);
+
         List<EmployeeDeductionInfo> deductionInfos = employees.stream()
                 .map(employee -> {
                     EmployeeDeductionInfo info = new EmployeeDeductionInfo();
                     info.setEmployee(employee);
 
-                    List<Payment> allPayments = paymentService.getEmployeePayments(employee, month, year);
+                    List<PaymentRow> allPayments = paymentsByEmployee.getOrDefault(employee.getId(), List.of());
 
-                    List<Payment> deductions = allPayments.stream()
-                            .filter(p -> "deduction".equals(p.getPaymentType().getCategory()))
+                    List<PaymentRow> deductions = allPayments.stream()
+                            .filter(p -> "deduction".equals(p.getCategory()))
                             .toList();
 
                     info.setExistingDeductions(deductions);
                     info.setTotalDeductions(deductions.stream()
-                            .map(p -> p.getAmount().abs())
-                            .reduce(BigDecimal.ZERO, BigDecimal::add));
+                            .collect(MoneyAccumulator.summingAbsolute(PaymentRow::getAmount)));
 
-                    BigDecimal totalAccruals = allPayments.stream()
-                            .filter(p -> "accrual".equals(p.getPaymentType().getCategory()))
-                            .map(Payment::getAmount)
-                            .reduce(BigDecimal.ZERO, BigDecimal::add);
-                    info.setTotalAccruals(totalAccruals);
+                    Money totalAccruals = allPayments.stream()
+                            .filter(p -> "accrual".equals(p.getCategory()))
+                            .collect(MoneyAccumulator.collecting(PaymentRow::getAmount))
+                            .getTotal();
+                    info.setTotalAccruals(totalAccruals.toBigDecimal());
 
-                    info.setCalculatedIncomeTax(totalAccruals.multiply(new BigDecimal("0.13")).setScale(2, RoundingMode.HALF_UP));
-                    info.setCalculatedSocialTax(totalAccruals.multiply(new BigDecimal("0.01")).setScale(2, RoundingMode.HALF_UP));
+                    info.setCalculatedIncomeTax(totalAccruals.percentage(PayrollKernel.INCOME_TAX_RATE).toBigDecimal());
+                    info.setCalculatedSocialTax(totalAccruals.percentage(PayrollKernel.SOCIAL_TAX_RATE).toBigDecimal());
 
-                    info.setHasIncomeTax(deductions.stream().anyMatch(p -> "ПН".equals(p.getPaymentType().getCode())));
-                    info.setHasSocialTax(deductions.stream().anyMatch(p -> "ФСЗН".equals(p.getPaymentType().getCode())));
+                    info.setHasIncomeTax(deductions.stream().anyMatch(p -> "ПН".equals(p.getPaymentTypeCode())));
+                    info.setHasSocialTax(deductions.stream().anyMatch(p -> "ФСЗН".equals(p.getPaymentTypeCode())));
 
                     boolean hasBaseSalary = allPayments.stream()
-                            .anyMatch(p -> "ОКЛ".equals(p.getPaymentType().getCode()));
+                            .anyMatch(p -> "ОКЛ".equals(p.getPaymentTypeCode()));
                     info.setHasBaseSalary(hasBaseSalary);
 
                     boolean hasBonuses = allPayments.stream()
-                            .anyMatch(p -> "accrual".equals(p.getPaymentType().getCategory()) &&
-                                    !"ОКЛ".equals(p.getPaymentType().getCode()));
+                            .anyMatch(p -> "accrual".equals(p.getCategory()) &&
+                                    !"ОКЛ".equals(p.getPaymentTypeCode()));
                     info.setHasBonuses(hasBonuses);
 
                     return info;
@@ -713,12 +723,10 @@ public class AccountantController {
                 .count();
 
         BigDecimal totalDeductionsAmount = deductionInfos.stream()
-                .map(EmployeeDeductionInfo::getTotalDeductions)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .collect(MoneyAccumulator.summing(EmployeeDeductionInfo::getTotalDeductions));
 
         BigDecimal totalAccrualsAmount = deductionInfos.stream()
-                .map(EmployeeDeductionInfo::getTotalAccruals)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .collect(MoneyAccumulator.summing(EmployeeDeductionInfo::getTotalAccruals));
 
         model.addAttribute("deductionInfos", deductionInfos);
         model.addAttribute("departments", departments);
@@ -806,7 +814,7 @@ public class AccountantController {
             Payment payment = paymentService.getPaymentById(id)
                     .orElseThrow(() -> new RuntimeException("Удержание не найдено"));
 
-            String paymentCode = payment.getPaymentType().getCode();
+            String paymentCode = payment.getPaymentTypeCode();
 
             if (!"АЛ".equals(paymentCode) && !"ПВ".equals(paymentCode)) {
                 throw new RuntimeException("Можно удалять только удержания АЛ и ПВ");
@@ -851,7 +859,7 @@ public class AccountantController {
 
             List<Payment> existingTaxes = paymentService.getEmployeePayments(employee, month, year)
                     .stream()
-                    .filter(p -> "ПН".equals(p.getPaymentType().getCode()) || "ФСЗН".equals(p.getPaymentType().getCode()))
+                    .filter(p -> "ПН".equals(p.getPaymentTypeCode()) || "ФСЗН".equals(p.getPaymentTypeCode()))
                     .toList();
 
             for (Payment tax : existingTaxes) {
@@ -975,6 +983,7 @@ public class AccountantController {
         model.addAttribute("totalEmployees", employees.size());
         model.addAttribute("employeesWithPayments", employeesWithPayments);
         model.addAttribute("employeesWithFinalSalary", employeesWithFinalSalary);
+        model.addAttribute("periodClosure", periodClosingService.getClosure(month, year).orElse(null));
 
         return "accountant/final-salary";
     }
@@ -1023,13 +1032,33 @@ public class AccountantController {
         return "redirect:/accountant/final-salary?month=" + month + "&year=" + year;
     }
 
+    @PostMapping("/final-salary/close-period")
+    public String closePeriod(@RequestParam Integer month,
+                              @RequestParam Integer year,
+                              @AuthenticationPrincipal AuthenticatedUser currentUser,
+                              RedirectAttributes redirectAttributes) {
+        try {
+            PeriodClosure closure = periodClosingService.closePeriod(month, year, currentUser.getId());
+
+            redirectAttributes.addFlashAttribute("success",
+                    "Период " + MonthUtil.getRussianMonthName(month) + " " + year + " закрыт: " +
+                            closure.getEmployeeCount() + " сотрудников, к выплате " + closure.getTotalNet() + " руб.");
+
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("error",
+                    "Ошибка закрытия периода: " + e.getMessage());
+        }
+
+        return "redirect:/accountant/final-salary?month=" + month + "&year=" + year;
+    }
+
     @PostMapping("/final-salary/{id}/delete")
     public String deleteFinalSalary(@PathVariable Integer id,
                                     @RequestParam Integer month,
                                     @RequestParam Integer year,
                                     RedirectAttributes redirectAttributes) {
         try {
-            SalaryPayment salaryPayment = salaryPaymentRepository.findById(id)
+            SalaryPayment salaryPayment = salaryPaymentRepository.findByIdWithEmployee(id)
                     .orElseThrow(() -> new RuntimeException("Расчет зарплаты не найден"));
 
             finalSalaryCalculationService.deleteFinalSalary(salaryPayment.getEmployee(), month, year);
@@ -1058,17 +1087,15 @@ public class AccountantController {
         model.addAttribute("russianMonth", MonthUtil.getRussianMonthName(month));
 
         List<Department> departments = departmentService.getAllDepartments();
-        List<Employee> employees = employeeService.getActiveEmployees();
 
         ReportStatistics statistics = getReportStatistics(month, year);
 
-        List<SalaryPayment> recentSalaries = salaryPaymentRepository.findByMonthAndYear(month, year)
+        List<SalaryPayment> recentSalaries = salaryPaymentRepository.findByMonthAndYearWithEmployee(month, year)
                 .stream()
                 .limit(10)
                 .toList();
 
         model.addAttribute("departments", departments);
-        model.addAttribute("employees", employees);
         model.addAttribute("recentSalaries", recentSalaries);
         model.addAttribute("statistics", statistics);
 
@@ -1085,6 +1112,7 @@ public class AccountantController {
             String filename = "payslip_" + employeeId + "_" + month + "_" + year + ".pdf";
 
             return ResponseEntity.ok()
+                    .cacheControl(periodClosingService.getReportCacheControl(month, year))
                     .header("Content-Type", "application/pdf")
                     .header("Content-Disposition", "attachment; filename=\"" + filename + "\"")
                     .body(pdfBytes);
@@ -1105,6 +1133,7 @@ public class AccountantController {
                     "_" + month + "_" + year + ".pdf";
 
             return ResponseEntity.ok()
+                    .cacheControl(periodClosingService.getReportCacheControl(month, year))
                     .header("Content-Type", "application/pdf")
                     .header("Content-Disposition", "attachment; filename=\"" + filename + "\"")
                     .body(pdfBytes);
@@ -1123,6 +1152,7 @@ public class AccountantController {
             String filename = "salary_report_" + month + "_" + year + ".xlsx";
 
             return ResponseEntity.ok()
+                    .cacheControl(periodClosingService.getReportCacheControl(month, year))
                     .header("Content-Type", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
                     .header("Content-Disposition", "attachment; filename=\"" + filename + "\"")
                     .body(excelBytes);
@@ -1142,6 +1172,7 @@ public class AccountantController {
             String filename = "department_salary_" + departmentId + "_" + month + "_" + year + ".xlsx";
 
             return ResponseEntity.ok()
+                    .cacheControl(periodClosingService.getReportCacheControl(month, year))
                     .header("Content-Type", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
                     .header("Content-Disposition", "attachment; filename=\"" + filename + "\"")
                     .body(excelBytes);
@@ -1158,39 +1189,32 @@ public class AccountantController {
     private boolean hasBonuses(Employee employee, Integer month, Integer year) {
         List<Payment> payments = paymentService.getEmployeePayments(employee, month, year);
         return payments.stream()
-                .anyMatch(p -> "accrual".equals(p.getPaymentType().getCategory()) &&
-                        !"ОКЛ".equals(p.getPaymentType().getCode()));
+                .anyMatch(p -> "accrual".equals(p.getCategory()) &&
+                        !"ОКЛ".equals(p.getPaymentTypeCode()));
     }
 
     private ReportStatistics getReportStatistics(Integer month, Integer year) {
         List<Employee> employees = employeeService.getActiveEmployees();
         long totalEmployees = employees.size();
 
-        BigDecimal totalAccrued = BigDecimal.ZERO;
-        BigDecimal totalDeducted = BigDecimal.ZERO;
-        BigDecimal totalNetSalary = BigDecimal.ZERO;
+        MoneyAccumulator totalAccrued = new MoneyAccumulator();
+        MoneyAccumulator totalDeducted = new MoneyAccumulator();
 
         for (Employee employee : employees) {
             List<Payment> payments = paymentRepository.findByEmployeeAndMonthAndYear(employee, month, year);
 
-            BigDecimal accruals = payments.stream()
-                    .filter(p -> "accrual".equals(p.getPaymentType().getCategory()))
-                    .map(Payment::getAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            BigDecimal deductions = payments.stream()
-                    .filter(p -> "deduction".equals(p.getPaymentType().getCategory()))
-                    .map(p -> p.getAmount().abs())
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            BigDecimal netSalary = accruals.subtract(deductions);
-
-            totalAccrued = totalAccrued.add(accruals);
-            totalDeducted = totalDeducted.add(deductions);
-            totalNetSalary = totalNetSalary.add(netSalary);
+            for (Payment payment : payments) {
+                if ("accrual".equals(payment.getCategory())) {
+                    totalAccrued.add(payment.getAmount());
+                } else if ("deduction".equals(payment.getCategory())) {
+                    totalDeducted.add(Math.abs(Money.toKopecks(payment.getAmount())));
+                }
+            }
         }
 
-        return new ReportStatistics(totalEmployees, totalAccrued, totalDeducted, totalNetSalary);
+        Money totalNetSalary = totalAccrued.getTotal().minus(totalDeducted.getTotal());
+        return new ReportStatistics(totalEmployees, totalAccrued.getSum(), totalDeducted.getSum(),
+                totalNetSalary.toBigDecimal());
     }
 
     private void addAvailableYears(Model model) {
@@ -1,7 +1,12 @@
 package by.bsuir.saa.controller;
 
-import by.bsuir.saa.entity.Employee;
 import by.bsuir.saa.entity.User;
+import by.bsuir.saa.monitoring.ConnectionPoolStatistics;
+import by.bsuir.saa.monitoring.EndpointStatistics;
+import by.bsuir.saa.monitoring.MonitoringProperties;
+import by.bsuir.saa.monitoring.ProfiledRequest;
+import by.bsuir.saa.monitoring.RequestMetricsRegistry;
+import by.bsuir.saa.monitoring.RequestProfiler;
 import by.bsuir.saa.service.EmployeeService;
 import by.bsuir.saa.service.UserManagementService;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -21,17 +26,27 @@ public class AdminController {
 
     private final UserManagementService userManagementService;
     private final EmployeeService employeeService;
+    private final RequestMetricsRegistry requestMetricsRegistry;
+    private final MonitoringProperties monitoringProperties;
+    private final RequestProfiler requestProfiler;
+    private final ConnectionPoolStatistics connectionPoolStatistics;
 
-    public AdminController(UserManagementService userManagementService, EmployeeService employeeService) {
+    public AdminController(UserManagementService userManagementService, EmployeeService employeeService,
+                           RequestMetricsRegistry requestMetricsRegistry, MonitoringProperties monitoringProperties,
+                           RequestProfiler requestProfiler, ConnectionPoolStatistics connectionPoolStatistics) {
         this.userManagementService = userManagementService;
         this.employeeService = employeeService;
+        this.requestMetricsRegistry = requestMetricsRegistry;
+        this.monitoringProperties = monitoringProperties;
+        this.requestProfiler = requestProfiler;
+        this.connectionPoolStatistics = connectionPoolStatistics;
     }
 
     @GetMapping("/dashboard")
     public String dashboard(Model model) {
         long totalUsers = userManagementService.getAllUsers().size();
         long activeUsers = userManagementService.getActiveUsers().size();
-        long totalEmployees = employeeService.getAllEmployees().size();
+        long totalEmployees = employeeService.countAllEmployees();
         long activeEmployees = employeeService.getActiveEmployees().size();
 
         Map<String, Long> userStatsByRole = userManagementService.getUserStatisticsByRole();
@@ -74,8 +89,6 @@ public class AdminController {
 
     @GetMapping("/users/create")
     public String createUserForm(Model model) {
-        List<Employee> employees = employeeService.getAllEmployeesWithDetails();
-
         Map<String, String> roleLabels = new HashMap<>();
         roleLabels.put("ADMIN", "Администратор");
         roleLabels.put("HR", "Специалист по кадрам");
@@ -87,7 +100,6 @@ public class AdminController {
         model.addAttribute("icon", "bi-person-plus");
         model.addAttribute("roles", List.of("ADMIN", "HR", "RATESETTER", "ACCOUNTANT", "ANALYST"));
         model.addAttribute("roleLabels", roleLabels);
-        model.addAttribute("employees", employees);
 
         return "admin/create-user";
     }
@@ -115,8 +127,6 @@ public class AdminController {
                 .findFirst()
                 .orElseThrow(() -> new RuntimeException("Пользователь не найден"));
 
-        List<Employee> employees = employeeService.getAllEmployeesWithDetails();
-
         Map<String, String> roleLabels = new HashMap<>();
         roleLabels.put("ADMIN", "Администратор");
         roleLabels.put("HR", "Специалист по кадрам");
@@ -127,7 +137,6 @@ public class AdminController {
         model.addAttribute("title", "Редактирование пользователя");
         model.addAttribute("icon", "bi-pencil");
         model.addAttribute("user", user);
-        model.addAttribute("employees", employees);
         model.addAttribute("roles", List.of("ADMIN", "HR", "RATESETTER", "ACCOUNTANT", "ANALYST"));
         model.addAttribute("roleLabels", roleLabels);
 
@@ -200,4 +209,68 @@ public class AdminController {
             return String.format("redirect:/admin/users/%d/edit?error=%s", id, e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    @GetMapping("/query-stats")
+    public String queryStats(Model model) {
+        List<EndpointStatistics> endpoints = requestMetricsRegistry.getEndpointStatistics();
+
+        model.addAttribute("title", "Статистика запросов к БД");
+        model.addAttribute("icon", "bi-speedometer2");
+        model.addAttribute("endpoints", endpoints);
+        model.addAttribute("pools", connectionPoolStatistics.getPools());
+        model.addAttribute("slowRequestThresholdMs", monitoringProperties.getSlowRequestThresholdMs());
+        model.addAttribute("statementThreshold", monitoringProperties.getStatementThreshold());
+
+        return "admin/query-stats";
+    }
+
+    @PostMapping("/query-stats/reset")
+    public String resetQueryStats(RedirectAttributes redirectAttributes) {
+        requestMetricsRegistry.reset();
+        redirectAttributes.addFlashAttribute("success", "Статистика запросов сброшена");
+        return "redirect:/admin/query-stats";
+    }
+
+    @GetMapping("/profiler")
+    public String profiler(@RequestParam(required = false) Long traceId, Model model) {
+        List<ProfiledRequest> traces = requestProfiler.getTraces();
+        ProfiledRequest selected = traceId != null
+                ? requestProfiler.getTrace(traceId).orElse(null)
+                : traces.stream().findFirst().orElse(null);
+
+        model.addAttribute("title", "Профилировщик запросов");
+        model.addAttribute("icon", "bi-diagram-3");
+        model.addAttribute("traces", traces);
+        model.addAttribute("selected", selected);
+        model.addAttribute("armed", requestProfiler.isArmed());
+        model.addAttribute("uriPattern", requestProfiler.getUriPattern());
+        model.addAttribute("remainingRequests", requestProfiler.getRemainingRequests());
+        model.addAttribute("capacity", monitoringProperties.getProfilerCapacity());
+
+        return "admin/profiler";
+    }
+
+    @PostMapping("/profiler/arm")
+    public String armProfiler(@RequestParam String uriPattern,
+                              @RequestParam(defaultValue = "1") Integer requestCount,
+                              RedirectAttributes redirectAttributes) {
+        requestProfiler.arm(uriPattern, requestCount);
+        redirectAttributes.addFlashAttribute("success",
+                "Профилирование включено для " + requestProfiler.getUriPattern());
+        return "redirect:/admin/profiler";
+    }
+
+    @PostMapping("/profiler/disarm")
+    public String disarmProfiler(RedirectAttributes redirectAttributes) {
+        requestProfiler.disarm();
+        redirectAttributes.addFlashAttribute("success", "Профилирование выключено");
+        return "redirect:/admin/profiler";
+    }
+
+    @PostMapping("/profiler/clear")
+    public String clearProfiler(RedirectAttributes redirectAttributes) {
+        requestProfiler.clear();
+        redirectAttributes.addFlashAttribute("success", "Сохраненные трассировки удалены");
+        return "redirect:/admin/profiler";
+    }
+}
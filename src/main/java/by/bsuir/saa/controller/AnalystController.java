@@ -5,7 +5,11 @@ import by.bsuir.saa.entity.Employee;
 import by.bsuir.saa.service.AnalyticsService;
 import by.bsuir.saa.service.DepartmentService;
 import by.bsuir.saa.service.EmployeeService;
+import by.bsuir.saa.service.PayrollSimulationService;
+import by.bsuir.saa.service.PeriodClosingService;
+import by.bsuir.saa.service.PositionService;
 import by.bsuir.saa.service.ReportService;
+import by.bsuir.saa.service.WorkforceAnalyticsService;
 import by.bsuir.saa.util.MonthUtil;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
@@ -16,7 +20,10 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.List;
 
 @Controller
@@ -29,6 +36,10 @@ public class AnalystController {
     private final DepartmentService departmentService;
     private final AnalyticsService analyticsService;
     private final ReportService reportService;
+    private final WorkforceAnalyticsService workforceAnalyticsService;
+    private final PayrollSimulationService payrollSimulationService;
+    private final PositionService positionService;
+    private final PeriodClosingService periodClosingService;
 
     @Data
     public static class SalaryTrendData {
@@ -38,6 +49,7 @@ public class AnalystController {
         private int employeeCount;
         private BigDecimal minSalary;
         private BigDecimal maxSalary;
+        private BigDecimal medianSalary;
     }
 
     @Data
@@ -60,6 +72,29 @@ public class AnalystController {
         private BigDecimal totalFOT;
     }
 
+    @Data
+    public static class SalaryDistribution {
+        private String groupName;
+        private long employeeCount;
+        private BigDecimal minSalary;
+        private BigDecimal p10;
+        private BigDecimal p25;
+        private BigDecimal medianSalary;
+        private BigDecimal p75;
+        private BigDecimal p90;
+        private BigDecimal maxSalary;
+        private BigDecimal averageSalary;
+        private BigDecimal gini;
+    }
+
+    @Data
+    public static class HistogramBucket {
+        private BigDecimal lowerBound;
+        private BigDecimal upperBound;
+        private long count;
+        private BigDecimal percentage;
+    }
+
     @Data
     public static class SalaryStructure {
         private String category;
@@ -81,6 +116,8 @@ public class AnalystController {
         AnalyticsService.DashboardStats stats = analyticsService.getDashboardStats(month, year);
         addAvailableYears(model);
 
+        model.addAttribute("periodVersion", periodClosingService.getDataVersion(month, year));
+
         model.addAttribute("totalEmployees", stats.getTotalEmployees());
         model.addAttribute("employeesWithSalary", stats.getEmployeesWithSalary());
         model.addAttribute("totalFOT", stats.getTotalFOT());
@@ -91,6 +128,9 @@ public class AnalystController {
         model.addAttribute("topSalaries", stats.getTopSalaries());
         model.addAttribute("salaryCalculationRate", stats.getSalaryCalculationRate());
 
+        YearMonth period = YearMonth.of(year, month);
+        model.addAttribute("headcountFlow", workforceAnalyticsService.getHeadcountFlow(period.minusMonths(23), period, null));
+
         return "analyst/dashboard";
     }
 
@@ -129,6 +169,7 @@ public class AnalystController {
 
         model.addAttribute("departmentStats", departmentStats);
         model.addAttribute("totalCompanyFOT", totalCompanyFOT);
+        model.addAttribute("periodVersion", periodClosingService.getDataVersion(month, year));
 
         return "analyst/department-analysis";
     }
@@ -150,6 +191,89 @@ public class AnalystController {
         return "analyst/position-analysis";
     }
 
+    @GetMapping("/salary-distribution")
+    public String salaryDistribution(@RequestParam(defaultValue = "#{T(java.time.LocalDate).now().monthValue}") Integer month,
+                                     @RequestParam(defaultValue = "#{T(java.time.LocalDate).now().year}") Integer year,
+                                     @RequestParam(defaultValue = "1") Integer monthsBack,
+                                     @RequestParam(defaultValue = AnalyticsService.DIMENSION_DEPARTMENT) String dimension,
+                                     @RequestParam(required = false) Integer departmentId,
+                                     Model model) {
+
+        model.addAttribute("title", "Распределение заработной платы");
+        model.addAttribute("icon", "bi-bar-chart-steps");
+        model.addAttribute("month", month);
+        model.addAttribute("year", year);
+        model.addAttribute("monthsBack", monthsBack);
+        model.addAttribute("dimension", dimension);
+        model.addAttribute("departmentId", departmentId);
+        model.addAttribute("russianMonth", MonthUtil.getRussianMonthName(month));
+        addAvailableYears(model);
+
+        YearMonth to = YearMonth.of(year, month);
+        YearMonth from = to.minusMonths(monthsBack - 1);
+
+        List<SalaryDistribution> groups = analyticsService.getSalaryDistribution(from, to, dimension);
+        List<SalaryDistribution> company = analyticsService.getSalaryDistribution(from, to, AnalyticsService.DIMENSION_COMPANY);
+
+        model.addAttribute("distribution", groups);
+        model.addAttribute("companyDistribution", company.isEmpty() ? null : company.get(0));
+        model.addAttribute("histogram", analyticsService.getSalaryHistogram(from, to, departmentId, 10));
+        model.addAttribute("departments", departmentService.getAllDepartments());
+
+        return "analyst/salary-distribution";
+    }
+
+    @GetMapping("/simulation")
+    public String simulation(@RequestParam(defaultValue = "#{T(java.time.LocalDate).now().monthValue}") Integer month,
+                             @RequestParam(defaultValue = "#{T(java.time.LocalDate).now().year}") Integer year,
+                             @RequestParam(defaultValue = "0") BigDecimal salaryIncreasePercent,
+                             @RequestParam(required = false) Integer positionId,
+                             @RequestParam(defaultValue = "25") BigDecimal itrPercent,
+                             @RequestParam(defaultValue = "13") BigDecimal incomeTaxPercent,
+                             @RequestParam(defaultValue = "1") BigDecimal socialTaxPercent,
+                             @RequestParam(defaultValue = "0") Integer forecastMonths,
+                             Model model) {
+
+        model.addAttribute("title", "Моделирование ФОТ");
+        model.addAttribute("icon", "bi-sliders");
+        model.addAttribute("month", month);
+        model.addAttribute("year", year);
+        model.addAttribute("salaryIncreasePercent", salaryIncreasePercent);
+        model.addAttribute("positionId", positionId);
+        model.addAttribute("itrPercent", itrPercent);
+        model.addAttribute("incomeTaxPercent", incomeTaxPercent);
+        model.addAttribute("socialTaxPercent", socialTaxPercent);
+        model.addAttribute("forecastMonths", forecastMonths);
+        addAvailableYears(model);
+
+        PayrollSimulationService.PayrollModel payrollModel = payrollSimulationService.loadModel(month, year);
+        YearMonth basePeriod = payrollModel.period();
+        BigDecimal hundred = new BigDecimal("100");
+
+        List<PayrollSimulationService.SimulationScenario> scenarios = new ArrayList<>();
+        int periods = Math.max(0, Math.min(forecastMonths, 12));
+        for (int i = periods == 0 ? 0 : 1; i <= periods; i++) {
+            YearMonth period = basePeriod.plusMonths(i);
+            scenarios.add(PayrollSimulationService.SimulationScenario.builder()
+                    .name(i == 0 ? "Сценарий" : "Прогноз")
+                    .period(period)
+                    .positionId(positionId)
+                    .salaryIncreasePercent(salaryIncreasePercent)
+                    .itrRate(itrPercent.divide(hundred, 4, RoundingMode.HALF_UP))
+                    .incomeTaxRate(incomeTaxPercent.divide(hundred, 4, RoundingMode.HALF_UP))
+                    .socialTaxRate(socialTaxPercent.divide(hundred, 4, RoundingMode.HALF_UP))
+                    .build());
+        }
+
+        model.addAttribute("results", payrollSimulationService.simulate(payrollModel, scenarios));
+        model.addAttribute("employeeCount", payrollModel.employees().size());
+        model.addAttribute("estimatedCount", payrollModel.employees().stream()
+                .filter(PayrollSimulationService.EmployeeSnapshot::estimatedHours).count());
+        model.addAttribute("positions", positionService.getAllPositions());
+
+        return "analyst/simulation";
+    }
+
     @GetMapping("/salary-structure")
     public String salaryStructure(@RequestParam(defaultValue = "#{T(java.time.LocalDate).now().monthValue}") Integer month,
                                   @RequestParam(defaultValue = "#{T(java.time.LocalDate).now().year}") Integer year,
@@ -163,7 +287,6 @@ public class AnalystController {
         model.addAttribute("employeeId", employeeId);
         model.addAttribute("russianMonth", MonthUtil.getRussianMonthName(month));
 
-        List<Employee> employees = employeeService.getActiveEmployees();
         List<SalaryStructure> structureData = analyticsService.getSalaryStructure(month, year, employeeId);
 
         if (employeeId != null) {
@@ -172,7 +295,6 @@ public class AnalystController {
             model.addAttribute("selectedEmployee", employee);
         }
 
-        model.addAttribute("employees", employees);
         model.addAttribute("structureData", structureData);
 
         return "analyst/salary-structure";
@@ -223,6 +345,7 @@ public class AnalystController {
             String filename = "department_analysis_" + month + "_" + year + ".pdf";
 
             return ResponseEntity.ok()
+                    .cacheControl(periodClosingService.getReportCacheControl(month, year))
                     .header("Content-Type", "application/pdf")
                     .header("Content-Disposition", "attachment; filename=\"" + filename + "\"")
                     .body(pdfBytes);
@@ -241,6 +364,7 @@ public class AnalystController {
             String filename = "position_analysis_" + month + "_" + year + ".xlsx";
 
             return ResponseEntity.ok()
+                    .cacheControl(periodClosingService.getReportCacheControl(month, year))
                     .header("Content-Type", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
                     .header("Content-Disposition", "attachment; filename=\"" + filename + "\"")
                     .body(excelBytes);
@@ -259,6 +383,7 @@ public class AnalystController {
             String filename = "position_analysis_" + month + "_" + year + ".pdf";
 
             return ResponseEntity.ok()
+                    .cacheControl(periodClosingService.getReportCacheControl(month, year))
                     .header("Content-Type", "application/pdf")
                     .header("Content-Disposition", "attachment; filename=\"" + filename + "\"")
                     .body(pdfBytes);
@@ -0,0 +1,43 @@
+package by.bsuir.saa.controller;
+
+import by.bsuir.saa.security.AuthenticatedUser;
+import by.bsuir.saa.service.EmployeeSearchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.List;
+import java.util.Set;
+
+@Controller
+@RequestMapping("/employees")
+@PreAuthorize("isAuthenticated()")
+@RequiredArgsConstructor
+public class EmployeeSearchController {
+
+    private final EmployeeSearchService employeeSearchService;
+
+    private static final Set<String> ARCHIVE_ROLES = Set.of("ADMIN", "HR");
+
+    /**
+     * Подсказки для полей выбора сотрудника: лучшие совпадения по ФИО в формате JSON.
+     * Уволенных сотрудников ({@code activeOnly=false}) видят только администратор и отдел кадров
+     */
+    @GetMapping("/search")
+    @ResponseBody
+    public List<EmployeeSearchService.EmployeeMatch> search(@RequestParam("q") String query,
+                                                            @RequestParam(defaultValue = "10") int limit,
+                                                            @RequestParam(defaultValue = "true") boolean activeOnly,
+                                                            @AuthenticationPrincipal AuthenticatedUser currentUser) {
+        if (!activeOnly && !ARCHIVE_ROLES.contains(currentUser.getRole())) {
+            throw new AccessDeniedException("Поиск уволенных сотрудников доступен только администратору и отделу кадров");
+        }
+        return employeeSearchService.search(query, limit, activeOnly);
+    }
+}
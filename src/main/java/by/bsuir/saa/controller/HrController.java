@@ -1,20 +1,25 @@
 package by.bsuir.saa.controller;
 
 import by.bsuir.saa.entity.*;
+import by.bsuir.saa.projection.EmployeeRow;
+import by.bsuir.saa.projection.TimesheetSummary;
+import by.bsuir.saa.security.AuthenticatedUser;
 import by.bsuir.saa.service.*;
 import by.bsuir.saa.util.MonthUtil;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Controller
@@ -26,21 +31,21 @@ public class HrController {
     private final TimesheetService timesheetService;
     private final PositionService positionService;
     private final DepartmentService departmentService;
-    private final UserManagementService userManagementService;
     private final MarkTypeService markTypeService;
+    private final WorkforceAnalyticsService workforceAnalyticsService;
 
     public HrController(EmployeeService employeeService,
                         TimesheetService timesheetService,
                         PositionService positionService,
                         DepartmentService departmentService,
-                        UserManagementService userManagementService,
-                        MarkTypeService markTypeService) {
+                        MarkTypeService markTypeService,
+                        WorkforceAnalyticsService workforceAnalyticsService) {
         this.employeeService = employeeService;
         this.timesheetService = timesheetService;
         this.positionService = positionService;
         this.departmentService = departmentService;
-        this.userManagementService = userManagementService;
         this.markTypeService = markTypeService;
+        this.workforceAnalyticsService = workforceAnalyticsService;
     }
 
     @GetMapping("/dashboard")
@@ -63,9 +68,10 @@ public class HrController {
         double pendingPercent = totalEmployees > 0 ? (timesheetsPending * 100.0 / totalEmployees) : 0;
         double notFilledPercent = totalEmployees > 0 ? ((totalEmployees - timesheetsConfirmed - timesheetsPending) * 100.0 / totalEmployees) : 0;
 
-        LocalDate periodStart = LocalDate.of(year, month, 1);
-        LocalDate periodEnd = periodStart.withDayOfMonth(periodStart.lengthOfMonth());
-        long newEmployees = employeeService.getNewEmployeesCount(periodStart, periodEnd);
+        YearMonth period = YearMonth.of(year, month);
+        List<WorkforceAnalyticsService.HeadcountFlow> headcountFlow =
+                workforceAnalyticsService.getHeadcountFlow(period.minusMonths(11), period, null);
+        long newEmployees = headcountFlow.isEmpty() ? 0 : headcountFlow.get(headcountFlow.size() - 1).getHires();
 
         addAvailableYears(model);
 
@@ -74,6 +80,7 @@ public class HrController {
         model.addAttribute("timesheetsConfirmed", timesheetsConfirmed);
         model.addAttribute("timesheetsPending", timesheetsPending);
         model.addAttribute("newEmployees", newEmployees);
+        model.addAttribute("headcountFlow", headcountFlow);
         model.addAttribute("timesheetCompletionRate", Math.round(confirmedPercent));
         model.addAttribute("confirmedPercent", confirmedPercent);
         model.addAttribute("pendingPercent", pendingPercent);
@@ -83,20 +90,24 @@ public class HrController {
     }
 
     @GetMapping("/employees")
-    public String employeesPage(Model model) {
+    public String employeesPage(@RequestParam(defaultValue = "false") boolean includeArchived, Model model) {
         model.addAttribute("title", "Управление сотрудниками");
         model.addAttribute("icon", "bi-people");
 
-        List<Employee> employees = employeeService.getAllEmployees();
+        List<EmployeeRow> employees = includeArchived
+                ? employeeService.getAllEmployeeRows()
+                : employeeService.getCurrentEmployeeRows();
 
-        long activeCount = employees.stream().filter(e -> e.getTerminationDate() == null).count();
+        long activeCount = employees.stream().filter(EmployeeRow::isActive).count();
         long terminatedCount = employees.size() - activeCount;
-        long departmentCount = employees.stream().map(Employee::getDepartment).distinct().count();
+        long departmentCount = employees.stream().map(EmployeeRow::getDepartmentId).distinct().count();
 
         model.addAttribute("employees", employees);
         model.addAttribute("activeCount", activeCount);
         model.addAttribute("terminatedCount", terminatedCount);
         model.addAttribute("departmentCount", departmentCount);
+        model.addAttribute("includeArchived", includeArchived);
+        model.addAttribute("archivedCount", includeArchived ? 0 : employeeService.countArchivedEmployees());
 
         return "hr/employees";
     }
@@ -252,13 +263,7 @@ public class HrController {
         model.addAttribute("russianMonth", MonthUtil.getRussianMonthName(month));
         model.addAttribute("russianMonths", MonthUtil.getRussianMonthsMap());
 
-        List<Timesheet> timesheets = timesheetService.getTimesheetsByPeriod(month, year);
-
-        if (departmentId != null) {
-            timesheets = timesheets.stream()
-                    .filter(t -> t.getEmployee().getDepartment().getId().equals(departmentId))
-                    .collect(Collectors.toList());
-        }
+        List<TimesheetSummary> timesheets = timesheetService.getTimesheetSummaries(month, year, departmentId);
 
         long confirmedCount = timesheets.stream()
                 .filter(t -> t.getStatus() == Timesheet.TimesheetStatus.CONFIRMED)
@@ -267,18 +272,15 @@ public class HrController {
                 .filter(t -> t.getStatus() == Timesheet.TimesheetStatus.DRAFT)
                 .count();
 
-        List<Employee> activeEmployees = employeeService.getActiveEmployees();
+        List<Employee> activeEmployees = departmentId != null ?
+                employeeService.getActiveEmployeesByDepartment(departmentId) :
+                employeeService.getActiveEmployees();
 
-        if (departmentId != null) {
-            activeEmployees = activeEmployees.stream()
-                    .filter(e -> e.getDepartment().getId().equals(departmentId))
-                    .toList();
-        }
-
-        List<Timesheet> finalTimesheets = timesheets;
+        Set<Integer> employeesWithTimesheet = timesheets.stream()
+                .map(TimesheetSummary::getEmployeeId)
+                .collect(Collectors.toSet());
         long missingTimesheetsCount = activeEmployees.stream()
-                .filter(employee -> finalTimesheets.stream()
-                        .noneMatch(t -> t.getEmployee().getId().equals(employee.getId())))
+                .filter(employee -> !employeesWithTimesheet.contains(employee.getId()))
                 .count();
 
         List<Department> departments = departmentService.getAllDepartments();
@@ -302,14 +304,15 @@ public class HrController {
         model.addAttribute("icon", "bi-calendar-plus");
         model.addAttribute("russianMonth", MonthUtil.getRussianMonthName(month));
 
-        List<Employee> activeEmployees = employeeService.getActiveEmployees();
         List<Department> departments = departmentService.getAllDepartments();
 
-        model.addAttribute("employees", activeEmployees);
+        if (employeeId != null) {
+            employeeService.getEmployeeById(employeeId)
+                    .ifPresent(employee -> model.addAttribute("selectedEmployee", employee));
+        }
         model.addAttribute("departments", departments);
         model.addAttribute("month", month);
         model.addAttribute("year", year);
-        model.addAttribute("selectedEmployeeId", employeeId);
         model.addAttribute("russianMonth", MonthUtil.getRussianMonthName(month));
         model.addAttribute("russianMonths", MonthUtil.getRussianMonthsMap());
 
@@ -368,7 +371,7 @@ public class HrController {
 
     @GetMapping("/timesheets/{id}/edit")
     public String editTimesheetForm(@PathVariable Integer id, Model model) {
-        Timesheet timesheet = timesheetService.getTimesheetById(id)
+        Timesheet timesheet = timesheetService.getTimesheetForEditing(id)
                 .orElseThrow(() -> new RuntimeException("Табель не найден"));
 
         model.addAttribute("title", "Редактирование табеля - " + timesheet.getEmployee().getFullName());
@@ -379,12 +382,10 @@ public class HrController {
         List<LocalDate> monthDays = getDaysInMonth(timesheet.getYear(), timesheet.getMonth());
         model.addAttribute("monthDays", monthDays);
 
-        Map<LocalDate, TimesheetEntry> entriesMap = timesheetService.getTimesheetEntriesMap(timesheet);
         Map<String, TimesheetEntry> stringEntriesMap = new HashMap<>();
 
-        for (Map.Entry<LocalDate, TimesheetEntry> entry : entriesMap.entrySet()) {
-            String dateKey = entry.getKey().toString();
-            stringEntriesMap.put(dateKey, entry.getValue());
+        for (TimesheetEntry entry : timesheet.getTimesheetEntries()) {
+            stringEntriesMap.put(entry.getDate().toString(), entry);
         }
 
         model.addAttribute("entriesMap", stringEntriesMap);
@@ -457,13 +458,10 @@ public class HrController {
 
     @PostMapping("/timesheets/{id}/confirm")
     public String confirmTimesheet(@PathVariable Integer id,
-                                   Authentication authentication,
+                                   @AuthenticationPrincipal AuthenticatedUser currentUser,
                                    RedirectAttributes redirectAttributes) {
         try {
-            User currentUser = userManagementService.findUserByUsername(authentication.getName())
-                    .orElseThrow(() -> new RuntimeException("Пользователь не найден"));
-
-            timesheetService.confirmTimesheet(id, currentUser);
+            timesheetService.confirmTimesheet(id, currentUser.getId());
 
             redirectAttributes.addFlashAttribute("success", "Табель успешно подтвержден");
 
@@ -477,29 +475,22 @@ public class HrController {
     @PostMapping("/timesheets/batch-confirm")
     public String batchConfirmTimesheets(@RequestParam Integer month,
                                          @RequestParam Integer year,
-                                         Authentication authentication,
+                                         @RequestParam(required = false) Integer departmentId,
+                                         @AuthenticationPrincipal AuthenticatedUser currentUser,
                                          RedirectAttributes redirectAttributes) {
         try {
-            User currentUser = userManagementService.findUserByUsername(authentication.getName())
-                    .orElseThrow(() -> new RuntimeException("Пользователь не найден"));
-
-            List<Timesheet> timesheets = timesheetService.getTimesheetsByPeriod(month, year);
-            int confirmedCount = 0;
-
-            for (Timesheet timesheet : timesheets) {
-                if (timesheet.getStatus() != Timesheet.TimesheetStatus.CONFIRMED) {
-                    timesheetService.confirmTimesheet(timesheet.getId(), currentUser);
-                    confirmedCount++;
-                }
-            }
+            List<Integer> confirmedIds = timesheetService.confirmTimesheetsByPeriod(month, year, departmentId, currentUser.getId());
 
             redirectAttributes.addFlashAttribute("success",
-                    "Подтверждено " + confirmedCount + " табелей за " + MonthUtil.getRussianMonthName(month) + " " + year);
+                    "Подтверждено " + confirmedIds.size() + " табелей за " + MonthUtil.getRussianMonthName(month) + " " + year);
 
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("error", "Ошибка пакетного подтверждения табелей: " + e.getMessage());
         }
 
+        if (departmentId != null) {
+            return "redirect:/hr/timesheets?month=%d&year=%d&departmentId=%d".formatted(month, year, departmentId);
+        }
         return "redirect:/hr/timesheets?month=%d&year=%d".formatted(month, year);
     }
 
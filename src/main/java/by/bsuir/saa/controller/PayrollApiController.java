@@ -0,0 +1,236 @@
+package by.bsuir.saa.controller;
+
+import by.bsuir.saa.service.AnalyticsService;
+import by.bsuir.saa.service.PayrollApiService;
+import by.bsuir.saa.service.PayrollApiService.ApiPage;
+import by.bsuir.saa.service.PayrollApiService.InvalidRequestException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.MissingServletRequestParameterException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * JSON API для интеграций. Списки отдаются страницами по курсору ({@code cursor}, {@code limit}),
+ * параметр {@code fields} ограничивает набор полей. Выгрузки {@code /stream} и {@code /payroll}
+ * отдают все строки в формате NDJSON: одна строка JSON на запись, без загрузки всего списка в память
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/v1")
+@RequiredArgsConstructor
+public class PayrollApiController {
+
+    public static final String NDJSON = "application/x-ndjson";
+
+    private final PayrollApiService payrollApiService;
+    private final AnalyticsService analyticsService;
+    private final ObjectMapper objectMapper;
+
+    @GetMapping("/employees")
+    public ApiPage employees(@RequestParam(required = false) Integer departmentId,
+                             @RequestParam(defaultValue = "false") boolean activeOnly,
+                             @RequestParam(required = false) String fields,
+                             @RequestParam(required = false) String cursor,
+                             @RequestParam(required = false) Integer limit) {
+        return payrollApiService.getEmployees(departmentId, activeOnly, fields, cursor, limit);
+    }
+
+    @GetMapping("/employees/stream")
+    public void streamEmployees(@RequestParam(required = false) Integer departmentId,
+                                @RequestParam(defaultValue = "false") boolean activeOnly,
+                                @RequestParam(required = false) String fields,
+                                HttpServletResponse response) throws IOException {
+        stream(response, writer -> payrollApiService.streamEmployees(departmentId, activeOnly, fields, writer));
+    }
+
+    @GetMapping("/timesheets")
+    public ApiPage timesheets(@RequestParam Integer month,
+                              @RequestParam Integer year,
+                              @RequestParam(required = false) Integer departmentId,
+                              @RequestParam(required = false) String fields,
+                              @RequestParam(required = false) String cursor,
+                              @RequestParam(required = false) Integer limit) {
+        return payrollApiService.getTimesheets(month, year, departmentId, fields, cursor, limit);
+    }
+
+    @GetMapping("/timesheets/stream")
+    public void streamTimesheets(@RequestParam Integer month,
+                                 @RequestParam Integer year,
+                                 @RequestParam(required = false) Integer departmentId,
+                                 @RequestParam(required = false) String fields,
+                                 HttpServletResponse response) throws IOException {
+        stream(response, writer -> payrollApiService.streamTimesheets(month, year, departmentId, fields, writer));
+    }
+
+    @GetMapping("/payments")
+    public ApiPage payments(@RequestParam Integer month,
+                            @RequestParam Integer year,
+                            @RequestParam(required = false) String category,
+                            @RequestParam(required = false) String fields,
+                            @RequestParam(required = false) String cursor,
+                            @RequestParam(required = false) Integer limit) {
+        return payrollApiService.getPayments(month, year, category, fields, cursor, limit);
+    }
+
+    @GetMapping("/payments/stream")
+    public void streamPayments(@RequestParam Integer month,
+                               @RequestParam Integer year,
+                               @RequestParam(required = false) String category,
+                               @RequestParam(required = false) String fields,
+                               HttpServletResponse response) throws IOException {
+        stream(response, writer -> payrollApiService.streamPayments(month, year, category, fields, writer));
+    }
+
+    @GetMapping("/salary-payments")
+    public ApiPage salaryPayments(@RequestParam Integer month,
+                                  @RequestParam Integer year,
+                                  @RequestParam(required = false) Integer departmentId,
+                                  @RequestParam(required = false) String fields,
+                                  @RequestParam(required = false) String cursor,
+                                  @RequestParam(required = false) Integer limit) {
+        return payrollApiService.getSalaryPayments(month, year, departmentId, fields, cursor, limit);
+    }
+
+    @GetMapping("/salary-payments/stream")
+    public void streamSalaryPayments(@RequestParam Integer month,
+                                     @RequestParam Integer year,
+                                     @RequestParam(required = false) Integer departmentId,
+                                     @RequestParam(required = false) String fields,
+                                     HttpServletResponse response) throws IOException {
+        stream(response, writer -> payrollApiService.streamSalaryPayments(month, year, departmentId, fields, writer));
+    }
+
+    /**
+     * Расчетный месяц целиком: итоговые зарплаты, начисления и удержания, табели
+     */
+    @GetMapping("/payroll")
+    public void streamPayroll(@RequestParam Integer month,
+                              @RequestParam Integer year,
+                              HttpServletResponse response) throws IOException {
+        stream(response, writer -> payrollApiService.streamPayroll(month, year, writer));
+    }
+
+    @GetMapping("/analytics/dashboard")
+    public AnalyticsService.DashboardStats dashboard(@RequestParam Integer month,
+                                                     @RequestParam Integer year) {
+        PayrollApiService.validatePeriod(month, year);
+        return analyticsService.getDashboardStats(month, year);
+    }
+
+    @GetMapping("/analytics/departments")
+    public List<AnalystController.DepartmentStats> departments(@RequestParam Integer month,
+                                                               @RequestParam Integer year) {
+        PayrollApiService.validatePeriod(month, year);
+        return analyticsService.calculateDepartmentStats(month, year);
+    }
+
+    @ExceptionHandler(InvalidRequestException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidRequest(InvalidRequestException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler({MissingServletRequestParameterException.class, MethodArgumentTypeMismatchException.class})
+    public ResponseEntity<Map<String, String>> handleBadParameter(Exception e) {
+        String name = e instanceof MissingServletRequestParameterException missing
+                ? missing.getParameterName()
+                : ((MethodArgumentTypeMismatchException) e).getName();
+        return ResponseEntity.badRequest().body(Map.of("error", "Некорректный или отсутствующий параметр: " + name));
+    }
+
+    /**
+     * Внутренние ошибки не раскрывают клиенту текст исключения. Если ответ уже отправляется,
+     * тело не пишется: выгрузку прерывает {@link #stream}
+     */
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<Map<String, String>> handleError(Exception e, HttpServletResponse response) {
+        log.error("Ошибка API: {}", e.getMessage(), e);
+        if (response.isCommitted()) {
+            return null;
+        }
+        return ResponseEntity.internalServerError().body(Map.of("error", "Внутренняя ошибка сервера"));
+    }
+
+    /**
+     * Выгрузка NDJSON. Ошибка до отправки первых байтов сбрасывает ответ и обрабатывается
+     * как обычно (400 или 500). После отправки код ответа уже 200, поэтому выгрузка завершается
+     * строкой {@code {"error": ...}}, по которой клиент отличает прерванную выгрузку от полной
+     */
+    private void stream(HttpServletResponse response, Consumer<NdjsonWriter> export) throws IOException {
+        NdjsonWriter writer = new NdjsonWriter(response);
+        try {
+            export.accept(writer);
+        } catch (RuntimeException e) {
+            if (!response.isCommitted()) {
+                response.reset();
+                throw e;
+            }
+            log.error("Выгрузка NDJSON прервана: {}", e.getMessage(), e);
+            writer.abort();
+            return;
+        }
+        writer.finish();
+    }
+
+    /**
+     * Пишет строки в ответ по мере чтения из БД. Ответ открывается на первой строке,
+     * поэтому ошибка в параметрах до начала выгрузки еще возвращается как JSON с кодом 400
+     */
+    private class NdjsonWriter implements Consumer<Map<String, Object>> {
+
+        private final HttpServletResponse response;
+        private Writer writer;
+
+        NdjsonWriter(HttpServletResponse response) {
+            this.response = response;
+        }
+
+        @Override
+        public void accept(Map<String, Object> row) {
+            try {
+                if (writer == null) {
+                    writer = open();
+                }
+                writer.write(objectMapper.writeValueAsString(row));
+                writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void finish() throws IOException {
+            if (writer == null) {
+                writer = open();
+            }
+            writer.flush();
+        }
+
+        void abort() throws IOException {
+            accept(Map.of("error", "Выгрузка прервана из-за внутренней ошибки сервера"));
+            writer.flush();
+        }
+
+        private Writer open() throws IOException {
+            response.setContentType(NDJSON);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            return new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
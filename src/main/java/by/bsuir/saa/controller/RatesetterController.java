@@ -1,5 +1,6 @@
 package by.bsuir.saa.controller;
 
+import by.bsuir.saa.calculation.MoneyAccumulator;
 import by.bsuir.saa.entity.*;
 import by.bsuir.saa.service.*;
 import by.bsuir.saa.util.MonthUtil;
@@ -31,6 +32,7 @@ public class RatesetterController {
     private final BonusCalculationService bonusCalculationService;
     private final TaxCalculationService taxCalculationService;
     private final FinalSalaryCalculationService finalSalaryCalculationService;
+    private final FormulaPaymentService formulaPaymentService;
 
     public RatesetterController(PositionService positionService,
                                 DepartmentService departmentService,
@@ -41,7 +43,8 @@ public class RatesetterController {
                                 SalaryCalculationService salaryCalculationService,
                                 BonusCalculationService bonusCalculationService,
                                 TaxCalculationService taxCalculationService,
-                                FinalSalaryCalculationService finalSalaryCalculationService) {
+                                FinalSalaryCalculationService finalSalaryCalculationService,
+                                FormulaPaymentService formulaPaymentService) {
         this.positionService = positionService;
         this.departmentService = departmentService;
         this.paymentTypeService = paymentTypeService;
@@ -52,6 +55,7 @@ public class RatesetterController {
         this.bonusCalculationService = bonusCalculationService;
         this.taxCalculationService = taxCalculationService;
         this.finalSalaryCalculationService = finalSalaryCalculationService;
+        this.formulaPaymentService = formulaPaymentService;
     }
 
     @Data
@@ -79,7 +83,7 @@ public class RatesetterController {
         public Payment getSalaryPayment() {
             if (existingPayments != null) {
                 return existingPayments.stream()
-                        .filter(p -> "ОКЛ".equals(p.getPaymentType().getCode()))
+                        .filter(p -> "ОКЛ".equals(p.getPaymentTypeCode()))
                         .findFirst()
                         .orElse(null);
             }
@@ -466,12 +470,12 @@ public class RatesetterController {
                         info.setExistingPayments(employeePayments);
 
                         boolean hasCalculation = employeePayments.stream()
-                                .anyMatch(p -> "ОКЛ".equals(p.getPaymentType().getCode()));
+                                .anyMatch(p -> "ОКЛ".equals(p.getPaymentTypeCode()));
                         info.setHasCalculation(hasCalculation);
 
                         if (hasCalculation) {
                             Optional<Payment> salaryPayment = employeePayments.stream()
-                                    .filter(p -> "ОКЛ".equals(p.getPaymentType().getCode()))
+                                    .filter(p -> "ОКЛ".equals(p.getPaymentTypeCode()))
                                     .findFirst();
                             salaryPayment.ifPresent(payment -> info.setCalculatedSalary(payment.getAmount()));
                         }
@@ -548,7 +552,7 @@ public class RatesetterController {
             Payment payment = paymentService.getPaymentById(id)
                     .orElseThrow(() -> new RuntimeException("Платеж не найден"));
 
-            if (!"ОКЛ".equals(payment.getPaymentType().getCode())) {
+            if (!"ОКЛ".equals(payment.getPaymentTypeCode())) {
                 throw new RuntimeException("Можно пересчитывать только платежи оклада");
             }
 
@@ -573,7 +577,7 @@ public class RatesetterController {
             Payment payment = paymentService.getPaymentById(id)
                     .orElseThrow(() -> new RuntimeException("Платеж не найден"));
 
-            if (!"ОКЛ".equals(payment.getPaymentType().getCode())) {
+            if (!"ОКЛ".equals(payment.getPaymentTypeCode())) {
                 throw new RuntimeException("Можно удалять только платежи оклада");
             }
 
@@ -623,25 +627,24 @@ public class RatesetterController {
                     List<Payment> allPayments = paymentService.getEmployeePayments(employee, month, year);
 
                     List<Payment> ratesetterBonuses = allPayments.stream()
-                            .filter(p -> "ПХД".equals(p.getPaymentType().getCode()) ||
-                                    "ПСС".equals(p.getPaymentType().getCode()) ||
-                                    "СТАЖ".equals(p.getPaymentType().getCode()))
+                            .filter(p -> "ПХД".equals(p.getPaymentTypeCode()) ||
+                                    "ПСС".equals(p.getPaymentTypeCode()) ||
+                                    "СТАЖ".equals(p.getPaymentTypeCode()))
                             .toList();
 
                     info.setExistingBonuses(ratesetterBonuses);
                     info.setTotalBonuses(ratesetterBonuses.stream()
-                            .map(Payment::getAmount)
-                            .reduce(BigDecimal.ZERO, BigDecimal::add));
+                            .collect(MoneyAccumulator.summing(Payment::getAmount)));
 
                     boolean hasBaseSalary = allPayments.stream()
-                            .anyMatch(p -> "ОКЛ".equals(p.getPaymentType().getCode()));
+                            .anyMatch(p -> "ОКЛ".equals(p.getPaymentTypeCode()));
                     info.setHasBaseSalary(hasBaseSalary);
 
                     info.setSeniorityYears(bonusCalculationService.getEmployeeSeniority(employee));
                     info.setSeniorityPercentage(bonusCalculationService.getSeniorityPercentageText(employee));
 
                     boolean hasSeniorityBonus = allPayments.stream()
-                            .anyMatch(p -> "СТАЖ".equals(p.getPaymentType().getCode()));
+                            .anyMatch(p -> "СТАЖ".equals(p.getPaymentTypeCode()));
 
                     info.setHasSeniorityBonus(hasSeniorityBonus);
 
@@ -660,8 +663,7 @@ public class RatesetterController {
                 .count();
 
         BigDecimal totalBonusesAmount = bonusInfos.stream()
-                .map(EmployeeBonusInfo::getTotalBonuses)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .collect(MoneyAccumulator.summing(EmployeeBonusInfo::getTotalBonuses));
 
         long employeesWithoutSeniorityBonus = bonusInfos.stream()
                 .filter(info -> info.hasBaseSalary && !info.hasSeniorityBonus && info.seniorityYears >= 1)
@@ -800,7 +802,7 @@ public class RatesetterController {
                 if (bonusCalculationService.isBaseSalaryCalculated(employee, month, year) &&
                         bonusCalculationService.getEmployeeSeniority(employee) >= 1 &&
                         paymentService.getEmployeePayments(employee, month, year).stream()
-                                .noneMatch(p -> "СТАЖ".equals(p.getPaymentType().getCode())) &&
+                                .noneMatch(p -> "СТАЖ".equals(p.getPaymentTypeCode())) &&
                         !taxCalculationService.hasTaxesCalculated(employee, month, year) &&
                         !finalSalaryCalculationService.isFinalSalaryCalculated(employee, month, year)) {
                     try {
@@ -822,6 +824,24 @@ public class RatesetterController {
         return "redirect:/ratesetter/bonuses?month=%d&year=%d".formatted(month, year);
     }
 
+    @PostMapping("/bonuses/calculate-formula-batch")
+    public String calculateFormulaPaymentsBatch(@RequestParam Integer month,
+                                                @RequestParam Integer year,
+                                                RedirectAttributes redirectAttributes) {
+        try {
+            int calculatedCount = formulaPaymentService.calculateFormulaPaymentsBatch(month, year);
+
+            redirectAttributes.addFlashAttribute("success",
+                    "Начисления по формулам рассчитаны для " + calculatedCount + " сотрудников");
+
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("error",
+                    "Ошибка расчета начислений по формулам: " + e.getMessage());
+        }
+
+        return "redirect:/ratesetter/bonuses?month=%d&year=%d".formatted(month, year);
+    }
+
     @PostMapping("/bonuses/{id}/delete")
     public String deleteBonus(@PathVariable Integer id,
                               @RequestParam Integer month,
@@ -831,7 +851,7 @@ public class RatesetterController {
             Payment payment = paymentService.getPaymentById(id)
                     .orElseThrow(() -> new RuntimeException("Надбавка не найдена"));
 
-            String paymentCode = payment.getPaymentType().getCode();
+            String paymentCode = payment.getPaymentTypeCode();
 
             if (!"ПХД".equals(paymentCode) && !"ПСС".equals(paymentCode) && !"СТАЖ".equals(paymentCode)) {
                 throw new RuntimeException("Нормировщик может удалять только надбавки ПХД, ПСС и СТАЖ");
@@ -866,7 +886,7 @@ public class RatesetterController {
 
         for (Payment payment : payments) {
             result.append("Платеж: ")
-                    .append(payment.getPaymentType().getCode())
+                    .append(payment.getPaymentTypeCode())
                     .append(" - ")
                     .append(payment.getPaymentType().getName())
                     .append(" - ")
@@ -875,7 +895,7 @@ public class RatesetterController {
         }
 
         boolean hasOklad = payments.stream()
-                .anyMatch(p -> "ОКЛ".equals(p.getPaymentType().getCode()));
+                .anyMatch(p -> "ОКЛ".equals(p.getPaymentTypeCode()));
         result.append("<br>Оклад найден: ").append(hasOklad);
 
         return result.toString();
@@ -884,16 +904,16 @@ public class RatesetterController {
     private boolean hasTaxes(Employee employee, Integer month, Integer year) {
         List<Payment> payments = paymentService.getEmployeePayments(employee, month, year);
         return payments.stream()
-                .anyMatch(p -> "deduction".equals(p.getPaymentType().getCategory()) &&
-                        ("ПН".equals(p.getPaymentType().getCode()) ||
-                                "ФСЗН".equals(p.getPaymentType().getCode())));
+                .anyMatch(p -> "deduction".equals(p.getCategory()) &&
+                        ("ПН".equals(p.getPaymentTypeCode()) ||
+                                "ФСЗН".equals(p.getPaymentTypeCode())));
     }
 
     private boolean hasBonuses(Employee employee, Integer month, Integer year) {
         List<Payment> payments = paymentService.getEmployeePayments(employee, month, year);
         return payments.stream()
-                .anyMatch(p -> "accrual".equals(p.getPaymentType().getCategory()) &&
-                        !"ОКЛ".equals(p.getPaymentType().getCode()));
+                .anyMatch(p -> "accrual".equals(p.getCategory()) &&
+                        !"ОКЛ".equals(p.getPaymentTypeCode()));
     }
 
     private void addAvailableYears(Model model) {
@@ -0,0 +1,255 @@
+package by.bsuir.saa.datasource;
+
+import by.bsuir.saa.datasource.PartitionMaintenance.PartitionedTable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Переносит годовые секции payments, salary_payments и timesheet_entries старше {@code horizon-years}
+ * лет в схему archive. Год переносится, только если все его месяцы закрыты: отчеты и расчетные
+ * листки за него строятся по снимкам, а в рабочих таблицах и индексах остаются только свежие годы.
+ * Годы переносятся по порядку, на первом незакрытом году перенос останавливается
+ */
+@Slf4j
+public class ArchiveMaintenance {
+
+    public static final String ARCHIVE_SCHEMA = "archive";
+
+    private static final String IS_PARTITIONED_QUERY = "SELECT 1 FROM pg_partitioned_table pt " +
+            "JOIN pg_class c ON c.oid = pt.partrelid " +
+            "WHERE c.relname = ? AND c.relnamespace = CAST(current_schema() AS regnamespace)";
+
+    private static final String PARTITIONS_QUERY = "SELECT c.relname FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid " +
+            "JOIN pg_class p ON p.oid = i.inhparent " +
+            "WHERE p.relname = ? AND p.relnamespace = CAST(current_schema() AS regnamespace)";
+
+    private static final String FOREIGN_KEYS_QUERY = "SELECT conname FROM pg_constraint " +
+            "WHERE conrelid = CAST(? AS regclass) AND contype = 'f'";
+
+    private static final String YEAR_CLOSED_QUERY = "SELECT " +
+            "NOT EXISTS (SELECT 1 FROM salary_payments sp WHERE sp.year = ? AND NOT EXISTS " +
+            "(SELECT 1 FROM period_closures pc WHERE pc.month = sp.month AND pc.year = sp.year)) " +
+            "AND NOT EXISTS (SELECT 1 FROM payments p WHERE p.year = ? AND NOT EXISTS " +
+            "(SELECT 1 FROM period_closures pc WHERE pc.month = p.month AND pc.year = p.year)) " +
+            "AND NOT EXISTS (SELECT 1 FROM timesheets t WHERE t.year = ? AND NOT EXISTS " +
+            "(SELECT 1 FROM period_closures pc WHERE pc.month = t.month AND pc.year = t.year))";
+
+    private static final String INSERT_ARCHIVED_YEAR = "INSERT INTO archived_years " +
+            "(year, archived_at, payment_rows, salary_payment_rows, timesheet_entry_rows) " +
+            "VALUES (?, CURRENT_TIMESTAMP, ?, ?, ?)";
+
+    private final DataSource dataSource;
+    private final ArchiveProperties properties;
+
+    public ArchiveMaintenance(DataSource dataSource, ArchiveProperties properties) {
+        this.dataSource = dataSource;
+        this.properties = properties;
+    }
+
+    @Scheduled(cron = "${saa.datasource.archive.maintenance-cron:0 30 3 2 * *}")
+    public void archiveClosedYears() {
+        int lastArchivableYear = Year.now().getValue() - properties.getHorizonYears() - 1;
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            for (PartitionedTable table : PartitionedTable.values()) {
+                if (!isPartitioned(connection, table)) {
+                    log.warn("Таблица {} не секционирована, архивирование пропущено", table.getTableName());
+                    return;
+                }
+            }
+            createArchiveTables(connection);
+
+            for (int year : findHotYears(connection, lastArchivableYear)) {
+                if (!isYearClosed(connection, year)) {
+                    log.info("В {} году есть незакрытые периоды, архивирование остановлено", year);
+                    return;
+                }
+                archiveYear(connection, year);
+            }
+        } catch (SQLException e) {
+            log.error("Не удалось перенести старые годы в архив: {}", e.getMessage());
+        }
+    }
+
+    private boolean isPartitioned(Connection connection, PartitionedTable table) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(IS_PARTITIONED_QUERY)) {
+            statement.setString(1, table.getTableName());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next();
+            }
+        }
+    }
+
+    /**
+     * Родительские таблицы архива повторяют колонки рабочих, но без ограничений и внешних ключей:
+     * архив не мешает удалять сотрудников и справочники
+     */
+    private void createArchiveTables(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE SCHEMA IF NOT EXISTS " + ARCHIVE_SCHEMA);
+            for (PartitionedTable table : PartitionedTable.values()) {
+                statement.execute("CREATE TABLE IF NOT EXISTS " + archiveName(table.getTableName()) +
+                        " (LIKE " + table.getTableName() + " INCLUDING GENERATED)" +
+                        " PARTITION BY RANGE (" + (table == PartitionedTable.TIMESHEET_ENTRIES ? "date" : "year") + ")");
+            }
+        }
+    }
+
+    /**
+     * Годы, для которых хотя бы в одной рабочей таблице еще есть годовая секция
+     */
+    private List<Integer> findHotYears(Connection connection, int lastArchivableYear) throws SQLException {
+        TreeSet<Integer> years = new TreeSet<>();
+        for (PartitionedTable table : PartitionedTable.values()) {
+            try (PreparedStatement statement = connection.prepareStatement(PARTITIONS_QUERY)) {
+                statement.setString(1, table.getTableName());
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        Integer year = parseYear(table, resultSet.getString(1));
+                        if (year != null && year <= lastArchivableYear) {
+                            years.add(year);
+                        }
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(years);
+    }
+
+    private boolean isYearClosed(Connection connection, int year) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(YEAR_CLOSED_QUERY)) {
+            statement.setInt(1, year);
+            statement.setInt(2, year);
+            statement.setInt(3, year);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+
+    /**
+     * Секции года отсоединяются, переносятся в схему archive и присоединяются к архивным таблицам
+     * одной транзакцией вместе с записью в archived_years, поэтому чтения видят год либо в рабочих
+     * таблицах, либо в архиве
+     */
+    private void archiveYear(Connection connection, int year) throws SQLException {
+        Map<PartitionedTable, Long> rowCounts = new EnumMap<>(PartitionedTable.class);
+        List<String> archived = new ArrayList<>();
+
+        connection.setAutoCommit(false);
+        try {
+            for (PartitionedTable table : PartitionedTable.values()) {
+                String partition = table.partitionName(year);
+                if (!partitionExists(connection, partition)) {
+                    rowCounts.put(table, 0L);
+                    continue;
+                }
+                rowCounts.put(table, countRows(connection, partition));
+                moveToArchive(connection, table, partition, year);
+                archived.add(archiveName(partition));
+            }
+
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_ARCHIVED_YEAR)) {
+                statement.setInt(1, year);
+                statement.setLong(2, rowCounts.get(PartitionedTable.PAYMENTS));
+                statement.setLong(3, rowCounts.get(PartitionedTable.SALARY_PAYMENTS));
+                statement.setLong(4, rowCounts.get(PartitionedTable.TIMESHEET_ENTRIES));
+                statement.executeUpdate();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+
+        // архивные секции больше не изменяются: после заморозки автоочистка их не обходит
+        try (Statement statement = connection.createStatement()) {
+            for (String partition : archived) {
+                statement.execute("VACUUM (FREEZE, ANALYZE) " + partition);
+            }
+        }
+
+        log.info("{} год перенесен в архив: {} начислений, {} зарплат, {} отметок табеля", year,
+                rowCounts.get(PartitionedTable.PAYMENTS),
+                rowCounts.get(PartitionedTable.SALARY_PAYMENTS),
+                rowCounts.get(PartitionedTable.TIMESHEET_ENTRIES));
+    }
+
+    private void moveToArchive(Connection connection, PartitionedTable table, String partition, int year)
+            throws SQLException {
+        List<String> foreignKeys = new ArrayList<>();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE " + table.getTableName() + " DETACH PARTITION " + partition);
+
+            try (PreparedStatement query = connection.prepareStatement(FOREIGN_KEYS_QUERY)) {
+                query.setString(1, partition);
+                try (ResultSet resultSet = query.executeQuery()) {
+                    while (resultSet.next()) {
+                        foreignKeys.add(resultSet.getString(1));
+                    }
+                }
+            }
+            for (String foreignKey : foreignKeys) {
+                statement.execute("ALTER TABLE " + partition + " DROP CONSTRAINT " + quote(foreignKey));
+            }
+
+            statement.execute("ALTER TABLE " + partition + " SET SCHEMA " + ARCHIVE_SCHEMA);
+            statement.execute("ALTER TABLE " + archiveName(table.getTableName()) +
+                    " ATTACH PARTITION " + archiveName(partition) + " FOR VALUES " + table.bounds(year));
+
+            if (properties.getTablespace() != null && !properties.getTablespace().isBlank()) {
+                statement.execute("ALTER TABLE " + archiveName(partition) +
+                        " SET TABLESPACE " + quote(properties.getTablespace()));
+            }
+        }
+    }
+
+    private boolean partitionExists(Connection connection, String partition) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT to_regclass(?) IS NOT NULL")) {
+            statement.setString(1, partition);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+
+    private long countRows(Connection connection, String partition) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + partition)) {
+            return resultSet.next() ? resultSet.getLong(1) : 0;
+        }
+    }
+
+    private Integer parseYear(PartitionedTable table, String partition) {
+        String suffix = partition.substring(Math.min(partition.length(), table.getTableName().length() + 1));
+        if (!partition.startsWith(table.getTableName() + "_") || !suffix.matches("\\d{4}")) {
+            return null;
+        }
+        return Integer.parseInt(suffix);
+    }
+
+    private String archiveName(String table) {
+        return ARCHIVE_SCHEMA + "." + table;
+    }
+
+    private String quote(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+}
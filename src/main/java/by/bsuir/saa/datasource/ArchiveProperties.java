@@ -0,0 +1,14 @@
+package by.bsuir.saa.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "saa.datasource.archive")
+public class ArchiveProperties {
+
+    private boolean enabled = false;
+    private int horizonYears = 3;
+    private String tablespace;
+    private String maintenanceCron = "0 30 3 2 * *";
+}
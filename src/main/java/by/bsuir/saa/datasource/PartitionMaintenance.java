@@ -0,0 +1,107 @@
+package by.bsuir.saa.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Year;
+
+/**
+ * Создает годовые секции таблиц, секционированных миграцией 004_partition_by_year.sql:
+ * на текущий год и на {@code years-ahead} лет вперед, при старте и по расписанию.
+ * Таблицы, которые еще не секционированы, пропускаются
+ */
+@Slf4j
+public class PartitionMaintenance {
+
+    private static final String IS_PARTITIONED_QUERY = "SELECT 1 FROM pg_partitioned_table pt " +
+            "JOIN pg_class c ON c.oid = pt.partrelid " +
+            "WHERE c.relname = ? AND c.relnamespace = CAST(current_schema() AS regnamespace)";
+
+    private final DataSource dataSource;
+    private final PartitioningProperties properties;
+
+    public PartitionMaintenance(DataSource dataSource, PartitioningProperties properties) {
+        this.dataSource = dataSource;
+        this.properties = properties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${saa.datasource.partitioning.maintenance-cron:0 0 3 * * *}")
+    public void createUpcomingPartitions() {
+        int currentYear = Year.now().getValue();
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            for (PartitionedTable table : PartitionedTable.values()) {
+                if (!isPartitioned(connection, table)) {
+                    log.debug("Таблица {} не секционирована, создание секций пропущено", table.getTableName());
+                    continue;
+                }
+                for (int year = currentYear; year <= currentYear + properties.getYearsAhead(); year++) {
+                    createPartition(connection, table, year);
+                }
+            }
+        } catch (SQLException e) {
+            log.error("Не удалось проверить секции таблиц: {}", e.getMessage());
+        }
+    }
+
+    private boolean isPartitioned(Connection connection, PartitionedTable table) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(IS_PARTITIONED_QUERY)) {
+            statement.setString(1, table.getTableName());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next();
+            }
+        }
+    }
+
+    private void createPartition(Connection connection, PartitionedTable table, int year) {
+        String partition = table.partitionName(year);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS " + partition +
+                    " PARTITION OF " + table.getTableName() + " FOR VALUES " + table.bounds(year));
+        } catch (SQLException e) {
+            // секция по умолчанию уже содержит строки этого года: их нужно перенести вручную
+            log.error("Не удалось создать секцию {}: {}", partition, e.getMessage());
+        }
+    }
+
+    public enum PartitionedTable {
+        PAYMENTS("payments", false),
+        SALARY_PAYMENTS("salary_payments", false),
+        TIMESHEET_ENTRIES("timesheet_entries", true);
+
+        private final String tableName;
+        private final boolean byDate;
+
+        PartitionedTable(String tableName, boolean byDate) {
+            this.tableName = tableName;
+            this.byDate = byDate;
+        }
+
+        public String getTableName() {
+            return tableName;
+        }
+
+        public String partitionName(int year) {
+            return tableName + "_" + year;
+        }
+
+        /**
+         * Границы секции: по колонке year для начислений, по дате для отметок табеля
+         */
+        public String bounds(int year) {
+            return byDate
+                    ? "FROM ('" + year + "-01-01') TO ('" + (year + 1) + "-01-01')"
+                    : "FROM (" + year + ") TO (" + (year + 1) + ")";
+        }
+    }
+}
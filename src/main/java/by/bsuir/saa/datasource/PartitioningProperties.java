@@ -0,0 +1,13 @@
+package by.bsuir.saa.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "saa.datasource.partitioning")
+public class PartitioningProperties {
+
+    private boolean enabled = true;
+    private int yearsAhead = 1;
+    private String maintenanceCron = "0 0 3 * * *";
+}
@@ -0,0 +1,33 @@
+package by.bsuir.saa.datasource;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.sql.SQLException;
+
+/**
+ * Для транзакций только на чтение Hibernate отключает автоматический flush и проверку изменений.
+ * Загрузка сущностей в режиме только для чтения (без снимков состояния) включается лишь без
+ * open-in-view: иначе сущность, прочитанная в начале HTTP-запроса, осталась бы неизменяемой
+ * и для последующей пишущей транзакции того же запроса
+ */
+public class ReadOnlyAwareJpaDialect extends HibernateJpaDialect {
+
+    private final boolean readOnlyEntities;
+
+    public ReadOnlyAwareJpaDialect(boolean readOnlyEntities) {
+        this.readOnlyEntities = readOnlyEntities;
+    }
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws SQLException {
+        Object transactionData = super.beginTransaction(entityManager, definition);
+        if (definition.isReadOnly() && !readOnlyEntities) {
+            entityManager.unwrap(Session.class).setDefaultReadOnly(false);
+        }
+        return transactionData;
+    }
+}
@@ -0,0 +1,80 @@
+package by.bsuir.saa.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Отставание реплики, измеренное не чаще одного раза за интервал проверки.
+ * Реплика непригодна, если недоступна, отстает больше допустимого
+ * или еще не получила последнюю зафиксированную запись в основную БД
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private static final String LAG_QUERY = "SELECT CASE " +
+            "WHEN NOT pg_is_in_recovery() THEN 0 " +
+            "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) END";
+
+    private final DataSource replica;
+    private final ReplicaProperties properties;
+    private final AtomicBoolean checking = new AtomicBoolean();
+
+    private volatile long lagMs = -1;
+    private volatile long checkedAtMillis;
+
+    public ReplicaLagMonitor(DataSource replica, ReplicaProperties properties, MeterRegistry meterRegistry) {
+        this.replica = replica;
+        this.properties = properties;
+        Gauge.builder("saa.datasource.replica.lag", this, monitor -> monitor.lagMs)
+                .description("Отставание реплики БД, мс (-1 — реплика недоступна)")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    public boolean isReplicaUsable() {
+        refreshIfStale();
+        long lag = lagMs;
+        return lag >= 0
+                && lag <= properties.getMaxLagMs()
+                && ReplicaRouting.lastPrimaryWriteMillis() <= checkedAtMillis - lag;
+    }
+
+    public long getLagMs() {
+        return lagMs;
+    }
+
+    private void refreshIfStale() {
+        long now = System.currentTimeMillis();
+        if (now - checkedAtMillis < properties.getLagCheckIntervalMs() || !checking.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            lagMs = queryLag();
+        } catch (SQLException e) {
+            if (lagMs >= 0) {
+                log.warn("Реплика БД недоступна, чтение переключено на основную БД: {}", e.getMessage());
+            }
+            lagMs = -1;
+        } finally {
+            checkedAtMillis = now;
+            checking.set(false);
+        }
+    }
+
+    private long queryLag() throws SQLException {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(LAG_QUERY)) {
+            return resultSet.next() ? Math.round(resultSet.getDouble(1)) : 0;
+        }
+    }
+}
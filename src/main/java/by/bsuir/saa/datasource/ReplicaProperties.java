@@ -0,0 +1,17 @@
+package by.bsuir.saa.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "saa.datasource.replica")
+public class ReplicaProperties {
+
+    private boolean enabled = false;
+    private String url;
+    private String username;
+    private String password;
+    private int maximumPoolSize = 5;
+    private long maxLagMs = 5000;
+    private long lagCheckIntervalMs = 1000;
+}
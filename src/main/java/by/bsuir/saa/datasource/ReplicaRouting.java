@@ -0,0 +1,24 @@
+package by.bsuir.saa.datasource;
+
+/**
+ * Время последней зафиксированной записи в основную БД. Пока реплика не догонит этот момент,
+ * транзакции только на чтение идут на основную БД, чтобы не видеть данные до изменения
+ */
+public final class ReplicaRouting {
+
+    private static volatile long lastPrimaryWriteMillis;
+
+    private ReplicaRouting() {
+    }
+
+    /**
+     * Вызывается после фиксации пишущей транзакции и после пакетного этапа расчета
+     */
+    public static void markPrimaryWrite() {
+        lastPrimaryWriteMillis = System.currentTimeMillis();
+    }
+
+    public static long lastPrimaryWriteMillis() {
+        return lastPrimaryWriteMillis;
+    }
+}
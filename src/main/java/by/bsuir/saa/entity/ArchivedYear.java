@@ -0,0 +1,32 @@
+package by.bsuir.saa.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Год, секции которого перенесены из payments, salary_payments и timesheet_entries в схему archive.
+ * Все месяцы такого года закрыты, отчеты за них строятся по снимкам
+ */
+@Data
+@Entity
+@Table(name = "archived_years")
+public class ArchivedYear {
+
+    @Id
+    @Column(name = "year")
+    private Integer year;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    @Column(name = "payment_rows", nullable = false)
+    private Long paymentRows;
+
+    @Column(name = "salary_payment_rows", nullable = false)
+    private Long salaryPaymentRows;
+
+    @Column(name = "timesheet_entry_rows", nullable = false)
+    private Long timesheetEntryRows;
+}
@@ -5,10 +5,13 @@ import lombok.Data;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Objects;
 
 @Data
 @Entity
-@Table(name = "employees")
+@Table(name = "employees",
+        uniqueConstraints = @UniqueConstraint(name = "uk_employees_normalized_name", columnNames = "normalized_name"))
 public class Employee {
 
     @Id
@@ -18,6 +21,9 @@ public class Employee {
     @Column(name = "full_name", nullable = false, length = 200)
     private String fullName;
 
+    @Column(name = "normalized_name", length = 200)
+    private String normalizedName;
+
     @Column(name = "hire_date", nullable = false)
     private LocalDate hireDate;
 
@@ -35,12 +41,38 @@ public class Employee {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
+    /**
+     * ФИО в момент загрузки из БД: нормализованное ФИО пересчитывается только при его изменении
+     */
+    private transient String loadedFullName;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
+        normalizedName = normalizeFullName(fullName);
+        loadedFullName = fullName;
+    }
+
+    @PostLoad
+    protected void onLoad() {
+        loadedFullName = fullName;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        if (!Objects.equals(fullName, loadedFullName)) {
+            normalizedName = normalizeFullName(fullName);
+        }
     }
 
     public boolean isActive() {
         return terminationDate == null || terminationDate.isAfter(LocalDate.now());
     }
-}
\ No newline at end of file
+
+    /**
+     * ФИО для сравнения и поиска: без крайних пробелов, с одиночными пробелами, в нижнем регистре
+     */
+    public static String normalizeFullName(String fullName) {
+        return fullName == null ? null : fullName.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
@@ -2,6 +2,7 @@ package by.bsuir.saa.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.GeneratedColumn;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -25,10 +26,27 @@ public class Payment {
     @Column(name = "year", nullable = false)
     private Integer year;
 
+    /**
+     * Номер периода year * 12 + month для выборок по диапазону месяцев, вычисляется в БД
+     */
+    @GeneratedColumn("year * 12 + month")
+    @Column(name = "period")
+    private Integer period;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "payment_type_id", nullable = false)
     private PaymentType paymentType;
 
+    /**
+     * Код и категория вида оплаты копируются в строку начисления, чтобы выборки и фильтры
+     * по ним не загружали вид оплаты. Обновляются вместе с видом оплаты ({@link #setPaymentType})
+     */
+    @Column(name = "payment_type_code", nullable = false, length = 20)
+    private String paymentTypeCode;
+
+    @Column(name = "category", nullable = false, length = 20)
+    private String category;
+
     @Column(name = "amount", nullable = false, precision = 10, scale = 2)
     private BigDecimal amount;
 
@@ -42,6 +60,14 @@ public class Payment {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
+    public void setPaymentType(PaymentType paymentType) {
+        this.paymentType = paymentType;
+        if (paymentType != null) {
+            this.paymentTypeCode = paymentType.getCode();
+            this.category = paymentType.getCategory();
+        }
+    }
+
     @PrePersist
     protected void onCreate() {
         if (createdAt == null) {
@@ -0,0 +1,46 @@
+package by.bsuir.saa.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+
+/**
+ * Начисление или удержание закрытого периода с копией кода, названия и категории вида оплаты
+ */
+@Data
+@Entity
+@Immutable
+@Table(name = "payment_snapshots",
+        indexes = @Index(name = "idx_payment_snapshots_period_employee", columnList = "year, month, employee_id"))
+public class PaymentSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "month", nullable = false)
+    private Integer month;
+
+    @Column(name = "year", nullable = false)
+    private Integer year;
+
+    @Column(name = "employee_id", nullable = false)
+    private Integer employeeId;
+
+    @Column(name = "payment_type_code", nullable = false, length = 20)
+    private String paymentTypeCode;
+
+    @Column(name = "payment_type_name", nullable = false, length = 100)
+    private String paymentTypeName;
+
+    @Column(name = "category", nullable = false, length = 20)
+    private String category;
+
+    @Column(name = "amount", nullable = false, precision = 10, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "description")
+    private String description;
+}
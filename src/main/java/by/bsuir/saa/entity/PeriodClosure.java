@@ -0,0 +1,60 @@
+package by.bsuir.saa.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Закрытый расчетный период: начисления, удержания и табели за месяц больше не изменяются,
+ * чтения идут из снимков salary_snapshots и payment_snapshots
+ */
+@Data
+@Entity
+@Table(name = "period_closures",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"month", "year"}))
+public class PeriodClosure {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "month", nullable = false)
+    private Integer month;
+
+    @Column(name = "year", nullable = false)
+    private Integer year;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "closed_by")
+    private User closedBy;
+
+    @Column(name = "closed_at", nullable = false)
+    private LocalDateTime closedAt;
+
+    /**
+     * Численность работающих сотрудников на момент закрытия
+     */
+    @Column(name = "active_employees", nullable = false)
+    private Integer activeEmployees;
+
+    @Column(name = "employee_count", nullable = false)
+    private Integer employeeCount;
+
+    @Column(name = "total_accrued", precision = 12, scale = 2)
+    private BigDecimal totalAccrued = BigDecimal.ZERO;
+
+    @Column(name = "total_deducted", precision = 12, scale = 2)
+    private BigDecimal totalDeducted = BigDecimal.ZERO;
+
+    @Column(name = "total_net", precision = 12, scale = 2)
+    private BigDecimal totalNet = BigDecimal.ZERO;
+
+    @PrePersist
+    protected void onCreate() {
+        if (closedAt == null) {
+            closedAt = LocalDateTime.now();
+        }
+    }
+}
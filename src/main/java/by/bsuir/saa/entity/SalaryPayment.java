@@ -2,6 +2,7 @@ package by.bsuir.saa.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.GeneratedColumn;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -26,6 +27,10 @@ public class SalaryPayment {
     @Column(name = "year", nullable = false)
     private Integer year;
 
+    @GeneratedColumn("year * 12 + month")
+    @Column(name = "period")
+    private Integer period;
+
     @Column(name = "total_accrued", precision = 10, scale = 2)
     private BigDecimal totalAccrued = BigDecimal.ZERO;
 
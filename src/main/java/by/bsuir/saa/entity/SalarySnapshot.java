@@ -0,0 +1,57 @@
+package by.bsuir.saa.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+
+/**
+ * Итоговая зарплата сотрудника за закрытый период. ФИО, подразделение и должность
+ * копируются на момент закрытия, поэтому строка не зависит от последующих изменений справочников
+ */
+@Data
+@Entity
+@Immutable
+@Table(name = "salary_snapshots",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"employee_id", "month", "year"}),
+        indexes = @Index(name = "idx_salary_snapshots_period", columnList = "year, month"))
+public class SalarySnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "month", nullable = false)
+    private Integer month;
+
+    @Column(name = "year", nullable = false)
+    private Integer year;
+
+    @Column(name = "employee_id", nullable = false)
+    private Integer employeeId;
+
+    @Column(name = "full_name", nullable = false, length = 200)
+    private String fullName;
+
+    @Column(name = "department_id")
+    private Integer departmentId;
+
+    @Column(name = "department_name", length = 100)
+    private String departmentName;
+
+    @Column(name = "position_id")
+    private Integer positionId;
+
+    @Column(name = "position_title", length = 100)
+    private String positionTitle;
+
+    @Column(name = "total_accrued", precision = 10, scale = 2)
+    private BigDecimal totalAccrued;
+
+    @Column(name = "total_deducted", precision = 10, scale = 2)
+    private BigDecimal totalDeducted;
+
+    @Column(name = "net_salary", precision = 10, scale = 2)
+    private BigDecimal netSalary;
+}
@@ -2,6 +2,7 @@ package by.bsuir.saa.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.GeneratedColumn;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -28,6 +29,10 @@ public class Timesheet {
     @Column(name = "year", nullable = false)
     private Integer year;
 
+    @GeneratedColumn("year * 12 + month")
+    @Column(name = "period")
+    private Integer period;
+
     @Column(name = "total_hours", precision = 6, scale = 2)
     private BigDecimal totalHours = BigDecimal.ZERO;
 
@@ -0,0 +1,83 @@
+package by.bsuir.saa.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Состояние пулов соединений HikariCP по метрикам hikaricp.connections.*:
+ * занятые и свободные соединения, ожидающие потоки, время ожидания и удержания соединения
+ */
+@Component
+@RequiredArgsConstructor
+public class ConnectionPoolStatistics {
+
+    private static final String PREFIX = "hikaricp.connections";
+
+    private final MeterRegistry meterRegistry;
+
+    public List<PoolSnapshot> getPools() {
+        TreeSet<String> poolNames = new TreeSet<>();
+        meterRegistry.find(PREFIX + ".max").gauges()
+                .forEach(gauge -> poolNames.add(gauge.getId().getTag("pool")));
+
+        List<PoolSnapshot> pools = new ArrayList<>();
+        for (String pool : poolNames) {
+            PoolSnapshot snapshot = new PoolSnapshot(pool);
+            snapshot.setActive(gauge(".active", pool));
+            snapshot.setIdle(gauge(".idle", pool));
+            snapshot.setPending(gauge(".pending", pool));
+            snapshot.setMax(gauge(".max", pool));
+
+            Counter timeouts = meterRegistry.find(PREFIX + ".timeout").tag("pool", pool).counter();
+            snapshot.setTimeouts(timeouts != null ? (long) timeouts.count() : 0);
+
+            Timer acquire = meterRegistry.find(PREFIX + ".acquire").tag("pool", pool).timer();
+            if (acquire != null) {
+                snapshot.setAcquireCount(acquire.count());
+                snapshot.setAcquireMeanMs(acquire.mean(TimeUnit.MILLISECONDS));
+                snapshot.setAcquireMaxMs(acquire.max(TimeUnit.MILLISECONDS));
+            }
+            Timer usage = meterRegistry.find(PREFIX + ".usage").tag("pool", pool).timer();
+            if (usage != null) {
+                snapshot.setUsageMeanMs(usage.mean(TimeUnit.MILLISECONDS));
+                snapshot.setUsageMaxMs(usage.max(TimeUnit.MILLISECONDS));
+            }
+            pools.add(snapshot);
+        }
+        return pools;
+    }
+
+    private int gauge(String suffix, String pool) {
+        Gauge gauge = meterRegistry.find(PREFIX + suffix).tag("pool", pool).gauge();
+        return gauge != null ? (int) gauge.value() : 0;
+    }
+
+    @Data
+    public static class PoolSnapshot {
+        private final String name;
+        private int active;
+        private int idle;
+        private int pending;
+        private int max;
+        private long timeouts;
+        private long acquireCount;
+        private double acquireMeanMs;
+        private double acquireMaxMs;
+        private double usageMeanMs;
+        private double usageMaxMs;
+
+        public int getUtilizationPercent() {
+            return max > 0 ? active * 100 / max : 0;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package by.bsuir.saa.monitoring;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Накопленная статистика по одному обработчику (метод + шаблон URI)
+ */
+@Getter
+public class EndpointStatistics {
+
+    private final String method;
+    private final String uri;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder dbTimeNanos = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder entities = new LongAdder();
+    private final LongAdder wallTimeNanos = new LongAdder();
+    private final AtomicLong maxStatements = new AtomicLong();
+    private final AtomicLong maxWallTimeNanos = new AtomicLong();
+
+    public EndpointStatistics(String method, String uri) {
+        this.method = method;
+        this.uri = uri;
+    }
+
+    void record(RequestStatistics statistics, long wallNanos) {
+        requests.increment();
+        statements.add(statistics.getStatementCount());
+        dbTimeNanos.add(statistics.getDbTimeNanos());
+        rows.add(statistics.getRowsFetched());
+        entities.add(statistics.getEntitiesLoaded());
+        wallTimeNanos.add(wallNanos);
+        maxStatements.accumulateAndGet(statistics.getStatementCount(), Math::max);
+        maxWallTimeNanos.accumulateAndGet(wallNanos, Math::max);
+    }
+
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    public double getAvgStatements() {
+        return average(statements.sum());
+    }
+
+    public double getAvgDbTimeMs() {
+        return average(dbTimeNanos.sum()) / 1_000_000.0;
+    }
+
+    public double getAvgRows() {
+        return average(rows.sum());
+    }
+
+    public double getAvgEntities() {
+        return average(entities.sum());
+    }
+
+    public double getAvgWallTimeMs() {
+        return average(wallTimeNanos.sum()) / 1_000_000.0;
+    }
+
+    public long getMaxStatementCount() {
+        return maxStatements.get();
+    }
+
+    public double getMaxWallTimeMs() {
+        return maxWallTimeNanos.get() / 1_000_000.0;
+    }
+
+    private double average(long total) {
+        long count = requests.sum();
+        return count > 0 ? (double) total / count : 0;
+    }
+}
@@ -0,0 +1,123 @@
+package by.bsuir.saa.monitoring;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * Обертка над пулом соединений, которая учитывает выполненные SQL-запросы,
+ * время их выполнения и количество прочитанных строк в {@link RequestStatistics},
+ * а для профилируемых запросов — еще и в дереве {@link ProfiledRequest}
+ */
+public class InstrumentedDataSource extends DelegatingDataSource {
+
+    private static final Set<String> EXECUTE_METHODS = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    public InstrumentedDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrapConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrapConnection(super.getConnection(username, password));
+    }
+
+    private Connection wrapConnection(Connection connection) {
+        return proxy(Connection.class, connection, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            if (result instanceof Statement statement) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+                return wrapStatement(statement, sql);
+            }
+            return result;
+        });
+    }
+
+    private Statement wrapStatement(Statement statement, String preparedSql) {
+        Class<? extends Statement> type = statement instanceof CallableStatement ? CallableStatement.class :
+                statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+
+        ProfileNode[] lastNode = new ProfileNode[1];
+        return proxy(type, statement, (proxy, method, args) -> {
+            String name = method.getName();
+            if (EXECUTE_METHODS.contains(name)) {
+                RequestStatistics statistics = RequestStatistics.current();
+                ProfiledRequest profiledRequest = ProfiledRequest.current();
+                String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : preparedSql;
+                long start = System.nanoTime();
+                Object result = null;
+                try {
+                    result = invoke(statement, method, args);
+                } finally {
+                    long elapsed = System.nanoTime() - start;
+                    if (statistics != null) {
+                        statistics.recordStatement(sql, elapsed);
+                    }
+                    if (profiledRequest != null) {
+                        lastNode[0] = profiledRequest.recordStatement(sql, elapsed);
+                    }
+                }
+                return wrapResultSet(result, lastNode[0]);
+            }
+            if ("getResultSet".equals(name) || "getGeneratedKeys".equals(name)) {
+                return wrapResultSet(invoke(statement, method, args), lastNode[0]);
+            }
+            return invoke(statement, method, args);
+        });
+    }
+
+    private Object wrapResultSet(Object result, ProfileNode node) {
+        if (!(result instanceof ResultSet resultSet)) {
+            return result;
+        }
+        return proxy(ResultSet.class, resultSet, (proxy, method, args) -> {
+            Object value = invoke(resultSet, method, args);
+            if ("next".equals(method.getName()) && Boolean.TRUE.equals(value)) {
+                RequestStatistics statistics = RequestStatistics.current();
+                if (statistics != null) {
+                    statistics.recordRow();
+                }
+                if (node != null) {
+                    node.addRow();
+                }
+            }
+            return value;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Object target, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if ("unwrap".equals(method.getName()) && args != null && ((Class<?>) args[0]).isInstance(target)) {
+                        return target;
+                    }
+                    return handler.invoke(proxy, method, args);
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package by.bsuir.saa.monitoring;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "saa.monitoring")
+public class MonitoringProperties {
+
+    private boolean enabled = true;
+    private long slowRequestThresholdMs = 1000;
+    private int statementThreshold = 30;
+    private int topStatements = 5;
+    private int profilerCapacity = 50;
+}
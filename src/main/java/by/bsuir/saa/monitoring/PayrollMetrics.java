@@ -0,0 +1,185 @@
+package by.bsuir.saa.monitoring;
+
+import by.bsuir.saa.datasource.ReplicaRouting;
+import by.bsuir.saa.repository.PaymentRepository;
+import by.bsuir.saa.repository.SalaryPaymentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Метрики расчета заработной платы: длительность этапов, время расчета по сотруднику,
+ * успешные/неуспешные расчеты и состояние конвейера расчета по открытым периодам
+ */
+@Slf4j
+@Component
+public class PayrollMetrics {
+
+    public static final String STAGE_BASE_SALARY = "base_salary";
+    public static final String STAGE_ITR_BONUS = "itr_bonus";
+    public static final String STAGE_SENIORITY_BONUS = "seniority_bonus";
+    public static final String STAGE_VACATION_SICK_LEAVE = "vacation_sick_leave";
+    public static final String STAGE_TAXES = "taxes";
+    public static final String STAGE_FINAL_SALARY = "final_salary";
+    public static final String STAGE_FORMULA_PAYMENTS = "formula_payments";
+
+    private final MeterRegistry meterRegistry;
+    private final PaymentRepository paymentRepository;
+    private final SalaryPaymentRepository salaryPaymentRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Map<String, PeriodGauge> periodStates = new ConcurrentHashMap<>();
+
+    public PayrollMetrics(MeterRegistry meterRegistry,
+                          PaymentRepository paymentRepository,
+                          SalaryPaymentRepository salaryPaymentRepository,
+                          PlatformTransactionManager transactionManager) {
+        this.meterRegistry = meterRegistry;
+        this.paymentRepository = paymentRepository;
+        this.salaryPaymentRepository = salaryPaymentRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public void recordEmployeeCalculation(String stage, Runnable calculation) {
+        recordEmployeeCalculation(stage, () -> {
+            calculation.run();
+            return null;
+        });
+    }
+
+    public <T> T recordEmployeeCalculation(String stage, Supplier<T> calculation) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            T result = calculation.get();
+            countCalculation(stage, "success", "none");
+            return result;
+        } catch (RuntimeException e) {
+            countCalculation(stage, "failure", e.getClass().getSimpleName());
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("saa.payroll.employee.duration")
+                    .description("Время расчета по одному сотруднику")
+                    .tag("stage", stage)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Замеряет пакетный этап. Отметка записи в основную БД и обновление состояния периода
+     * выполняются только после успешной фиксации транзакции этапа
+     */
+    public <T> T recordStage(String stage, Integer month, Integer year, Supplier<T> batch) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            T result = batch.get();
+            afterCommit(() -> {
+                ReplicaRouting.markPrimaryWrite();
+                refreshPeriodState(month, year);
+            });
+            return result;
+        } finally {
+            sample.stop(Timer.builder("saa.payroll.stage.duration")
+                    .description("Длительность пакетного этапа расчета")
+                    .tag("stage", stage)
+                    .register(meterRegistry));
+        }
+    }
+
+    public void recordStage(String stage, Integer month, Integer year, Runnable batch) {
+        recordStage(stage, month, year, () -> {
+            batch.run();
+            return null;
+        });
+    }
+
+    /**
+     * Пересчитывает состояние конвейера за период в отдельной читающей транзакции,
+     * поэтому ошибка подсчета не влияет на транзакцию вызывающего кода
+     */
+    public void refreshPeriodState(Integer month, Integer year) {
+        String period = formatPeriod(month, year);
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                periodState(period, "calculated").set(
+                        paymentRepository.countDistinctEmployeesByPeriodAndPaymentCode(month, year, "ОКЛ"));
+                periodState(period, "taxed").set(
+                        paymentRepository.countDistinctEmployeesByPeriodAndPaymentCode(month, year, "ПН"));
+                periodState(period, "finalized").set(
+                        salaryPaymentRepository.countByMonthAndYear(month, year));
+            });
+        } catch (RuntimeException e) {
+            log.warn("Не удалось обновить состояние расчета за период {}: {}", period, e.getMessage());
+        }
+    }
+
+    /**
+     * Удаляет метрики состояния закрытого периода: они хранятся только для открытых периодов
+     */
+    public void removePeriodState(Integer month, Integer year) {
+        String prefix = formatPeriod(month, year) + ":";
+        periodStates.entrySet().removeIf(entry -> {
+            if (!entry.getKey().startsWith(prefix)) {
+                return false;
+            }
+            meterRegistry.remove(entry.getValue().gauge());
+            return true;
+        });
+    }
+
+    private AtomicLong periodState(String period, String state) {
+        return periodStates.computeIfAbsent(period + ":" + state, key -> {
+            AtomicLong value = new AtomicLong();
+            Gauge gauge = Gauge.builder("saa.payroll.period.employees", value, AtomicLong::get)
+                    .description("Количество сотрудников на этапе расчета за открытый период")
+                    .tag("period", period)
+                    .tag("state", state)
+                    .register(meterRegistry);
+            return new PeriodGauge(value, gauge);
+        }).value();
+    }
+
+    private static String formatPeriod(Integer month, Integer year) {
+        return "%d-%02d".formatted(year, month);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void countCalculation(String stage, String outcome, String error) {
+        Counter.builder("saa.payroll.calculations")
+                .description("Количество расчетов по сотрудникам")
+                .tag("stage", stage)
+                .tag("outcome", outcome)
+                .tag("error", error)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private record PeriodGauge(AtomicLong value, Gauge gauge) {
+    }
+}
@@ -0,0 +1,56 @@
+package by.bsuir.saa.monitoring;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Узел дерева трассировки запроса: вызов контроллера, сервиса, репозитория или SQL-запрос
+ */
+@Getter
+public class ProfileNode {
+
+    public enum Type {
+        REQUEST, CONTROLLER, SERVICE, REPOSITORY, SQL
+    }
+
+    private final Type type;
+    private final String name;
+    private final long startNanos;
+    private long durationNanos;
+    private long rows;
+    private Integer resultSize;
+    private final List<ProfileNode> children = new ArrayList<>();
+
+    public ProfileNode(Type type, String name) {
+        this.type = type;
+        this.name = name;
+        this.startNanos = System.nanoTime();
+    }
+
+    void finish() {
+        durationNanos = System.nanoTime() - startNanos;
+    }
+
+    void finish(long elapsedNanos) {
+        durationNanos = elapsedNanos;
+    }
+
+    void addRow() {
+        rows++;
+    }
+
+    void setResultSize(int resultSize) {
+        this.resultSize = resultSize;
+    }
+
+    public double getDurationMs() {
+        return durationNanos / 1_000_000.0;
+    }
+
+    public double getSelfTimeMs() {
+        long childNanos = children.stream().mapToLong(ProfileNode::getDurationNanos).sum();
+        return Math.max(durationNanos - childNanos, 0) / 1_000_000.0;
+    }
+}
@@ -0,0 +1,105 @@
+package by.bsuir.saa.monitoring;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Иерархическая трассировка одного HTTP-запроса. Пока запрос обрабатывается,
+ * трассировка доступна текущему потоку через {@link #current()}
+ */
+@Getter
+public class ProfiledRequest {
+
+    private static final ThreadLocal<ProfiledRequest> CURRENT = new ThreadLocal<>();
+    private static final int MAX_NODES = 5000;
+
+    private final long id;
+    private final String method;
+    private final String uri;
+    private final String username;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private final ProfileNode root;
+    private final Deque<ProfileNode> stack = new ArrayDeque<>();
+    private int nodeCount = 1;
+    private int statementCount;
+    private boolean truncated;
+
+    ProfiledRequest(long id, String method, String uri, String username) {
+        this.id = id;
+        this.method = method;
+        this.uri = uri;
+        this.username = username;
+        this.root = new ProfileNode(ProfileNode.Type.REQUEST, method + " " + uri);
+        this.stack.push(root);
+    }
+
+    static void begin(ProfiledRequest request) {
+        CURRENT.set(request);
+    }
+
+    public static ProfiledRequest current() {
+        return CURRENT.get();
+    }
+
+    static ProfiledRequest end() {
+        ProfiledRequest request = CURRENT.get();
+        CURRENT.remove();
+        if (request != null) {
+            request.root.finish();
+        }
+        return request;
+    }
+
+    public ProfileNode enter(ProfileNode.Type type, String name) {
+        ProfileNode node = new ProfileNode(type, name);
+        if (nodeCount < MAX_NODES) {
+            stack.peek().getChildren().add(node);
+            nodeCount++;
+        } else {
+            truncated = true;
+        }
+        stack.push(node);
+        return node;
+    }
+
+    public void exit(ProfileNode node) {
+        node.finish();
+        if (stack.peek() == node) {
+            stack.pop();
+        }
+    }
+
+    public ProfileNode recordStatement(String sql, long elapsedNanos) {
+        statementCount++;
+        ProfileNode node = new ProfileNode(ProfileNode.Type.SQL, sql != null ? sql.trim() : "<batch>");
+        node.finish(elapsedNanos);
+        if (nodeCount < MAX_NODES) {
+            stack.peek().getChildren().add(node);
+            nodeCount++;
+        } else {
+            truncated = true;
+        }
+        return node;
+    }
+
+    public List<FlatNode> getFlatNodes() {
+        List<FlatNode> result = new ArrayList<>();
+        flatten(root, 0, result);
+        return result;
+    }
+
+    private void flatten(ProfileNode node, int depth, List<FlatNode> result) {
+        result.add(new FlatNode(depth, node));
+        for (ProfileNode child : node.getChildren()) {
+            flatten(child, depth + 1, result);
+        }
+    }
+
+    public record FlatNode(int depth, ProfileNode node) {
+    }
+}
@@ -0,0 +1,33 @@
+package by.bsuir.saa.monitoring;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.security.Principal;
+
+@Component
+@RequiredArgsConstructor
+public class ProfilerInterceptor implements HandlerInterceptor {
+
+    private final RequestProfiler requestProfiler;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (requestProfiler.isArmed()) {
+            Principal principal = request.getUserPrincipal();
+            requestProfiler.start(request, principal != null ? principal.getName() : null);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                Object handler, Exception ex) {
+        if (ProfiledRequest.current() != null) {
+            requestProfiler.finish();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package by.bsuir.saa.monitoring;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Добавляет в трассировку профилируемого запроса вызовы контроллеров, сервисов и репозиториев
+ */
+@Aspect
+@Component
+public class ProfilingAspect {
+
+    @Around("within(by.bsuir.saa.controller..*)")
+    public Object profileController(ProceedingJoinPoint joinPoint) throws Throwable {
+        return profile(joinPoint, ProfileNode.Type.CONTROLLER);
+    }
+
+    @Around("within(by.bsuir.saa.service..*)")
+    public Object profileService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return profile(joinPoint, ProfileNode.Type.SERVICE);
+    }
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object profileRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return profile(joinPoint, ProfileNode.Type.REPOSITORY);
+    }
+
+    private Object profile(ProceedingJoinPoint joinPoint, ProfileNode.Type type) throws Throwable {
+        ProfiledRequest request = ProfiledRequest.current();
+        if (request == null) {
+            return joinPoint.proceed();
+        }
+
+        ProfileNode node = request.enter(type, describe(joinPoint));
+        try {
+            Object result = joinPoint.proceed();
+            if (result instanceof Collection<?> collection) {
+                node.setResultSize(collection.size());
+            }
+            return result;
+        } finally {
+            request.exit(node);
+        }
+    }
+
+    private String describe(ProceedingJoinPoint joinPoint) {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        Class<?> type = joinPoint.getTarget() != null ? joinPoint.getTarget().getClass() : signature.getDeclaringType();
+        String typeName = type.getSimpleName();
+        if (type.getInterfaces().length > 0 && typeName.startsWith("$Proxy")) {
+            typeName = type.getInterfaces()[0].getSimpleName();
+        }
+        return typeName + "." + signature.getName();
+    }
+}
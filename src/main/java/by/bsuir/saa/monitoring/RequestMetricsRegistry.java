@@ -0,0 +1,77 @@
+package by.bsuir.saa.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RequestMetricsRegistry {
+
+    private final MeterRegistry meterRegistry;
+    private final MonitoringProperties properties;
+    private final Map<String, EndpointStatistics> endpoints = new ConcurrentHashMap<>();
+
+    public void record(String method, String uri, RequestStatistics statistics) {
+        long wallNanos = statistics.getElapsedNanos();
+        Tags tags = Tags.of("method", method, "uri", uri);
+
+        Timer.builder("saa.http.request.duration").tags(tags).register(meterRegistry)
+                .record(wallNanos, TimeUnit.NANOSECONDS);
+        Timer.builder("saa.http.request.db.time").tags(tags).register(meterRegistry)
+                .record(statistics.getDbTimeNanos(), TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("saa.http.request.jdbc.statements").tags(tags).register(meterRegistry)
+                .record(statistics.getStatementCount());
+        DistributionSummary.builder("saa.http.request.rows").tags(tags).register(meterRegistry)
+                .record(statistics.getRowsFetched());
+        DistributionSummary.builder("saa.http.request.entities").tags(tags).register(meterRegistry)
+                .record(statistics.getEntitiesLoaded());
+
+        endpoints.computeIfAbsent(method + " " + uri, key -> new EndpointStatistics(method, uri))
+                .record(statistics, wallNanos);
+
+        logIfExceedsThresholds(method, uri, statistics, wallNanos);
+    }
+
+    public List<EndpointStatistics> getEndpointStatistics() {
+        return endpoints.values().stream()
+                .sorted(Comparator.comparingDouble(EndpointStatistics::getAvgStatements).reversed())
+                .toList();
+    }
+
+    public void reset() {
+        endpoints.clear();
+    }
+
+    private void logIfExceedsThresholds(String method, String uri, RequestStatistics statistics, long wallNanos) {
+        long wallMs = TimeUnit.NANOSECONDS.toMillis(wallNanos);
+        boolean slow = wallMs >= properties.getSlowRequestThresholdMs();
+        boolean tooManyStatements = statistics.getStatementCount() >= properties.getStatementThreshold();
+
+        if (!slow && !tooManyStatements) {
+            return;
+        }
+
+        String topStatements = statistics.getTopStatements(properties.getTopStatements()).stream()
+                .map(s -> String.format("  %d× %.1f мс: %s", s.getCount(), s.getTotalMillis(), s.getSql()))
+                .collect(Collectors.joining("\n"));
+
+        log.warn("{} запрос {} {}: {} мс, {} SQL-запросов ({} мс в БД), {} строк, {} сущностей\n{}",
+                slow ? "Медленный" : "N+1",
+                method, uri, wallMs, statistics.getStatementCount(),
+                TimeUnit.NANOSECONDS.toMillis(statistics.getDbTimeNanos()),
+                statistics.getRowsFetched(), statistics.getEntitiesLoaded(), topStatements);
+    }
+}
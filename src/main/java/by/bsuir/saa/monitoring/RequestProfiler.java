@@ -0,0 +1,96 @@
+package by.bsuir.saa.monitoring;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Профилировщик отдельных запросов. Администратор включает запись для шаблона URI и
+ * количества запросов, готовые трассировки хранятся в кольцевом буфере ограниченного размера
+ */
+@Component
+@RequiredArgsConstructor
+public class RequestProfiler {
+
+    private final MonitoringProperties properties;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger remainingRequests = new AtomicInteger();
+    private final Deque<ProfiledRequest> traces = new ArrayDeque<>();
+
+    @Getter
+    private volatile String uriPattern;
+
+    public void arm(String uriPattern, int requestCount) {
+        this.uriPattern = uriPattern == null || uriPattern.isBlank() ? "/**" : uriPattern.trim();
+        this.remainingRequests.set(Math.max(requestCount, 1));
+    }
+
+    public void disarm() {
+        remainingRequests.set(0);
+    }
+
+    public int getRemainingRequests() {
+        return remainingRequests.get();
+    }
+
+    public boolean isArmed() {
+        return remainingRequests.get() > 0;
+    }
+
+    boolean start(HttpServletRequest request, String username) {
+        String pattern = uriPattern;
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (!isArmed() || pattern == null || path.startsWith("/admin/profiler") || !pathMatcher.match(pattern, path)) {
+            return false;
+        }
+        if (remainingRequests.getAndUpdate(n -> Math.max(n - 1, 0)) <= 0) {
+            return false;
+        }
+
+        ProfiledRequest.begin(new ProfiledRequest(sequence.incrementAndGet(), request.getMethod(), path, username));
+        return true;
+    }
+
+    void finish() {
+        ProfiledRequest request = ProfiledRequest.end();
+        if (request == null) {
+            return;
+        }
+        synchronized (traces) {
+            traces.addFirst(request);
+            while (traces.size() > properties.getProfilerCapacity()) {
+                traces.removeLast();
+            }
+        }
+    }
+
+    public List<ProfiledRequest> getTraces() {
+        synchronized (traces) {
+            return Collections.unmodifiableList(new ArrayList<>(traces));
+        }
+    }
+
+    public Optional<ProfiledRequest> getTrace(long id) {
+        synchronized (traces) {
+            return traces.stream().filter(trace -> trace.getId() == id).findFirst();
+        }
+    }
+
+    public void clear() {
+        synchronized (traces) {
+            traces.clear();
+        }
+    }
+}
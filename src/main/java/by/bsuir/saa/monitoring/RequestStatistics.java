@@ -0,0 +1,89 @@
+package by.bsuir.saa.monitoring;
+
+import lombok.Data;
+import lombok.Getter;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Счетчики обращений к БД в рамках одного HTTP-запроса (привязаны к потоку обработки)
+ */
+@Getter
+public class RequestStatistics {
+
+    private static final ThreadLocal<RequestStatistics> CURRENT = new ThreadLocal<>();
+    private static final int MAX_TRACKED_STATEMENTS = 200;
+
+    private final long startNanos = System.nanoTime();
+    private int statementCount;
+    private long dbTimeNanos;
+    private long rowsFetched;
+    private long entitiesLoaded;
+    private final Map<String, StatementStats> statements = new LinkedHashMap<>();
+
+    public static RequestStatistics start() {
+        RequestStatistics statistics = new RequestStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    public static RequestStatistics current() {
+        return CURRENT.get();
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    public void recordStatement(String sql, long elapsedNanos) {
+        statementCount++;
+        dbTimeNanos += elapsedNanos;
+
+        String key = sql != null ? sql.trim() : "<batch>";
+        StatementStats stats = statements.get(key);
+        if (stats == null) {
+            if (statements.size() >= MAX_TRACKED_STATEMENTS) {
+                return;
+            }
+            stats = new StatementStats(key);
+            statements.put(key, stats);
+        }
+        stats.count++;
+        stats.totalNanos += elapsedNanos;
+    }
+
+    public void recordRow() {
+        rowsFetched++;
+    }
+
+    public void recordEntityLoad() {
+        entitiesLoaded++;
+    }
+
+    public long getElapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    public List<StatementStats> getTopStatements(int limit) {
+        return statements.values().stream()
+                .sorted(Comparator.comparingInt(StatementStats::getCount)
+                        .thenComparingLong(StatementStats::getTotalNanos)
+                        .reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    @Data
+    public static class StatementStats {
+        private final String sql;
+        private int count;
+        private long totalNanos;
+
+        public double getTotalMillis() {
+            return totalNanos / 1_000_000.0;
+        }
+    }
+}
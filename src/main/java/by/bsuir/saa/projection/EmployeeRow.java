@@ -0,0 +1,26 @@
+package by.bsuir.saa.projection;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Сотрудник для списков и таблиц: подразделение и должность выбираются тем же запросом
+ */
+@Value
+public class EmployeeRow {
+    Integer id;
+    String fullName;
+    LocalDate hireDate;
+    LocalDate terminationDate;
+    Integer departmentId;
+    String departmentName;
+    Integer positionId;
+    String positionTitle;
+    BigDecimal baseSalary;
+
+    public boolean isActive() {
+        return terminationDate == null;
+    }
+}
@@ -0,0 +1,20 @@
+package by.bsuir.saa.projection;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+/**
+ * Начисление или удержание для таблиц по периоду: код, категория и название типа оплаты
+ * выбираются тем же запросом
+ */
+@Value
+public class PaymentRow {
+    Integer id;
+    Integer employeeId;
+    String paymentTypeCode;
+    String paymentTypeName;
+    String category;
+    BigDecimal amount;
+    String description;
+}
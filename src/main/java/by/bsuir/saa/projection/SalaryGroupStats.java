@@ -0,0 +1,34 @@
+package by.bsuir.saa.projection;
+
+import by.bsuir.saa.calculation.Money;
+import by.bsuir.saa.calculation.PayrollKernel;
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+/**
+ * Итоги зарплат по группе (подразделению или должности) за период, посчитанные группирующим запросом.
+ * Среднее вычисляется из суммы и количества с округлением до копейки HALF_UP
+ */
+@Value
+public class SalaryGroupStats {
+    Integer groupId;
+    String name;
+    long employeeCount;
+    BigDecimal totalFOT;
+    BigDecimal averageSalary;
+    BigDecimal minSalary;
+    BigDecimal maxSalary;
+
+    public SalaryGroupStats(Integer groupId, String name, Long employeeCount,
+                            BigDecimal totalFOT, BigDecimal minSalary, BigDecimal maxSalary) {
+        this.groupId = groupId;
+        this.name = name;
+        this.employeeCount = employeeCount;
+        this.totalFOT = Money.of(totalFOT).toBigDecimal();
+        this.averageSalary = employeeCount == 0 ? BigDecimal.ZERO
+                : PayrollKernel.fromKopecks(PayrollKernel.divideHalfUp(Money.toKopecks(totalFOT), employeeCount));
+        this.minSalary = Money.of(minSalary).toBigDecimal();
+        this.maxSalary = Money.of(maxSalary).toBigDecimal();
+    }
+}
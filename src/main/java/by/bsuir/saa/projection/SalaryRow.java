@@ -0,0 +1,17 @@
+package by.bsuir.saa.projection;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+/**
+ * Итоговая зарплата сотрудника с должностью и подразделением для рейтингов и сводок
+ */
+@Value
+public class SalaryRow {
+    Integer employeeId;
+    String fullName;
+    String positionTitle;
+    String departmentName;
+    BigDecimal netSalary;
+}
@@ -0,0 +1,24 @@
+package by.bsuir.saa.projection;
+
+import by.bsuir.saa.entity.Timesheet;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Строка списка табелей: табель без отметок, сотрудник и подразделение
+ */
+@Value
+public class TimesheetSummary {
+    Integer id;
+    Integer employeeId;
+    String employeeName;
+    Integer departmentId;
+    String departmentName;
+    Integer month;
+    Integer year;
+    BigDecimal totalHours;
+    Timesheet.TimesheetStatus status;
+    LocalDateTime confirmedAt;
+}
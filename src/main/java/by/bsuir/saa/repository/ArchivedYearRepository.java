@@ -0,0 +1,13 @@
+package by.bsuir.saa.repository;
+
+import by.bsuir.saa.entity.ArchivedYear;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ArchivedYearRepository extends JpaRepository<ArchivedYear, Integer> {
+
+    @Query("SELECT MAX(a.year) FROM ArchivedYear a")
+    Integer findLatestYear();
+}
@@ -3,6 +3,7 @@ package by.bsuir.saa.repository;
 import by.bsuir.saa.entity.Department;
 import by.bsuir.saa.entity.Employee;
 import by.bsuir.saa.entity.Position;
+import by.bsuir.saa.projection.EmployeeRow;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -10,6 +11,7 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface EmployeeRepository extends JpaRepository<Employee, Integer> {
@@ -20,7 +22,9 @@ public interface EmployeeRepository extends JpaRepository<Employee, Integer> {
 
     List<Employee> findByTerminationDateIsNull();
 
-    List<Employee> findByFullNameContainingIgnoreCase(String name);
+    List<Employee> findByNormalizedNameContaining(String normalizedName);
+
+    List<Employee> findByNormalizedNameIsNull();
 
     List<Employee> findByDepartmentIdAndTerminationDateIsNull(Integer departmentId);
 
@@ -30,6 +34,10 @@ public interface EmployeeRepository extends JpaRepository<Employee, Integer> {
 
     boolean existsByFullName(String fullName);
 
+    boolean existsByNormalizedName(String normalizedName);
+
+    boolean existsByNormalizedNameAndIdNot(String normalizedName, Integer id);
+
     boolean existsByDepartment(Department department);
 
     @Query("SELECT e FROM Employee e WHERE e.department.name = :departmentName AND e.terminationDate IS NULL")
@@ -53,7 +61,78 @@ public interface EmployeeRepository extends JpaRepository<Employee, Integer> {
     @Query("SELECT e FROM Employee e LEFT JOIN FETCH e.position LEFT JOIN FETCH e.department")
     List<Employee> findAllWithDetails();
 
+    @Query("SELECT e FROM Employee e LEFT JOIN FETCH e.position LEFT JOIN FETCH e.department WHERE e.id = :id")
+    Optional<Employee> findByIdWithDetails(@Param("id") Integer id);
+
+    @Query("SELECT e FROM Employee e LEFT JOIN FETCH e.position LEFT JOIN FETCH e.department " +
+            "WHERE e.department.id = :departmentId AND e.terminationDate IS NULL")
+    List<Employee> findActiveByDepartmentWithDetails(@Param("departmentId") Integer departmentId);
+
+    String EMPLOYEE_ROW = "SELECT new by.bsuir.saa.projection.EmployeeRow(e.id, e.fullName, e.hireDate, " +
+            "e.terminationDate, d.id, d.name, p.id, p.title, p.baseSalary) " +
+            "FROM Employee e LEFT JOIN e.department d LEFT JOIN e.position p ";
+
+    @Query(EMPLOYEE_ROW + "ORDER BY e.fullName")
+    List<EmployeeRow> findAllRows();
+
+    @Query(EMPLOYEE_ROW + "WHERE e.terminationDate IS NULL OR e.terminationDate >= :terminatedSince " +
+            "ORDER BY e.fullName")
+    List<EmployeeRow> findCurrentRows(@Param("terminatedSince") LocalDate terminatedSince);
+
+    long countByTerminationDateBefore(LocalDate date);
+
     @Query("SELECT COUNT(e) FROM Employee e WHERE e.hireDate BETWEEN :startDate AND :endDate AND e.terminationDate IS NULL")
     Long countByHireDateBetweenAndTerminationDateIsNull(@Param("startDate") LocalDate startDate,
                                                         @Param("endDate") LocalDate endDate);
-}
\ No newline at end of file
+
+    @Query(value = "SELECT e.id, e.full_name, d.name, p.title, e.termination_date " +
+            "FROM employees e JOIN departments d ON d.id = e.department_id JOIN positions p ON p.id = e.position_id " +
+            "WHERE (e.normalized_name LIKE :pattern ESCAPE '!' OR :query <% e.normalized_name) " +
+            "AND (:activeOnly = FALSE OR e.termination_date IS NULL) " +
+            "ORDER BY e.normalized_name LIKE :prefix ESCAPE '!' DESC, " +
+            "word_similarity(:query, e.normalized_name) DESC, e.full_name " +
+            "LIMIT :limit", nativeQuery = true)
+    List<Object[]> searchByTrigram(@Param("query") String query,
+                                   @Param("pattern") String pattern,
+                                   @Param("prefix") String prefix,
+                                   @Param("activeOnly") boolean activeOnly,
+                                   @Param("limit") int limit);
+
+    @Query(value = "SELECT e.id, e.full_name, d.name, p.title, e.termination_date " +
+            "FROM employees e JOIN departments d ON d.id = e.department_id JOIN positions p ON p.id = e.position_id " +
+            "WHERE e.normalized_name LIKE :pattern ESCAPE '!' " +
+            "AND (:activeOnly = FALSE OR e.termination_date IS NULL) " +
+            "ORDER BY e.normalized_name LIKE :prefix ESCAPE '!' DESC, e.full_name " +
+            "LIMIT :limit", nativeQuery = true)
+    List<Object[]> searchByPattern(@Param("pattern") String pattern,
+                                   @Param("prefix") String prefix,
+                                   @Param("activeOnly") boolean activeOnly,
+                                   @Param("limit") int limit);
+
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'pg_trgm')", nativeQuery = true)
+    boolean isTrigramExtensionInstalled();
+
+    @Query(value = "SELECT EXTRACT(YEAR FROM m.month_start), EXTRACT(MONTH FROM m.month_start), " +
+            "COUNT(e.id) FILTER (WHERE e.hire_date < m.month_start), " +
+            "COUNT(e.id) FILTER (WHERE e.hire_date >= m.month_start), " +
+            "COUNT(e.id) FILTER (WHERE e.termination_date < m.next_start), " +
+            "COUNT(e.id) FILTER (WHERE e.termination_date IS NULL OR e.termination_date >= m.next_start), " +
+            "COUNT(e.id) FILTER (WHERE (e.termination_date IS NULL OR e.termination_date >= m.next_start) " +
+            "AND e.hire_date >= m.next_start - INTERVAL '1 year'), " +
+            "COUNT(e.id) FILTER (WHERE (e.termination_date IS NULL OR e.termination_date >= m.next_start) " +
+            "AND e.hire_date < m.next_start - INTERVAL '1 year' AND e.hire_date >= m.next_start - INTERVAL '3 years'), " +
+            "COUNT(e.id) FILTER (WHERE (e.termination_date IS NULL OR e.termination_date >= m.next_start) " +
+            "AND e.hire_date < m.next_start - INTERVAL '3 years' AND e.hire_date >= m.next_start - INTERVAL '10 years'), " +
+            "COUNT(e.id) FILTER (WHERE (e.termination_date IS NULL OR e.termination_date >= m.next_start) " +
+            "AND e.hire_date < m.next_start - INTERVAL '10 years') " +
+            "FROM (SELECT CAST(gs AS DATE) AS month_start, CAST(gs + INTERVAL '1 month' AS DATE) AS next_start " +
+            "FROM generate_series(CAST(:fromDate AS DATE), CAST(:toDate AS DATE), INTERVAL '1 month') AS gs) m " +
+            "LEFT JOIN employees e ON e.hire_date < m.next_start " +
+            "AND (e.termination_date IS NULL OR e.termination_date >= m.month_start) " +
+            "AND (CAST(:departmentId AS INTEGER) IS NULL OR e.department_id = CAST(:departmentId AS INTEGER)) " +
+            "GROUP BY m.month_start, m.next_start " +
+            "ORDER BY m.month_start", nativeQuery = true)
+    List<Object[]> findMonthlyHeadcountFlow(@Param("fromDate") LocalDate fromDate,
+                                            @Param("toDate") LocalDate toDate,
+                                            @Param("departmentId") Integer departmentId);
+}
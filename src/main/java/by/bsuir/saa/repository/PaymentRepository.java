@@ -3,7 +3,9 @@ package by.bsuir.saa.repository;
 import by.bsuir.saa.entity.Employee;
 import by.bsuir.saa.entity.Payment;
 import by.bsuir.saa.entity.PaymentType;
+import by.bsuir.saa.projection.PaymentRow;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -15,12 +17,28 @@ import java.util.Optional;
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Integer> {
 
-    List<Payment> findByEmployeeAndMonthAndYear(Employee employee, Integer month, Integer year);
+    @Query("SELECT p FROM Payment p JOIN FETCH p.paymentType " +
+            "WHERE p.employee = :employee AND p.month = :month AND p.year = :year")
+    List<Payment> findByEmployeeAndMonthAndYear(@Param("employee") Employee employee,
+                                                @Param("month") Integer month,
+                                                @Param("year") Integer year);
+
+    @Query("SELECT p FROM Payment p " +
+            "JOIN FETCH p.employee e LEFT JOIN FETCH e.position LEFT JOIN FETCH e.department " +
+            "JOIN FETCH p.paymentType WHERE p.id = :id")
+    Optional<Payment> findByIdWithDetails(@Param("id") Integer id);
 
     List<Payment> findByPaymentType(PaymentType paymentType);
 
     List<Payment> findByMonthAndYear(Integer month, Integer year);
 
+    @Query("SELECT new by.bsuir.saa.projection.PaymentRow(p.id, p.employee.id, p.paymentTypeCode, pt.name, " +
+            "p.category, p.amount, p.description) " +
+            "FROM Payment p JOIN p.paymentType pt " +
+            "WHERE p.month = :month AND p.year = :year " +
+            "ORDER BY p.id")
+    List<PaymentRow> findRowsByMonthAndYear(@Param("month") Integer month, @Param("year") Integer year);
+
     boolean existsByPaymentType(PaymentType paymentType);
 
     @Query("SELECT p FROM Payment p WHERE p.employee = :employee AND p.month = :month AND p.year = :year AND p.paymentType = :paymentType")
@@ -29,7 +47,7 @@ public interface PaymentRepository extends JpaRepository<Payment, Integer> {
                                                                   @Param("year") Integer year,
                                                                   @Param("paymentType") PaymentType paymentType);
 
-    @Query("SELECT p FROM Payment p WHERE p.employee.department.id = :departmentId AND p.month = :month AND p.year = :year AND p.paymentType.category = :category")
+    @Query("SELECT p FROM Payment p WHERE p.employee.department.id = :departmentId AND p.month = :month AND p.year = :year AND p.category = :category")
     List<Payment> findByDepartmentAndPeriodAndCategory(@Param("departmentId") Integer departmentId,
                                                        @Param("month") Integer month,
                                                        @Param("year") Integer year,
@@ -37,7 +55,7 @@ public interface PaymentRepository extends JpaRepository<Payment, Integer> {
 
     @Query("SELECT COALESCE(SUM(p.amount), 0) FROM Payment p " +
             "WHERE p.employee = :employee AND p.month = :month AND p.year = :year " +
-            "AND p.paymentType.category = :category")
+            "AND p.category = :category")
     BigDecimal sumAmountByEmployeeAndPeriodAndCategory(@Param("employee") Employee employee,
                                                        @Param("month") Integer month,
                                                        @Param("year") Integer year,
@@ -45,13 +63,13 @@ public interface PaymentRepository extends JpaRepository<Payment, Integer> {
 
     @Query("SELECT COALESCE(SUM(ABS(p.amount)), 0) FROM Payment p " +
             "WHERE p.month = :month AND p.year = :year " +
-            "AND p.paymentType.category = 'deduction'")
+            "AND p.category = 'deduction'")
     BigDecimal sumTaxesByPeriod(@Param("month") Integer month, @Param("year") Integer year);
 
     @Query("SELECT p.paymentType.name, SUM(ABS(p.amount)) " +
             "FROM Payment p " +
             "WHERE p.month = :month AND p.year = :year " +
-            "AND p.paymentType.category = 'deduction' " +
+            "AND p.category = 'deduction' " +
             "GROUP BY p.paymentType.name")
     List<Object[]> findTaxDetailsByPeriod(@Param("month") Integer month, @Param("year") Integer year);
 
@@ -59,20 +77,30 @@ public interface PaymentRepository extends JpaRepository<Payment, Integer> {
     Long countDistinctEmployeesByMonthAndYear(@Param("month") Integer month,
                                               @Param("year") Integer year);
 
-    @Query("SELECT COUNT(DISTINCT p.employee.id) FROM Payment p WHERE p.month = :month AND p.year = :year AND p.paymentType.category = 'accrual'")
+    @Query("SELECT COUNT(DISTINCT p.employee.id) FROM Payment p WHERE p.month = :month AND p.year = :year AND p.paymentTypeCode = :code")
+    long countDistinctEmployeesByPeriodAndPaymentCode(@Param("month") Integer month,
+                                                      @Param("year") Integer year,
+                                                      @Param("code") String code);
+
+    @Query("SELECT DISTINCT p.employee.id FROM Payment p WHERE p.month = :month AND p.year = :year AND p.paymentTypeCode = :code")
+    List<Integer> findEmployeeIdsByPeriodAndPaymentCode(@Param("month") Integer month,
+                                                        @Param("year") Integer year,
+                                                        @Param("code") String code);
+
+    @Query("SELECT COUNT(DISTINCT p.employee.id) FROM Payment p WHERE p.month = :month AND p.year = :year AND p.category = 'accrual'")
     Long countEmployeesWithAccruals(@Param("month") Integer month,
                                     @Param("year") Integer year);
 
     @Query("SELECT p FROM Payment p " +
             "WHERE p.month = :month AND p.year = :year " +
-            "AND p.paymentType.category = 'deduction' " +
+            "AND p.category = 'deduction' " +
             "ORDER BY p.employee.fullName, p.paymentType.name")
     List<Payment> findTaxPaymentsByPeriod(@Param("month") Integer month,
                                           @Param("year") Integer year);
 
     @Query("SELECT p FROM Payment p " +
             "WHERE p.month = :month AND p.year = :year " +
-            "AND p.paymentType.category = 'deduction' " +
+            "AND p.category = 'deduction' " +
             "AND p.employee.department.id = :departmentId " +
             "ORDER BY p.employee.fullName, p.paymentType.name")
     List<Payment> findTaxPaymentsByDepartmentAndPeriod(@Param("departmentId") Integer departmentId,
@@ -81,7 +109,7 @@ public interface PaymentRepository extends JpaRepository<Payment, Integer> {
 
     @Query("SELECT COALESCE(SUM(ABS(p.amount)), 0) FROM Payment p " +
             "WHERE p.employee.id = :employeeId AND p.month = :month AND p.year = :year " +
-            "AND p.paymentType.category = 'deduction'")
+            "AND p.category = 'deduction'")
     BigDecimal sumTaxesByEmployeeAndPeriod(@Param("employeeId") Integer employeeId,
                                            @Param("month") Integer month,
                                            @Param("year") Integer year);
@@ -89,15 +117,30 @@ public interface PaymentRepository extends JpaRepository<Payment, Integer> {
     @Query("SELECT p.paymentType, COUNT(p), SUM(ABS(p.amount)) " +
             "FROM Payment p " +
             "WHERE p.month = :month AND p.year = :year " +
-            "AND p.paymentType.category = 'deduction' " +
+            "AND p.category = 'deduction' " +
             "GROUP BY p.paymentType " +
             "ORDER BY SUM(ABS(p.amount)) DESC")
     List<Object[]> findTaxStatisticsByType(@Param("month") Integer month,
                                            @Param("year") Integer year);
 
     @Query("SELECT COUNT(p) > 0 FROM Payment p WHERE p.employee = :employee AND p.month = :month AND p.year = :year " +
-            "AND p.paymentType.category = 'deduction' AND p.paymentType.code IN ('ПН', 'ФСЗН')")
+            "AND p.category = 'deduction' AND p.paymentTypeCode IN ('ПН', 'ФСЗН')")
     boolean hasTaxesForEmployee(@Param("employee") Employee employee,
                                 @Param("month") Integer month,
                                 @Param("year") Integer year);
-}
\ No newline at end of file
+
+    /**
+     * Переносит новые код и категорию вида оплаты в уже созданные начисления
+     */
+    @Modifying
+    @Query("UPDATE Payment p SET p.paymentTypeCode = :code, p.category = :category WHERE p.paymentType = :paymentType")
+    int updatePaymentTypeAttributes(@Param("paymentType") PaymentType paymentType,
+                                    @Param("code") String code,
+                                    @Param("category") String category);
+
+    @Query("SELECT COUNT(DISTINCT p.employee.id) FROM Payment p WHERE p.month = :month AND p.year = :year " +
+            "AND NOT EXISTS (SELECT sp.id FROM SalaryPayment sp " +
+            "WHERE sp.employee = p.employee AND sp.month = :month AND sp.year = :year)")
+    long countEmployeesWithoutFinalSalary(@Param("month") Integer month,
+                                          @Param("year") Integer year);
+}
@@ -0,0 +1,45 @@
+package by.bsuir.saa.repository;
+
+import by.bsuir.saa.entity.PaymentSnapshot;
+import by.bsuir.saa.projection.PaymentRow;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PaymentSnapshotRepository extends JpaRepository<PaymentSnapshot, Integer> {
+
+    @Query("SELECT new by.bsuir.saa.projection.PaymentRow(p.id, p.employeeId, p.paymentTypeCode, " +
+            "p.paymentTypeName, p.category, p.amount, p.description) " +
+            "FROM PaymentSnapshot p " +
+            "WHERE p.year = :year AND p.month = :month AND p.employeeId = :employeeId " +
+            "ORDER BY p.id")
+    List<PaymentRow> findRowsByEmployeeAndPeriod(@Param("employeeId") Integer employeeId,
+                                                 @Param("month") Integer month,
+                                                 @Param("year") Integer year);
+
+    /**
+     * Суммы начислений периода по видам оплаты: название вида, сумма
+     */
+    @Query("SELECT p.paymentTypeName, SUM(p.amount) FROM PaymentSnapshot p " +
+            "WHERE p.year = :year AND p.month = :month AND p.category = 'accrual' " +
+            "GROUP BY p.paymentTypeName")
+    List<Object[]> sumAccrualsByPaymentType(@Param("month") Integer month, @Param("year") Integer year);
+
+    /**
+     * Копирует начисления и удержания периода вместе с кодом, названием и категорией вида оплаты
+     */
+    @Modifying
+    @Query(value = "INSERT INTO payment_snapshots (month, year, employee_id, payment_type_code, payment_type_name, " +
+            "category, amount, description) " +
+            "SELECT p.month, p.year, p.employee_id, p.payment_type_code, pt.name, p.category, p.amount, p.description " +
+            "FROM payments p " +
+            "JOIN payment_types pt ON pt.id = p.payment_type_id " +
+            "WHERE p.year = :year AND p.month = :month " +
+            "ORDER BY p.id", nativeQuery = true)
+    int createSnapshot(@Param("month") Integer month, @Param("year") Integer year);
+}
@@ -0,0 +1,31 @@
+package by.bsuir.saa.repository;
+
+import by.bsuir.saa.entity.PeriodClosure;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface PeriodClosureRepository extends JpaRepository<PeriodClosure, Integer> {
+
+    Optional<PeriodClosure> findByMonthAndYear(Integer month, Integer year);
+
+    boolean existsByMonthAndYear(Integer month, Integer year);
+
+    /**
+     * Исключительная блокировка периода до конца транзакции: ждет завершения транзакций,
+     * которые изменяют данные периода
+     */
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(:year, :month)", nativeQuery = true)
+    Integer lockPeriod(@Param("month") Integer month, @Param("year") Integer year);
+
+    /**
+     * Разделяемая блокировка периода до конца транзакции: изменения данных периода не мешают
+     * друг другу, но закрытие периода ждет их завершения
+     */
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock_shared(:year, :month)", nativeQuery = true)
+    Integer lockPeriodShared(@Param("month") Integer month, @Param("year") Integer year);
+}
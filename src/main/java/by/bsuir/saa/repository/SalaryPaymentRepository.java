@@ -2,8 +2,14 @@ package by.bsuir.saa.repository;
 
 import by.bsuir.saa.entity.Employee;
 import by.bsuir.saa.entity.SalaryPayment;
+import by.bsuir.saa.projection.SalaryGroupStats;
+import by.bsuir.saa.projection.SalaryRow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -21,16 +27,35 @@ public interface SalaryPaymentRepository extends JpaRepository<SalaryPayment, In
 
     List<SalaryPayment> findByMonthAndYear(Integer month, Integer year);
 
-    @Query("SELECT sp FROM SalaryPayment sp WHERE sp.employee.department.id = :departmentId AND sp.month = :month AND sp.year = :year")
-    List<SalaryPayment> findByDepartmentAndPeriod(@Param("departmentId") Integer departmentId,
-                                                  @Param("month") Integer month,
-                                                  @Param("year") Integer year);
+    @Query("SELECT sp FROM SalaryPayment sp JOIN FETCH sp.employee WHERE sp.month = :month AND sp.year = :year")
+    List<SalaryPayment> findByMonthAndYearWithEmployee(@Param("month") Integer month,
+                                                       @Param("year") Integer year);
+
+    @Query("SELECT sp FROM SalaryPayment sp JOIN FETCH sp.employee e " +
+            "LEFT JOIN FETCH e.position LEFT JOIN FETCH e.department WHERE sp.id = :id")
+    Optional<SalaryPayment> findByIdWithEmployee(@Param("id") Integer id);
+
+    long countByMonthAndYear(Integer month, Integer year);
+
+    @Query("SELECT new by.bsuir.saa.projection.SalaryGroupStats(d.id, d.name, " +
+            "COUNT(sp.netSalary), SUM(sp.netSalary), MIN(sp.netSalary), MAX(sp.netSalary)) " +
+            "FROM SalaryPayment sp JOIN sp.employee e JOIN e.department d " +
+            "WHERE sp.month = :month AND sp.year = :year " +
+            "GROUP BY d.id, d.name")
+    List<SalaryGroupStats> findDepartmentStats(@Param("month") Integer month, @Param("year") Integer year);
+
+    @Query("SELECT new by.bsuir.saa.projection.SalaryGroupStats(p.id, p.title, " +
+            "COUNT(sp.netSalary), SUM(sp.netSalary), MIN(sp.netSalary), MAX(sp.netSalary)) " +
+            "FROM SalaryPayment sp JOIN sp.employee e JOIN e.position p " +
+            "WHERE sp.month = :month AND sp.year = :year " +
+            "GROUP BY p.id, p.title")
+    List<SalaryGroupStats> findPositionStats(@Param("month") Integer month, @Param("year") Integer year);
 
     @Query("SELECT sp.employee.department.name, sp.month, sp.year, AVG(sp.netSalary), COUNT(sp.employee) " +
             "FROM SalaryPayment sp " +
             "WHERE sp.employee.department.id = :departmentId " +
-            "AND ((sp.year = :startYear AND sp.month >= :startMonth) OR sp.year > :startYear) " +
-            "AND ((sp.year = :endYear AND sp.month <= :endMonth) OR sp.year < :endYear) " +
+            "AND sp.year BETWEEN :startYear AND :endYear " +
+            "AND sp.period BETWEEN :startYear * 12 + :startMonth AND :endYear * 12 + :endMonth " +
             "GROUP BY sp.employee.department.name, sp.month, sp.year " +
             "ORDER BY sp.year, sp.month")
     List<Object[]> findAverageSalaryByDepartmentAndPeriodRange(@Param("departmentId") Integer departmentId,
@@ -39,6 +64,70 @@ public interface SalaryPaymentRepository extends JpaRepository<SalaryPayment, In
                                                                @Param("endMonth") Integer endMonth,
                                                                @Param("endYear") Integer endYear);
 
+    /**
+     * Чистые зарплаты диапазона периодов: годы с {@code firstHotYear} из рабочей таблицы,
+     * архивные годы из снимков закрытых периодов с подразделением и должностью на момент закрытия
+     */
+    String SALARY_HISTORY = "(SELECT sp.year, sp.month, sp.net_salary, e.department_id, " +
+            "d.name AS department_name, p.title AS position_title " +
+            "FROM salary_payments sp JOIN employees e ON e.id = sp.employee_id " +
+            "LEFT JOIN departments d ON d.id = e.department_id LEFT JOIN positions p ON p.id = e.position_id " +
+            "WHERE sp.year >= :firstHotYear " +
+            "AND sp.year BETWEEN (:fromPeriod - 1) / 12 AND (:toPeriod - 1) / 12 " +
+            "AND sp.period BETWEEN :fromPeriod AND :toPeriod AND sp.net_salary IS NOT NULL " +
+            "UNION ALL " +
+            "SELECT ss.year, ss.month, ss.net_salary, ss.department_id, ss.department_name, ss.position_title " +
+            "FROM salary_snapshots ss " +
+            "WHERE ss.year < :firstHotYear " +
+            "AND ss.year BETWEEN (:fromPeriod - 1) / 12 AND (:toPeriod - 1) / 12 " +
+            "AND ss.year * 12 + ss.month BETWEEN :fromPeriod AND :toPeriod AND ss.net_salary IS NOT NULL) ";
+
+    @Query(value = "SELECT sp.year, sp.month, COUNT(*), SUM(sp.net_salary), MIN(sp.net_salary), MAX(sp.net_salary), " +
+            "PERCENTILE_CONT(0.5) WITHIN GROUP (ORDER BY sp.net_salary) " +
+            "FROM " + SALARY_HISTORY + "sp " +
+            "WHERE CAST(:departmentId AS INTEGER) IS NULL OR sp.department_id = CAST(:departmentId AS INTEGER) " +
+            "GROUP BY sp.year, sp.month " +
+            "ORDER BY sp.year, sp.month", nativeQuery = true)
+    List<Object[]> findMonthlySalaryTrend(@Param("fromPeriod") int fromPeriod,
+                                          @Param("toPeriod") int toPeriod,
+                                          @Param("departmentId") Integer departmentId,
+                                          @Param("firstHotYear") int firstHotYear);
+
+    @Query(value = "WITH ranked AS (" +
+            "SELECT CASE CAST(:dimension AS VARCHAR) WHEN 'department' THEN sp.department_name " +
+            "WHEN 'position' THEN sp.position_title ELSE '' END AS group_name, " +
+            "sp.net_salary AS amount, " +
+            "ROW_NUMBER() OVER (PARTITION BY CASE CAST(:dimension AS VARCHAR) WHEN 'department' THEN sp.department_name " +
+            "WHEN 'position' THEN sp.position_title ELSE '' END ORDER BY sp.net_salary) AS rn " +
+            "FROM " + SALARY_HISTORY + "sp) " +
+            "SELECT group_name, COUNT(*), MIN(amount), MAX(amount), AVG(amount), " +
+            "PERCENTILE_CONT(0.1) WITHIN GROUP (ORDER BY amount), " +
+            "PERCENTILE_CONT(0.25) WITHIN GROUP (ORDER BY amount), " +
+            "PERCENTILE_CONT(0.5) WITHIN GROUP (ORDER BY amount), " +
+            "PERCENTILE_CONT(0.75) WITHIN GROUP (ORDER BY amount), " +
+            "PERCENTILE_CONT(0.9) WITHIN GROUP (ORDER BY amount), " +
+            "CASE WHEN SUM(amount) > 0 THEN 2.0 * SUM(rn * amount) / (COUNT(*) * SUM(amount)) - (COUNT(*) + 1.0) / COUNT(*) " +
+            "ELSE 0 END " +
+            "FROM ranked GROUP BY group_name ORDER BY group_name", nativeQuery = true)
+    List<Object[]> findSalaryDistribution(@Param("fromPeriod") int fromPeriod,
+                                          @Param("toPeriod") int toPeriod,
+                                          @Param("dimension") String dimension,
+                                          @Param("firstHotYear") int firstHotYear);
+
+    @Query(value = "WITH amounts AS (" +
+            "SELECT sp.net_salary AS amount FROM " + SALARY_HISTORY + "sp " +
+            "WHERE CAST(:departmentId AS INTEGER) IS NULL OR sp.department_id = CAST(:departmentId AS INTEGER)), " +
+            "bounds AS (SELECT MIN(amount) AS lo, MAX(amount) AS hi FROM amounts) " +
+            "SELECT CASE WHEN b.hi = b.lo THEN 1 ELSE LEAST(WIDTH_BUCKET(a.amount, b.lo, b.hi, :buckets), :buckets) END AS bucket, " +
+            "b.lo, b.hi, COUNT(*) " +
+            "FROM amounts a CROSS JOIN bounds b " +
+            "GROUP BY bucket, b.lo, b.hi ORDER BY bucket", nativeQuery = true)
+    List<Object[]> findSalaryHistogram(@Param("fromPeriod") int fromPeriod,
+                                       @Param("toPeriod") int toPeriod,
+                                       @Param("departmentId") Integer departmentId,
+                                       @Param("buckets") int buckets,
+                                       @Param("firstHotYear") int firstHotYear);
+
     @Query("SELECT sp.employee.department.name, AVG(sp.netSalary), SUM(sp.netSalary) " +
             "FROM SalaryPayment sp " +
             "WHERE sp.month = :month AND sp.year = :year " +
@@ -46,13 +135,18 @@ public interface SalaryPaymentRepository extends JpaRepository<SalaryPayment, In
     List<Object[]> findAverageSalaryByDepartmentAndPeriod(@Param("month") Integer month,
                                                           @Param("year") Integer year);
 
-    @Query("SELECT sp FROM SalaryPayment sp " +
+    @Query("SELECT new by.bsuir.saa.projection.SalaryRow(e.id, e.fullName, p.title, d.name, sp.netSalary) " +
+            "FROM SalaryPayment sp JOIN sp.employee e LEFT JOIN e.position p LEFT JOIN e.department d " +
             "WHERE sp.month = :month AND sp.year = :year " +
             "ORDER BY sp.netSalary DESC " +
             "LIMIT :limit")
-    List<SalaryPayment> findTopByMonthAndYearOrderByNetSalaryDesc(@Param("month") Integer month,
-                                                                  @Param("year") Integer year,
-                                                                  @Param("limit") int limit);
+    List<SalaryRow> findTopSalaryRows(@Param("month") Integer month,
+                                      @Param("year") Integer year,
+                                      @Param("limit") int limit);
+
+    @Query("SELECT sp.employee.id FROM SalaryPayment sp WHERE sp.month = :month AND sp.year = :year")
+    List<Integer> findEmployeeIdsByMonthAndYear(@Param("month") Integer month,
+                                                @Param("year") Integer year);
 
     @Query("SELECT COALESCE(AVG(sp.netSalary), 0) FROM SalaryPayment sp " +
             "WHERE sp.employee.department.id = :departmentId " +
@@ -77,7 +171,7 @@ public interface SalaryPaymentRepository extends JpaRepository<SalaryPayment, In
 
     @Query("SELECT COALESCE(SUM(ABS(p.amount)), 0) FROM Payment p " +
             "WHERE p.month = :month AND p.year = :year " +
-            "AND p.paymentType.category = 'deduction'")
+            "AND p.category = 'deduction'")
     BigDecimal sumTaxesByPeriod(@Param("month") Integer month, @Param("year") Integer year);
 
     @Query("SELECT sp.employee.department.name, AVG(sp.netSalary), SUM(sp.netSalary), COUNT(sp.employee) " +
@@ -98,6 +192,7 @@ public interface SalaryPaymentRepository extends JpaRepository<SalaryPayment, In
     List<Map<String, Object>> findDepartmentStatsForPeriod(@Param("month") Integer month,
                                                            @Param("year") Integer year);
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
     @Query("SELECT sp FROM SalaryPayment sp " +
             "WHERE sp.month = :month AND sp.year = :year " +
             "ORDER BY sp.netSalary DESC " +
@@ -105,4 +200,10 @@ public interface SalaryPaymentRepository extends JpaRepository<SalaryPayment, In
     List<SalaryPayment> findTopByMonthAndYearOrderByNetSalaryDesc(@Param("month") Integer month,
                                                                   @Param("year") Integer year,
                                                                   @Param("limit") Integer limit);
-}
\ No newline at end of file
+
+    @Modifying
+    @Query("UPDATE SalaryPayment sp SET sp.status = :status WHERE sp.month = :month AND sp.year = :year")
+    int updateStatusByPeriod(@Param("month") Integer month,
+                             @Param("year") Integer year,
+                             @Param("status") SalaryPayment.SalaryStatus status);
+}
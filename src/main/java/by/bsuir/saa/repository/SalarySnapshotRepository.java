@@ -0,0 +1,62 @@
+package by.bsuir.saa.repository;
+
+import by.bsuir.saa.entity.SalarySnapshot;
+import by.bsuir.saa.projection.SalaryGroupStats;
+import by.bsuir.saa.projection.SalaryRow;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SalarySnapshotRepository extends JpaRepository<SalarySnapshot, Integer> {
+
+    List<SalarySnapshot> findByMonthAndYear(Integer month, Integer year);
+
+    List<SalarySnapshot> findByMonthAndYearOrderByFullNameAsc(Integer month, Integer year);
+
+    List<SalarySnapshot> findByMonthAndYearAndDepartmentIdOrderByFullNameAsc(Integer month, Integer year,
+                                                                           Integer departmentId);
+
+    Optional<SalarySnapshot> findByEmployeeIdAndMonthAndYear(Integer employeeId, Integer month, Integer year);
+
+    @Query("SELECT new by.bsuir.saa.projection.SalaryGroupStats(s.departmentId, s.departmentName, " +
+            "COUNT(s.netSalary), SUM(s.netSalary), MIN(s.netSalary), MAX(s.netSalary)) " +
+            "FROM SalarySnapshot s WHERE s.month = :month AND s.year = :year " +
+            "GROUP BY s.departmentId, s.departmentName")
+    List<SalaryGroupStats> findDepartmentStats(@Param("month") Integer month, @Param("year") Integer year);
+
+    @Query("SELECT new by.bsuir.saa.projection.SalaryGroupStats(s.positionId, s.positionTitle, " +
+            "COUNT(s.netSalary), SUM(s.netSalary), MIN(s.netSalary), MAX(s.netSalary)) " +
+            "FROM SalarySnapshot s WHERE s.month = :month AND s.year = :year " +
+            "GROUP BY s.positionId, s.positionTitle")
+    List<SalaryGroupStats> findPositionStats(@Param("month") Integer month, @Param("year") Integer year);
+
+    @Query("SELECT new by.bsuir.saa.projection.SalaryRow(s.employeeId, s.fullName, s.positionTitle, " +
+            "s.departmentName, s.netSalary) " +
+            "FROM SalarySnapshot s WHERE s.month = :month AND s.year = :year " +
+            "ORDER BY s.netSalary DESC " +
+            "LIMIT :limit")
+    List<SalaryRow> findTopSalaryRows(@Param("month") Integer month,
+                                      @Param("year") Integer year,
+                                      @Param("limit") int limit);
+
+    /**
+     * Копирует итоговые зарплаты периода вместе с ФИО, подразделением и должностью сотрудника
+     */
+    @Modifying
+    @Query(value = "INSERT INTO salary_snapshots (month, year, employee_id, full_name, department_id, department_name, " +
+            "position_id, position_title, total_accrued, total_deducted, net_salary) " +
+            "SELECT sp.month, sp.year, e.id, e.full_name, d.id, d.name, p.id, p.title, " +
+            "sp.total_accrued, sp.total_deducted, sp.net_salary " +
+            "FROM salary_payments sp " +
+            "JOIN employees e ON e.id = sp.employee_id " +
+            "JOIN departments d ON d.id = e.department_id " +
+            "JOIN positions p ON p.id = e.position_id " +
+            "WHERE sp.year = :year AND sp.month = :month", nativeQuery = true)
+    int createSnapshot(@Param("month") Integer month, @Param("year") Integer year);
+}
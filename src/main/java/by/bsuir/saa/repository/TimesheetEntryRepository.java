@@ -7,15 +7,49 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 
+/**
+ * Отметки табеля всегда лежат в месяце своего табеля, поэтому выборки ограничены датами этого месяца:
+ * в секционированной по дате таблице запрос затрагивает одну секцию
+ */
 @Repository
 public interface TimesheetEntryRepository extends JpaRepository<TimesheetEntry, Integer> {
 
-    List<TimesheetEntry> findByTimesheet(Timesheet timesheet);
+    List<TimesheetEntry> findByTimesheetAndDateBetween(Timesheet timesheet, LocalDate from, LocalDate to);
 
-    void deleteByTimesheet(Timesheet timesheet);
+    void deleteByTimesheetAndDateBetween(Timesheet timesheet, LocalDate from, LocalDate to);
 
-    @Query("SELECT te FROM TimesheetEntry te JOIN FETCH te.markType WHERE te.timesheet = :timesheet")
-    List<TimesheetEntry> findByTimesheetWithMarkType(@Param("timesheet") Timesheet timesheet);
-}
\ No newline at end of file
+    @Query("SELECT te FROM TimesheetEntry te JOIN FETCH te.markType " +
+            "WHERE te.timesheet = :timesheet AND te.date BETWEEN :from AND :to")
+    List<TimesheetEntry> findByTimesheetAndDateBetweenWithMarkType(@Param("timesheet") Timesheet timesheet,
+                                                                   @Param("from") LocalDate from,
+                                                                   @Param("to") LocalDate to);
+
+    /**
+     * Отметки табеля архивного года: дата, вид отметки и часы из archive.timesheet_entries
+     */
+    @Query(value = "SELECT te.date, te.mark_type_id, te.hours_worked FROM archive.timesheet_entries te " +
+            "WHERE te.timesheet_id = :timesheetId AND te.date BETWEEN :from AND :to ORDER BY te.date",
+            nativeQuery = true)
+    List<Object[]> findArchivedByTimesheetAndDateBetween(@Param("timesheetId") Integer timesheetId,
+                                                         @Param("from") LocalDate from,
+                                                         @Param("to") LocalDate to);
+
+    default List<TimesheetEntry> findByTimesheet(Timesheet timesheet) {
+        YearMonth period = YearMonth.of(timesheet.getYear(), timesheet.getMonth());
+        return findByTimesheetAndDateBetween(timesheet, period.atDay(1), period.atEndOfMonth());
+    }
+
+    default void deleteByTimesheet(Timesheet timesheet) {
+        YearMonth period = YearMonth.of(timesheet.getYear(), timesheet.getMonth());
+        deleteByTimesheetAndDateBetween(timesheet, period.atDay(1), period.atEndOfMonth());
+    }
+
+    default List<TimesheetEntry> findByTimesheetWithMarkType(Timesheet timesheet) {
+        YearMonth period = YearMonth.of(timesheet.getYear(), timesheet.getMonth());
+        return findByTimesheetAndDateBetweenWithMarkType(timesheet, period.atDay(1), period.atEndOfMonth());
+    }
+}
@@ -2,11 +2,18 @@ package by.bsuir.saa.repository;
 
 import by.bsuir.saa.entity.Employee;
 import by.bsuir.saa.entity.Timesheet;
+import by.bsuir.saa.entity.User;
+import by.bsuir.saa.projection.TimesheetSummary;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -34,4 +41,56 @@ public interface TimesheetRepository extends JpaRepository<Timesheet, Integer> {
 
     @Query("SELECT DISTINCT t FROM Timesheet t LEFT JOIN FETCH t.timesheetEntries WHERE t.month = :month AND t.year = :year")
     List<Timesheet> findByMonthAndYearWithEntries(@Param("month") Integer month, @Param("year") Integer year);
-}
\ No newline at end of file
+
+    @Query("SELECT new by.bsuir.saa.projection.TimesheetSummary(t.id, e.id, e.fullName, d.id, d.name, " +
+            "t.month, t.year, t.totalHours, t.status, t.confirmedAt) " +
+            "FROM Timesheet t JOIN t.employee e LEFT JOIN e.department d " +
+            "WHERE t.month = :month AND t.year = :year " +
+            "AND (:departmentId IS NULL OR d.id = :departmentId) " +
+            "ORDER BY e.fullName")
+    List<TimesheetSummary> findSummariesByPeriod(@Param("month") Integer month,
+                                                 @Param("year") Integer year,
+                                                 @Param("departmentId") Integer departmentId);
+
+    @Query("SELECT DISTINCT t FROM Timesheet t JOIN FETCH t.employee e JOIN FETCH e.department JOIN FETCH e.position " +
+            "LEFT JOIN FETCH t.timesheetEntries te LEFT JOIN FETCH te.markType WHERE t.id = :id")
+    Optional<Timesheet> findByIdWithDetails(@Param("id") Integer id);
+
+    /**
+     * Черновики табелей периода, при необходимости одного подразделения. Строки блокируются
+     * до конца транзакции, чтобы следующее подтверждение изменило ровно их
+     */
+    @Query(value = "SELECT t.id FROM timesheets t " +
+            "WHERE t.month = :month AND t.year = :year AND t.status = 'DRAFT' " +
+            "AND (CAST(:departmentId AS INTEGER) IS NULL OR t.employee_id IN " +
+            "(SELECT e.id FROM employees e WHERE e.department_id = CAST(:departmentId AS INTEGER))) " +
+            "FOR UPDATE", nativeQuery = true)
+    List<Integer> lockDraftTimesheetIdsByPeriod(@Param("month") Integer month,
+                                                @Param("year") Integer year,
+                                                @Param("departmentId") Integer departmentId);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Timesheet t SET t.status = :status, t.confirmedBy = :confirmedBy, t.confirmedAt = :confirmedAt " +
+            "WHERE t.id IN :ids")
+    int confirmTimesheets(@Param("ids") Collection<Integer> ids,
+                          @Param("status") Timesheet.TimesheetStatus status,
+                          @Param("confirmedBy") User confirmedBy,
+                          @Param("confirmedAt") LocalDateTime confirmedAt);
+
+    @Query("SELECT t.employee.id, t.totalHours, " +
+            "SUM(CASE WHEN m.code = 'Б' THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN m.code = 'О' THEN 1 ELSE 0 END) " +
+            "FROM Timesheet t LEFT JOIN t.timesheetEntries te ON te.date BETWEEN :from AND :to LEFT JOIN te.markType m " +
+            "WHERE t.month = :month AND t.year = :year AND t.status = :status " +
+            "GROUP BY t.employee.id, t.totalHours")
+    List<Object[]> findTimesheetSummaries(@Param("month") Integer month,
+                                          @Param("year") Integer year,
+                                          @Param("status") Timesheet.TimesheetStatus status,
+                                          @Param("from") LocalDate from,
+                                          @Param("to") LocalDate to);
+
+    default List<Object[]> findTimesheetSummaries(Integer month, Integer year, Timesheet.TimesheetStatus status) {
+        YearMonth period = YearMonth.of(year, month);
+        return findTimesheetSummaries(month, year, status, period.atDay(1), period.atEndOfMonth());
+    }
+}
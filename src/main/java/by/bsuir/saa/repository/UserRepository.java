@@ -2,6 +2,7 @@ package by.bsuir.saa.repository;
 
 import by.bsuir.saa.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -17,4 +18,7 @@ public interface UserRepository extends JpaRepository<User, Integer> {
     Optional<User> findByEmployeeId(Integer employeeId);
 
     List<User> findByIsActiveTrue();
+
+    @Query("SELECT u FROM User u LEFT JOIN FETCH u.employee e LEFT JOIN FETCH e.department ORDER BY u.username")
+    List<User> findAllWithEmployee();
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package by.bsuir.saa.security;
+
+import by.bsuir.saa.entity.User;
+import lombok.Getter;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.io.Serial;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Текущий пользователь в сессии: только идентификаторы и роль, без сущностей JPA.
+ * Создается один раз при входе и передается в контроллеры через {@code @AuthenticationPrincipal},
+ * хеш пароля стирается после аутентификации
+ */
+@Getter
+public class AuthenticatedUser implements UserDetails, CredentialsContainer {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final Integer id;
+    private final String username;
+    private final Integer employeeId;
+    private final String role;
+    private final boolean enabled;
+    private String password;
+
+    private AuthenticatedUser(Integer id, String username, String password, Integer employeeId,
+                              String role, boolean enabled) {
+        this.id = id;
+        this.username = username;
+        this.password = password;
+        this.employeeId = employeeId;
+        this.role = role;
+        this.enabled = enabled;
+    }
+
+    public static AuthenticatedUser from(User user) {
+        return new AuthenticatedUser(
+                user.getId(),
+                user.getUsername(),
+                user.getPassword(),
+                user.getEmployee() != null ? user.getEmployee().getId() : null,
+                user.getRole().getName(),
+                Boolean.TRUE.equals(user.getIsActive()));
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role));
+    }
+
+    @Override
+    public void eraseCredentials() {
+        password = null;
+    }
+}
@@ -1,17 +1,20 @@
 package by.bsuir.saa.service;
 
+import by.bsuir.saa.calculation.MoneyAccumulator;
 import by.bsuir.saa.controller.AnalystController;
 import by.bsuir.saa.entity.*;
+import by.bsuir.saa.projection.PaymentRow;
+import by.bsuir.saa.projection.SalaryGroupStats;
 import by.bsuir.saa.repository.SalaryPaymentRepository;
 import by.bsuir.saa.repository.PaymentRepository;
 import lombok.Builder;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.time.LocalDate;
 import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.List;
@@ -20,28 +23,35 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
+@Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class AnalyticsService {
 
+    public static final String DIMENSION_DEPARTMENT = "department";
+    public static final String DIMENSION_POSITION = "position";
+    public static final String DIMENSION_COMPANY = "company";
+
     private final EmployeeService employeeService;
-    private final DepartmentService departmentService;
-    private final PositionService positionService;
     private final SalaryPaymentRepository salaryPaymentRepository;
     private final PaymentRepository paymentRepository;
+    private final PeriodClosingService periodClosingService;
+    private final ArchiveService archiveService;
 
     public DashboardStats getDashboardStats(Integer month, Integer year) {
-        List<Employee> employees = employeeService.getActiveEmployees();
-        List<SalaryPayment> salaryPayments = salaryPaymentRepository.findByMonthAndYear(month, year);
+        Optional<PeriodClosingService.PeriodSnapshot> snapshot = periodClosingService.getSnapshot(month, year);
+        if (snapshot.isPresent()) {
+            return getDashboardStats(snapshot.get());
+        }
 
-        BigDecimal totalFOT = salaryPayments.stream()
-                .map(SalaryPayment::getNetSalary)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        List<SalaryPayment> salaryPayments = salaryPaymentRepository.findByMonthAndYear(month, year);
 
-        BigDecimal averageSalary = salaryPayments.isEmpty() ? BigDecimal.ZERO :
-                totalFOT.divide(new BigDecimal(salaryPayments.size()), 2, RoundingMode.HALF_UP);
+        MoneyAccumulator netSalaries = salaryPayments.stream()
+                .collect(MoneyAccumulator.collecting(SalaryPayment::getNetSalary));
+        BigDecimal totalFOT = netSalaries.getSum();
+        BigDecimal averageSalary = netSalaries.getAverage();
 
         long employeesWithSalary = salaryPayments.size();
-        long totalEmployees = employees.size();
+        long totalEmployees = employeeService.getActiveEmployeeCount();
 
         List<AnalystController.DepartmentStats> departmentStats = calculateDepartmentStats(month, year);
 
@@ -55,7 +65,15 @@ public class AnalyticsService {
                 .max(BigDecimal::compareTo)
                 .orElse(BigDecimal.ZERO);
 
-        List<SalaryPayment> topSalaries = salaryPaymentRepository.findTopByMonthAndYearOrderByNetSalaryDesc(month, year, 5);
+        List<TopSalary> topSalaries = salaryPaymentRepository.findTopSalaryRows(month, year, 5)
+                .stream()
+                .map(salary -> TopSalary.builder()
+                        .fullName(salary.getFullName())
+                        .positionTitle(salary.getPositionTitle())
+                        .departmentName(salary.getDepartmentName())
+                        .netSalary(salary.getNetSalary())
+                        .build())
+                .toList();
 
         double salaryCalculationRate = totalEmployees > 0 ? (employeesWithSalary * 100.0 / totalEmployees) : 0;
 
@@ -72,143 +90,209 @@ public class AnalyticsService {
                 .build();
     }
 
-    public List<AnalystController.SalaryTrendData> getSalaryTrends(Integer monthsBack, Integer departmentId) {
-        LocalDate endDate = LocalDate.now();
-        LocalDate startDate = endDate.minusMonths(monthsBack - 1).withDayOfMonth(1);
-
-        List<AnalystController.SalaryTrendData> trendData = new ArrayList<>();
+    private DashboardStats getDashboardStats(PeriodClosingService.PeriodSnapshot snapshot) {
+        List<AnalystController.DepartmentStats> departmentStats = calculateDepartmentStats(snapshot);
 
-        for (int i = 0; i < monthsBack; i++) {
-            YearMonth yearMonth = YearMonth.from(startDate.plusMonths(i));
-            int currentMonth = yearMonth.getMonthValue();
-            int currentYear = yearMonth.getYear();
+        List<TopSalary> topSalaries = snapshot.getTopSalaries().stream()
+                .map(salary -> TopSalary.builder()
+                        .fullName(salary.getFullName())
+                        .positionTitle(salary.getPositionTitle())
+                        .departmentName(salary.getDepartmentName())
+                        .netSalary(salary.getNetSalary())
+                        .build())
+                .toList();
 
-            List<SalaryPayment> salaries = departmentId != null ?
-                    salaryPaymentRepository.findByDepartmentAndPeriod(departmentId, currentMonth, currentYear) :
-                    salaryPaymentRepository.findByMonthAndYear(currentMonth, currentYear);
+        long totalEmployees = snapshot.getActiveEmployees();
+        long employeesWithSalary = snapshot.getEmployeesWithSalary();
+        return DashboardStats.builder()
+                .totalEmployees(totalEmployees)
+                .employeesWithSalary(employeesWithSalary)
+                .totalFOT(snapshot.getTotalFOT())
+                .averageSalary(snapshot.getAverageSalary())
+                .departmentStats(departmentStats)
+                .highestDepartmentFOT(departmentStats.stream()
+                        .map(AnalystController.DepartmentStats::getTotalFOT)
+                        .max(BigDecimal::compareTo)
+                        .orElse(BigDecimal.ZERO))
+                .highestAverageSalary(departmentStats.stream()
+                        .map(AnalystController.DepartmentStats::getAverageSalary)
+                        .max(BigDecimal::compareTo)
+                        .orElse(BigDecimal.ZERO))
+                .topSalaries(topSalaries)
+                .salaryCalculationRate(totalEmployees > 0 ? (employeesWithSalary * 100.0 / totalEmployees) : 0)
+                .build();
+    }
 
-            if (!salaries.isEmpty()) {
-                BigDecimal totalFOT = salaries.stream()
-                        .map(SalaryPayment::getNetSalary)
-                        .reduce(BigDecimal.ZERO, BigDecimal::add);
+    public List<AnalystController.SalaryTrendData> getSalaryTrends(Integer monthsBack, Integer departmentId) {
+        YearMonth to = YearMonth.now();
+        YearMonth from = to.minusMonths(monthsBack - 1);
+        return getSalaryTrends(from, to, departmentId);
+    }
 
-                BigDecimal averageSalary = totalFOT.divide(
-                        new BigDecimal(salaries.size()), 2, RoundingMode.HALF_UP);
+    /**
+     * Помесячная динамика зарплат за произвольный диапазон периодов.
+     * Количество, сумма, минимум, максимум и медиана считаются одним сгруппированным запросом,
+     * месяцы без начислений в результат не попадают
+     */
+    public List<AnalystController.SalaryTrendData> getSalaryTrends(YearMonth from, YearMonth to, Integer departmentId) {
+        List<Object[]> rows = salaryPaymentRepository.findMonthlySalaryTrend(
+                toPeriodIndex(from), toPeriodIndex(to), departmentId, archiveService.getFirstHotYear());
+
+        List<AnalystController.SalaryTrendData> trendData = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            int year = ((Number) row[0]).intValue();
+            int month = ((Number) row[1]).intValue();
+            int employeeCount = ((Number) row[2]).intValue();
+            BigDecimal totalFOT = toMoney(row[3]);
+
+            AnalystController.SalaryTrendData data = new AnalystController.SalaryTrendData();
+            data.setPeriod(getRussianMonthName(month) + " " + year);
+            data.setEmployeeCount(employeeCount);
+            data.setTotalFOT(totalFOT);
+            data.setAverageSalary(totalFOT.divide(new BigDecimal(employeeCount), 2, RoundingMode.HALF_UP));
+            data.setMinSalary(toMoney(row[4]));
+            data.setMaxSalary(toMoney(row[5]));
+            data.setMedianSalary(toMoney(row[6]));
+
+            trendData.add(data);
+        }
 
-                BigDecimal minSalary = salaries.stream()
-                        .map(SalaryPayment::getNetSalary)
-                        .min(BigDecimal::compareTo)
-                        .orElse(BigDecimal.ZERO);
+        return trendData;
+    }
 
-                BigDecimal maxSalary = salaries.stream()
-                        .map(SalaryPayment::getNetSalary)
-                        .max(BigDecimal::compareTo)
-                        .orElse(BigDecimal.ZERO);
+    /**
+     * Квантили, среднее и коэффициент Джини чистой зарплаты по подразделениям, должностям
+     * или по предприятию в целом. Все показатели считаются в БД одним проходом по начислениям диапазона
+     */
+    public List<AnalystController.SalaryDistribution> getSalaryDistribution(YearMonth from, YearMonth to, String dimension) {
+        List<Object[]> rows = salaryPaymentRepository.findSalaryDistribution(
+                toPeriodIndex(from), toPeriodIndex(to), dimension, archiveService.getFirstHotYear());
+
+        List<AnalystController.SalaryDistribution> distribution = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            AnalystController.SalaryDistribution data = new AnalystController.SalaryDistribution();
+            data.setGroupName(DIMENSION_COMPANY.equals(dimension) ? "Все сотрудники" : (String) row[0]);
+            data.setEmployeeCount(((Number) row[1]).longValue());
+            data.setMinSalary(toMoney(row[2]));
+            data.setMaxSalary(toMoney(row[3]));
+            data.setAverageSalary(toMoney(row[4]));
+            data.setP10(toMoney(row[5]));
+            data.setP25(toMoney(row[6]));
+            data.setMedianSalary(toMoney(row[7]));
+            data.setP75(toMoney(row[8]));
+            data.setP90(toMoney(row[9]));
+            data.setGini(row[10] != null
+                    ? new BigDecimal(row[10].toString()).setScale(3, RoundingMode.HALF_UP) : BigDecimal.ZERO);
+            distribution.add(data);
+        }
 
-                AnalystController.SalaryTrendData data = new AnalystController.SalaryTrendData();
-                data.setPeriod(getRussianMonthName(currentMonth) + " " + currentYear);
-                data.setAverageSalary(averageSalary);
-                data.setTotalFOT(totalFOT);
-                data.setEmployeeCount(salaries.size());
-                data.setMinSalary(minSalary);
-                data.setMaxSalary(maxSalary);
+        return distribution;
+    }
 
-                trendData.add(data);
-            }
+    public List<AnalystController.HistogramBucket> getSalaryHistogram(YearMonth from, YearMonth to,
+                                                                       Integer departmentId, int buckets) {
+        List<Object[]> rows = salaryPaymentRepository.findSalaryHistogram(
+                toPeriodIndex(from), toPeriodIndex(to), departmentId, buckets, archiveService.getFirstHotYear());
+        if (rows.isEmpty()) {
+            return List.of();
         }
 
-        return trendData;
-    }
+        BigDecimal lo = toMoney(rows.get(0)[1]);
+        BigDecimal hi = toMoney(rows.get(0)[2]);
+        BigDecimal width = hi.subtract(lo).divide(new BigDecimal(buckets), 2, RoundingMode.HALF_UP);
+        long total = rows.stream().mapToLong(row -> ((Number) row[3]).longValue()).sum();
 
-    public List<AnalystController.DepartmentStats> calculateDepartmentStats(Integer month, Integer year) {
-        List<Department> departments = departmentService.getAllDepartments();
-        List<AnalystController.DepartmentStats> stats = new ArrayList<>();
+        long[] counts = new long[buckets];
+        for (Object[] row : rows) {
+            int bucket = Math.max(((Number) row[0]).intValue(), 1);
+            counts[bucket - 1] += ((Number) row[3]).longValue();
+        }
 
-        for (Department department : departments) {
-            List<SalaryPayment> departmentSalaries = salaryPaymentRepository.findByDepartmentAndPeriod(department.getId(), month, year);
+        List<AnalystController.HistogramBucket> histogram = new ArrayList<>(buckets);
+        for (int i = 0; i < buckets; i++) {
+            AnalystController.HistogramBucket bucket = new AnalystController.HistogramBucket();
+            bucket.setLowerBound(lo.add(width.multiply(new BigDecimal(i))));
+            bucket.setUpperBound(i == buckets - 1 ? hi : lo.add(width.multiply(new BigDecimal(i + 1))));
+            bucket.setCount(counts[i]);
+            bucket.setPercentage(new BigDecimal(counts[i] * 100.0 / total).setScale(1, RoundingMode.HALF_UP));
+            histogram.add(bucket);
+        }
 
-            if (!departmentSalaries.isEmpty()) {
-                BigDecimal totalFOT = departmentSalaries.stream()
-                        .map(SalaryPayment::getNetSalary)
-                        .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return histogram;
+    }
 
-                BigDecimal averageSalary = totalFOT.divide(
-                        new BigDecimal(departmentSalaries.size()), 2, RoundingMode.HALF_UP);
+    private static int toPeriodIndex(YearMonth yearMonth) {
+        return yearMonth.getYear() * 12 + yearMonth.getMonthValue();
+    }
 
-                BigDecimal minSalary = departmentSalaries.stream()
-                        .map(SalaryPayment::getNetSalary)
-                        .min(BigDecimal::compareTo)
-                        .orElse(BigDecimal.ZERO);
+    private static BigDecimal toMoney(Object value) {
+        if (value == null) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal amount = value instanceof BigDecimal decimal ? decimal : new BigDecimal(value.toString());
+        return amount.setScale(2, RoundingMode.HALF_UP);
+    }
 
-                BigDecimal maxSalary = departmentSalaries.stream()
-                        .map(SalaryPayment::getNetSalary)
-                        .max(BigDecimal::compareTo)
-                        .orElse(BigDecimal.ZERO);
+    public List<AnalystController.DepartmentStats> calculateDepartmentStats(Integer month, Integer year) {
+        Optional<PeriodClosingService.PeriodSnapshot> snapshot = periodClosingService.getSnapshot(month, year);
+        if (snapshot.isPresent()) {
+            return calculateDepartmentStats(snapshot.get());
+        }
 
-                AnalystController.DepartmentStats departmentStat = new AnalystController.DepartmentStats();
-                departmentStat.setDepartmentName(department.getName());
-                departmentStat.setAverageSalary(averageSalary);
-                departmentStat.setTotalFOT(totalFOT);
-                departmentStat.setEmployeeCount(departmentSalaries.size());
-                departmentStat.setMinSalary(minSalary);
-                departmentStat.setMaxSalary(maxSalary);
+        return toDepartmentStats(salaryPaymentRepository.findDepartmentStats(month, year));
+    }
 
-                stats.add(departmentStat);
-            }
+    private List<AnalystController.DepartmentStats> calculateDepartmentStats(PeriodClosingService.PeriodSnapshot snapshot) {
+        return toDepartmentStats(snapshot.getDepartmentStats());
+    }
+
+    private List<AnalystController.DepartmentStats> toDepartmentStats(List<SalaryGroupStats> groups) {
+        List<AnalystController.DepartmentStats> stats = new ArrayList<>(groups.size());
+        for (SalaryGroupStats group : groups) {
+            AnalystController.DepartmentStats departmentStat = new AnalystController.DepartmentStats();
+            departmentStat.setDepartmentName(group.getName());
+            departmentStat.setAverageSalary(group.getAverageSalary());
+            departmentStat.setTotalFOT(group.getTotalFOT());
+            departmentStat.setEmployeeCount(group.getEmployeeCount());
+            departmentStat.setMinSalary(group.getMinSalary());
+            departmentStat.setMaxSalary(group.getMaxSalary());
+            stats.add(departmentStat);
         }
 
-        return stats.stream()
-                .sorted((d1, d2) -> d2.getAverageSalary().compareTo(d1.getAverageSalary()))
-                .collect(Collectors.toList());
+        stats.sort((d1, d2) -> d2.getAverageSalary().compareTo(d1.getAverageSalary()));
+        return stats;
     }
 
     public BigDecimal getTotalCompanyFOT(Integer month, Integer year) {
         List<AnalystController.DepartmentStats> departmentStats = calculateDepartmentStats(month, year);
         return departmentStats.stream()
-                .map(AnalystController.DepartmentStats::getTotalFOT)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .collect(MoneyAccumulator.summing(AnalystController.DepartmentStats::getTotalFOT));
     }
 
     public List<AnalystController.PositionStats> getPositionStats(Integer month, Integer year) {
-        List<Position> positions = positionService.getAllPositions();
-        List<AnalystController.PositionStats> positionStats = new ArrayList<>();
-
-        for (Position position : positions) {
-            List<Employee> positionEmployees = employeeService.findByPosition(position);
-            List<SalaryPayment> positionSalaries = positionEmployees.stream()
-                    .map(employee -> salaryPaymentRepository.findByEmployeeAndMonthAndYear(employee, month, year))
-                    .filter(Optional::isPresent)
-                    .map(Optional::get)
-                    .toList();
-
-            if (!positionSalaries.isEmpty()) {
-                BigDecimal totalFOT = positionSalaries.stream()
-                        .map(SalaryPayment::getNetSalary)
-                        .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                BigDecimal averageSalary = totalFOT.divide(
-                        new BigDecimal(positionSalaries.size()), 2, RoundingMode.HALF_UP);
-
-                BigDecimal minSalary = positionSalaries.stream()
-                        .map(SalaryPayment::getNetSalary)
-                        .min(BigDecimal::compareTo)
-                        .orElse(BigDecimal.ZERO);
-
-                BigDecimal maxSalary = positionSalaries.stream()
-                        .map(SalaryPayment::getNetSalary)
-                        .max(BigDecimal::compareTo)
-                        .orElse(BigDecimal.ZERO);
+        Optional<PeriodClosingService.PeriodSnapshot> snapshot = periodClosingService.getSnapshot(month, year);
+        if (snapshot.isPresent()) {
+            return getPositionStats(snapshot.get());
+        }
 
-                AnalystController.PositionStats stats = new AnalystController.PositionStats();
-                stats.setPositionTitle(position.getTitle());
-                stats.setAverageSalary(averageSalary);
-                stats.setMinSalary(minSalary);
-                stats.setMaxSalary(maxSalary);
-                stats.setEmployeeCount(positionSalaries.size());
-                stats.setTotalFOT(totalFOT);
+        return toPositionStats(salaryPaymentRepository.findPositionStats(month, year));
+    }
 
-                positionStats.add(stats);
-            }
+    private List<AnalystController.PositionStats> getPositionStats(PeriodClosingService.PeriodSnapshot snapshot) {
+        return toPositionStats(snapshot.getPositionStats());
+    }
+
+    private List<AnalystController.PositionStats> toPositionStats(List<SalaryGroupStats> groups) {
+        List<AnalystController.PositionStats> positionStats = new ArrayList<>(groups.size());
+        for (SalaryGroupStats group : groups) {
+            AnalystController.PositionStats stats = new AnalystController.PositionStats();
+            stats.setPositionTitle(group.getName());
+            stats.setAverageSalary(group.getAverageSalary());
+            stats.setMinSalary(group.getMinSalary());
+            stats.setMaxSalary(group.getMaxSalary());
+            stats.setEmployeeCount(group.getEmployeeCount());
+            stats.setTotalFOT(group.getTotalFOT());
+            positionStats.add(stats);
         }
 
         positionStats.sort((p1, p2) -> p2.getAverageSalary().compareTo(p1.getAverageSalary()));
@@ -217,8 +301,19 @@ public class AnalyticsService {
 
     public List<AnalystController.SalaryStructure> getSalaryStructure(Integer month, Integer year, Integer employeeId) {
         List<AnalystController.SalaryStructure> structureData;
-
-        if (employeeId != null) {
+        Optional<PeriodClosingService.PeriodSnapshot> snapshot = periodClosingService.getSnapshot(month, year);
+
+        if (snapshot.isPresent() && employeeId != null) {
+            List<PaymentRow> payments = periodClosingService.getEmployeeSnapshot(employeeId, month, year)
+                    .map(PeriodClosingService.EmployeeSnapshot::payments)
+                    .orElse(List.of());
+            structureData = toSalaryStructures(payments.stream()
+                    .filter(p -> "accrual".equals(p.getCategory()))
+                    .collect(Collectors.groupingBy(PaymentRow::getPaymentTypeName,
+                            MoneyAccumulator.summing(PaymentRow::getAmount))));
+        } else if (snapshot.isPresent()) {
+            structureData = toSalaryStructures(snapshot.get().getAccrualsByType());
+        } else if (employeeId != null) {
             Employee employee = employeeService.getEmployeeById(employeeId)
                     .orElseThrow(() -> new RuntimeException("Сотрудник не найден"));
             structureData = getEmployeeSalaryStructure(employee, month, year);
@@ -235,9 +330,8 @@ public class AnalyticsService {
         List<Payment> payments = paymentRepository.findByEmployeeAndMonthAndYear(employee, month, year);
 
         BigDecimal totalAccrued = payments.stream()
-                .filter(p -> "accrual".equals(p.getPaymentType().getCategory()))
-                .map(Payment::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .filter(p -> "accrual".equals(p.getCategory()))
+                .collect(MoneyAccumulator.summing(Payment::getAmount));
 
         return getSalaryStructures(structureData, payments, totalAccrued);
     }
@@ -245,19 +339,31 @@ public class AnalyticsService {
     private List<AnalystController.SalaryStructure> getSalaryStructures(List<AnalystController.SalaryStructure> structureData, List<Payment> payments, BigDecimal totalAccrued) {
         if (totalAccrued.compareTo(BigDecimal.ZERO) > 0) {
             Map<String, BigDecimal> accrualsByType = payments.stream()
-                    .filter(p -> "accrual".equals(p.getPaymentType().getCategory()))
+                    .filter(p -> "accrual".equals(p.getCategory()))
                     .collect(Collectors.groupingBy(
                             p -> p.getPaymentType().getName(),
-                            Collectors.reducing(BigDecimal.ZERO, Payment::getAmount, BigDecimal::add)
+                            MoneyAccumulator.summing(Payment::getAmount)
                     ));
 
+            structureData.addAll(toSalaryStructures(accrualsByType));
+        }
+
+        return structureData;
+    }
+
+    private List<AnalystController.SalaryStructure> toSalaryStructures(Map<String, BigDecimal> accrualsByType) {
+        List<AnalystController.SalaryStructure> structureData = new ArrayList<>(accrualsByType.size());
+        BigDecimal totalAccrued = accrualsByType.values().stream()
+                .collect(MoneyAccumulator.summing(amount -> amount));
+
+        if (totalAccrued.compareTo(BigDecimal.ZERO) > 0) {
             for (Map.Entry<String, BigDecimal> entry : accrualsByType.entrySet()) {
                 AnalystController.SalaryStructure structure = new AnalystController.SalaryStructure();
                 structure.setCategory(entry.getKey());
                 structure.setAmount(entry.getValue());
                 structure.setPercentage(entry.getValue()
                         .divide(totalAccrued, 4, RoundingMode.HALF_UP)
-                        .multiply(new BigDecimal("100")));
+                        .movePointRight(2));
                 structureData.add(structure);
             }
         }
@@ -270,9 +376,8 @@ public class AnalyticsService {
         List<Payment> allPayments = paymentRepository.findByMonthAndYear(month, year);
 
         BigDecimal totalCompanyAccrued = allPayments.stream()
-                .filter(p -> "accrual".equals(p.getPaymentType().getCategory()))
-                .map(Payment::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .filter(p -> "accrual".equals(p.getCategory()))
+                .collect(MoneyAccumulator.summing(Payment::getAmount));
 
         return getSalaryStructures(structureData, allPayments, totalCompanyAccrued);
     }
@@ -293,7 +398,16 @@ public class AnalyticsService {
         private List<AnalystController.DepartmentStats> departmentStats;
         private BigDecimal highestDepartmentFOT;
         private BigDecimal highestAverageSalary;
-        private List<SalaryPayment> topSalaries;
+        private List<TopSalary> topSalaries;
         private double salaryCalculationRate;
     }
+
+    @Data
+    @Builder
+    public static class TopSalary {
+        private String fullName;
+        private String positionTitle;
+        private String departmentName;
+        private BigDecimal netSalary;
+    }
 }
\ No newline at end of file
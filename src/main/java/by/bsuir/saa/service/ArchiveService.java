@@ -0,0 +1,43 @@
+package by.bsuir.saa.service;
+
+import by.bsuir.saa.datasource.ArchiveProperties;
+import by.bsuir.saa.repository.ArchivedYearRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.Year;
+
+/**
+ * Границы архива. Начисления и табели архивных лет читаются из схемы archive,
+ * итоги по ним - из снимков закрытых периодов
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class ArchiveService {
+
+    private final ArchivedYearRepository archivedYearRepository;
+    private final ArchiveProperties archiveProperties;
+
+    public boolean isArchived(Integer year) {
+        return year != null && archivedYearRepository.existsById(year);
+    }
+
+    /**
+     * Первый год, данные которого лежат в рабочих таблицах. Архивируются только годы подряд
+     * от самого раннего, поэтому все годы раньше этого берутся из снимков
+     */
+    public int getFirstHotYear() {
+        Integer latest = archivedYearRepository.findLatestYear();
+        return latest != null ? latest + 1 : 0;
+    }
+
+    /**
+     * Сотрудники, уволенные раньше этой даты, не показываются в рабочих списках
+     */
+    public LocalDate getEmployeeHorizon() {
+        return Year.now().minusYears(archiveProperties.getHorizonYears()).atDay(1);
+    }
+}
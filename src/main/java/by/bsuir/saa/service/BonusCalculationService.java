@@ -1,13 +1,15 @@
 package by.bsuir.saa.service;
 
+import by.bsuir.saa.calculation.PayrollKernel;
 import by.bsuir.saa.entity.Employee;
 import by.bsuir.saa.entity.Payment;
 import by.bsuir.saa.entity.PaymentType;
+import by.bsuir.saa.monitoring.PayrollMetrics;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 
@@ -24,17 +26,20 @@ public class BonusCalculationService {
     private final SalaryCalculationService salaryCalculationService;
     private final FinalSalaryCalculationService finalSalaryCalculationService;
     private final TaxCalculationService taxCalculationService;
+    private final PayrollMetrics payrollMetrics;
 
     public BonusCalculationService(PaymentService paymentService,
                                    PaymentTypeService paymentTypeService,
                                    SalaryCalculationService salaryCalculationService,
                                    FinalSalaryCalculationService finalSalaryCalculationService,
-                                   TaxCalculationService taxCalculationService) {
+                                   TaxCalculationService taxCalculationService,
+                                   PayrollMetrics payrollMetrics) {
         this.paymentService = paymentService;
         this.paymentTypeService = paymentTypeService;
         this.salaryCalculationService = salaryCalculationService;
         this.finalSalaryCalculationService = finalSalaryCalculationService;
         this.taxCalculationService = taxCalculationService;
+        this.payrollMetrics = payrollMetrics;
     }
 
     @Transactional
@@ -45,37 +50,41 @@ public class BonusCalculationService {
 
     @Transactional
     public void calculateItrBonus(Employee employee, Integer month, Integer year) {
-        validateCanCalculateOrModifyBonus(employee, month, year);
-        validateBaseSalaryCalculated(employee, month, year);
+        payrollMetrics.recordEmployeeCalculation(PayrollMetrics.STAGE_ITR_BONUS, () -> {
+            validateCanCalculateOrModifyBonus(employee, month, year);
+            validateBaseSalaryCalculated(employee, month, year);
 
-        PaymentType itrBonusType = getPaymentType(ITR_BONUS_CODE);
-        validateNoExistingBonus(employee, month, year, ITR_BONUS_CODE);
+            PaymentType itrBonusType = getPaymentType(ITR_BONUS_CODE);
+            validateNoExistingBonus(employee, month, year, ITR_BONUS_CODE);
 
-        BigDecimal baseSalary = salaryCalculationService.calculateBaseSalary(employee, month, year);
-        BigDecimal itrBonus = calculatePercentage(baseSalary, new BigDecimal("0.25"));
+            BigDecimal baseSalary = salaryCalculationService.calculateBaseSalary(employee, month, year);
+            BigDecimal itrBonus = calculatePercentage(baseSalary, PayrollKernel.fromRate(PayrollKernel.ITR_RATE));
 
-        createBonusPayment(employee, month, year, itrBonusType, itrBonus,
-                "Премия ИТР (25% от оклада)");
+            createBonusPayment(employee, month, year, itrBonusType, itrBonus,
+                    "Премия ИТР (25% от оклада)");
+        });
     }
 
     @Transactional
     public void calculateSeniorityBonus(Employee employee, Integer month, Integer year) {
-        validateCanCalculateOrModifyBonus(employee, month, year);
-        validateBaseSalaryCalculated(employee, month, year);
+        payrollMetrics.recordEmployeeCalculation(PayrollMetrics.STAGE_SENIORITY_BONUS, () -> {
+            validateCanCalculateOrModifyBonus(employee, month, year);
+            validateBaseSalaryCalculated(employee, month, year);
 
-        PaymentType seniorityType = getPaymentType(SENIORITY_BONUS_CODE);
-        validateNoExistingBonus(employee, month, year, SENIORITY_BONUS_CODE);
+            PaymentType seniorityType = getPaymentType(SENIORITY_BONUS_CODE);
+            validateNoExistingBonus(employee, month, year, SENIORITY_BONUS_CODE);
 
-        BigDecimal bonusPercentage = getSeniorityPercentage(employee);
+            BigDecimal bonusPercentage = getSeniorityPercentage(employee);
 
-        if (bonusPercentage.compareTo(BigDecimal.ZERO) > 0) {
-            BigDecimal baseSalary = salaryCalculationService.calculateBaseSalary(employee, month, year);
-            BigDecimal seniorityBonus = calculatePercentage(baseSalary, bonusPercentage);
-            long seniorityYears = getEmployeeSeniority(employee);
+            if (bonusPercentage.compareTo(BigDecimal.ZERO) > 0) {
+                BigDecimal baseSalary = salaryCalculationService.calculateBaseSalary(employee, month, year);
+                BigDecimal seniorityBonus = calculatePercentage(baseSalary, bonusPercentage);
+                long seniorityYears = getEmployeeSeniority(employee);
 
-            createBonusPayment(employee, month, year, seniorityType, seniorityBonus,
-                    buildSeniorityDescription(bonusPercentage, seniorityYears));
-        }
+                createBonusPayment(employee, month, year, seniorityType, seniorityBonus,
+                        buildSeniorityDescription(bonusPercentage, seniorityYears));
+            }
+        });
     }
 
     @Transactional
@@ -88,31 +97,25 @@ public class BonusCalculationService {
         paymentService.deletePayment(bonusId);
     }
 
+    @Transactional(readOnly = true)
     public boolean isBaseSalaryCalculated(Employee employee, Integer month, Integer year) {
         return paymentService.getEmployeePayments(employee, month, year).stream()
-                .anyMatch(p -> BASE_SALARY_CODE.equals(p.getPaymentType().getCode()));
+                .anyMatch(p -> BASE_SALARY_CODE.equals(p.getPaymentTypeCode()));
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS)
     public long getEmployeeSeniority(Employee employee) {
         LocalDate hireDate = employee.getHireDate();
         LocalDate endDate = getEndDate(employee);
         return ChronoUnit.YEARS.between(hireDate, endDate);
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS)
     public BigDecimal getSeniorityPercentage(Employee employee) {
-        long years = getEmployeeSeniority(employee);
-
-        if (years >= 10) {
-            return new BigDecimal("0.25");
-        } else if (years >= 3) {
-            return new BigDecimal("0.15");
-        } else if (years >= 1) {
-            return new BigDecimal("0.05");
-        } else {
-            return BigDecimal.ZERO;
-        }
+        return PayrollKernel.fromRate(PayrollKernel.seniorityRate(getEmployeeSeniority(employee)));
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS)
     public String getSeniorityBadgeClass(Employee employee) {
         long years = getEmployeeSeniority(employee);
         if (years >= 10) return "bg-danger";
@@ -121,14 +124,12 @@ public class BonusCalculationService {
         return "bg-secondary";
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS)
     public BigDecimal getSeniorityPercentageValue(Employee employee) {
-        long years = getEmployeeSeniority(employee);
-        if (years >= 10) return new BigDecimal("0.25");
-        if (years >= 3) return new BigDecimal("0.15");
-        if (years >= 1) return new BigDecimal("0.05");
-        return BigDecimal.ZERO;
+        return getSeniorityPercentage(employee);
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS)
     public String getSeniorityPercentageText(Employee employee) {
         BigDecimal percentage = getSeniorityPercentageValue(employee);
         return String.valueOf(percentage.multiply(new BigDecimal("100")).intValue());
@@ -142,7 +143,7 @@ public class BonusCalculationService {
 
     private void validateNoExistingBonus(Employee employee, Integer month, Integer year, String bonusCode) {
         boolean alreadyCalculated = paymentService.getEmployeePayments(employee, month, year).stream()
-                .anyMatch(p -> bonusCode.equals(p.getPaymentType().getCode()));
+                .anyMatch(p -> bonusCode.equals(p.getPaymentTypeCode()));
 
         if (alreadyCalculated) {
             throw new RuntimeException(getBonusName(bonusCode) + " уже была начислена для этого периода");
@@ -155,7 +156,8 @@ public class BonusCalculationService {
     }
 
     private BigDecimal calculatePercentage(BigDecimal amount, BigDecimal percentage) {
-        return amount.multiply(percentage).setScale(2, RoundingMode.HALF_UP);
+        return PayrollKernel.fromKopecks(PayrollKernel.percentage(
+                PayrollKernel.toKopecks(amount), PayrollKernel.toRate(percentage)));
     }
 
     private LocalDate getEndDate(Employee employee) {
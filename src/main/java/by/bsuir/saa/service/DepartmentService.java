@@ -22,18 +22,22 @@ public class DepartmentService {
         this.employeeRepository = employeeRepository;
     }
 
+    @Transactional(readOnly = true)
     public List<Department> getAllDepartments() {
         return departmentRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
     public Optional<Department> getDepartmentById(Integer id) {
         return departmentRepository.findById(id);
     }
 
+    @Transactional(readOnly = true)
     public Optional<Department> getDepartmentByName(String name) {
         return departmentRepository.findByName(name);
     }
 
+    @Transactional(readOnly = true)
     public boolean departmentExists(String name) {
         return departmentRepository.existsByName(name);
     }
@@ -0,0 +1,86 @@
+package by.bsuir.saa.service;
+
+import by.bsuir.saa.entity.Employee;
+import by.bsuir.saa.repository.EmployeeRepository;
+import lombok.Builder;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Поиск сотрудников по ФИО для выпадающих подсказок. Сравнение идет по нормализованному ФИО:
+ * совпадение подстроки (в начале ФИО выше в выдаче) и нечеткое совпадение по триграммам pg_trgm,
+ * оба варианта обслуживаются GIN-индексом idx_employees_normalized_name_trgm.
+ * Без расширения pg_trgm остается только поиск подстроки
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class EmployeeSearchService {
+
+    public static final int MIN_QUERY_LENGTH = 2;
+    public static final int DEFAULT_LIMIT = 10;
+    public static final int MAX_LIMIT = 50;
+
+    private final EmployeeRepository employeeRepository;
+
+    private volatile boolean trigramAvailable;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void detectTrigramSupport() {
+        trigramAvailable = employeeRepository.isTrigramExtensionInstalled();
+        if (!trigramAvailable) {
+            log.warn("Расширение pg_trgm не установлено, поиск сотрудников работает без нечеткого совпадения");
+        }
+    }
+
+    public List<EmployeeMatch> search(String query, int limit, boolean activeOnly) {
+        String normalizedQuery = Employee.normalizeFullName(query);
+        if (normalizedQuery == null || normalizedQuery.length() < MIN_QUERY_LENGTH) {
+            return List.of();
+        }
+
+        int cappedLimit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        String escaped = escapeLikePattern(normalizedQuery);
+        String pattern = "%" + escaped + "%";
+        String prefix = escaped + "%";
+
+        List<Object[]> rows = trigramAvailable
+                ? employeeRepository.searchByTrigram(normalizedQuery, pattern, prefix, activeOnly, cappedLimit)
+                : employeeRepository.searchByPattern(pattern, prefix, activeOnly, cappedLimit);
+
+        List<EmployeeMatch> matches = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            matches.add(EmployeeMatch.builder()
+                    .id(((Number) row[0]).intValue())
+                    .fullName((String) row[1])
+                    .departmentName((String) row[2])
+                    .positionTitle((String) row[3])
+                    .active(row[4] == null)
+                    .build());
+        }
+        return matches;
+    }
+
+    private static String escapeLikePattern(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    @Data
+    @Builder
+    public static class EmployeeMatch {
+        private Integer id;
+        private String fullName;
+        private String departmentName;
+        private String positionTitle;
+        private boolean active;
+    }
+}
@@ -4,71 +4,123 @@ import by.bsuir.saa.entity.Department;
 import by.bsuir.saa.entity.Employee;
 import by.bsuir.saa.entity.Position;
 import by.bsuir.saa.entity.Timesheet;
+import by.bsuir.saa.projection.EmployeeRow;
 import by.bsuir.saa.repository.EmployeeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
+@Slf4j
 @Service
 @Transactional
 public class EmployeeService {
 
+    private static final String NORMALIZED_NAME_CONSTRAINT = "uk_employees_normalized_name";
+
     private final EmployeeRepository employeeRepository;
     private final TimesheetService timesheetService;
+    private final WorkforceAnalyticsService workforceAnalyticsService;
+    private final ArchiveService archiveService;
 
     public EmployeeService(EmployeeRepository employeeRepository,
-                           TimesheetService timesheetService) {
+                           TimesheetService timesheetService,
+                           WorkforceAnalyticsService workforceAnalyticsService,
+                           ArchiveService archiveService) {
         this.employeeRepository = employeeRepository;
         this.timesheetService = timesheetService;
+        this.workforceAnalyticsService = workforceAnalyticsService;
+        this.archiveService = archiveService;
     }
 
+    @Transactional(readOnly = true)
     public List<Employee> getAllEmployees() {
         return employeeRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
+    public long countAllEmployees() {
+        return employeeRepository.count();
+    }
+
+    /**
+     * Работающие сотрудники и уволенные в пределах горизонта архива
+     */
+    @Transactional(readOnly = true)
+    public List<EmployeeRow> getCurrentEmployeeRows() {
+        return employeeRepository.findCurrentRows(archiveService.getEmployeeHorizon());
+    }
+
+    @Transactional(readOnly = true)
+    public List<EmployeeRow> getAllEmployeeRows() {
+        return employeeRepository.findAllRows();
+    }
+
+    @Transactional(readOnly = true)
+    public long countArchivedEmployees() {
+        return employeeRepository.countByTerminationDateBefore(archiveService.getEmployeeHorizon());
+    }
+
+    @Transactional(readOnly = true)
     public Optional<Employee> getEmployeeById(Integer id) {
-        return employeeRepository.findById(id);
+        return employeeRepository.findByIdWithDetails(id);
     }
 
+    @Transactional(readOnly = true)
     public List<Employee> getActiveEmployees() {
-        return employeeRepository.findByTerminationDateIsNull();
+        return employeeRepository.findActiveEmployeesWithDetails();
     }
 
+    @Transactional(readOnly = true)
     public List<Employee> getActiveEmployeesByDepartment(Integer departmentId) {
-        return employeeRepository.findByDepartmentIdAndTerminationDateIsNull(departmentId);
+        return employeeRepository.findActiveByDepartmentWithDetails(departmentId);
     }
 
+    @Transactional(readOnly = true)
     public List<Employee> getEmployeesByDepartment(Department department) {
         return employeeRepository.findByDepartment(department);
     }
 
+    @Transactional(readOnly = true)
     public List<Employee> searchEmployeesByName(String name) {
-        return employeeRepository.findByFullNameContainingIgnoreCase(name);
+        String normalizedName = Employee.normalizeFullName(name);
+        return employeeRepository.findByNormalizedNameContaining(normalizedName != null ? normalizedName : "");
     }
 
+    @Transactional(readOnly = true)
     public List<Employee> findByPosition(Position position) {
         return employeeRepository.findByPosition(position);
     }
 
+    @Transactional(readOnly = true)
     public List<Employee> getAllEmployeesWithDetails() {
         return employeeRepository.findAllWithDetails();
     }
 
+    @Transactional(readOnly = true)
     public long getActiveEmployeeCount() {
         return employeeRepository.countByTerminationDateIsNull();
     }
 
+    @Transactional(readOnly = true)
     public long getEmployeeCountByDepartment(Department department) {
         return employeeRepository.countByDepartment(department);
     }
 
+    @Transactional(readOnly = true)
     public Long getNewEmployeesCount(LocalDate sinceDate) {
         return employeeRepository.countByHireDateAfter(sinceDate);
     }
 
+    @Transactional(readOnly = true)
     public Long getNewEmployeesCount(LocalDate startDate, LocalDate endDate) {
         return employeeRepository.countByHireDateBetweenAndTerminationDateIsNull(startDate, endDate);
     }
@@ -78,17 +130,7 @@ public class EmployeeService {
                                Position position, Department department) {
         validateFullName(fullName);
 
-        String normalizedFullName = fullName.trim().toLowerCase().replaceAll("\\s+", " ");
-
-        List<Employee> allEmployees = employeeRepository.findAll();
-
-        boolean exists = allEmployees.stream()
-                .anyMatch(e -> {
-                    String existingName = e.getFullName().trim().toLowerCase().replaceAll("\\s+", " ");
-                    return existingName.equals(normalizedFullName);
-                });
-
-        if (exists) {
+        if (employeeRepository.existsByNormalizedName(Employee.normalizeFullName(fullName))) {
             throw new RuntimeException("Сотрудник с ФИО '" + fullName + "' уже существует в системе");
         }
 
@@ -98,7 +140,8 @@ public class EmployeeService {
         employee.setPosition(position);
         employee.setDepartment(department);
 
-        employeeRepository.save(employee);
+        saveWithUniqueName(employee, fullName);
+        workforceAnalyticsService.evictCache();
     }
 
     @Transactional
@@ -112,29 +155,21 @@ public class EmployeeService {
             throw new RuntimeException("Невозможно редактировать уволенного сотрудника");
         }
 
-        String normalizedFullName = fullName.trim().toLowerCase().replaceAll("\\s+", " ");
-        String currentNormalizedName = employee.getFullName().trim().toLowerCase().replaceAll("\\s+", " ");
+        String normalizedFullName = Employee.normalizeFullName(fullName);
 
-        if (!currentNormalizedName.equals(normalizedFullName)) {
-            List<Employee> allEmployees = employeeRepository.findAll();
-
-            boolean duplicateExists = allEmployees.stream()
-                    .filter(e -> !e.getId().equals(id))
-                    .anyMatch(e -> {
-                        String existingName = e.getFullName().trim().toLowerCase().replaceAll("\\s+", " ");
-                        return existingName.equals(normalizedFullName);
-                    });
-
-            if (duplicateExists) {
-                throw new RuntimeException("Сотрудник с ФИО '" + fullName + "' уже существует в системе");
-            }
+        if (!normalizedFullName.equals(Employee.normalizeFullName(employee.getFullName()))
+                && employeeRepository.existsByNormalizedNameAndIdNot(normalizedFullName, id)) {
+            throw new RuntimeException("Сотрудник с ФИО '" + fullName + "' уже существует в системе");
         }
 
         employee.setFullName(fullName.trim());
+        employee.setNormalizedName(normalizedFullName);
         employee.setPosition(position);
         employee.setDepartment(department);
 
-        return employeeRepository.save(employee);
+        Employee saved = saveWithUniqueName(employee, fullName);
+        workforceAnalyticsService.evictCache();
+        return saved;
     }
 
     @Transactional
@@ -156,6 +191,7 @@ public class EmployeeService {
 
         employee.setTerminationDate(terminationDate);
         employeeRepository.save(employee);
+        workforceAnalyticsService.evictCache();
     }
 
     @Transactional
@@ -167,24 +203,14 @@ public class EmployeeService {
             throw new RuntimeException("Сотрудник уже активен");
         }
 
-        String normalizedFullName = employee.getFullName().trim().toLowerCase().replaceAll("\\s+", " ");
-
-        List<Employee> allEmployees = employeeRepository.findAll();
-
-        boolean duplicateExists = allEmployees.stream()
-                .filter(e -> !e.getId().equals(id))
-                .anyMatch(e -> {
-                    String existingName = e.getFullName().trim().toLowerCase().replaceAll("\\s+", " ");
-                    return existingName.equals(normalizedFullName);
-                });
-
-        if (duplicateExists) {
+        if (employeeRepository.existsByNormalizedNameAndIdNot(Employee.normalizeFullName(employee.getFullName()), id)) {
             throw new RuntimeException("Нельзя восстановить сотрудника. Сотрудник с ФИО '" +
                     employee.getFullName() + "' уже существует в системе");
         }
 
         employee.setTerminationDate(null);
         employeeRepository.save(employee);
+        workforceAnalyticsService.evictCache();
     }
 
     @Transactional
@@ -202,6 +228,53 @@ public class EmployeeService {
         }
 
         employeeRepository.delete(employee);
+        workforceAnalyticsService.evictCache();
+    }
+
+    /**
+     * Заполняет нормализованное ФИО у сотрудников, созданных до появления колонки.
+     * Совпадающим ФИО добавляется суффикс {@code #id}: уникальный индекс не нарушается,
+     * поиск по ФИО их находит, а переименование записи снова проверяет ФИО на дубликат
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillNormalizedNames() {
+        List<Employee> employees = employeeRepository.findByNormalizedNameIsNull();
+        Set<String> names = new HashSet<>();
+        int filled = 0;
+        int duplicates = 0;
+
+        for (Employee employee : employees) {
+            String normalizedName = Employee.normalizeFullName(employee.getFullName());
+            if (!names.add(normalizedName) || employeeRepository.existsByNormalizedName(normalizedName)) {
+                normalizedName = normalizedName + " #" + employee.getId();
+                log.warn("Сотрудник {} (id={}) совпадает по ФИО с другим сотрудником, нормализованное ФИО: {}",
+                        employee.getFullName(), employee.getId(), normalizedName);
+                duplicates++;
+            }
+            employee.setNormalizedName(normalizedName);
+            filled++;
+        }
+
+        if (filled > 0) {
+            log.info("Заполнено нормализованное ФИО у {} сотрудников, из них совпадающих по ФИО: {}", filled, duplicates);
+        }
+    }
+
+    /**
+     * Сохраняет сотрудника; уникальный индекс по нормализованному ФИО страхует от дубликата,
+     * созданного параллельным запросом между проверкой и записью
+     */
+    private Employee saveWithUniqueName(Employee employee, String fullName) {
+        try {
+            return employeeRepository.saveAndFlush(employee);
+        } catch (DataIntegrityViolationException e) {
+            String cause = e.getMostSpecificCause().getMessage();
+            if (cause != null && cause.contains(NORMALIZED_NAME_CONSTRAINT)) {
+                throw new RuntimeException("Сотрудник с ФИО '" + fullName + "' уже существует в системе");
+            }
+            throw e;
+        }
     }
 
     private void validateFullName(String fullName) {
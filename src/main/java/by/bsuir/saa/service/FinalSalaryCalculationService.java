@@ -1,6 +1,10 @@
 package by.bsuir.saa.service;
 
+import by.bsuir.saa.calculation.Money;
+import by.bsuir.saa.calculation.MoneyAccumulator;
+import by.bsuir.saa.calculation.PayrollKernel;
 import by.bsuir.saa.entity.*;
+import by.bsuir.saa.monitoring.PayrollMetrics;
 import by.bsuir.saa.repository.PaymentRepository;
 import by.bsuir.saa.repository.SalaryPaymentRepository;
 import lombok.Data;
@@ -10,10 +14,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Slf4j
 @Service
@@ -24,21 +29,27 @@ public class FinalSalaryCalculationService {
     private final PaymentRepository paymentRepository;
     private final SalaryPaymentRepository salaryPaymentRepository;
     private final EmployeeService employeeService;
+    private final PayrollMetrics payrollMetrics;
+    private final PeriodClosingService periodClosingService;
 
+    @Transactional(readOnly = true)
     public FinalSalaryResult calculateFinalSalaryForEmployee(Employee employee, Integer month, Integer year) {
         List<Payment> payments = paymentRepository.findByEmployeeAndMonthAndYear(employee, month, year);
 
-        BigDecimal totalAccrued = payments.stream()
-                .filter(p -> "accrual".equals(p.getPaymentType().getCategory()))
-                .map(Payment::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal totalDeducted = payments.stream()
-                .filter(p -> "deduction".equals(p.getPaymentType().getCategory()))
-                .map(p -> p.getAmount().abs())
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        long accruedKopecks = 0;
+        long deductedKopecks = 0;
+        for (Payment payment : payments) {
+            String category = payment.getCategory();
+            if ("accrual".equals(category)) {
+                accruedKopecks += Money.toKopecks(payment.getAmount());
+            } else if ("deduction".equals(category)) {
+                deductedKopecks += Math.abs(Money.toKopecks(payment.getAmount()));
+            }
+        }
 
-        BigDecimal netSalary = totalAccrued.subtract(totalDeducted);
+        BigDecimal totalAccrued = PayrollKernel.fromKopecks(accruedKopecks);
+        BigDecimal totalDeducted = PayrollKernel.fromKopecks(deductedKopecks);
+        BigDecimal netSalary = PayrollKernel.fromKopecks(accruedKopecks - deductedKopecks);
 
         FinalSalaryResult result = new FinalSalaryResult();
         result.setEmployee(employee);
@@ -54,106 +65,119 @@ public class FinalSalaryCalculationService {
 
     @Transactional
     public void calculateAndSaveFinalSalary(Employee employee, Integer month, Integer year) {
-        FinalSalaryResult result = calculateFinalSalaryForEmployee(employee, month, year);
-
-        Optional<SalaryPayment> existingSalary = salaryPaymentRepository.findByEmployeeAndMonthAndYear(employee, month, year);
-        if (existingSalary.isPresent()) {
-            throw new RuntimeException("Итоговая зарплата уже рассчитана для сотрудника " + employee.getFullName());
-        }
-
-        if (result.getTotalAccrued().compareTo(BigDecimal.ZERO) == 0) {
-            throw new RuntimeException("Нет начислений для расчета итоговой зарплаты для " + employee.getFullName());
-        }
+        periodClosingService.assertOpen(month, year);
+        payrollMetrics.recordEmployeeCalculation(PayrollMetrics.STAGE_FINAL_SALARY, () -> {
+            FinalSalaryResult result = calculateFinalSalaryForEmployee(employee, month, year);
 
-        SalaryPayment salaryPayment = new SalaryPayment();
-        salaryPayment.setEmployee(employee);
-        salaryPayment.setMonth(month);
-        salaryPayment.setYear(year);
-        salaryPayment.setTotalAccrued(result.getTotalAccrued());
-        salaryPayment.setTotalDeducted(result.getTotalDeducted());
-        salaryPayment.setNetSalary(result.getNetSalary());
-        salaryPayment.setCalculationDate(LocalDateTime.now());
-        salaryPayment.setStatus(SalaryPayment.SalaryStatus.CALCULATED);
+            Optional<SalaryPayment> existingSalary = salaryPaymentRepository.findByEmployeeAndMonthAndYear(employee, month, year);
+            if (existingSalary.isPresent()) {
+                throw new RuntimeException("Итоговая зарплата уже рассчитана для сотрудника " + employee.getFullName());
+            }
 
-        salaryPaymentRepository.save(salaryPayment);
+            if (result.getTotalAccrued().compareTo(BigDecimal.ZERO) == 0) {
+                throw new RuntimeException("Нет начислений для расчета итоговой зарплаты для " + employee.getFullName());
+            }
 
-        log.info("Рассчитана итоговая зарплата для {}: начислено {} руб., удержано {} руб., к выплате {} руб.",
-                employee.getFullName(), result.getTotalAccrued(), result.getTotalDeducted(), result.getNetSalary());
+            SalaryPayment salaryPayment = new SalaryPayment();
+            salaryPayment.setEmployee(employee);
+            salaryPayment.setMonth(month);
+            salaryPayment.setYear(year);
+            salaryPayment.setTotalAccrued(result.getTotalAccrued());
+            salaryPayment.setTotalDeducted(result.getTotalDeducted());
+            salaryPayment.setNetSalary(result.getNetSalary());
+            salaryPayment.setCalculationDate(LocalDateTime.now());
+            salaryPayment.setStatus(SalaryPayment.SalaryStatus.CALCULATED);
+
+            salaryPaymentRepository.save(salaryPayment);
+
+            log.info("Рассчитана итоговая зарплата для {}: начислено {} руб., удержано {} руб., к выплате {} руб.",
+                    employee.getFullName(), result.getTotalAccrued(), result.getTotalDeducted(), result.getNetSalary());
+        });
     }
 
     @Transactional
     public int calculateFinalSalariesBatch(Integer month, Integer year) {
-        List<Employee> employees = paymentRepository.findByMonthAndYear(month, year)
-                .stream()
-                .map(Payment::getEmployee)
-                .distinct()
-                .toList();
-
-        int calculatedCount = 0;
-
-        for (Employee employee : employees) {
-            try {
-                if (!isFinalSalaryCalculated(employee, month, year)) {
-                    calculateAndSaveFinalSalary(employee, month, year);
-                    calculatedCount++;
+        periodClosingService.assertOpen(month, year);
+        return payrollMetrics.recordStage(PayrollMetrics.STAGE_FINAL_SALARY, month, year, () -> {
+            List<Employee> employees = paymentRepository.findByMonthAndYear(month, year)
+                    .stream()
+                    .map(Payment::getEmployee)
+                    .distinct()
+                    .toList();
+
+            int calculatedCount = 0;
+
+            for (Employee employee : employees) {
+                try {
+                    if (!isFinalSalaryCalculated(employee, month, year)) {
+                        calculateAndSaveFinalSalary(employee, month, year);
+                        calculatedCount++;
+                    }
+                } catch (Exception e) {
+                    log.error("Ошибка расчета итоговой зарплаты для {}: {}",
+                            employee.getFullName(), e.getMessage());
                 }
-            } catch (Exception e) {
-                log.error("Ошибка расчета итоговой зарплаты для {}: {}",
-                        employee.getFullName(), e.getMessage());
             }
-        }
 
-        log.info("Автоматический расчет итоговых зарплат завершен: {} сотрудников", calculatedCount);
-        return calculatedCount;
+            log.info("Автоматический расчет итоговых зарплат завершен: {} сотрудников", calculatedCount);
+            return calculatedCount;
+        });
     }
 
     @Transactional
     public void deleteFinalSalary(Employee employee, Integer month, Integer year) {
+        periodClosingService.assertOpen(month, year);
         Optional<SalaryPayment> salaryPayment = salaryPaymentRepository.findByEmployeeAndMonthAndYear(employee, month, year);
 
         salaryPayment.ifPresent(salaryPaymentRepository::delete);
     }
 
+    @Transactional(readOnly = true)
     public Optional<SalaryPayment> getFinalSalaryPayment(Employee employee, Integer month, Integer year) {
         return salaryPaymentRepository.findByEmployeeAndMonthAndYear(employee, month, year);
     }
 
+    @Transactional(readOnly = true)
     public boolean isFinalSalaryCalculated(Employee employee, Integer month, Integer year) {
         return salaryPaymentRepository.findByEmployeeAndMonthAndYear(employee, month, year).isPresent();
     }
 
+    @Transactional(readOnly = true)
+    public Set<Integer> getEmployeeIdsWithFinalSalary(Integer month, Integer year) {
+        return new HashSet<>(salaryPaymentRepository.findEmployeeIdsByMonthAndYear(month, year));
+    }
+
+    @Transactional(readOnly = true)
     public FinalSalarySummary getFinalSalarySummary(Integer month, Integer year) {
         List<SalaryPayment> salaryPayments = salaryPaymentRepository.findByMonthAndYear(month, year);
 
-        BigDecimal totalAccrued = salaryPayments.stream()
-                .map(SalaryPayment::getTotalAccrued)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal totalDeducted = salaryPayments.stream()
-                .map(SalaryPayment::getTotalDeducted)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal totalNetSalary = salaryPayments.stream()
-                .map(SalaryPayment::getNetSalary)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        MoneyAccumulator totalAccrued = new MoneyAccumulator();
+        MoneyAccumulator totalDeducted = new MoneyAccumulator();
+        MoneyAccumulator totalNetSalary = new MoneyAccumulator();
+        for (SalaryPayment salaryPayment : salaryPayments) {
+            totalAccrued.add(salaryPayment.getTotalAccrued());
+            totalDeducted.add(salaryPayment.getTotalDeducted());
+            totalNetSalary.add(salaryPayment.getNetSalary());
+        }
 
         FinalSalarySummary summary = new FinalSalarySummary();
         summary.setMonth(month);
         summary.setYear(year);
         summary.setTotalEmployees(salaryPayments.size());
-        summary.setTotalAccrued(totalAccrued);
-        summary.setTotalDeducted(totalDeducted);
-        summary.setTotalNetSalary(totalNetSalary);
-        summary.setAverageSalary(totalNetSalary.divide(
-                new BigDecimal(Math.max(salaryPayments.size(), 1)), 2, RoundingMode.HALF_UP));
+        summary.setTotalAccrued(totalAccrued.getSum());
+        summary.setTotalDeducted(totalDeducted.getSum());
+        summary.setTotalNetSalary(totalNetSalary.getSum());
+        summary.setAverageSalary(totalNetSalary.getAverage());
 
         return summary;
     }
 
+    @Transactional(readOnly = true)
     public List<SalaryPayment> getCalculatedSalaries(Integer month, Integer year) {
         return salaryPaymentRepository.findByMonthAndYear(month, year);
     }
 
+    @Transactional(readOnly = true)
     public long getEmployeesWithFinalSalaryCount(Integer month, Integer year) {
         return employeeService.getActiveEmployees().stream()
                 .filter(employee -> isFinalSalaryCalculated(employee, month, year))
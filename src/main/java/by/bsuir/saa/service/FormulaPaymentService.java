@@ -0,0 +1,198 @@
+package by.bsuir.saa.service;
+
+import by.bsuir.saa.calculation.CompiledFormula;
+import by.bsuir.saa.calculation.FormulaCompiler;
+import by.bsuir.saa.calculation.FormulaContext;
+import by.bsuir.saa.calculation.PayrollKernel;
+import by.bsuir.saa.entity.Employee;
+import by.bsuir.saa.entity.Payment;
+import by.bsuir.saa.entity.PaymentType;
+import by.bsuir.saa.entity.Timesheet;
+import by.bsuir.saa.monitoring.PayrollMetrics;
+import by.bsuir.saa.repository.EmployeeRepository;
+import by.bsuir.saa.repository.PaymentRepository;
+import by.bsuir.saa.repository.PaymentTypeRepository;
+import by.bsuir.saa.repository.SalaryPaymentRepository;
+import by.bsuir.saa.repository.TimesheetRepository;
+import by.bsuir.saa.util.WorkingHoursCalculator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Пакетный расчет начислений, заданных формулой типа оплаты. Формулы компилируются один раз
+ * на пакет и вычисляются в порядке зависимостей, данные периода загружаются несколькими запросами,
+ * по каждому сотруднику вычисляются только скомпилированные выражения. Вызывается из пакетного
+ * расчета налогов перед налогами, так как сотрудники с рассчитанными налогами пропускаются
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FormulaPaymentService {
+
+    private static final String BASE_SALARY_CODE = "ОКЛ";
+    private static final String ACCRUAL = "accrual";
+
+    /**
+     * Начисления и удержания, которые рассчитываются отдельными сервисами
+     */
+    private static final Set<String> BUILT_IN_CODES = Set.of("ОКЛ", "ИТР", "СТАЖ", "ОТП", "БОЛ", "ПН", "ФСЗН");
+    private static final Set<String> TAX_CODES = Set.of("ПН", "ФСЗН");
+
+    private final PaymentTypeRepository paymentTypeRepository;
+    private final PaymentRepository paymentRepository;
+    private final EmployeeRepository employeeRepository;
+    private final TimesheetRepository timesheetRepository;
+    private final SalaryPaymentRepository salaryPaymentRepository;
+    private final WorkingHoursCalculator workingHoursCalculator;
+    private final FormulaCompiler formulaCompiler;
+    private final PayrollMetrics payrollMetrics;
+    private final PeriodClosingService periodClosingService;
+
+    @Transactional
+    public int calculateFormulaPaymentsBatch(Integer month, Integer year) {
+        periodClosingService.assertOpen(month, year);
+        return payrollMetrics.recordStage(PayrollMetrics.STAGE_FORMULA_PAYMENTS, month, year, () -> {
+            Map<PaymentType, CompiledFormula> formulas = compileFormulaTypes();
+            if (formulas.isEmpty()) {
+                return 0;
+            }
+
+            Map<Integer, FormulaContext> contexts = new HashMap<>();
+            for (Payment payment : paymentRepository.findByMonthAndYear(month, year)) {
+                contexts.computeIfAbsent(payment.getEmployee().getId(), id -> new FormulaContext())
+                        .addPayment(payment.getPaymentTypeCode(), payment.getAmount(),
+                                ACCRUAL.equals(payment.getCategory()));
+            }
+
+            Map<Integer, Object[]> timesheets = new HashMap<>();
+            for (Object[] row : timesheetRepository.findTimesheetSummaries(month, year, Timesheet.TimesheetStatus.CONFIRMED)) {
+                timesheets.put((Integer) row[0], row);
+            }
+            Set<Integer> finalized = salaryPaymentRepository.findByMonthAndYear(month, year).stream()
+                    .map(salaryPayment -> salaryPayment.getEmployee().getId())
+                    .collect(Collectors.toSet());
+
+            BigDecimal normHours = BigDecimal.valueOf(workingHoursCalculator.calculateWorkingHours(
+                    year, month, PayrollKernel.STANDARD_HOURS_PER_DAY));
+            LocalDate periodEnd = YearMonth.of(year, month).atEndOfMonth();
+
+            List<Payment> created = new ArrayList<>();
+            Set<Integer> calculatedEmployees = new HashSet<>();
+            for (Employee employee : employeeRepository.findActiveEmployeesWithDetails()) {
+                FormulaContext context = contexts.get(employee.getId());
+                if (context == null || !context.hasPayment(BASE_SALARY_CODE)
+                        || TAX_CODES.stream().anyMatch(context::hasPayment)
+                        || finalized.contains(employee.getId())) {
+                    continue;
+                }
+                fillVariables(context, employee, timesheets.get(employee.getId()), normHours, periodEnd);
+
+                for (Map.Entry<PaymentType, CompiledFormula> entry : formulas.entrySet()) {
+                    PaymentType paymentType = entry.getKey();
+                    if (context.hasPayment(paymentType.getCode())) {
+                        continue;
+                    }
+                    BigDecimal amount;
+                    try {
+                        amount = entry.getValue().evaluate(context).setScale(2, RoundingMode.HALF_UP);
+                    } catch (ArithmeticException e) {
+                        log.warn("Формула {} не вычислена для {}: {}",
+                                paymentType.getCode(), employee.getFullName(), e.getMessage());
+                        continue;
+                    }
+                    if (amount.signum() == 0) {
+                        continue;
+                    }
+
+                    context.addPayment(paymentType.getCode(), amount, true);
+                    created.add(buildPayment(employee, month, year, paymentType, amount));
+                    calculatedEmployees.add(employee.getId());
+                }
+            }
+
+            paymentRepository.saveAll(created);
+            log.info("Начисления по формулам за {}.{}: {} платежей для {} сотрудников",
+                    month, year, created.size(), calculatedEmployees.size());
+            return calculatedEmployees.size();
+        });
+    }
+
+    /**
+     * Формулы начислений в порядке вычисления: формула идет после формул, на чьи коды ссылается.
+     * При циклической ссылке, сохраненной до появления проверки, начисления по формулам не считаются
+     */
+    private Map<PaymentType, CompiledFormula> compileFormulaTypes() {
+        Map<String, PaymentType> typesByCode = new LinkedHashMap<>();
+        Map<String, CompiledFormula> compiled = new HashMap<>();
+        paymentTypeRepository.findByCategory(ACCRUAL).stream()
+                .filter(type -> type.getFormula() != null && !type.getFormula().isBlank())
+                .filter(type -> !BUILT_IN_CODES.contains(type.getCode()))
+                .sorted(Comparator.comparing(PaymentType::getId))
+                .forEach(type -> {
+                    try {
+                        compiled.put(type.getCode(), formulaCompiler.compile(type.getFormula()));
+                        typesByCode.put(type.getCode(), type);
+                    } catch (IllegalArgumentException e) {
+                        log.warn("Формула типа оплаты {} пропущена: {}", type.getCode(), e.getMessage());
+                    }
+                });
+
+        Map<String, String> formulasByCode = new LinkedHashMap<>();
+        typesByCode.forEach((code, type) -> formulasByCode.put(code, type.getFormula()));
+        List<String> order;
+        try {
+            order = formulaCompiler.evaluationOrder(formulasByCode);
+        } catch (IllegalArgumentException e) {
+            log.warn("Начисления по формулам пропущены: {}", e.getMessage());
+            return Map.of();
+        }
+
+        Map<PaymentType, CompiledFormula> formulas = new LinkedHashMap<>();
+        for (String code : order) {
+            formulas.put(typesByCode.get(code), compiled.get(code));
+        }
+        return formulas;
+    }
+
+    private void fillVariables(FormulaContext context, Employee employee, Object[] timesheet,
+                               BigDecimal normHours, LocalDate periodEnd) {
+        context.set(FormulaContext.Variable.BASE_SALARY, employee.getPosition().getBaseSalary())
+                .set(FormulaContext.Variable.NORM_HOURS, normHours)
+                .set(FormulaContext.Variable.TENURE_YEARS,
+                        BigDecimal.valueOf(ChronoUnit.YEARS.between(employee.getHireDate(), periodEnd)));
+        if (timesheet != null) {
+            context.set(FormulaContext.Variable.HOURS, (BigDecimal) timesheet[1])
+                    .set(FormulaContext.Variable.SICK_LEAVE_DAYS, BigDecimal.valueOf(((Number) timesheet[2]).longValue()))
+                    .set(FormulaContext.Variable.VACATION_DAYS, BigDecimal.valueOf(((Number) timesheet[3]).longValue()));
+        }
+    }
+
+    private Payment buildPayment(Employee employee, Integer month, Integer year,
+                                 PaymentType paymentType, BigDecimal amount) {
+        Payment payment = new Payment();
+        payment.setEmployee(employee);
+        payment.setMonth(month);
+        payment.setYear(year);
+        payment.setPaymentType(paymentType);
+        payment.setAmount(amount);
+        payment.setDescription("Расчет по формуле: " + paymentType.getFormula());
+        return payment;
+    }
+}
@@ -1,6 +1,8 @@
 package by.bsuir.saa.service;
 
+import by.bsuir.saa.calculation.MoneyAccumulator;
 import by.bsuir.saa.entity.*;
+import by.bsuir.saa.projection.PaymentRow;
 import by.bsuir.saa.repository.PaymentRepository;
 import by.bsuir.saa.repository.TimesheetRepository;
 import lombok.RequiredArgsConstructor;
@@ -10,7 +12,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -21,18 +25,31 @@ public class PaymentService {
     private final PaymentRepository paymentRepository;
     private final TimesheetRepository timesheetRepository;
     private final EmployeeService employeeService;
+    private final PeriodClosingService periodClosingService;
 
+    @Transactional(readOnly = true)
     public List<Payment> getEmployeePayments(Employee employee, Integer month, Integer year) {
         return paymentRepository.findByEmployeeAndMonthAndYear(employee, month, year);
     }
 
+    /**
+     * Начисления и удержания периода по сотрудникам одним запросом
+     */
+    @Transactional(readOnly = true)
+    public Map<Integer, List<PaymentRow>> getPaymentRowsByEmployee(Integer month, Integer year) {
+        return paymentRepository.findRowsByMonthAndYear(month, year).stream()
+                .collect(Collectors.groupingBy(PaymentRow::getEmployeeId));
+    }
+
+    @Transactional(readOnly = true)
     public Optional<Payment> getPaymentById(Integer id) {
-        return paymentRepository.findById(id);
+        return paymentRepository.findByIdWithDetails(id);
     }
 
     @Transactional
     public void createPayment(Employee employee, Integer month, Integer year,
                               PaymentType paymentType, BigDecimal amount, String description) {
+        periodClosingService.assertOpen(month, year);
 
         boolean paymentExists = paymentRepository.findByEmployeeAndMonthAndYearAndPaymentType(
                 employee, month, year, paymentType).isPresent();
@@ -59,6 +76,7 @@ public class PaymentService {
     public void deletePayment(Integer paymentId) {
         Payment payment = paymentRepository.findById(paymentId)
                 .orElseThrow(() -> new RuntimeException("Платеж не найден"));
+        periodClosingService.assertOpen(payment.getMonth(), payment.getYear());
 
         paymentRepository.delete(payment);
 
@@ -67,113 +85,118 @@ public class PaymentService {
                 payment.getEmployee().getFullName(), payment.getMonth(), payment.getYear());
     }
 
+    @Transactional(readOnly = true)
     public List<Payment> getPaymentsByPeriod(Integer month, Integer year) {
         return paymentRepository.findByMonthAndYear(month, year);
     }
 
+    @Transactional(readOnly = true)
     public long getEmployeesWithCalculationsCount(Integer month, Integer year) {
         return paymentRepository.countDistinctEmployeesByMonthAndYear(month, year);
     }
 
+    @Transactional(readOnly = true)
     public BigDecimal getTotalAccruals(Integer month, Integer year) {
         return paymentRepository.findByMonthAndYear(month, year).stream()
-                .filter(p -> "accrual".equals(p.getPaymentType().getCategory()))
-                .map(Payment::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .filter(p -> "accrual".equals(p.getCategory()))
+                .collect(MoneyAccumulator.summing(Payment::getAmount));
     }
 
+    @Transactional(readOnly = true)
     public BigDecimal getTotalDeductions(Integer month, Integer year) {
         return paymentRepository.findByMonthAndYear(month, year).stream()
-                .filter(p -> "deduction".equals(p.getPaymentType().getCategory()))
-                .map(Payment::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .filter(p -> "deduction".equals(p.getCategory()))
+                .collect(MoneyAccumulator.summing(Payment::getAmount));
     }
 
     // Метод для проверки существования налогов (без зависимости от TaxCalculationService)
+    @Transactional(readOnly = true)
     public boolean hasTaxes(Employee employee, Integer month, Integer year) {
         return paymentRepository.findByEmployeeAndMonthAndYear(employee, month, year).stream()
-                .anyMatch(p -> "deduction".equals(p.getPaymentType().getCategory()) &&
-                        ("ПН".equals(p.getPaymentType().getCode()) ||
-                                "ФСЗН".equals(p.getPaymentType().getCode())));
+                .anyMatch(p -> "deduction".equals(p.getCategory()) &&
+                        ("ПН".equals(p.getPaymentTypeCode()) ||
+                                "ФСЗН".equals(p.getPaymentTypeCode())));
     }
 
+    @Transactional(readOnly = true)
     public long getEmployeesWithBonusesCount(Integer month, Integer year) {
         return employeeService.getActiveEmployees().stream()
                 .filter(employee -> {
                     List<Payment> payments = getEmployeePayments(employee, month, year);
                     return payments.stream()
-                            .anyMatch(p -> "accrual".equals(p.getPaymentType().getCategory()) &&
-                                    !"ОКЛ".equals(p.getPaymentType().getCode()));
+                            .anyMatch(p -> "accrual".equals(p.getCategory()) &&
+                                    !"ОКЛ".equals(p.getPaymentTypeCode()));
                 })
                 .count();
     }
 
+    @Transactional(readOnly = true)
     public long getEmployeesWithTaxesCount(Integer month, Integer year) {
         return employeeService.getActiveEmployees().stream()
                 .filter(employee -> {
                     List<Payment> payments = getEmployeePayments(employee, month, year);
                     return payments.stream()
-                            .anyMatch(p -> "ПН".equals(p.getPaymentType().getCode()) ||
-                                    "ФСЗН".equals(p.getPaymentType().getCode()));
+                            .anyMatch(p -> "ПН".equals(p.getPaymentTypeCode()) ||
+                                    "ФСЗН".equals(p.getPaymentTypeCode()));
                 })
                 .count();
     }
 
+    @Transactional(readOnly = true)
     public BigDecimal getTotalBaseSalary(Integer month, Integer year) {
         return employeeService.getActiveEmployees().stream()
                 .flatMap(employee -> getEmployeePayments(employee, month, year).stream())
-                .filter(p -> "ОКЛ".equals(p.getPaymentType().getCode()))
-                .map(Payment::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .filter(p -> "ОКЛ".equals(p.getPaymentTypeCode()))
+                .collect(MoneyAccumulator.summing(Payment::getAmount));
     }
 
+    @Transactional(readOnly = true)
     public BigDecimal getTotalEnterpriseBonuses(Integer month, Integer year) {
         return employeeService.getActiveEmployees().stream()
                 .flatMap(employee -> getEmployeePayments(employee, month, year).stream())
-                .filter(p -> "ПРЕД".equals(p.getPaymentType().getCode()))
-                .map(Payment::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .filter(p -> "ПРЕД".equals(p.getPaymentTypeCode()))
+                .collect(MoneyAccumulator.summing(Payment::getAmount));
     }
 
+    @Transactional(readOnly = true)
     public BigDecimal getTotalItrBonuses(Integer month, Integer year) {
         return employeeService.getActiveEmployees().stream()
                 .flatMap(employee -> getEmployeePayments(employee, month, year).stream())
-                .filter(p -> "ИТР".equals(p.getPaymentType().getCode()))
-                .map(Payment::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .filter(p -> "ИТР".equals(p.getPaymentTypeCode()))
+                .collect(MoneyAccumulator.summing(Payment::getAmount));
     }
 
+    @Transactional(readOnly = true)
     public BigDecimal getTotalSeniorityBonuses(Integer month, Integer year) {
         return employeeService.getActiveEmployees().stream()
                 .flatMap(employee -> getEmployeePayments(employee, month, year).stream())
-                .filter(p -> "СТАЖ".equals(p.getPaymentType().getCode()))
-                .map(Payment::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .filter(p -> "СТАЖ".equals(p.getPaymentTypeCode()))
+                .collect(MoneyAccumulator.summing(Payment::getAmount));
     }
 
+    @Transactional(readOnly = true)
     public BigDecimal getTotalIncomeTax(Integer month, Integer year) {
         return employeeService.getActiveEmployees().stream()
                 .flatMap(employee -> getEmployeePayments(employee, month, year).stream())
-                .filter(p -> "ПН".equals(p.getPaymentType().getCode()))
-                .map(p -> p.getAmount().abs())
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .filter(p -> "ПН".equals(p.getPaymentTypeCode()))
+                .collect(MoneyAccumulator.summingAbsolute(Payment::getAmount));
     }
 
+    @Transactional(readOnly = true)
     public BigDecimal getTotalSocialTax(Integer month, Integer year) {
         return employeeService.getActiveEmployees().stream()
                 .flatMap(employee -> getEmployeePayments(employee, month, year).stream())
-                .filter(p -> "ФСЗН".equals(p.getPaymentType().getCode()))
-                .map(p -> p.getAmount().abs())
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .filter(p -> "ФСЗН".equals(p.getPaymentTypeCode()))
+                .collect(MoneyAccumulator.summingAbsolute(Payment::getAmount));
     }
 
+    @Transactional(readOnly = true)
     public BigDecimal getTotalOtherDeductions(Integer month, Integer year) {
         return employeeService.getActiveEmployees().stream()
                 .flatMap(employee -> getEmployeePayments(employee, month, year).stream())
-                .filter(p -> "deduction".equals(p.getPaymentType().getCategory()) &&
-                        !"ПН".equals(p.getPaymentType().getCode()) &&
-                        !"ФСЗН".equals(p.getPaymentType().getCode()))
-                .map(p -> p.getAmount().abs())
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .filter(p -> "deduction".equals(p.getCategory()) &&
+                        !"ПН".equals(p.getPaymentTypeCode()) &&
+                        !"ФСЗН".equals(p.getPaymentTypeCode()))
+                .collect(MoneyAccumulator.summingAbsolute(Payment::getAmount));
     }
 }
\ No newline at end of file
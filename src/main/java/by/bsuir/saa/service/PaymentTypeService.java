@@ -1,14 +1,18 @@
 package by.bsuir.saa.service;
 
+import by.bsuir.saa.calculation.FormulaCompiler;
 import by.bsuir.saa.entity.Employee;
 import by.bsuir.saa.entity.PaymentType;
 import by.bsuir.saa.entity.Timesheet;
 import by.bsuir.saa.repository.PaymentRepository;
 import by.bsuir.saa.repository.PaymentTypeRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -19,49 +23,61 @@ public class PaymentTypeService {
     private final PaymentRepository paymentRepository;
     private final EmployeeService employeeService;
     private final TimesheetService timesheetService;
+    private final FormulaCompiler formulaCompiler;
 
     public PaymentTypeService(PaymentTypeRepository paymentTypeRepository,
                               PaymentRepository paymentRepository,
                               EmployeeService employeeService,
-                              TimesheetService timesheetService) {
+                              TimesheetService timesheetService,
+                              FormulaCompiler formulaCompiler) {
         this.paymentTypeRepository = paymentTypeRepository;
         this.paymentRepository = paymentRepository;
         this.employeeService = employeeService;
         this.timesheetService = timesheetService;
+        this.formulaCompiler = formulaCompiler;
     }
 
+    @Transactional(readOnly = true)
     public List<PaymentType> getAllPaymentTypes() {
         return paymentTypeRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
     public Optional<PaymentType> getPaymentTypeById(Integer id) {
         return paymentTypeRepository.findById(id);
     }
 
+    @Transactional(readOnly = true)
     public Optional<PaymentType> getPaymentTypeByCode(String code) {
         return paymentTypeRepository.findByCode(code.toUpperCase());
     }
 
+    @Transactional(readOnly = true)
     public List<PaymentType> getAccrualTypes() {
         return paymentTypeRepository.findByCategory("accrual");
     }
 
+    @Transactional(readOnly = true)
     public List<PaymentType> getDeductionTypes() {
         return paymentTypeRepository.findByCategory("deduction");
     }
 
+    @Transactional(readOnly = true)
     public Optional<PaymentType> getVacationPaymentType() {
         return getPaymentTypeByCode("ОТП");
     }
 
+    @Transactional(readOnly = true)
     public Optional<PaymentType> getSickLeavePaymentType() {
         return getPaymentTypeByCode("БОЛ");
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS)
     public boolean isVacationOrSickLeavePayment(PaymentType paymentType) {
         return "ОТП".equals(paymentType.getCode()) || "БОЛ".equals(paymentType.getCode());
     }
 
+    @Transactional(readOnly = true)
     public List<Employee> getEmployeesWithConfirmedTimesheets(Integer month, Integer year) {
         return employeeService.getActiveEmployees().stream()
                 .filter(employee -> timesheetService.getTimesheet(employee, month, year)
@@ -70,6 +86,7 @@ public class PaymentTypeService {
                 .toList();
     }
 
+    @Transactional(readOnly = true)
     public boolean paymentTypeExists(String code) {
         return paymentTypeRepository.existsByCode(code.toUpperCase());
     }
@@ -78,6 +95,7 @@ public class PaymentTypeService {
                                          String description, String formula) {
         validateInput(code, name, category);
         String trimmedCode = prepareCode(code);
+        validateFormula(null, trimmedCode, formula);
 
         validateUniqueCode(trimmedCode);
 
@@ -91,10 +109,19 @@ public class PaymentTypeService {
         validateInput(code, name, category);
 
         String trimmedCode = prepareCode(code);
+        validateFormula(id, trimmedCode, formula);
         validateUniqueCodeForUpdate(paymentType, trimmedCode);
 
+        boolean attributesChanged = !trimmedCode.equals(paymentType.getCode())
+                || !category.equals(paymentType.getCategory());
+
         updatePaymentTypeFields(paymentType, trimmedCode, name, category, description, formula);
-        return paymentTypeRepository.save(paymentType);
+        PaymentType saved = paymentTypeRepository.save(paymentType);
+
+        if (attributesChanged) {
+            paymentRepository.updatePaymentTypeAttributes(saved, saved.getCode(), saved.getCategory());
+        }
+        return saved;
     }
 
     public void deletePaymentType(Integer id) {
@@ -115,6 +142,32 @@ public class PaymentTypeService {
         }
     }
 
+    /**
+     * Проверяет синтаксис формулы и отсутствие циклических ссылок с формулами других типов оплаты
+     */
+    private void validateFormula(Integer id, String code, String formula) {
+        if (formula == null || formula.isBlank()) {
+            return;
+        }
+        String error = formulaCompiler.validate(formula);
+        if (error != null) {
+            throw new RuntimeException("Ошибка в формуле: " + error);
+        }
+
+        Map<String, String> formulasByCode = new LinkedHashMap<>();
+        paymentTypeRepository.findAll().stream()
+                .filter(type -> !type.getId().equals(id) && !type.getCode().equals(code))
+                .filter(type -> type.getFormula() != null && !type.getFormula().isBlank())
+                .filter(type -> formulaCompiler.validate(type.getFormula()) == null)
+                .forEach(type -> formulasByCode.put(type.getCode(), type.getFormula()));
+        formulasByCode.put(code, formula);
+        try {
+            formulaCompiler.evaluationOrder(formulasByCode);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Ошибка в формуле: " + e.getMessage());
+        }
+    }
+
     private boolean isValidCategory(String category) {
         return "accrual".equals(category) || "deduction".equals(category);
     }
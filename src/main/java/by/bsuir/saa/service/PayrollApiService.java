@@ -0,0 +1,397 @@
+package by.bsuir.saa.service;
+
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Выборки для JSON API. Строки читаются через JDBC сразу в нужные поля, без загрузки сущностей.
+ * Страницы идут по курсору (id последней строки), выгрузка целиком - курсором JDBC с fetch size,
+ * строки передаются обработчику по одной. Закрытые периоды читаются из снимков, поэтому
+ * начисления и зарплаты за перенесенные в архив годы тоже доступны
+ */
+@Service
+@Transactional(readOnly = true)
+public class PayrollApiService {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    private static final Source EMPLOYEES = new Source(
+            "employees e LEFT JOIN departments d ON d.id = e.department_id " +
+                    "LEFT JOIN positions p ON p.id = e.position_id",
+            "e.id", columns(
+            "fullName", "e.full_name",
+            "hireDate", "e.hire_date",
+            "terminationDate", "e.termination_date",
+            "departmentId", "e.department_id",
+            "departmentName", "d.name",
+            "positionId", "e.position_id",
+            "positionTitle", "p.title",
+            "baseSalary", "p.base_salary"));
+
+    private static final Source TIMESHEETS = new Source(
+            "timesheets t JOIN employees e ON e.id = t.employee_id " +
+                    "LEFT JOIN departments d ON d.id = e.department_id",
+            "t.id", columns(
+            "employeeId", "t.employee_id",
+            "employeeName", "e.full_name",
+            "departmentId", "e.department_id",
+            "departmentName", "d.name",
+            "month", "t.month",
+            "year", "t.year",
+            "totalHours", "t.total_hours",
+            "status", "t.status",
+            "confirmedAt", "t.confirmed_at"));
+
+    private static final Source PAYMENTS = new Source(
+            "payments pm JOIN payment_types pt ON pt.id = pm.payment_type_id",
+            "pm.id", columns(
+            "employeeId", "pm.employee_id",
+            "month", "pm.month",
+            "year", "pm.year",
+            "paymentTypeCode", "pm.payment_type_code",
+            "paymentTypeName", "pt.name",
+            "category", "pm.category",
+            "amount", "pm.amount",
+            "description", "pm.description"));
+
+    private static final Source PAYMENT_SNAPSHOTS = new Source(
+            "payment_snapshots ps",
+            "ps.id", columns(
+            "employeeId", "ps.employee_id",
+            "month", "ps.month",
+            "year", "ps.year",
+            "paymentTypeCode", "ps.payment_type_code",
+            "paymentTypeName", "ps.payment_type_name",
+            "category", "ps.category",
+            "amount", "ps.amount",
+            "description", "ps.description"));
+
+    private static final Source SALARY_PAYMENTS = new Source(
+            "salary_payments sp JOIN employees e ON e.id = sp.employee_id " +
+                    "LEFT JOIN departments d ON d.id = e.department_id " +
+                    "LEFT JOIN positions p ON p.id = e.position_id",
+            "sp.id", columns(
+            "employeeId", "sp.employee_id",
+            "fullName", "e.full_name",
+            "departmentId", "e.department_id",
+            "departmentName", "d.name",
+            "positionTitle", "p.title",
+            "month", "sp.month",
+            "year", "sp.year",
+            "totalAccrued", "sp.total_accrued",
+            "totalDeducted", "sp.total_deducted",
+            "netSalary", "sp.net_salary",
+            "status", "sp.status"));
+
+    private static final Source SALARY_SNAPSHOTS = new Source(
+            "salary_snapshots ss",
+            "ss.id", columns(
+            "employeeId", "ss.employee_id",
+            "fullName", "ss.full_name",
+            "departmentId", "ss.department_id",
+            "departmentName", "ss.department_name",
+            "positionTitle", "ss.position_title",
+            "month", "ss.month",
+            "year", "ss.year",
+            "totalAccrued", "ss.total_accrued",
+            "totalDeducted", "ss.total_deducted",
+            "netSalary", "ss.net_salary",
+            "status", "'PAID'"));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate streamingJdbcTemplate;
+    private final PeriodClosingService periodClosingService;
+
+    public PayrollApiService(DataSource dataSource, PeriodClosingService periodClosingService) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        JdbcTemplate streaming = new JdbcTemplate(dataSource);
+        streaming.setFetchSize(STREAM_FETCH_SIZE);
+        this.streamingJdbcTemplate = new NamedParameterJdbcTemplate(streaming);
+        this.periodClosingService = periodClosingService;
+    }
+
+    public ApiPage getEmployees(Integer departmentId, boolean activeOnly, String fields, String cursor, Integer limit) {
+        return page(employeesQuery(departmentId, activeOnly, fields), cursor, limit);
+    }
+
+    public void streamEmployees(Integer departmentId, boolean activeOnly, String fields,
+                                Consumer<Map<String, Object>> consumer) {
+        stream(employeesQuery(departmentId, activeOnly, fields), consumer);
+    }
+
+    public ApiPage getTimesheets(Integer month, Integer year, Integer departmentId, String fields,
+                                 String cursor, Integer limit) {
+        return page(timesheetsQuery(month, year, departmentId, fields), cursor, limit);
+    }
+
+    public void streamTimesheets(Integer month, Integer year, Integer departmentId, String fields,
+                                 Consumer<Map<String, Object>> consumer) {
+        stream(timesheetsQuery(month, year, departmentId, fields), consumer);
+    }
+
+    public ApiPage getPayments(Integer month, Integer year, String category, String fields,
+                               String cursor, Integer limit) {
+        return page(paymentsQuery(month, year, category, fields), cursor, limit);
+    }
+
+    public void streamPayments(Integer month, Integer year, String category, String fields,
+                               Consumer<Map<String, Object>> consumer) {
+        stream(paymentsQuery(month, year, category, fields), consumer);
+    }
+
+    public ApiPage getSalaryPayments(Integer month, Integer year, Integer departmentId, String fields,
+                                     String cursor, Integer limit) {
+        return page(salaryPaymentsQuery(month, year, departmentId, fields), cursor, limit);
+    }
+
+    public void streamSalaryPayments(Integer month, Integer year, Integer departmentId, String fields,
+                                     Consumer<Map<String, Object>> consumer) {
+        stream(salaryPaymentsQuery(month, year, departmentId, fields), consumer);
+    }
+
+    /**
+     * Все данные расчетного месяца одной выгрузкой: итоговые зарплаты, начисления и удержания,
+     * табели. Тип строки передается в поле type
+     */
+    public void streamPayroll(Integer month, Integer year, Consumer<Map<String, Object>> consumer) {
+        stream(salaryPaymentsQuery(month, year, null, null), typed("salaryPayment", consumer));
+        stream(paymentsQuery(month, year, null, null), typed("payment", consumer));
+        stream(timesheetsQuery(month, year, null, null), typed("timesheet", consumer));
+    }
+
+    private Query employeesQuery(Integer departmentId, boolean activeOnly, String fields) {
+        Query query = new Query(EMPLOYEES, fields).where("departmentId", departmentId);
+        if (activeOnly) {
+            query.condition("e.termination_date IS NULL");
+        }
+        return query;
+    }
+
+    private Query timesheetsQuery(Integer month, Integer year, Integer departmentId, String fields) {
+        validatePeriod(month, year);
+        return new Query(TIMESHEETS, fields)
+                .where("year", year)
+                .where("month", month)
+                .where("departmentId", departmentId);
+    }
+
+    private Query paymentsQuery(Integer month, Integer year, String category, String fields) {
+        validatePeriod(month, year);
+        Source source = periodClosingService.isClosed(month, year) ? PAYMENT_SNAPSHOTS : PAYMENTS;
+        return new Query(source, fields)
+                .where("year", year)
+                .where("month", month)
+                .where("category", category);
+    }
+
+    private Query salaryPaymentsQuery(Integer month, Integer year, Integer departmentId, String fields) {
+        validatePeriod(month, year);
+        Source source = periodClosingService.isClosed(month, year) ? SALARY_SNAPSHOTS : SALARY_PAYMENTS;
+        return new Query(source, fields)
+                .where("year", year)
+                .where("month", month)
+                .where("departmentId", departmentId);
+    }
+
+    private ApiPage page(Query query, String cursor, Integer limit) {
+        int pageSize = Math.max(1, Math.min(limit != null ? limit : DEFAULT_LIMIT, MAX_LIMIT));
+        Integer afterId = decodeCursor(cursor);
+        if (afterId != null) {
+            query.condition(query.source.idColumn() + " > :afterId", "afterId", afterId);
+        }
+        query.params.addValue("limit", pageSize + 1);
+
+        List<Map<String, Object>> rows = jdbcTemplate.query(
+                query.toSql() + " ORDER BY " + query.source.idColumn() + " LIMIT :limit",
+                query.params, (resultSet, rowNum) -> toRow(resultSet));
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = new ArrayList<>(rows.subList(0, pageSize));
+            nextCursor = encodeCursor(((Number) rows.get(pageSize - 1).get("id")).intValue());
+        }
+
+        return ApiPage.builder()
+                .items(rows)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private void stream(Query query, Consumer<Map<String, Object>> consumer) {
+        streamingJdbcTemplate.query(query.toSql() + " ORDER BY " + query.source.idColumn(), query.params,
+                (RowCallbackHandler) resultSet -> consumer.accept(toRow(resultSet)));
+    }
+
+    private static Consumer<Map<String, Object>> typed(String type, Consumer<Map<String, Object>> consumer) {
+        return row -> {
+            Map<String, Object> typedRow = new LinkedHashMap<>();
+            typedRow.put("type", type);
+            typedRow.putAll(row);
+            consumer.accept(typedRow);
+        };
+    }
+
+    private static Map<String, Object> toRow(ResultSet resultSet) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            Object value = resultSet.getObject(i);
+            if (value instanceof Date date) {
+                value = date.toLocalDate();
+            } else if (value instanceof Timestamp timestamp) {
+                value = timestamp.toLocalDateTime();
+            }
+            row.put(metaData.getColumnLabel(i), value);
+        }
+        return row;
+    }
+
+    public static void validatePeriod(Integer month, Integer year) {
+        if (month == null || year == null) {
+            throw new InvalidRequestException("Не указан период: параметры month и year обязательны");
+        }
+        if (month < 1 || month > 12) {
+            throw new InvalidRequestException("Некорректный месяц: " + month);
+        }
+    }
+
+    private static String encodeCursor(int id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(("id:" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Integer decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!value.startsWith("id:")) {
+                throw new IllegalArgumentException(value);
+            }
+            return Integer.parseInt(value.substring(3));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Некорректный курсор: " + cursor);
+        }
+    }
+
+    private static Map<String, String> columns(String... fieldsAndColumns) {
+        Map<String, String> columns = new LinkedHashMap<>();
+        for (int i = 0; i < fieldsAndColumns.length; i += 2) {
+            columns.put(fieldsAndColumns[i], fieldsAndColumns[i + 1]);
+        }
+        return columns;
+    }
+
+    /**
+     * Некорректные параметры запроса: сообщение предназначено клиенту API
+     */
+    public static class InvalidRequestException extends RuntimeException {
+
+        public InvalidRequestException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Таблица или соединение таблиц и выражения для полей API. Поле id есть всегда
+     */
+    private record Source(String from, String idColumn, Map<String, String> columns) {
+    }
+
+    /**
+     * SELECT по источнику: выбранные поля, условия и параметры
+     */
+    private static class Query {
+
+        private final Source source;
+        private final Set<String> fields;
+        private final List<String> conditions = new ArrayList<>();
+        private final MapSqlParameterSource params = new MapSqlParameterSource();
+
+        Query(Source source, String fields) {
+            this.source = source;
+            this.fields = parseFields(source, fields);
+        }
+
+        Query where(String field, Object value) {
+            if (value != null) {
+                condition(source.columns().get(field) + " = :" + field, field, value);
+            }
+            return this;
+        }
+
+        Query condition(String condition) {
+            conditions.add(condition);
+            return this;
+        }
+
+        Query condition(String condition, String param, Object value) {
+            conditions.add(condition);
+            params.addValue(param, value);
+            return this;
+        }
+
+        String toSql() {
+            StringBuilder sql = new StringBuilder("SELECT ").append(source.idColumn()).append(" AS \"id\"");
+            for (String field : fields) {
+                sql.append(", ").append(source.columns().get(field)).append(" AS \"").append(field).append('"');
+            }
+            sql.append(" FROM ").append(source.from());
+            if (!conditions.isEmpty()) {
+                sql.append(" WHERE ").append(String.join(" AND ", conditions));
+            }
+            return sql.toString();
+        }
+
+        private static Set<String> parseFields(Source source, String fields) {
+            if (fields == null || fields.isBlank()) {
+                return source.columns().keySet();
+            }
+            Set<String> selected = new LinkedHashSet<>();
+            for (String field : fields.split(",")) {
+                String name = field.trim();
+                if (name.isEmpty() || "id".equals(name)) {
+                    continue;
+                }
+                if (!source.columns().containsKey(name)) {
+                    throw new InvalidRequestException("Неизвестное поле: " + name +
+                            ". Доступные поля: id, " + String.join(", ", source.columns().keySet()));
+                }
+                selected.add(name);
+            }
+            return selected;
+        }
+    }
+
+    @Data
+    @Builder
+    public static class ApiPage {
+        private List<Map<String, Object>> items;
+        private String nextCursor;
+    }
+}
@@ -0,0 +1,256 @@
+package by.bsuir.saa.service;
+
+import by.bsuir.saa.calculation.PayrollKernel;
+import by.bsuir.saa.entity.Employee;
+import by.bsuir.saa.entity.Timesheet;
+import by.bsuir.saa.repository.EmployeeRepository;
+import by.bsuir.saa.repository.PaymentRepository;
+import by.bsuir.saa.repository.TimesheetRepository;
+import by.bsuir.saa.util.MonthUtil;
+import by.bsuir.saa.util.WorkingHoursCalculator;
+import lombok.Builder;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Моделирование фонда оплаты труда без записи в БД. Данные базового периода
+ * (сотрудники, оклады, сводки табелей, признак ИТР) загружаются один раз в компактную модель,
+ * после чего каждый сценарий пересчитывает ОКЛ/ИТР/СТАЖ/ОТП/БОЛ/ПН/ФСЗН в памяти
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class PayrollSimulationService {
+
+    private static final String ITR_BONUS_CODE = "ИТР";
+    private static final BigDecimal HUNDRED = new BigDecimal("100");
+
+    private final EmployeeRepository employeeRepository;
+    private final TimesheetRepository timesheetRepository;
+    private final PaymentRepository paymentRepository;
+    private final WorkingHoursCalculator workingHoursCalculator;
+
+    public PayrollModel loadModel(Integer month, Integer year) {
+        YearMonth period = YearMonth.of(year, month);
+
+        Map<Integer, Object[]> timesheets = new HashMap<>();
+        for (Object[] row : timesheetRepository.findTimesheetSummaries(month, year, Timesheet.TimesheetStatus.CONFIRMED)) {
+            timesheets.put((Integer) row[0], row);
+        }
+        Set<Integer> itrEmployees = new HashSet<>(
+                paymentRepository.findEmployeeIdsByPeriodAndPaymentCode(month, year, ITR_BONUS_CODE));
+        int standardHours = workingHoursCalculator.calculateWorkingHours(year, month, PayrollKernel.STANDARD_HOURS_PER_DAY);
+
+        List<EmployeeSnapshot> employees = new ArrayList<>();
+        for (Employee employee : employeeRepository.findActiveEmployeesWithDetails()) {
+            Object[] timesheet = timesheets.get(employee.getId());
+            long hours = timesheet != null && timesheet[1] != null
+                    ? PayrollKernel.toHundredths((BigDecimal) timesheet[1]) : standardHours * 100L;
+            int sickLeaveDays = timesheet != null ? ((Number) timesheet[2]).intValue() : 0;
+            int vacationDays = timesheet != null ? ((Number) timesheet[3]).intValue() : 0;
+
+            employees.add(new EmployeeSnapshot(
+                    employee.getId(),
+                    employee.getDepartment().getName(),
+                    employee.getPosition().getId(),
+                    PayrollKernel.toKopecks(employee.getPosition().getBaseSalary()),
+                    employee.getHireDate(),
+                    hours,
+                    sickLeaveDays,
+                    vacationDays,
+                    itrEmployees.contains(employee.getId()),
+                    timesheet == null));
+        }
+
+        return new PayrollModel(period, standardHours, List.copyOf(employees));
+    }
+
+    /**
+     * Рассчитывает базовый вариант и все сценарии параллельно; отклонения ФОТ
+     * считаются относительно базового варианта по каждому подразделению
+     */
+    public List<ScenarioResult> simulate(PayrollModel model, List<SimulationScenario> scenarios) {
+        ScenarioResult baseline = evaluate(model, SimulationScenario.builder().name("Текущие условия").build(), null);
+
+        List<ScenarioResult> results = new ArrayList<>();
+        results.add(baseline);
+        results.addAll(scenarios.parallelStream()
+                .map(scenario -> evaluate(model, scenario, baseline))
+                .toList());
+        return results;
+    }
+
+    private ScenarioResult evaluate(PayrollModel model, SimulationScenario scenario, ScenarioResult baseline) {
+        long start = System.nanoTime();
+
+        YearMonth period = scenario.getPeriod() != null ? scenario.getPeriod() : model.period();
+        int standardHours = period.equals(model.period()) ? model.standardHours()
+                : workingHoursCalculator.calculateWorkingHours(period.getYear(), period.getMonthValue(),
+                PayrollKernel.STANDARD_HOURS_PER_DAY);
+        LocalDate seniorityDate = period.atEndOfMonth();
+
+        long salaryFactor = PayrollKernel.toRate(HUNDRED.add(scenario.getSalaryIncreasePercent())
+                .divide(HUNDRED, 4, RoundingMode.HALF_UP));
+        long itrRate = PayrollKernel.toRate(scenario.getItrRate());
+        long seniorityOneYear = PayrollKernel.toRate(scenario.getSeniorityRateOneYear());
+        long seniorityThreeYears = PayrollKernel.toRate(scenario.getSeniorityRateThreeYears());
+        long seniorityTenYears = PayrollKernel.toRate(scenario.getSeniorityRateTenYears());
+        long sickLeaveRate = PayrollKernel.toRate(scenario.getSickLeaveRate());
+        long vacationRate = PayrollKernel.toRate(scenario.getVacationRate());
+        long incomeTaxRate = PayrollKernel.toRate(scenario.getIncomeTaxRate());
+        long socialTaxRate = PayrollKernel.toRate(scenario.getSocialTaxRate());
+
+        // подразделение -> [сотрудников, начислено, удержано] в копейках
+        Map<String, long[]> totals = new TreeMap<>();
+        for (EmployeeSnapshot employee : model.employees()) {
+            long positionSalary = employee.baseSalaryKopecks();
+            if (scenario.getPositionId() == null || scenario.getPositionId().equals(employee.positionId())) {
+                positionSalary = PayrollKernel.percentage(positionSalary, salaryFactor);
+            }
+            long hours = period.equals(model.period()) ? employee.hoursHundredths()
+                    : PayrollKernel.divideHalfUp(employee.hoursHundredths() * standardHours, model.standardHours());
+
+            long baseSalary = PayrollKernel.baseSalary(positionSalary, standardHours, hours);
+            long itrBonus = employee.itrEligible() ? PayrollKernel.percentage(baseSalary, itrRate) : 0;
+            long seniorityRate = PayrollKernel.seniorityRate(
+                    ChronoUnit.YEARS.between(employee.hireDate(), seniorityDate),
+                    seniorityOneYear, seniorityThreeYears, seniorityTenYears);
+            long seniorityBonus = PayrollKernel.percentage(baseSalary, seniorityRate);
+
+            long dailyRate = PayrollKernel.dailyRate(positionSalary);
+            long sickLeave = PayrollKernel.dayPayment(dailyRate, sickLeaveRate, employee.sickLeaveDays());
+            long vacation = PayrollKernel.dayPayment(dailyRate, vacationRate, employee.vacationDays());
+
+            long accrued = baseSalary + itrBonus + seniorityBonus + sickLeave + vacation;
+            long deducted = PayrollKernel.percentage(accrued, incomeTaxRate)
+                    + PayrollKernel.percentage(accrued, socialTaxRate);
+
+            long[] department = totals.computeIfAbsent(employee.departmentName(), name -> new long[3]);
+            department[0]++;
+            department[1] += accrued;
+            department[2] += deducted;
+        }
+
+        List<DepartmentResult> departments = new ArrayList<>(totals.size());
+        long[] companyTotal = new long[3];
+        for (Map.Entry<String, long[]> entry : totals.entrySet()) {
+            departments.add(toDepartmentResult(entry.getKey(), entry.getValue()));
+            for (int i = 0; i < companyTotal.length; i++) {
+                companyTotal[i] += entry.getValue()[i];
+            }
+        }
+        DepartmentResult total = toDepartmentResult("Итого", companyTotal);
+
+        if (baseline != null) {
+            Map<String, DepartmentResult> baselineDepartments = new HashMap<>();
+            baseline.getDepartments().forEach(d -> baselineDepartments.put(d.getDepartmentName(), d));
+            departments.forEach(d -> d.applyBaseline(baselineDepartments.get(d.getDepartmentName())));
+            total.applyBaseline(baseline.getTotal());
+        }
+
+        return ScenarioResult.builder()
+                .name(scenario.getName())
+                .period(period)
+                .periodName(MonthUtil.getRussianMonthName(period.getMonthValue()) + " " + period.getYear())
+                .departments(departments)
+                .total(total)
+                .elapsedMs((System.nanoTime() - start) / 1_000_000.0)
+                .build();
+    }
+
+    private DepartmentResult toDepartmentResult(String departmentName, long[] totals) {
+        DepartmentResult result = new DepartmentResult(departmentName);
+        result.setEmployeeCount((int) totals[0]);
+        result.setTotalAccrued(PayrollKernel.fromKopecks(totals[1]));
+        result.setTotalDeducted(PayrollKernel.fromKopecks(totals[2]));
+        result.setTotalFOT(PayrollKernel.fromKopecks(totals[1] - totals[2]));
+        return result;
+    }
+
+    public record PayrollModel(YearMonth period, int standardHours, List<EmployeeSnapshot> employees) {
+    }
+
+    public record EmployeeSnapshot(Integer employeeId,
+                                   String departmentName,
+                                   Integer positionId,
+                                   long baseSalaryKopecks,
+                                   LocalDate hireDate,
+                                   long hoursHundredths,
+                                   int sickLeaveDays,
+                                   int vacationDays,
+                                   boolean itrEligible,
+                                   boolean estimatedHours) {
+    }
+
+    @Data
+    @Builder
+    public static class SimulationScenario {
+        private String name;
+        private YearMonth period;
+        private Integer positionId;
+        @Builder.Default
+        private BigDecimal salaryIncreasePercent = BigDecimal.ZERO;
+        @Builder.Default
+        private BigDecimal itrRate = new BigDecimal("0.25");
+        @Builder.Default
+        private BigDecimal seniorityRateOneYear = new BigDecimal("0.05");
+        @Builder.Default
+        private BigDecimal seniorityRateThreeYears = new BigDecimal("0.15");
+        @Builder.Default
+        private BigDecimal seniorityRateTenYears = new BigDecimal("0.25");
+        @Builder.Default
+        private BigDecimal sickLeaveRate = new BigDecimal("0.50");
+        @Builder.Default
+        private BigDecimal vacationRate = new BigDecimal("1.50");
+        @Builder.Default
+        private BigDecimal incomeTaxRate = new BigDecimal("0.13");
+        @Builder.Default
+        private BigDecimal socialTaxRate = new BigDecimal("0.01");
+    }
+
+    @Data
+    @Builder
+    public static class ScenarioResult {
+        private String name;
+        private YearMonth period;
+        private String periodName;
+        private List<DepartmentResult> departments;
+        private DepartmentResult total;
+        private double elapsedMs;
+    }
+
+    @Data
+    public static class DepartmentResult {
+        private final String departmentName;
+        private int employeeCount;
+        private BigDecimal totalAccrued = BigDecimal.ZERO;
+        private BigDecimal totalDeducted = BigDecimal.ZERO;
+        private BigDecimal totalFOT = BigDecimal.ZERO;
+        private BigDecimal baselineFOT;
+        private BigDecimal deltaFOT;
+        private BigDecimal deltaPercent;
+
+        private void applyBaseline(DepartmentResult baseline) {
+            baselineFOT = baseline != null ? baseline.getTotalFOT() : BigDecimal.ZERO;
+            deltaFOT = totalFOT.subtract(baselineFOT);
+            deltaPercent = baselineFOT.signum() != 0
+                    ? deltaFOT.multiply(HUNDRED).divide(baselineFOT, 2, RoundingMode.HALF_UP)
+                    : BigDecimal.ZERO;
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package by.bsuir.saa.service;
+
+import by.bsuir.saa.calculation.Money;
+import by.bsuir.saa.calculation.MoneyAccumulator;
+import by.bsuir.saa.calculation.PayrollKernel;
+import by.bsuir.saa.datasource.ReplicaRouting;
+import by.bsuir.saa.entity.*;
+import by.bsuir.saa.monitoring.PayrollMetrics;
+import by.bsuir.saa.projection.PaymentRow;
+import by.bsuir.saa.projection.SalaryGroupStats;
+import by.bsuir.saa.projection.SalaryRow;
+import by.bsuir.saa.repository.*;
+import by.bsuir.saa.util.MonthUtil;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Закрытие расчетных периодов. После закрытия месяца начисления, удержания, итоговые зарплаты
+ * и табели за него не изменяются, а итоги сохраняются неизменяемым снимком.
+ * Отчеты, аналитика и расчетные листки за закрытые месяцы строятся по снимку. В памяти постоянно
+ * хранятся только итоги закрытых месяцев; строки по сотрудникам читаются из снимка по индексу,
+ * последние запрошенные держатся в ограниченном LRU-кэше.
+ * Закрытие и изменения данных периода согласуются через advisory-блокировку периода в БД,
+ * поэтому проверка работает и при нескольких экземплярах приложения
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class PeriodClosingService {
+
+    private static final int TOP_SALARIES = 5;
+    private static final int EMPLOYEE_SNAPSHOT_CACHE_SIZE = 2_000;
+
+    private final PeriodClosureRepository periodClosureRepository;
+    private final SalarySnapshotRepository salarySnapshotRepository;
+    private final PaymentSnapshotRepository paymentSnapshotRepository;
+    private final SalaryPaymentRepository salaryPaymentRepository;
+    private final PaymentRepository paymentRepository;
+    private final TimesheetRepository timesheetRepository;
+    private final EmployeeRepository employeeRepository;
+    private final UserRepository userRepository;
+    private final PayrollMetrics payrollMetrics;
+
+    private final Set<YearMonth> closedPeriods = ConcurrentHashMap.newKeySet();
+    private final Map<YearMonth, PeriodSnapshot> snapshots = new ConcurrentHashMap<>();
+    private final Map<EmployeeSnapshotKey, EmployeeSnapshot> employeeSnapshots = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<EmployeeSnapshotKey, EmployeeSnapshot> eldest) {
+                    return size() > EMPLOYEE_SNAPSHOT_CACHE_SIZE;
+                }
+            });
+    private final Object verifiedPeriodsKey = new Object();
+    private volatile boolean closedPeriodsLoaded;
+
+    public boolean isClosed(Integer month, Integer year) {
+        if (month == null || year == null) {
+            return false;
+        }
+        return getClosedPeriods().contains(YearMonth.of(year, month));
+    }
+
+    /**
+     * Проверка перед любым изменением данных периода. Выполняется в изменяющей транзакции:
+     * берет разделяемую блокировку периода до ее завершения и проверяет закрытие по БД,
+     * так что период не может закрыться между проверкой и фиксацией изменений.
+     * В пределах транзакции период проверяется один раз
+     */
+    @Transactional
+    public void assertOpen(Integer month, Integer year) {
+        if (month == null || year == null) {
+            return;
+        }
+        if (isClosed(month, year)) {
+            throw closedPeriodError(month, year);
+        }
+
+        YearMonth period = YearMonth.of(year, month);
+        Set<YearMonth> verified = getVerifiedPeriods();
+        if (verified.contains(period)) {
+            return;
+        }
+        periodClosureRepository.lockPeriodShared(month, year);
+        if (periodClosureRepository.existsByMonthAndYear(month, year)) {
+            closedPeriods.add(period);
+            throw closedPeriodError(month, year);
+        }
+        verified.add(period);
+    }
+
+    private RuntimeException closedPeriodError(Integer month, Integer year) {
+        return new RuntimeException("Период " + MonthUtil.getRussianMonthName(month) + " " + year +
+                " закрыт, изменения запрещены");
+    }
+
+    /**
+     * Периоды, уже проверенные и заблокированные текущей транзакцией
+     */
+    @SuppressWarnings("unchecked")
+    private Set<YearMonth> getVerifiedPeriods() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return new HashSet<>();
+        }
+        Set<YearMonth> verified = (Set<YearMonth>) TransactionSynchronizationManager.getResource(verifiedPeriodsKey);
+        if (verified == null) {
+            Set<YearMonth> created = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(verifiedPeriodsKey, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(verifiedPeriodsKey);
+                }
+            });
+            verified = created;
+        }
+        return verified;
+    }
+
+    /**
+     * Отчеты за закрытый период не меняются и кэшируются браузером без повторных запросов
+     */
+    public CacheControl getReportCacheControl(Integer month, Integer year) {
+        return isClosed(month, year)
+                ? CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable()
+                : CacheControl.empty();
+    }
+
+    /**
+     * Версия данных периода для кэша фрагментов страниц. Данные закрытого периода не меняются,
+     * поэтому версия - момент закрытия; для открытого периода null, фрагменты не кэшируются
+     */
+    public String getDataVersion(Integer month, Integer year) {
+        return getSnapshot(month, year)
+                .map(snapshot -> year + "-" + month + "@" + snapshot.getClosedAt())
+                .orElse(null);
+    }
+
+    public Optional<PeriodClosure> getClosure(Integer month, Integer year) {
+        if (!isClosed(month, year)) {
+            return Optional.empty();
+        }
+        return periodClosureRepository.findByMonthAndYear(month, year);
+    }
+
+    /**
+     * Закрывает период: все табели должны быть подтверждены, итоговая зарплата рассчитана
+     * для каждого сотрудника с начислениями. Итоговые зарплаты переводятся в статус PAID.
+     * Исключительная блокировка периода ждет завершения начатых изменений и закрытия
+     * того же периода из другого запроса
+     */
+    @Transactional
+    public PeriodClosure closePeriod(Integer month, Integer year, Integer closedById) {
+        YearMonth period = YearMonth.of(year, month);
+        String periodName = MonthUtil.getRussianMonthName(month) + " " + year;
+
+        periodClosureRepository.lockPeriod(month, year);
+        if (periodClosureRepository.existsByMonthAndYear(month, year)) {
+            throw new RuntimeException("Период " + periodName + " уже закрыт");
+        }
+        if (period.isAfter(YearMonth.now())) {
+            throw new RuntimeException("Нельзя закрыть период, который еще не наступил");
+        }
+
+        long draftTimesheets = timesheetRepository.countByMonthAndYearAndStatus(
+                month, year, Timesheet.TimesheetStatus.DRAFT);
+        if (draftTimesheets > 0) {
+            throw new RuntimeException("За период " + periodName + " есть неподтвержденные табели: " + draftTimesheets);
+        }
+
+        long withoutFinalSalary = paymentRepository.countEmployeesWithoutFinalSalary(month, year);
+        if (withoutFinalSalary > 0) {
+            throw new RuntimeException("Итоговая зарплата не рассчитана для " + withoutFinalSalary + " сотрудников");
+        }
+
+        if (salaryPaymentRepository.countByMonthAndYear(month, year) == 0) {
+            throw new RuntimeException("За период " + periodName + " нет рассчитанных зарплат");
+        }
+
+        salaryPaymentRepository.updateStatusByPeriod(month, year, SalaryPayment.SalaryStatus.PAID);
+        salarySnapshotRepository.createSnapshot(month, year);
+        int paymentCount = paymentSnapshotRepository.createSnapshot(month, year);
+
+        List<SalarySnapshot> salaries = salarySnapshotRepository.findByMonthAndYear(month, year);
+
+        PeriodClosure closure = new PeriodClosure();
+        closure.setMonth(month);
+        closure.setYear(year);
+        closure.setClosedBy(userRepository.getReferenceById(closedById));
+        closure.setActiveEmployees((int) employeeRepository.countByTerminationDateIsNull());
+        closure.setEmployeeCount(salaries.size());
+        closure.setTotalAccrued(salaries.stream().collect(MoneyAccumulator.summing(SalarySnapshot::getTotalAccrued)));
+        closure.setTotalDeducted(salaries.stream().collect(MoneyAccumulator.summing(SalarySnapshot::getTotalDeducted)));
+        closure.setTotalNet(salaries.stream().collect(MoneyAccumulator.summing(SalarySnapshot::getNetSalary)));
+        PeriodClosure saved = periodClosureRepository.save(closure);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                closedPeriods.add(period);
+                ReplicaRouting.markPrimaryWrite();
+                payrollMetrics.removePeriodState(month, year);
+            }
+        });
+
+        log.info("Период {} закрыт: {} сотрудников, {} начислений и удержаний, к выплате {} руб.",
+                periodName, salaries.size(), paymentCount, saved.getTotalNet());
+        return saved;
+    }
+
+    /**
+     * Итоги закрытого периода или пустой результат, если период открыт
+     */
+    public Optional<PeriodSnapshot> getSnapshot(Integer month, Integer year) {
+        if (!isClosed(month, year)) {
+            return Optional.empty();
+        }
+
+        YearMonth period = YearMonth.of(year, month);
+        PeriodSnapshot snapshot = snapshots.get(period);
+        if (snapshot == null) {
+            Optional<PeriodSnapshot> loaded = loadSnapshot(month, year);
+            if (loaded.isEmpty()) {
+                return Optional.empty();
+            }
+            PeriodSnapshot existing = snapshots.putIfAbsent(period, loaded.get());
+            snapshot = existing != null ? existing : loaded.get();
+        }
+        return Optional.of(snapshot);
+    }
+
+    /**
+     * Зарплата и начисления сотрудника за закрытый период. Читаются по индексу снимка,
+     * последние запрошенные хранятся в ограниченном кэше
+     */
+    public Optional<EmployeeSnapshot> getEmployeeSnapshot(Integer employeeId, Integer month, Integer year) {
+        if (employeeId == null || !isClosed(month, year)) {
+            return Optional.empty();
+        }
+
+        EmployeeSnapshotKey key = new EmployeeSnapshotKey(employeeId, YearMonth.of(year, month));
+        EmployeeSnapshot cached = employeeSnapshots.get(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        Optional<EmployeeSnapshot> loaded = salarySnapshotRepository.findByEmployeeIdAndMonthAndYear(employeeId, month, year)
+                .map(salary -> new EmployeeSnapshot(salary.getEmployeeId(), salary.getFullName(),
+                        salary.getPositionTitle(), salary.getDepartmentName(), salary.getTotalAccrued(),
+                        salary.getTotalDeducted(), salary.getNetSalary(),
+                        List.copyOf(paymentSnapshotRepository.findRowsByEmployeeAndPeriod(employeeId, month, year))));
+        loaded.ifPresent(snapshot -> employeeSnapshots.put(key, snapshot));
+        return loaded;
+    }
+
+    /**
+     * Итоговые зарплаты закрытого периода по ФИО, при необходимости по одному подразделению.
+     * Не кэшируются: строки читаются из снимка при каждом запросе
+     */
+    public List<SalarySnapshot> getSnapshotSalaries(Integer month, Integer year, Integer departmentId) {
+        return departmentId != null
+                ? salarySnapshotRepository.findByMonthAndYearAndDepartmentIdOrderByFullNameAsc(month, year, departmentId)
+                : salarySnapshotRepository.findByMonthAndYearOrderByFullNameAsc(month, year);
+    }
+
+    /**
+     * Строка закрытия и снимок записываются одной транзакцией: если реплика еще не получила
+     * закрытие, снимок не загружается и не кэшируется, чтение идет по текущим данным
+     */
+    private Optional<PeriodSnapshot> loadSnapshot(Integer month, Integer year) {
+        Optional<PeriodClosure> closureOpt = periodClosureRepository.findByMonthAndYear(month, year);
+        if (closureOpt.isEmpty()) {
+            return Optional.empty();
+        }
+        PeriodClosure closure = closureOpt.get();
+
+        List<SalaryGroupStats> departmentStats = salarySnapshotRepository.findDepartmentStats(month, year);
+        long employeesWithSalary = departmentStats.stream().mapToLong(SalaryGroupStats::getEmployeeCount).sum();
+        BigDecimal totalFOT = departmentStats.stream().collect(MoneyAccumulator.summing(SalaryGroupStats::getTotalFOT));
+        BigDecimal averageSalary = employeesWithSalary == 0 ? BigDecimal.ZERO : PayrollKernel.fromKopecks(
+                PayrollKernel.divideHalfUp(Money.toKopecks(totalFOT), employeesWithSalary));
+
+        Map<String, BigDecimal> accrualsByType = new LinkedHashMap<>();
+        for (Object[] row : paymentSnapshotRepository.sumAccrualsByPaymentType(month, year)) {
+            accrualsByType.put((String) row[0], Money.of((BigDecimal) row[1]).toBigDecimal());
+        }
+
+        return Optional.of(PeriodSnapshot.builder()
+                .month(month)
+                .year(year)
+                .closedAt(closure.getClosedAt())
+                .activeEmployees(closure.getActiveEmployees())
+                .employeesWithSalary(employeesWithSalary)
+                .totalFOT(totalFOT)
+                .averageSalary(averageSalary)
+                .departmentStats(List.copyOf(departmentStats))
+                .positionStats(List.copyOf(salarySnapshotRepository.findPositionStats(month, year)))
+                .topSalaries(List.copyOf(salarySnapshotRepository.findTopSalaryRows(month, year, TOP_SALARIES)))
+                .accrualsByType(Collections.unmodifiableMap(accrualsByType))
+                .build());
+    }
+
+    private Set<YearMonth> getClosedPeriods() {
+        if (!closedPeriodsLoaded) {
+            synchronized (closedPeriods) {
+                if (!closedPeriodsLoaded) {
+                    for (PeriodClosure closure : periodClosureRepository.findAll()) {
+                        closedPeriods.add(YearMonth.of(closure.getYear(), closure.getMonth()));
+                    }
+                    closedPeriodsLoaded = true;
+                }
+            }
+        }
+        return closedPeriods;
+    }
+
+    /**
+     * Итоги закрытого периода: общие суммы, строки по подразделениям и должностям,
+     * лучшие зарплаты и начисления по видам оплаты. Не изменяется после загрузки и разделяется между запросами
+     */
+    @Getter
+    @Builder
+    public static class PeriodSnapshot {
+        private Integer month;
+        private Integer year;
+        private LocalDateTime closedAt;
+        private Integer activeEmployees;
+        private long employeesWithSalary;
+        private BigDecimal totalFOT;
+        private BigDecimal averageSalary;
+        private List<SalaryGroupStats> departmentStats;
+        private List<SalaryGroupStats> positionStats;
+        private List<SalaryRow> topSalaries;
+        private Map<String, BigDecimal> accrualsByType;
+    }
+
+    /**
+     * Зарплата и начисления сотрудника за закрытый период
+     */
+    public record EmployeeSnapshot(Integer employeeId, String fullName, String positionTitle, String departmentName,
+                                   BigDecimal totalAccrued, BigDecimal totalDeducted, BigDecimal netSalary,
+                                   List<PaymentRow> payments) {
+    }
+
+    private record EmployeeSnapshotKey(Integer employeeId, YearMonth period) {
+    }
+}
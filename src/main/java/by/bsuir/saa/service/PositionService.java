@@ -21,18 +21,22 @@ public class PositionService {
         this.employeeService = employeeService;
     }
 
+    @Transactional(readOnly = true)
     public List<Position> getAllPositions() {
         return positionRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
     public Optional<Position> getPositionById(Integer id) {
         return positionRepository.findById(id);
     }
 
+    @Transactional(readOnly = true)
     public Optional<Position> getPositionByTitle(String title) {
         return positionRepository.findByTitle(title);
     }
 
+    @Transactional(readOnly = true)
     public boolean positionExists(String title) {
         return positionRepository.existsByTitle(title);
     }
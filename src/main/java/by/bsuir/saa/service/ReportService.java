@@ -1,5 +1,6 @@
 package by.bsuir.saa.service;
 
+import by.bsuir.saa.calculation.MoneyAccumulator;
 import by.bsuir.saa.controller.AnalystController;
 import by.bsuir.saa.entity.*;
 import by.bsuir.saa.repository.PaymentRepository;
@@ -15,6 +16,7 @@ import org.apache.poi.ss.util.CellRangeAddress;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -25,6 +27,7 @@ import java.util.List;
 import java.util.*;
 
 @Service
+@Transactional(readOnly = true)
 public class ReportService {
 
     private final PaymentRepository paymentRepository;
@@ -32,6 +35,7 @@ public class ReportService {
     private final EmployeeService employeeService;
     private final DepartmentService departmentService;
     private final AnalyticsService analyticsService;
+    private final PeriodClosingService periodClosingService;
 
     private BaseFont russianBaseFont;
 
@@ -39,12 +43,14 @@ public class ReportService {
                          SalaryPaymentRepository salaryPaymentRepository,
                          EmployeeService employeeService,
                          DepartmentService departmentService,
-                         AnalyticsService analyticsService) {
+                         AnalyticsService analyticsService,
+                         PeriodClosingService periodClosingService) {
         this.paymentRepository = paymentRepository;
         this.salaryPaymentRepository = salaryPaymentRepository;
         this.employeeService = employeeService;
         this.departmentService = departmentService;
         this.analyticsService = analyticsService;
+        this.periodClosingService = periodClosingService;
         initializeRussianFont();
     }
 
@@ -86,10 +92,31 @@ public class ReportService {
     }
 
     public byte[] generatePayslipPdf(Integer employeeId, Integer month, Integer year) throws DocumentException {
-        Employee employee = employeeService.getEmployeeById(employeeId)
-                .orElseThrow(() -> new RuntimeException("Сотрудник не найден"));
-
-        List<Payment> payments = paymentRepository.findByEmployeeAndMonthAndYear(employee, month, year);
+        Optional<PeriodClosingService.EmployeeSnapshot> closedSalary =
+                periodClosingService.getEmployeeSnapshot(employeeId, month, year);
+
+        String fullName;
+        String positionTitle;
+        String departmentName;
+        List<PayslipLine> payments;
+        if (closedSalary.isPresent()) {
+            fullName = closedSalary.get().fullName();
+            positionTitle = closedSalary.get().positionTitle();
+            departmentName = closedSalary.get().departmentName();
+            payments = closedSalary.get().payments().stream()
+                    .map(p -> new PayslipLine(p.getCategory(), p.getPaymentTypeName(), p.getAmount(), p.getDescription()))
+                    .toList();
+        } else {
+            Employee employee = employeeService.getEmployeeById(employeeId)
+                    .orElseThrow(() -> new RuntimeException("Сотрудник не найден"));
+            fullName = employee.getFullName();
+            positionTitle = employee.getPosition().getTitle();
+            departmentName = employee.getDepartment().getName();
+            payments = paymentRepository.findByEmployeeAndMonthAndYear(employee, month, year).stream()
+                    .map(p -> new PayslipLine(p.getCategory(), p.getPaymentType().getName(),
+                            p.getAmount(), p.getDescription()))
+                    .toList();
+        }
 
         Document document = new Document(PageSize.A4, 50, 50, 50, 50);
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
@@ -107,11 +134,11 @@ public class ReportService {
         title.setSpacingAfter(20);
         document.add(title);
 
-        addKeyValue(document, "Сотрудник:", employee.getFullName(), boldFont, normalFont);
-        addKeyValue(document, "Должность:", employee.getPosition().getTitle(), boldFont, normalFont);
-        addKeyValue(document, "Подразделение:", employee.getDepartment().getName(), boldFont, normalFont);
+        addKeyValue(document, "Сотрудник:", fullName, boldFont, normalFont);
+        addKeyValue(document, "Должность:", positionTitle, boldFont, normalFont);
+        addKeyValue(document, "Подразделение:", departmentName, boldFont, normalFont);
         addKeyValue(document, "Период:", getRussianMonthName(month) + " " + year, boldFont, normalFont);
-        addKeyValue(document, "Табельный номер:", employee.getId().toString(), boldFont, normalFont);
+        addKeyValue(document, "Табельный номер:", employeeId.toString(), boldFont, normalFont);
         addKeyValue(document, "Дата формирования:",
                 LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm")), boldFont, normalFont);
 
@@ -128,18 +155,18 @@ public class ReportService {
         accrualsTable.addCell(createCell("Основание", headerFont, Element.ALIGN_CENTER));
 
         BigDecimal totalAccruals = BigDecimal.ZERO;
-        List<Payment> accruals = payments.stream()
-                .filter(p -> "accrual".equals(p.getPaymentType().getCategory()))
+        List<PayslipLine> accruals = payments.stream()
+                .filter(p -> "accrual".equals(p.category()))
                 .toList();
 
-        for (Payment payment : accruals) {
-            accrualsTable.addCell(createCell(payment.getPaymentType().getName(), normalFont, Element.ALIGN_LEFT));
-            accrualsTable.addCell(createCell(formatMoney(payment.getAmount()), normalFont, Element.ALIGN_RIGHT));
+        for (PayslipLine payment : accruals) {
+            accrualsTable.addCell(createCell(payment.name(), normalFont, Element.ALIGN_LEFT));
+            accrualsTable.addCell(createCell(formatMoney(payment.amount()), normalFont, Element.ALIGN_RIGHT));
             accrualsTable.addCell(createCell(
-                    payment.getDescription() != null ? payment.getDescription() : "-",
+                    payment.description() != null ? payment.description() : "-",
                     normalFont, Element.ALIGN_LEFT
             ));
-            totalAccruals = totalAccruals.add(payment.getAmount());
+            totalAccruals = totalAccruals.add(payment.amount());
         }
 
         if (accruals.isEmpty()) {
@@ -166,18 +193,18 @@ public class ReportService {
         deductionsTable.addCell(createCell("Основание", headerFont, Element.ALIGN_CENTER));
 
         BigDecimal totalDeductions = BigDecimal.ZERO;
-        List<Payment> deductions = payments.stream()
-                .filter(p -> "deduction".equals(p.getPaymentType().getCategory()))
+        List<PayslipLine> deductions = payments.stream()
+                .filter(p -> "deduction".equals(p.category()))
                 .toList();
 
-        for (Payment payment : deductions) {
-            deductionsTable.addCell(createCell(payment.getPaymentType().getName(), normalFont, Element.ALIGN_LEFT));
-            deductionsTable.addCell(createCell(formatMoney(payment.getAmount().abs()), normalFont, Element.ALIGN_RIGHT));
+        for (PayslipLine payment : deductions) {
+            deductionsTable.addCell(createCell(payment.name(), normalFont, Element.ALIGN_LEFT));
+            deductionsTable.addCell(createCell(formatMoney(payment.amount().abs()), normalFont, Element.ALIGN_RIGHT));
             deductionsTable.addCell(createCell(
-                    payment.getDescription() != null ? payment.getDescription() : "-",
+                    payment.description() != null ? payment.description() : "-",
                     normalFont, Element.ALIGN_LEFT
             ));
-            totalDeductions = totalDeductions.add(payment.getAmount().abs());
+            totalDeductions = totalDeductions.add(payment.amount().abs());
         }
 
         if (deductions.isEmpty()) {
@@ -214,11 +241,7 @@ public class ReportService {
                 departmentService.getDepartmentById(departmentId)
                         .orElseThrow(() -> new RuntimeException("Подразделение не найдено")) : null;
 
-        List<Employee> employees = departmentId != null ?
-                employeeService.getActiveEmployees().stream()
-                        .filter(e -> e.getDepartment().getId().equals(departmentId))
-                        .toList() :
-                employeeService.getActiveEmployees();
+        List<StatementRow> rows = getStatementRows(departmentId, month, year);
 
         Document document = new Document(PageSize.A4.rotate(), 50, 50, 50, 50);
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
@@ -241,7 +264,7 @@ public class ReportService {
         addKeyValue(document, "Период:", getRussianMonthName(month) + " " + year, boldFont, normalFont);
         addKeyValue(document, "Дата формирования:",
                 LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm")), boldFont, normalFont);
-        addKeyValue(document, "Количество сотрудников:", String.valueOf(employees.size()), boldFont, normalFont);
+        addKeyValue(document, "Количество сотрудников:", String.valueOf(rows.size()), boldFont, normalFont);
 
         document.add(new Paragraph(" "));
 
@@ -258,31 +281,17 @@ public class ReportService {
         BigDecimal totalDeductions = BigDecimal.ZERO;
         BigDecimal totalNetSalary = BigDecimal.ZERO;
 
-        for (Employee employee : employees) {
-            List<Payment> payments = paymentRepository.findByEmployeeAndMonthAndYear(employee, month, year);
-
-            BigDecimal accruals = payments.stream()
-                    .filter(p -> "accrual".equals(p.getPaymentType().getCategory()))
-                    .map(Payment::getAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            BigDecimal deductions = payments.stream()
-                    .filter(p -> "deduction".equals(p.getPaymentType().getCategory()))
-                    .map(p -> p.getAmount().abs())
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            BigDecimal netSalary = accruals.subtract(deductions);
-
-            table.addCell(createCell(employee.getFullName(), normalFont, Element.ALIGN_LEFT));
-            table.addCell(createCell(employee.getPosition().getTitle(), normalFont, Element.ALIGN_LEFT));
-            table.addCell(createCell(formatMoney(accruals), normalFont, Element.ALIGN_RIGHT));
-            table.addCell(createCell(formatMoney(deductions), normalFont, Element.ALIGN_RIGHT));
-            table.addCell(createCell(formatMoney(netSalary), normalFont, Element.ALIGN_RIGHT));
+        for (StatementRow row : rows) {
+            table.addCell(createCell(row.fullName(), normalFont, Element.ALIGN_LEFT));
+            table.addCell(createCell(row.positionTitle(), normalFont, Element.ALIGN_LEFT));
+            table.addCell(createCell(formatMoney(row.accruals()), normalFont, Element.ALIGN_RIGHT));
+            table.addCell(createCell(formatMoney(row.deductions()), normalFont, Element.ALIGN_RIGHT));
+            table.addCell(createCell(formatMoney(row.netSalary()), normalFont, Element.ALIGN_RIGHT));
             table.addCell(createCell("__________", normalFont, Element.ALIGN_CENTER));
 
-            totalAccruals = totalAccruals.add(accruals);
-            totalDeductions = totalDeductions.add(deductions);
-            totalNetSalary = totalNetSalary.add(netSalary);
+            totalAccruals = totalAccruals.add(row.accruals());
+            totalDeductions = totalDeductions.add(row.deductions());
+            totalNetSalary = totalNetSalary.add(row.netSalary());
         }
 
         table.addCell(createCell("ВСЕГО:", headerFont, Element.ALIGN_RIGHT));
@@ -305,7 +314,7 @@ public class ReportService {
     }
 
     public byte[] generateSalaryReportExcel(Integer month, Integer year) throws IOException {
-        List<Employee> employees = employeeService.getActiveEmployees();
+        List<StatementRow> rows = getStatementRows(null, month, year);
 
         Workbook workbook = new XSSFWorkbook();
         Sheet sheet = workbook.createSheet("Зарплатная ведомость " + getRussianMonthName(month) + " " + year);
@@ -333,7 +342,7 @@ public class ReportService {
         paramsRow.createCell(0).setCellValue("Дата формирования:");
         paramsRow.createCell(1).setCellValue(LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm")));
         paramsRow.createCell(4).setCellValue("Количество сотрудников:");
-        paramsRow.createCell(5).setCellValue(employees.size());
+        paramsRow.createCell(5).setCellValue(rows.size());
 
         Row headerRow = sheet.createRow(4);
         String[] headers = {"ФИО сотрудника", "Должность", "Подразделение", "Начисления", "Удержания", "К выплате"};
@@ -348,47 +357,33 @@ public class ReportService {
         BigDecimal totalDeductions = BigDecimal.ZERO;
         BigDecimal totalNetSalary = BigDecimal.ZERO;
 
-        for (Employee employee : employees) {
-            List<Payment> payments = paymentRepository.findByEmployeeAndMonthAndYear(employee, month, year);
-
-            BigDecimal accruals = payments.stream()
-                    .filter(p -> "accrual".equals(p.getPaymentType().getCategory()))
-                    .map(Payment::getAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            BigDecimal deductions = payments.stream()
-                    .filter(p -> "deduction".equals(p.getPaymentType().getCategory()))
-                    .map(p -> p.getAmount().abs())
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            BigDecimal netSalary = accruals.subtract(deductions);
-
+        for (StatementRow statementRow : rows) {
             Row row = sheet.createRow(rowNum++);
 
-            row.createCell(0).setCellValue(employee.getFullName());
+            row.createCell(0).setCellValue(statementRow.fullName());
             row.getCell(0).setCellStyle(normalStyle);
 
-            row.createCell(1).setCellValue(employee.getPosition().getTitle());
+            row.createCell(1).setCellValue(statementRow.positionTitle());
             row.getCell(1).setCellStyle(normalStyle);
 
-            row.createCell(2).setCellValue(employee.getDepartment().getName());
+            row.createCell(2).setCellValue(statementRow.departmentName());
             row.getCell(2).setCellStyle(normalStyle);
 
             Cell accrualsCell = row.createCell(3);
-            accrualsCell.setCellValue(accruals.doubleValue());
+            accrualsCell.setCellValue(statementRow.accruals().doubleValue());
             accrualsCell.setCellStyle(moneyStyle);
 
             Cell deductionsCell = row.createCell(4);
-            deductionsCell.setCellValue(deductions.doubleValue());
+            deductionsCell.setCellValue(statementRow.deductions().doubleValue());
             deductionsCell.setCellStyle(moneyStyle);
 
             Cell netSalaryCell = row.createCell(5);
-            netSalaryCell.setCellValue(netSalary.doubleValue());
+            netSalaryCell.setCellValue(statementRow.netSalary().doubleValue());
             netSalaryCell.setCellStyle(moneyStyle);
 
-            totalAccruals = totalAccruals.add(accruals);
-            totalDeductions = totalDeductions.add(deductions);
-            totalNetSalary = totalNetSalary.add(netSalary);
+            totalAccruals = totalAccruals.add(statementRow.accruals());
+            totalDeductions = totalDeductions.add(statementRow.deductions());
+            totalNetSalary = totalNetSalary.add(statementRow.netSalary());
         }
 
         Row totalRow = sheet.createRow(rowNum);
@@ -444,6 +439,42 @@ public class ReportService {
         return cell;
     }
 
+    /**
+     * Строки ведомости: за закрытый период из снимка, иначе по начислениям работающих сотрудников
+     */
+    private List<StatementRow> getStatementRows(Integer departmentId, Integer month, Integer year) {
+        if (periodClosingService.getSnapshot(month, year).isPresent()) {
+            return periodClosingService.getSnapshotSalaries(month, year, departmentId).stream()
+                    .map(salary -> new StatementRow(salary.getFullName(), salary.getPositionTitle(),
+                            salary.getDepartmentName(), salary.getTotalAccrued(), salary.getTotalDeducted(),
+                            salary.getNetSalary()))
+                    .toList();
+        }
+
+        List<Employee> employees = departmentId != null ?
+                employeeService.getActiveEmployees().stream()
+                        .filter(e -> e.getDepartment().getId().equals(departmentId))
+                        .toList() :
+                employeeService.getActiveEmployees();
+
+        List<StatementRow> rows = new ArrayList<>(employees.size());
+        for (Employee employee : employees) {
+            List<Payment> payments = paymentRepository.findByEmployeeAndMonthAndYear(employee, month, year);
+
+            BigDecimal accruals = payments.stream()
+                    .filter(p -> "accrual".equals(p.getCategory()))
+                    .collect(MoneyAccumulator.summing(Payment::getAmount));
+
+            BigDecimal deductions = payments.stream()
+                    .filter(p -> "deduction".equals(p.getCategory()))
+                    .collect(MoneyAccumulator.summing(p -> p.getAmount().abs()));
+
+            rows.add(new StatementRow(employee.getFullName(), employee.getPosition().getTitle(),
+                    employee.getDepartment().getName(), accruals, deductions, accruals.subtract(deductions)));
+        }
+        return rows;
+    }
+
     private String formatMoney(BigDecimal amount) {
         return String.format("%,.2f", amount).replace(',', ' ');
     }
@@ -594,8 +625,7 @@ public class ReportService {
             totalRow.getCell(0).setCellStyle(totalStyle);
 
             BigDecimal totalFOT = trendData.stream()
-                    .map(AnalystController.SalaryTrendData::getTotalFOT)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+                    .collect(MoneyAccumulator.summing(AnalystController.SalaryTrendData::getTotalFOT));
             Cell totalFotCell = totalRow.createCell(2);
             totalFotCell.setCellValue(totalFOT.doubleValue());
             totalFotCell.setCellStyle(totalStyle);
@@ -698,8 +728,7 @@ public class ReportService {
             totalRow.getCell(0).setCellStyle(totalStyle);
 
             BigDecimal totalFOT = positionStats.stream()
-                    .map(AnalystController.PositionStats::getTotalFOT)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+                    .collect(MoneyAccumulator.summing(AnalystController.PositionStats::getTotalFOT));
             Cell totalFotCell = totalRow.createCell(5);
             totalFotCell.setCellValue(totalFOT.doubleValue());
             totalFotCell.setCellStyle(totalStyle);
@@ -1205,4 +1234,11 @@ public class ReportService {
         table.addCell(createCell(unit, font, Element.ALIGN_CENTER));
         table.addCell(createCell(note, font, Element.ALIGN_LEFT));
     }
-}
\ No newline at end of file
+
+    private record PayslipLine(String category, String name, BigDecimal amount, String description) {
+    }
+
+    private record StatementRow(String fullName, String positionTitle, String departmentName,
+                                BigDecimal accruals, BigDecimal deductions, BigDecimal netSalary) {
+    }
+}
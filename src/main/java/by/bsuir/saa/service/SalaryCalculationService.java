@@ -1,17 +1,21 @@
 package by.bsuir.saa.service;
 
+import by.bsuir.saa.calculation.PayrollKernel;
 import by.bsuir.saa.entity.*;
+import by.bsuir.saa.monitoring.PayrollMetrics;
 import by.bsuir.saa.repository.PaymentRepository;
 import by.bsuir.saa.repository.TimesheetRepository;
 import by.bsuir.saa.util.WorkingHoursCalculator;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.List;
 import java.util.Optional;
 
+@Slf4j
 @Service
 @Transactional
 public class SalaryCalculationService {
@@ -22,19 +26,25 @@ public class SalaryCalculationService {
     private final EmployeeService employeeService;
     private final WorkingHoursCalculator workingHoursCalculator;
     private final PaymentService paymentService;
+    private final PayrollMetrics payrollMetrics;
+    private final PeriodClosingService periodClosingService;
 
     public SalaryCalculationService(TimesheetRepository timesheetRepository,
                                     PaymentRepository paymentRepository,
                                     PaymentTypeService paymentTypeService,
                                     EmployeeService employeeService,
                                     WorkingHoursCalculator workingHoursCalculator,
-                                    PaymentService paymentService) {
+                                    PaymentService paymentService,
+                                    PayrollMetrics payrollMetrics,
+                                    PeriodClosingService periodClosingService) {
         this.timesheetRepository = timesheetRepository;
         this.paymentRepository = paymentRepository;
         this.paymentTypeService = paymentTypeService;
         this.employeeService = employeeService;
         this.workingHoursCalculator = workingHoursCalculator;
         this.paymentService = paymentService;
+        this.payrollMetrics = payrollMetrics;
+        this.periodClosingService = periodClosingService;
     }
 
     public BigDecimal calculateBaseSalary(Employee employee, Integer month, Integer year) {
@@ -45,46 +55,52 @@ public class SalaryCalculationService {
         int standardMonthlyHours = getStandardMonthlyHours(month, year);
         validateWorkingDays(standardMonthlyHours);
 
-        BigDecimal hourlyRate = baseSalaryRate.divide(
-                new BigDecimal(standardMonthlyHours), 4, RoundingMode.HALF_UP);
-
-        return hourlyRate.multiply(totalHours).setScale(2, RoundingMode.HALF_UP);
+        return PayrollKernel.fromKopecks(PayrollKernel.baseSalary(
+                PayrollKernel.toKopecks(baseSalaryRate), standardMonthlyHours, PayrollKernel.toHundredths(totalHours)));
     }
 
     @Transactional
     public void calculateAndSaveBaseSalary(Employee employee, Integer month, Integer year) {
-        validateCanCalculateOrRecalculateSalary(employee, month, year);
+        periodClosingService.assertOpen(month, year);
+        payrollMetrics.recordEmployeeCalculation(PayrollMetrics.STAGE_BASE_SALARY, () -> {
+            validateCanCalculateOrRecalculateSalary(employee, month, year);
 
-        BigDecimal baseSalary = calculateBaseSalary(employee, month, year);
-        PaymentType salaryPaymentType = getSalaryPaymentType();
+            BigDecimal baseSalary = calculateBaseSalary(employee, month, year);
+            PaymentType salaryPaymentType = getSalaryPaymentType();
 
-        validateNoExistingPayment(employee, month, year, salaryPaymentType);
+            validateNoExistingPayment(employee, month, year, salaryPaymentType);
 
-        Payment payment = createPayment(employee, month, year, salaryPaymentType, baseSalary);
-        paymentRepository.save(payment);
+            Payment payment = createPayment(employee, month, year, salaryPaymentType, baseSalary);
+            paymentRepository.save(payment);
+        });
     }
 
     @Transactional
     public int calculateBatchBaseSalary(Integer month, Integer year) {
-        List<Employee> activeEmployees = employeeService.getActiveEmployees();
-        int calculatedCount = 0;
-
-        for (Employee employee : activeEmployees) {
-            if (canCalculateSalary(employee, month, year)) {
-                try {
-                    calculateAndSaveBaseSalary(employee, month, year);
-                    calculatedCount++;
-                } catch (Exception e) {
-                    System.err.println("Ошибка расчета для " + employee.getFullName() + ": " + e.getMessage());
+        periodClosingService.assertOpen(month, year);
+        return payrollMetrics.recordStage(PayrollMetrics.STAGE_BASE_SALARY, month, year, () -> {
+            List<Employee> activeEmployees = employeeService.getActiveEmployees();
+            int calculatedCount = 0;
+
+            for (Employee employee : activeEmployees) {
+                if (canCalculateSalary(employee, month, year)) {
+                    try {
+                        calculateAndSaveBaseSalary(employee, month, year);
+                        calculatedCount++;
+                    } catch (Exception e) {
+                        log.error("Ошибка расчета оклада для {}: {}", employee.getFullName(), e.getMessage());
+                    }
                 }
             }
-        }
 
-        return calculatedCount;
+            log.info("Автоматический расчет окладов завершен: {} сотрудников", calculatedCount);
+            return calculatedCount;
+        });
     }
 
     @Transactional
     public void recalculateBaseSalary(Employee employee, Integer month, Integer year) {
+        periodClosingService.assertOpen(month, year);
         validateCanCalculateOrRecalculateSalary(employee, month, year);
 
         PaymentType salaryPaymentType = getSalaryPaymentType();
@@ -100,6 +116,7 @@ public class SalaryCalculationService {
 
     @Transactional
     public void deleteBaseSalary(Employee employee, Integer month, Integer year) {
+        periodClosingService.assertOpen(month, year);
         validateCanDeleteSalary(employee, month, year);
 
         PaymentType salaryPaymentType = getSalaryPaymentType();
@@ -109,12 +126,14 @@ public class SalaryCalculationService {
         existingSalary.ifPresent(paymentRepository::delete);
     }
 
+    @Transactional(readOnly = true)
     public long getCalculatedEmployeesCount(Integer month, Integer year) {
         return employeeService.getActiveEmployees().stream()
                 .filter(employee -> hasSalaryCalculation(employee, month, year))
                 .count();
     }
 
+    @Transactional(readOnly = true)
     public BigDecimal getActualHoursWorked(Employee employee, Integer month, Integer year) {
         return timesheetRepository.findByEmployeeAndMonthAndYear(employee, month, year)
                 .filter(timesheet -> timesheet.getStatus() == Timesheet.TimesheetStatus.CONFIRMED)
@@ -122,10 +141,12 @@ public class SalaryCalculationService {
                 .orElse(BigDecimal.ZERO);
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS)
     public int getStandardMonthlyHours(Integer month, Integer year) {
-        return workingHoursCalculator.calculateWorkingHours(year, month, 8);
+        return workingHoursCalculator.calculateWorkingHours(year, month, PayrollKernel.STANDARD_HOURS_PER_DAY);
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS)
     public int getWorkingDaysCount(Integer month, Integer year) {
         return workingHoursCalculator.calculateWorkingDays(year, month);
     }
@@ -174,7 +195,7 @@ public class SalaryCalculationService {
 
     private boolean hasSalaryCalculation(Employee employee, Integer month, Integer year) {
         return paymentService.getEmployeePayments(employee, month, year).stream()
-                .anyMatch(payment -> "ОКЛ".equals(payment.getPaymentType().getCode()));
+                .anyMatch(payment -> "ОКЛ".equals(payment.getPaymentTypeCode()));
     }
 
     private Payment createPayment(Employee employee, Integer month, Integer year,
@@ -201,16 +222,16 @@ public class SalaryCalculationService {
     private boolean hasTaxes(Employee employee, Integer month, Integer year) {
         List<Payment> payments = paymentService.getEmployeePayments(employee, month, year);
         return payments.stream()
-                .anyMatch(p -> "deduction".equals(p.getPaymentType().getCategory()) &&
-                        ("ПН".equals(p.getPaymentType().getCode()) ||
-                                "ФСЗН".equals(p.getPaymentType().getCode())));
+                .anyMatch(p -> "deduction".equals(p.getCategory()) &&
+                        ("ПН".equals(p.getPaymentTypeCode()) ||
+                                "ФСЗН".equals(p.getPaymentTypeCode())));
     }
 
     private boolean hasBonuses(Employee employee, Integer month, Integer year) {
         List<Payment> payments = paymentService.getEmployeePayments(employee, month, year);
         return payments.stream()
-                .anyMatch(p -> "accrual".equals(p.getPaymentType().getCategory()) &&
-                        !"ОКЛ".equals(p.getPaymentType().getCode()));
+                .anyMatch(p -> "accrual".equals(p.getCategory()) &&
+                        !"ОКЛ".equals(p.getPaymentTypeCode()));
     }
 
     private void validateCanCalculateOrRecalculateSalary(Employee employee, Integer month, Integer year) {
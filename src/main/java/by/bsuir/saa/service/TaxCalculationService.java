@@ -1,6 +1,9 @@
 package by.bsuir.saa.service;
 
+import by.bsuir.saa.calculation.MoneyAccumulator;
+import by.bsuir.saa.calculation.PayrollKernel;
 import by.bsuir.saa.entity.*;
+import by.bsuir.saa.monitoring.PayrollMetrics;
 import by.bsuir.saa.repository.PaymentRepository;
 import by.bsuir.saa.repository.PaymentTypeRepository;
 import lombok.RequiredArgsConstructor;
@@ -9,7 +12,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.List;
 
 @Slf4j
@@ -21,128 +23,148 @@ public class TaxCalculationService {
     private final PaymentRepository paymentRepository;
     private final PaymentTypeRepository paymentTypeRepository;
     private final FinalSalaryCalculationService finalSalaryCalculationService;
+    private final PayrollMetrics payrollMetrics;
+    private final PeriodClosingService periodClosingService;
+    private final FormulaPaymentService formulaPaymentService;
 
     @Transactional
     public void calculateAndSaveTaxes(Employee employee, Integer month, Integer year) {
-        List<Payment> accruals = paymentRepository.findByEmployeeAndMonthAndYear(employee, month, year)
-                .stream()
-                .filter(p -> "accrual".equals(p.getPaymentType().getCategory()))
-                .toList();
+        periodClosingService.assertOpen(month, year);
+        payrollMetrics.recordEmployeeCalculation(PayrollMetrics.STAGE_TAXES, () -> {
+            List<Payment> accruals = paymentRepository.findByEmployeeAndMonthAndYear(employee, month, year)
+                    .stream()
+                    .filter(p -> "accrual".equals(p.getCategory()))
+                    .toList();
 
-        BigDecimal totalAccruals = accruals.stream()
-                .map(Payment::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+            BigDecimal totalAccruals = accruals.stream()
+                    .collect(MoneyAccumulator.summing(Payment::getAmount));
 
-        log.debug("Расчет налогов для {}: общая сумма начислений = {} руб.",
-                employee.getFullName(), totalAccruals);
+            log.debug("Расчет налогов для {}: общая сумма начислений = {} руб.",
+                    employee.getFullName(), totalAccruals);
 
-        boolean hasIncomeTax = hasIncomeTax(employee, month, year);
-        boolean hasSocialTax = hasSocialTax(employee, month, year);
+            boolean hasIncomeTax = hasIncomeTax(employee, month, year);
+            boolean hasSocialTax = hasSocialTax(employee, month, year);
 
-        if (!hasIncomeTax && totalAccruals.compareTo(BigDecimal.ZERO) > 0) {
-            BigDecimal incomeTax = totalAccruals.multiply(new BigDecimal("0.13"))
-                    .setScale(2, RoundingMode.HALF_UP);
+            if (!hasIncomeTax && totalAccruals.compareTo(BigDecimal.ZERO) > 0) {
+                BigDecimal incomeTax = calculateIncomeTax(totalAccruals);
 
-            PaymentType incomeTaxType = paymentTypeRepository.findByCode("ПН")
-                    .orElseThrow(() -> new RuntimeException("Тип оплаты ПН не найден"));
+                PaymentType incomeTaxType = paymentTypeRepository.findByCode("ПН")
+                        .orElseThrow(() -> new RuntimeException("Тип оплаты ПН не найден"));
 
-            createTaxPayment(employee, month, year, incomeTaxType, incomeTax,
-                    buildTaxDescription("Подоходный налог 13%", totalAccruals, incomeTax));
+                createTaxPayment(employee, month, year, incomeTaxType, incomeTax,
+                        buildTaxDescription("Подоходный налог 13%", totalAccruals, incomeTax));
 
-            log.info("Начислен подоходный налог для {}: {} руб. (с суммы {} руб.)",
-                    employee.getFullName(), incomeTax, totalAccruals);
-        }
+                log.info("Начислен подоходный налог для {}: {} руб. (с суммы {} руб.)",
+                        employee.getFullName(), incomeTax, totalAccruals);
+            }
 
-        if (!hasSocialTax && totalAccruals.compareTo(BigDecimal.ZERO) > 0) {
-            BigDecimal socialTax = totalAccruals.multiply(new BigDecimal("0.01"))
-                    .setScale(2, RoundingMode.HALF_UP);
+            if (!hasSocialTax && totalAccruals.compareTo(BigDecimal.ZERO) > 0) {
+                BigDecimal socialTax = calculateSocialTax(totalAccruals);
 
-            PaymentType socialTaxType = paymentTypeRepository.findByCode("ФСЗН")
-                    .orElseThrow(() -> new RuntimeException("Тип оплаты ФСЗН не найден"));
+                PaymentType socialTaxType = paymentTypeRepository.findByCode("ФСЗН")
+                        .orElseThrow(() -> new RuntimeException("Тип оплаты ФСЗН не найден"));
 
-            createTaxPayment(employee, month, year, socialTaxType, socialTax,
-                    buildTaxDescription("Взнос в ФСЗН 1%", totalAccruals, socialTax));
+                createTaxPayment(employee, month, year, socialTaxType, socialTax,
+                        buildTaxDescription("Взнос в ФСЗН 1%", totalAccruals, socialTax));
 
-            log.info("Начислен взнос ФСЗН для {}: {} руб. (с суммы {} руб.)",
-                    employee.getFullName(), socialTax, totalAccruals);
-        }
+                log.info("Начислен взнос ФСЗН для {}: {} руб. (с суммы {} руб.)",
+                        employee.getFullName(), socialTax, totalAccruals);
+            }
+        });
     }
 
+    /**
+     * Перед налогами рассчитывает начисления по формулам: после налогов сотрудник в расчет формул не попадает
+     */
     @Transactional
     public void calculateTaxesBatch(Integer month, Integer year) {
-        List<Employee> employees = paymentRepository.findByMonthAndYear(month, year)
-                .stream()
-                .map(Payment::getEmployee)
-                .distinct()
-                .toList();
-
-        int calculatedCount = 0;
-
-        for (Employee employee : employees) {
-            try {
-                List<Payment> accruals = paymentRepository.findByEmployeeAndMonthAndYear(employee, month, year)
-                        .stream()
-                        .filter(p -> "accrual".equals(p.getPaymentType().getCategory()))
-                        .toList();
-
-                if (!accruals.isEmpty()) {
-                    calculateAndSaveTaxes(employee, month, year);
-                    calculatedCount++;
+        periodClosingService.assertOpen(month, year);
+        formulaPaymentService.calculateFormulaPaymentsBatch(month, year);
+        payrollMetrics.recordStage(PayrollMetrics.STAGE_TAXES, month, year, () -> {
+            List<Employee> employees = paymentRepository.findByMonthAndYear(month, year)
+                    .stream()
+                    .map(Payment::getEmployee)
+                    .distinct()
+                    .toList();
+
+            int calculatedCount = 0;
+
+            for (Employee employee : employees) {
+                try {
+                    List<Payment> accruals = paymentRepository.findByEmployeeAndMonthAndYear(employee, month, year)
+                            .stream()
+                            .filter(p -> "accrual".equals(p.getCategory()))
+                            .toList();
+
+                    if (!accruals.isEmpty()) {
+                        calculateAndSaveTaxes(employee, month, year);
+                        calculatedCount++;
+                    }
+                } catch (Exception e) {
+                    log.error("Ошибка расчета налогов для {}: {}",
+                            employee.getFullName(), e.getMessage());
                 }
-            } catch (Exception e) {
-                log.error("Ошибка расчета налогов для {}: {}",
-                        employee.getFullName(), e.getMessage());
             }
-        }
 
-        log.info("Автоматический расчет налогов завершен: {} сотрудников", calculatedCount);
+            log.info("Автоматический расчет налогов завершен: {} сотрудников", calculatedCount);
+        });
     }
 
     @Transactional
     public void deleteTaxes(Employee employee, Integer month, Integer year) {
+        periodClosingService.assertOpen(month, year);
         validateCanDeleteTaxes(employee, month, year);
 
         List<Payment> taxes = paymentRepository.findByEmployeeAndMonthAndYear(employee, month, year)
                 .stream()
-                .filter(p -> "ПН".equals(p.getPaymentType().getCode()) ||
-                        "ФСЗН".equals(p.getPaymentType().getCode()))
+                .filter(p -> "ПН".equals(p.getPaymentTypeCode()) ||
+                        "ФСЗН".equals(p.getPaymentTypeCode()))
                 .toList();
 
         paymentRepository.deleteAll(taxes);
     }
 
+    @Transactional(readOnly = true)
     public BigDecimal calculateTotalAccrualsForEmployee(Employee employee, Integer month, Integer year) {
         return paymentRepository.findByEmployeeAndMonthAndYear(employee, month, year)
                 .stream()
-                .filter(p -> "accrual".equals(p.getPaymentType().getCategory()))
-                .map(Payment::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .filter(p -> "accrual".equals(p.getCategory()))
+                .collect(MoneyAccumulator.summing(Payment::getAmount));
     }
 
+    @Transactional(readOnly = true)
     public BigDecimal calculateIncomeTaxForEmployee(Employee employee, Integer month, Integer year) {
-        BigDecimal totalAccruals = calculateTotalAccrualsForEmployee(employee, month, year);
-        return totalAccruals.multiply(new BigDecimal("0.13"))
-                .setScale(2, RoundingMode.HALF_UP);
+        return calculateIncomeTax(calculateTotalAccrualsForEmployee(employee, month, year));
     }
 
+    @Transactional(readOnly = true)
     public BigDecimal calculateSocialTaxForEmployee(Employee employee, Integer month, Integer year) {
-        BigDecimal totalAccruals = calculateTotalAccrualsForEmployee(employee, month, year);
-        return totalAccruals.multiply(new BigDecimal("0.01"))
-                .setScale(2, RoundingMode.HALF_UP);
+        return calculateSocialTax(calculateTotalAccrualsForEmployee(employee, month, year));
     }
 
+    @Transactional(readOnly = true)
     public boolean hasTaxesCalculated(Employee employee, Integer month, Integer year) {
         return hasIncomeTax(employee, month, year) && hasSocialTax(employee, month, year);
     }
 
+    @Transactional(readOnly = true)
     public boolean hasIncomeTax(Employee employee, Integer month, Integer year) {
         return paymentRepository.findByEmployeeAndMonthAndYear(employee, month, year)
-                .stream().anyMatch(p -> "ПН".equals(p.getPaymentType().getCode()));
+                .stream().anyMatch(p -> "ПН".equals(p.getPaymentTypeCode()));
     }
 
+    @Transactional(readOnly = true)
     public boolean hasSocialTax(Employee employee, Integer month, Integer year) {
         return paymentRepository.findByEmployeeAndMonthAndYear(employee, month, year)
-                .stream().anyMatch(p -> "ФСЗН".equals(p.getPaymentType().getCode()));
+                .stream().anyMatch(p -> "ФСЗН".equals(p.getPaymentTypeCode()));
+    }
+
+    private BigDecimal calculateIncomeTax(BigDecimal totalAccruals) {
+        return PayrollKernel.fromKopecks(PayrollKernel.incomeTax(PayrollKernel.toKopecks(totalAccruals)));
+    }
+
+    private BigDecimal calculateSocialTax(BigDecimal totalAccruals) {
+        return PayrollKernel.fromKopecks(PayrollKernel.socialTax(PayrollKernel.toKopecks(totalAccruals)));
     }
 
     private void createTaxPayment(Employee employee, Integer month, Integer year,
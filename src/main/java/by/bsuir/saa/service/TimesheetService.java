@@ -1,16 +1,20 @@
 package by.bsuir.saa.service;
 
+import by.bsuir.saa.calculation.MoneyAccumulator;
 import by.bsuir.saa.entity.*;
+import by.bsuir.saa.projection.TimesheetSummary;
 import by.bsuir.saa.repository.EmployeeRepository;
 import by.bsuir.saa.repository.PaymentRepository;
 import by.bsuir.saa.repository.TimesheetRepository;
 import by.bsuir.saa.repository.TimesheetEntryRepository;
+import by.bsuir.saa.repository.UserRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -23,23 +27,34 @@ public class TimesheetService {
     private final MarkTypeService markTypeService;
     private final PaymentRepository paymentRepository;
     private final EmployeeRepository employeeRepository;
+    private final PeriodClosingService periodClosingService;
+    private final ArchiveService archiveService;
+    private final UserRepository userRepository;
 
     public TimesheetService(TimesheetRepository timesheetRepository,
                             TimesheetEntryRepository timesheetEntryRepository,
                             MarkTypeService markTypeService,
                             PaymentRepository paymentRepository,
-                            EmployeeRepository employeeRepository) {
+                            EmployeeRepository employeeRepository,
+                            PeriodClosingService periodClosingService,
+                            ArchiveService archiveService,
+                            UserRepository userRepository) {
         this.timesheetRepository = timesheetRepository;
         this.timesheetEntryRepository = timesheetEntryRepository;
         this.markTypeService = markTypeService;
         this.paymentRepository = paymentRepository;
         this.employeeRepository = employeeRepository;
+        this.periodClosingService = periodClosingService;
+        this.archiveService = archiveService;
+        this.userRepository = userRepository;
     }
 
+    @Transactional(readOnly = true)
     public Optional<Timesheet> getTimesheetById(Integer id) {
         return timesheetRepository.findById(id);
     }
 
+    @Transactional(readOnly = true)
     public Optional<Timesheet> getTimesheet(Employee employee, Integer month, Integer year) {
         return timesheetRepository.findByEmployeeAndMonthAndYear(employee, month, year);
     }
@@ -47,6 +62,7 @@ public class TimesheetService {
     public Timesheet getOrCreateTimesheet(Employee employee, Integer month, Integer year) {
         return timesheetRepository.findByEmployeeAndMonthAndYear(employee, month, year)
                 .orElseGet(() -> {
+                    periodClosingService.assertOpen(month, year);
                     Timesheet timesheet = new Timesheet();
                     timesheet.setEmployee(employee);
                     timesheet.setMonth(month);
@@ -57,16 +73,29 @@ public class TimesheetService {
                 });
     }
 
+    @Transactional(readOnly = true)
     public List<Timesheet> getTimesheetsByPeriod(Integer month, Integer year) {
         return timesheetRepository.findByMonthAndYear(month, year);
     }
 
+    @Transactional(readOnly = true)
+    public List<TimesheetSummary> getTimesheetSummaries(Integer month, Integer year, Integer departmentId) {
+        return timesheetRepository.findSummariesByPeriod(month, year, departmentId);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Timesheet> getTimesheetForEditing(Integer id) {
+        return timesheetRepository.findByIdWithDetails(id);
+    }
+
+    @Transactional(readOnly = true)
     public List<Timesheet> getTimesheetsByEmployee(Employee employee) {
         return timesheetRepository.findByEmployee(employee);
     }
 
+    @Transactional(readOnly = true)
     public Map<LocalDate, TimesheetEntry> getTimesheetEntriesMap(Timesheet timesheet) {
-        List<TimesheetEntry> entries = timesheetEntryRepository.findByTimesheetWithMarkType(timesheet);
+        List<TimesheetEntry> entries = findEntries(timesheet);
         Map<LocalDate, TimesheetEntry> entriesMap = new HashMap<>();
 
         for (TimesheetEntry entry : entries) {
@@ -80,6 +109,7 @@ public class TimesheetService {
     public void saveTimesheetEntries(Integer timesheetId, Map<String, String> dayEntries) {
         Timesheet timesheet = timesheetRepository.findById(timesheetId)
                 .orElseThrow(() -> new RuntimeException("Табель не найден"));
+        assertOpen(timesheet);
 
         timesheetEntryRepository.deleteByTimesheet(timesheet);
 
@@ -88,6 +118,9 @@ public class TimesheetService {
             if (entry.getKey().startsWith("day_")) {
                 String dayStr = entry.getKey().substring(4);
                 LocalDate date = LocalDate.parse(dayStr);
+                if (date.getYear() != timesheet.getYear() || date.getMonthValue() != timesheet.getMonth()) {
+                    throw new RuntimeException("Дата " + date + " не относится к периоду табеля");
+                }
                 String value = entry.getValue();
 
                 if (value != null && !value.trim().isEmpty()) {
@@ -121,6 +154,7 @@ public class TimesheetService {
 
     @Transactional
     public void fillFullMonth(Timesheet timesheet) {
+        assertOpen(timesheet);
         timesheetEntryRepository.deleteByTimesheet(timesheet);
 
         List<LocalDate> monthDays = getDaysInMonth(timesheet.getYear(), timesheet.getMonth());
@@ -143,44 +177,61 @@ public class TimesheetService {
         updateTotalHours(timesheet);
     }
 
-    public void confirmTimesheet(Integer timesheetId, User confirmedBy) {
+    public void confirmTimesheet(Integer timesheetId, Integer confirmedById) {
         Timesheet timesheet = timesheetRepository.findById(timesheetId)
                 .orElseThrow(() -> new RuntimeException("Табель не найден"));
+        assertOpen(timesheet);
 
         timesheet.setStatus(Timesheet.TimesheetStatus.CONFIRMED);
-        timesheet.setConfirmedBy(confirmedBy);
+        timesheet.setConfirmedBy(userRepository.getReferenceById(confirmedById));
         timesheet.setConfirmedAt(LocalDateTime.now());
         timesheetRepository.save(timesheet);
     }
 
+    @Transactional
+    public List<Integer> confirmTimesheetsByPeriod(Integer month, Integer year, Integer departmentId, Integer confirmedById) {
+        periodClosingService.assertOpen(month, year);
+        List<Integer> draftIds = timesheetRepository.lockDraftTimesheetIdsByPeriod(month, year, departmentId);
+        if (!draftIds.isEmpty()) {
+            timesheetRepository.confirmTimesheets(draftIds, Timesheet.TimesheetStatus.CONFIRMED,
+                    userRepository.getReferenceById(confirmedById), LocalDateTime.now());
+        }
+        return draftIds;
+    }
+
+    @Transactional(readOnly = true)
     public Long getConfirmedTimesheetsCount(Integer month, Integer year) {
         return timesheetRepository.countByMonthAndYearAndStatus(month, year, Timesheet.TimesheetStatus.CONFIRMED);
     }
 
+    @Transactional(readOnly = true)
     public Long getPendingTimesheetsCount(Integer month, Integer year) {
         return timesheetRepository.countByMonthAndYearAndStatus(month, year, Timesheet.TimesheetStatus.DRAFT);
     }
 
+    @Transactional(readOnly = true)
     public List<Timesheet> getTimesheetsByStatus(Timesheet.TimesheetStatus status) {
         return timesheetRepository.findByStatus(status);
     }
 
     public void deleteTimesheetEntries(Timesheet timesheet) {
+        assertOpen(timesheet);
         timesheetEntryRepository.deleteByTimesheet(timesheet);
     }
 
     public void deleteTimesheet(Integer timesheetId) {
+        timesheetRepository.findById(timesheetId).ifPresent(this::assertOpen);
         timesheetRepository.deleteById(timesheetId);
     }
 
+    @Transactional(readOnly = true)
     public Map<String, Long> countDaysByMarkType(Employee employee, Integer month, Integer year) {
         Optional<Timesheet> timesheetOpt = getTimesheet(employee, month, year);
         if (timesheetOpt.isEmpty() || timesheetOpt.get().getStatus() != Timesheet.TimesheetStatus.CONFIRMED) {
             return Map.of();
         }
 
-        Timesheet timesheet = timesheetOpt.get();
-        List<TimesheetEntry> entries = timesheetEntryRepository.findByTimesheet(timesheet);
+        List<TimesheetEntry> entries = findEntries(timesheetOpt.get());
 
         return entries.stream()
                 .collect(Collectors.groupingBy(
@@ -197,13 +248,14 @@ public class TimesheetService {
         if (timesheet.getStatus() != Timesheet.TimesheetStatus.CONFIRMED) {
             throw new RuntimeException("Табель не подтвержден, отмена подтверждения невозможна");
         }
+        assertOpen(timesheet);
 
         if (hasCalculatedPayments(timesheet.getEmployee(), timesheet.getMonth(), timesheet.getYear())) {
             List<Payment> payments = paymentRepository.findByEmployeeAndMonthAndYear(
                     timesheet.getEmployee(), timesheet.getMonth(), timesheet.getYear());
 
             String paymentTypes = payments.stream()
-                    .filter(p -> "accrual".equals(p.getPaymentType().getCategory()))
+                    .filter(p -> "accrual".equals(p.getCategory()))
                     .map(p -> p.getPaymentType().getName())
                     .collect(Collectors.joining(", "));
 
@@ -220,6 +272,7 @@ public class TimesheetService {
 
     @Transactional
     public void fillFullMonthForAll(Integer month, Integer year) {
+        periodClosingService.assertOpen(month, year);
         List<Employee> activeEmployees = employeeRepository.findByTerminationDateIsNull();
         int filledCount = 0;
 
@@ -244,6 +297,7 @@ public class TimesheetService {
         if (timesheet.getStatus() == Timesheet.TimesheetStatus.CONFIRMED) {
             throw new RuntimeException("Невозможно редактировать подтвержденный табель");
         }
+        assertOpen(timesheet);
 
         timesheetEntryRepository.deleteByTimesheet(timesheet);
 
@@ -272,6 +326,7 @@ public class TimesheetService {
         if (timesheet.getStatus() == Timesheet.TimesheetStatus.CONFIRMED) {
             throw new RuntimeException("Невозможно редактировать подтвержденный табель");
         }
+        assertOpen(timesheet);
 
         timesheetEntryRepository.deleteByTimesheet(timesheet);
 
@@ -296,22 +351,50 @@ public class TimesheetService {
         List<Payment> payments = paymentRepository.findByEmployeeAndMonthAndYear(employee, month, year);
 
         return payments.stream()
-                .anyMatch(p -> "accrual".equals(p.getPaymentType().getCategory()) &&
-                        ("ОКЛ".equals(p.getPaymentType().getCode()) ||
-                                "ОТП".equals(p.getPaymentType().getCode()) ||
-                                "БОЛ".equals(p.getPaymentType().getCode()) ||
-                                "ПРЕД".equals(p.getPaymentType().getCode()) ||
-                                "ИТР".equals(p.getPaymentType().getCode()) ||
-                                "ПХД".equals(p.getPaymentType().getCode()) ||
-                                "ПСС".equals(p.getPaymentType().getCode()) ||
-                                "СТАЖ".equals(p.getPaymentType().getCode())));
+                .anyMatch(p -> "accrual".equals(p.getCategory()) &&
+                        ("ОКЛ".equals(p.getPaymentTypeCode()) ||
+                                "ОТП".equals(p.getPaymentTypeCode()) ||
+                                "БОЛ".equals(p.getPaymentTypeCode()) ||
+                                "ПРЕД".equals(p.getPaymentTypeCode()) ||
+                                "ИТР".equals(p.getPaymentTypeCode()) ||
+                                "ПХД".equals(p.getPaymentTypeCode()) ||
+                                "ПСС".equals(p.getPaymentTypeCode()) ||
+                                "СТАЖ".equals(p.getPaymentTypeCode())));
+    }
+
+    /**
+     * Отметки табеля из рабочей таблицы или, для архивного года, из архива
+     */
+    private List<TimesheetEntry> findEntries(Timesheet timesheet) {
+        if (!archiveService.isArchived(timesheet.getYear())) {
+            return timesheetEntryRepository.findByTimesheetWithMarkType(timesheet);
+        }
+
+        YearMonth period = YearMonth.of(timesheet.getYear(), timesheet.getMonth());
+        Map<Integer, MarkType> markTypes = markTypeService.getAllMarkTypes().stream()
+                .collect(Collectors.toMap(MarkType::getId, markType -> markType));
+
+        List<TimesheetEntry> entries = new ArrayList<>();
+        for (Object[] row : timesheetEntryRepository.findArchivedByTimesheetAndDateBetween(
+                timesheet.getId(), period.atDay(1), period.atEndOfMonth())) {
+            TimesheetEntry entry = new TimesheetEntry();
+            entry.setTimesheet(timesheet);
+            entry.setDate(row[0] instanceof java.sql.Date date ? date.toLocalDate() : (LocalDate) row[0]);
+            entry.setMarkType(markTypes.get(((Number) row[1]).intValue()));
+            entry.setHoursWorked(row[2] != null ? new BigDecimal(row[2].toString()) : BigDecimal.ZERO);
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private void assertOpen(Timesheet timesheet) {
+        periodClosingService.assertOpen(timesheet.getMonth(), timesheet.getYear());
     }
 
     private void updateTotalHours(Timesheet timesheet) {
         List<TimesheetEntry> entries = timesheetEntryRepository.findByTimesheet(timesheet);
         BigDecimal total = entries.stream()
-                .map(TimesheetEntry::getHoursWorked)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+                .collect(MoneyAccumulator.summing(TimesheetEntry::getHoursWorked));
 
         timesheet.setTotalHours(total);
         timesheetRepository.save(timesheet);
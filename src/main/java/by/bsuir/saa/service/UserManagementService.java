@@ -35,10 +35,12 @@ public class UserManagementService {
         this.employeeService = employeeService;
     }
 
+    @Transactional(readOnly = true)
     public List<User> getAllUsers() {
-        return userRepository.findAll();
+        return userRepository.findAllWithEmployee();
     }
 
+    @Transactional(readOnly = true)
     public List<User> getActiveUsers() {
         return userRepository.findByIsActiveTrue();
     }
@@ -140,10 +142,12 @@ public class UserManagementService {
         userRepository.save(user);
     }
 
+    @Transactional(readOnly = true)
     public Optional<User> findUserByUsername(String username) {
         return userRepository.findByUsername(username);
     }
 
+    @Transactional(readOnly = true)
     public Map<String, Long> getUserStatisticsByRole() {
         List<User> users = userRepository.findAll();
         return users.stream()
@@ -1,6 +1,8 @@
 package by.bsuir.saa.service;
 
+import by.bsuir.saa.calculation.PayrollKernel;
 import by.bsuir.saa.entity.*;
+import by.bsuir.saa.monitoring.PayrollMetrics;
 import by.bsuir.saa.repository.PaymentRepository;
 import by.bsuir.saa.repository.TimesheetRepository;
 import lombok.Data;
@@ -11,7 +13,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -30,11 +31,9 @@ public class VacationSickLeaveCalculationService {
     private final EmployeeService employeeService;
     private final PaymentRepository paymentRepository;
     private final TaxCalculationService taxCalculationService;
+    private final PayrollMetrics payrollMetrics;
 
-    private static final BigDecimal SICK_LEAVE_RATE = new BigDecimal("0.50");
-    private static final BigDecimal VACATION_RATE = new BigDecimal("1.50");
-    private static final int WORKING_DAYS_IN_MONTH = 20;
-
+    @Transactional(readOnly = true)
     public CalculationInfo getCalculationInfo(Employee employee, Integer month, Integer year) {
         CalculationInfo info = new CalculationInfo()
                 .setEmployee(employee)
@@ -47,9 +46,9 @@ public class VacationSickLeaveCalculationService {
 
         info.setSickLeaveDays(daysByMarkType.getOrDefault("Б", 0L))
                 .setVacationDays(daysByMarkType.getOrDefault("О", 0L))
-                .setHasSickLeavePayment(existingPayments.stream().anyMatch(p -> "БОЛ".equals(p.getPaymentType().getCode())))
-                .setHasVacationPayment(existingPayments.stream().anyMatch(p -> "ОТП".equals(p.getPaymentType().getCode())))
-                .setHasBaseSalary(existingPayments.stream().anyMatch(p -> "ОКЛ".equals(p.getPaymentType().getCode())))
+                .setHasSickLeavePayment(existingPayments.stream().anyMatch(p -> "БОЛ".equals(p.getPaymentTypeCode())))
+                .setHasVacationPayment(existingPayments.stream().anyMatch(p -> "ОТП".equals(p.getPaymentTypeCode())))
+                .setHasBaseSalary(existingPayments.stream().anyMatch(p -> "ОКЛ".equals(p.getPaymentTypeCode())))
                 .setExistingPayments(existingPayments);
 
         if (info.isHasBaseSalary()) {
@@ -116,44 +115,48 @@ public class VacationSickLeaveCalculationService {
 
     @Transactional
     public void calculateAndSaveAll(Employee employee, Integer month, Integer year) {
-        CalculationInfo info = getCalculationInfo(employee, month, year);
-        boolean calculated = false;
+        payrollMetrics.recordEmployeeCalculation(PayrollMetrics.STAGE_VACATION_SICK_LEAVE, () -> {
+            CalculationInfo info = getCalculationInfo(employee, month, year);
+            boolean calculated = false;
 
-        if (info.canCalculateSickLeave()) {
-            calculateAndSaveSickLeave(employee, month, year);
-            calculated = true;
-        }
+            if (info.canCalculateSickLeave()) {
+                calculateAndSaveSickLeave(employee, month, year);
+                calculated = true;
+            }
 
-        if (info.canCalculateVacation()) {
-            calculateAndSaveVacation(employee, month, year);
-            calculated = true;
-        }
+            if (info.canCalculateVacation()) {
+                calculateAndSaveVacation(employee, month, year);
+                calculated = true;
+            }
 
-        if (!calculated) {
-            throw new RuntimeException("Нет данных для расчета отпускных или больничных");
-        }
+            if (!calculated) {
+                throw new RuntimeException("Нет данных для расчета отпускных или больничных");
+            }
+        });
     }
 
     @Transactional
     public int calculateBatch(Integer month, Integer year) {
-        List<Employee> employees = getEmployeesWithConfirmedTimesheets(month, year);
-        int calculatedCount = 0;
-
-        for (Employee employee : employees) {
-            try {
-                CalculationInfo info = getCalculationInfo(employee, month, year);
-                if (info.hasAnyCalculation()) {
-                    calculateAndSaveAll(employee, month, year);
-                    calculatedCount++;
+        return payrollMetrics.recordStage(PayrollMetrics.STAGE_VACATION_SICK_LEAVE, month, year, () -> {
+            List<Employee> employees = getEmployeesWithConfirmedTimesheets(month, year);
+            int calculatedCount = 0;
+
+            for (Employee employee : employees) {
+                try {
+                    CalculationInfo info = getCalculationInfo(employee, month, year);
+                    if (info.hasAnyCalculation()) {
+                        calculateAndSaveAll(employee, month, year);
+                        calculatedCount++;
+                    }
+                } catch (Exception e) {
+                    log.error("Ошибка расчета отпускных/больничных для {}: {}",
+                            employee.getFullName(), e.getMessage());
                 }
-            } catch (Exception e) {
-                log.error("Ошибка расчета отпускных/больничных для {}: {}",
-                        employee.getFullName(), e.getMessage());
             }
-        }
 
-        log.info("Автоматический расчет отпускных/больничных завершен: {} сотрудников", calculatedCount);
-        return calculatedCount;
+            log.info("Автоматический расчет отпускных/больничных завершен: {} сотрудников", calculatedCount);
+            return calculatedCount;
+        });
     }
 
     @Transactional
@@ -166,6 +169,7 @@ public class VacationSickLeaveCalculationService {
         paymentService.deletePayment(paymentId);
     }
 
+    @Transactional(readOnly = true)
     public List<Employee> getEmployeesWithConfirmedTimesheets(Integer month, Integer year) {
         return timesheetRepository.findByMonthAndYearWithEntries(month, year).stream()
                 .filter(timesheet -> timesheet.getStatus() == Timesheet.TimesheetStatus.CONFIRMED)
@@ -190,29 +194,25 @@ public class VacationSickLeaveCalculationService {
 
     private BigDecimal calculateDailyRate(Employee employee) {
         BigDecimal baseSalary = employee.getPosition().getBaseSalary();
-        return baseSalary.divide(new BigDecimal(WORKING_DAYS_IN_MONTH), 2, RoundingMode.HALF_UP);
+        return PayrollKernel.fromKopecks(PayrollKernel.dailyRate(PayrollKernel.toKopecks(baseSalary)));
     }
 
     private BigDecimal calculateSickLeaveAmount(BigDecimal dailyRate, Long days) {
-        return dailyRate.multiply(SICK_LEAVE_RATE)
-                .multiply(new BigDecimal(days))
-                .setScale(2, RoundingMode.HALF_UP);
+        return PayrollKernel.fromKopecks(PayrollKernel.sickLeave(PayrollKernel.toKopecks(dailyRate), days));
     }
 
     private BigDecimal calculateVacationAmount(BigDecimal dailyRate, Long days) {
-        return dailyRate.multiply(VACATION_RATE)
-                .multiply(new BigDecimal(days))
-                .setScale(2, RoundingMode.HALF_UP);
+        return PayrollKernel.fromKopecks(PayrollKernel.vacation(PayrollKernel.toKopecks(dailyRate), days));
     }
 
     private boolean hasExistingPayment(Employee employee, Integer month, Integer year, String paymentCode) {
         return paymentRepository.findByEmployeeAndMonthAndYear(employee, month, year).stream()
-                .anyMatch(p -> paymentCode.equals(p.getPaymentType().getCode()));
+                .anyMatch(p -> paymentCode.equals(p.getPaymentTypeCode()));
     }
 
     private boolean hasBaseSalary(Employee employee, Integer month, Integer year) {
         return paymentRepository.findByEmployeeAndMonthAndYear(employee, month, year).stream()
-                .anyMatch(p -> "ОКЛ".equals(p.getPaymentType().getCode()));
+                .anyMatch(p -> "ОКЛ".equals(p.getPaymentTypeCode()));
     }
 
     private void validateBaseSalaryCalculated(Employee employee, Integer month, Integer year) {
@@ -274,14 +274,14 @@ public class VacationSickLeaveCalculationService {
 
         public Payment getSickLeavePayment() {
             return existingPayments.stream()
-                    .filter(p -> "БОЛ".equals(p.getPaymentType().getCode()))
+                    .filter(p -> "БОЛ".equals(p.getPaymentTypeCode()))
                     .findFirst()
                     .orElse(null);
         }
 
         public Payment getVacationPayment() {
             return existingPayments.stream()
-                    .filter(p -> "ОТП".equals(p.getPaymentType().getCode()))
+                    .filter(p -> "ОТП".equals(p.getPaymentTypeCode()))
                     .findFirst()
                     .orElse(null);
         }
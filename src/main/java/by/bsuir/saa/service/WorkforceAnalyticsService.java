@@ -0,0 +1,143 @@
+package by.bsuir.saa.service;
+
+import by.bsuir.saa.repository.EmployeeRepository;
+import by.bsuir.saa.util.MonthUtil;
+import lombok.Builder;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Движение персонала по месяцам: численность на начало и конец месяца, прием, увольнения,
+ * текучесть и распределение по стажу. Весь диапазон считается одним запросом,
+ * результаты за закрытые месяцы кэшируются до ближайшего изменения сотрудников
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class WorkforceAnalyticsService {
+
+    private final EmployeeRepository employeeRepository;
+    private final Map<FlowKey, HeadcountFlow> closedMonths = new ConcurrentHashMap<>();
+
+    public List<HeadcountFlow> getHeadcountFlow(YearMonth from, YearMonth to, Integer departmentId) {
+        YearMonth current = YearMonth.now();
+
+        YearMonth firstMissing = null;
+        YearMonth lastMissing = null;
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            if (!month.isBefore(current) || !closedMonths.containsKey(new FlowKey(month, departmentId))) {
+                if (firstMissing == null) {
+                    firstMissing = month;
+                }
+                lastMissing = month;
+            }
+        }
+
+        Map<YearMonth, HeadcountFlow> loaded = new HashMap<>();
+        if (firstMissing != null) {
+            List<Object[]> rows = employeeRepository.findMonthlyHeadcountFlow(
+                    firstMissing.atDay(1), lastMissing.atDay(1), departmentId);
+            for (Object[] row : rows) {
+                HeadcountFlow flow = toHeadcountFlow(row);
+                loaded.put(flow.getPeriod(), flow);
+                if (flow.getPeriod().isBefore(current)) {
+                    closedMonths.put(new FlowKey(flow.getPeriod(), departmentId), flow);
+                }
+            }
+        }
+
+        List<HeadcountFlow> result = new ArrayList<>();
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            HeadcountFlow flow = loaded.get(month);
+            if (flow == null) {
+                flow = closedMonths.get(new FlowKey(month, departmentId));
+            }
+            if (flow != null) {
+                result.add(flow);
+            }
+        }
+        return result;
+    }
+
+    public HeadcountFlow getHeadcountFlow(YearMonth month, Integer departmentId) {
+        List<HeadcountFlow> flow = getHeadcountFlow(month, month, departmentId);
+        return flow.isEmpty() ? null : flow.get(0);
+    }
+
+    /**
+     * Сбрасывает кэш после фиксации изменяющей транзакции: до фиксации другие запросы
+     * еще читают старые данные и снова положили бы их в кэш
+     */
+    public void evictCache() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            closedMonths.clear();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                closedMonths.clear();
+            }
+        });
+    }
+
+    private HeadcountFlow toHeadcountFlow(Object[] row) {
+        YearMonth period = YearMonth.of(((Number) row[0]).intValue(), ((Number) row[1]).intValue());
+        long opening = ((Number) row[2]).longValue();
+        long hires = ((Number) row[3]).longValue();
+        long terminations = ((Number) row[4]).longValue();
+        long closing = ((Number) row[5]).longValue();
+
+        BigDecimal averageHeadcount = BigDecimal.valueOf(opening + closing)
+                .divide(BigDecimal.valueOf(2), 2, RoundingMode.HALF_UP);
+        BigDecimal turnoverRate = averageHeadcount.signum() > 0
+                ? BigDecimal.valueOf(terminations * 100L).divide(averageHeadcount, 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+
+        return HeadcountFlow.builder()
+                .period(period)
+                .periodName(MonthUtil.getRussianMonthName(period.getMonthValue()) + " " + period.getYear())
+                .openingHeadcount(opening)
+                .hires(hires)
+                .terminations(terminations)
+                .closingHeadcount(closing)
+                .turnoverRate(turnoverRate)
+                .tenureUnderOneYear(((Number) row[6]).longValue())
+                .tenureOneToThreeYears(((Number) row[7]).longValue())
+                .tenureThreeToTenYears(((Number) row[8]).longValue())
+                .tenureOverTenYears(((Number) row[9]).longValue())
+                .build();
+    }
+
+    private record FlowKey(YearMonth period, Integer departmentId) {
+    }
+
+    @Data
+    @Builder
+    public static class HeadcountFlow {
+        private YearMonth period;
+        private String periodName;
+        private long openingHeadcount;
+        private long hires;
+        private long terminations;
+        private long closingHeadcount;
+        private BigDecimal turnoverRate;
+        private long tenureUnderOneYear;
+        private long tenureOneToThreeYears;
+        private long tenureThreeToTenYears;
+        private long tenureOverTenYears;
+    }
+}
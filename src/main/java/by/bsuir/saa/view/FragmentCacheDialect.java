@@ -0,0 +1,28 @@
+package by.bsuir.saa.view;
+
+import org.thymeleaf.dialect.AbstractProcessorDialect;
+import org.thymeleaf.processor.IProcessor;
+import org.thymeleaf.standard.StandardDialect;
+
+import java.util.Set;
+
+/**
+ * Атрибут {@code saa:cache} для кэширования готового HTML фрагментов страниц.
+ * Выполняется раньше стандартных атрибутов th:*
+ */
+public class FragmentCacheDialect extends AbstractProcessorDialect {
+
+    public static final String PREFIX = "saa";
+
+    private final FragmentCacheProperties properties;
+
+    public FragmentCacheDialect(FragmentCacheProperties properties) {
+        super("SAA Fragment Cache", PREFIX, StandardDialect.PROCESSOR_PRECEDENCE - 100);
+        this.properties = properties;
+    }
+
+    @Override
+    public Set<IProcessor> getProcessors(String dialectPrefix) {
+        return Set.of(new FragmentCacheProcessor(dialectPrefix, properties));
+    }
+}
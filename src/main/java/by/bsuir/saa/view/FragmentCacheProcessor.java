@@ -0,0 +1,103 @@
+package by.bsuir.saa.view;
+
+import lombok.extern.slf4j.Slf4j;
+import org.thymeleaf.TemplateSpec;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.context.IContext;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.context.IWebContext;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.engine.AttributeName;
+import org.thymeleaf.exceptions.TemplateProcessingException;
+import org.thymeleaf.model.IModel;
+import org.thymeleaf.model.IProcessableElementTag;
+import org.thymeleaf.processor.element.AbstractAttributeModelProcessor;
+import org.thymeleaf.processor.element.IElementModelStructureHandler;
+import org.thymeleaf.standard.StandardDialect;
+import org.thymeleaf.standard.expression.StandardExpressions;
+import org.thymeleaf.templatemode.TemplateMode;
+
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@code saa:cache="${key}"} на элементе с th:fragment. При первом обращении фрагмент
+ * рендерится отдельно, по селектору своего шаблона и с переменными страницы, готовый HTML
+ * сохраняется под ключом и дальше подставляется без обработки. Ключ null отключает кэш.
+ * Кэшировать можно только фрагменты без пользовательских данных: форм с CSRF, sec:authorize
+ */
+@Slf4j
+public class FragmentCacheProcessor extends AbstractAttributeModelProcessor {
+
+    private static final String ATTRIBUTE_NAME = "cache";
+    private static final int PRECEDENCE = 100;
+
+    /**
+     * Признак отдельного рендера фрагмента: внутри него атрибут просто удаляется
+     */
+    private static final String RENDERING_VARIABLE = "saa::fragmentCacheRendering";
+
+    private final FragmentCacheProperties properties;
+    private final Map<String, String> cache = new ConcurrentHashMap<>();
+
+    public FragmentCacheProcessor(String dialectPrefix, FragmentCacheProperties properties) {
+        super(TemplateMode.HTML, dialectPrefix, null, false, ATTRIBUTE_NAME, true, PRECEDENCE, true);
+        this.properties = properties;
+    }
+
+    @Override
+    protected void doProcess(ITemplateContext context, IModel model, AttributeName attributeName,
+                             String attributeValue, IElementModelStructureHandler structureHandler) {
+        if (!properties.isEnabled() || context.containsVariable(RENDERING_VARIABLE)) {
+            return;
+        }
+
+        Object key = StandardExpressions.getExpressionParser(context.getConfiguration())
+                .parseExpression(context, attributeValue)
+                .execute(context);
+        if (key == null) {
+            return;
+        }
+
+        IProcessableElementTag tag = (IProcessableElementTag) model.get(0);
+        String fragment = tag.getAttributeValue(StandardDialect.PREFIX, "fragment");
+        if (fragment == null) {
+            throw new TemplateProcessingException("Атрибут saa:cache допустим только на элементе с th:fragment");
+        }
+
+        String cacheKey = tag.getTemplateName() + "::" + fragment + "::" + key;
+        String html = cache.get(cacheKey);
+        if (html == null) {
+            html = render(context, tag.getTemplateName(), fragment);
+            if (cache.size() >= properties.getMaxEntries()) {
+                log.debug("Кэш фрагментов заполнен ({} записей), очищается", cache.size());
+                cache.clear();
+            }
+            cache.put(cacheKey, html);
+        }
+
+        model.reset();
+        model.add(context.getModelFactory().createText(html));
+    }
+
+    private String render(ITemplateContext context, String template, String fragment) {
+        Map<String, Object> variables = new HashMap<>();
+        for (String name : context.getVariableNames()) {
+            variables.put(name, context.getVariable(name));
+        }
+        variables.put(RENDERING_VARIABLE, Boolean.TRUE);
+
+        IContext fragmentContext = context instanceof IWebContext webContext
+                ? new WebContext(webContext.getExchange(), context.getLocale(), variables)
+                : new Context(context.getLocale(), variables);
+
+        StringWriter writer = new StringWriter();
+        context.getConfiguration().getTemplateManager().parseAndProcess(
+                new TemplateSpec(template, Set.of(fragment), context.getTemplateMode(), null),
+                fragmentContext, writer);
+        return writer.toString();
+    }
+}
@@ -0,0 +1,12 @@
+package by.bsuir.saa.view;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "saa.view.fragment-cache")
+public class FragmentCacheProperties {
+
+    private boolean enabled = false;
+    private int maxEntries = 500;
+}
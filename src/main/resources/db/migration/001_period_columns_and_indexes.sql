@@ -0,0 +1,39 @@
+-- Номер периода year * 12 + month и индексы с периодом в начале ключа.
+-- Скрипт идемпотентный, запускается через psql вне транзакции (CREATE INDEX CONCURRENTLY):
+--   psql -d salary_analysis -f 001_period_columns_and_indexes.sql
+--
+-- ADD COLUMN ... STORED переписывает таблицу под ACCESS EXCLUSIVE, поэтому колонки
+-- добавляются в окно обслуживания; индексы строятся без блокировки записи.
+
+ALTER TABLE payments
+    ADD COLUMN IF NOT EXISTS period INTEGER GENERATED ALWAYS AS (year * 12 + month) STORED;
+ALTER TABLE salary_payments
+    ADD COLUMN IF NOT EXISTS period INTEGER GENERATED ALWAYS AS (year * 12 + month) STORED;
+ALTER TABLE timesheets
+    ADD COLUMN IF NOT EXISTS period INTEGER GENERATED ALWAYS AS (year * 12 + month) STORED;
+
+-- findByMonthAndYear, sumTaxesByPeriod, findTaxDetailsByPeriod, findTaxStatisticsByType,
+-- countDistinctEmployeesByMonthAndYear, findEmployeeIdsByPeriodAndPaymentCode:
+-- фильтр по (year, month), соединение с payment_types по payment_type_id, агрегаты по amount
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_payments_period_type
+    ON payments (year, month, payment_type_id) INCLUDE (employee_id, amount);
+
+-- Сводки по подразделениям и топ зарплат за месяц (ORDER BY net_salary DESC LIMIT n)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_salary_payments_period_net
+    ON salary_payments (year, month, net_salary DESC) INCLUDE (employee_id);
+
+-- Тренды, распределение и гистограмма: period BETWEEN :from AND :to
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_salary_payments_period_range
+    ON salary_payments (period) INCLUDE (employee_id, net_salary);
+
+-- Сводки табелей, подсчет по статусу и массовое подтверждение за месяц
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_timesheets_period_status
+    ON timesheets (year, month, status) INCLUDE (employee_id, total_hours);
+
+-- Дублируют индексы уникальных ограничений (employee_id, month, year)
+DROP INDEX CONCURRENTLY IF EXISTS idx_salary_payments_employee_period;
+DROP INDEX CONCURRENTLY IF EXISTS idx_timesheets_employee_period;
+
+ANALYZE payments;
+ANALYZE salary_payments;
+ANALYZE timesheets;
@@ -0,0 +1,31 @@
+-- Нормализованное ФИО (trim, одиночные пробелы, нижний регистр) с уникальным индексом
+-- для проверки дубликатов и поиска сотрудников.
+--   psql -d salary_analysis -f 002_employee_normalized_name.sql
+--
+-- Значения заполняет приложение при старте (EmployeeService.backfillNormalizedNames), чтобы
+-- нормализация совпадала с Java-кодом независимо от локали БД. NULL в уникальном индексе
+-- не конфликтуют, поэтому индекс можно создать до заполнения.
+
+ALTER TABLE employees
+    ADD COLUMN IF NOT EXISTS normalized_name VARCHAR(200);
+
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS uk_employees_normalized_name
+    ON employees (normalized_name);
+
+DO
+$$
+    BEGIN
+        IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uk_employees_normalized_name') THEN
+            ALTER TABLE employees
+                ADD CONSTRAINT uk_employees_normalized_name UNIQUE USING INDEX uk_employees_normalized_name;
+        END IF;
+    END
+$$;
+
+-- Сотрудники с совпадающими ФИО: при заполнении приложение добавляет к normalized_name
+-- всех записей, кроме одной, суффикс " #<id>"; список для ручного разбора
+SELECT lower(regexp_replace(btrim(full_name), '\s+', ' ', 'g')) AS normalized_name,
+       array_agg(id ORDER BY id)                                 AS employee_ids
+FROM employees
+GROUP BY 1
+HAVING COUNT(*) > 1;
@@ -0,0 +1,13 @@
+-- Триграммный GIN-индекс по нормализованному ФИО для поиска сотрудников (/employees/search):
+-- обслуживает LIKE '%...%' и оператор word_similarity <%.
+--   psql -d salary_analysis -f 003_employee_name_trigram_index.sql
+--
+-- pg_trgm входит в contrib и с PostgreSQL 13 может быть установлен владельцем базы.
+-- Без расширения приложение при старте переключается на поиск только по подстроке.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_employees_normalized_name_trgm
+    ON employees USING gin (normalized_name gin_trgm_ops);
+
+ANALYZE employees;
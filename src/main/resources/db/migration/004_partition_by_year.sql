@@ -0,0 +1,199 @@
+-- Секционирование payments, salary_payments (RANGE по year) и timesheet_entries (RANGE по date)
+-- по годам. Ключ секционирования входит в первичный ключ и во все уникальные ограничения;
+-- генерируемую колонку period ключом сделать нельзя, поэтому ключ - year.
+-- Скрипт идемпотентный (уже секционированные таблицы пропускаются), запускается через psql:
+--   psql -d salary_analysis -f 004_partition_by_year.sql
+--
+-- Каждая таблица переносится в своей транзакции под ACCESS EXCLUSIVE: данные копируются
+-- целиком, поэтому миграция выполняется в окно обслуживания. Секции на следующие годы
+-- потом создает приложение (PartitionMaintenance), строки вне годовых секций попадают в *_default.
+-- Колонка id пересоздается без IDENTITY (на секционированных таблицах оно доступно только с PG 17):
+-- значения берутся из новой последовательности <table>_id_seq, продолженной с max(id).
+
+\set ON_ERROR_STOP on
+
+-- payments
+
+SELECT NOT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = 'payments'::regclass) AS migrate_payments
+\gset
+
+\if :migrate_payments
+BEGIN;
+
+ALTER TABLE payments RENAME TO payments_unpartitioned;
+
+CREATE TABLE payments
+(
+    id              INTEGER        NOT NULL,
+    employee_id     INTEGER        NOT NULL,
+    month           INTEGER        NOT NULL CHECK (month >= 1 AND month <= 12),
+    year            INTEGER        NOT NULL CHECK (year >= 2020),
+    period          INTEGER GENERATED ALWAYS AS (year * 12 + month) STORED,
+    payment_type_id INTEGER        NOT NULL,
+    amount          NUMERIC(10, 2) NOT NULL,
+    description     TEXT,
+    created_by      INTEGER,
+    created_at      TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+) PARTITION BY RANGE (year);
+
+DO
+$$
+    DECLARE
+        first_year INTEGER;
+        last_year  INTEGER := EXTRACT(YEAR FROM CURRENT_DATE)::INTEGER + 1;
+    BEGIN
+        SELECT COALESCE(MIN(year), last_year - 1) INTO first_year FROM payments_unpartitioned;
+        FOR y IN first_year..last_year
+            LOOP
+                EXECUTE format('CREATE TABLE %I PARTITION OF payments FOR VALUES FROM (%s) TO (%s)',
+                               'payments_' || y, y, y + 1);
+            END LOOP;
+    END
+$$;
+CREATE TABLE payments_default PARTITION OF payments DEFAULT;
+
+INSERT INTO payments (id, employee_id, month, year, payment_type_id, amount, description, created_by, created_at)
+SELECT id, employee_id, month, year, payment_type_id, amount, description, created_by, created_at
+FROM payments_unpartitioned;
+
+DROP TABLE payments_unpartitioned;
+
+CREATE SEQUENCE payments_id_seq OWNED BY payments.id;
+SELECT setval('payments_id_seq', COALESCE(MAX(id), 0) + 1, false) FROM payments;
+ALTER TABLE payments ALTER COLUMN id SET DEFAULT nextval('payments_id_seq');
+
+ALTER TABLE payments ADD PRIMARY KEY (id, year);
+ALTER TABLE payments
+    ADD FOREIGN KEY (employee_id) REFERENCES employees (id) ON DELETE CASCADE,
+    ADD FOREIGN KEY (payment_type_id) REFERENCES payment_types (id) ON DELETE RESTRICT,
+    ADD FOREIGN KEY (created_by) REFERENCES users (id);
+
+CREATE INDEX idx_payments_employee_period ON payments (employee_id, month, year);
+CREATE INDEX idx_payments_type ON payments (payment_type_id);
+CREATE INDEX idx_payments_period_type ON payments (year, month, payment_type_id) INCLUDE (employee_id, amount);
+
+COMMIT;
+ANALYZE payments;
+\endif
+
+-- salary_payments
+
+SELECT NOT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = 'salary_payments'::regclass) AS migrate_salary_payments
+\gset
+
+\if :migrate_salary_payments
+BEGIN;
+
+ALTER TABLE salary_payments RENAME TO salary_payments_unpartitioned;
+
+CREATE TABLE salary_payments
+(
+    id               INTEGER NOT NULL,
+    employee_id      INTEGER NOT NULL,
+    month            INTEGER NOT NULL CHECK (month >= 1 AND month <= 12),
+    year             INTEGER NOT NULL CHECK (year >= 2020),
+    period           INTEGER GENERATED ALWAYS AS (year * 12 + month) STORED,
+    total_accrued    NUMERIC(10, 2) DEFAULT 0,
+    total_deducted   NUMERIC(10, 2) DEFAULT 0,
+    net_salary       NUMERIC(10, 2) DEFAULT 0,
+    calculation_date TIMESTAMP      DEFAULT CURRENT_TIMESTAMP,
+    status           VARCHAR(20)    DEFAULT 'CALCULATED' CHECK (status IN ('CALCULATED', 'PAID'))
+) PARTITION BY RANGE (year);
+
+DO
+$$
+    DECLARE
+        first_year INTEGER;
+        last_year  INTEGER := EXTRACT(YEAR FROM CURRENT_DATE)::INTEGER + 1;
+    BEGIN
+        SELECT COALESCE(MIN(year), last_year - 1) INTO first_year FROM salary_payments_unpartitioned;
+        FOR y IN first_year..last_year
+            LOOP
+                EXECUTE format('CREATE TABLE %I PARTITION OF salary_payments FOR VALUES FROM (%s) TO (%s)',
+                               'salary_payments_' || y, y, y + 1);
+            END LOOP;
+    END
+$$;
+CREATE TABLE salary_payments_default PARTITION OF salary_payments DEFAULT;
+
+INSERT INTO salary_payments (id, employee_id, month, year, total_accrued, total_deducted, net_salary,
+                             calculation_date, status)
+SELECT id, employee_id, month, year, total_accrued, total_deducted, net_salary, calculation_date, status
+FROM salary_payments_unpartitioned;
+
+DROP TABLE salary_payments_unpartitioned;
+
+CREATE SEQUENCE salary_payments_id_seq OWNED BY salary_payments.id;
+SELECT setval('salary_payments_id_seq', COALESCE(MAX(id), 0) + 1, false) FROM salary_payments;
+ALTER TABLE salary_payments ALTER COLUMN id SET DEFAULT nextval('salary_payments_id_seq');
+
+ALTER TABLE salary_payments ADD PRIMARY KEY (id, year);
+ALTER TABLE salary_payments ADD UNIQUE (employee_id, month, year);
+ALTER TABLE salary_payments
+    ADD FOREIGN KEY (employee_id) REFERENCES employees (id) ON DELETE CASCADE;
+
+CREATE INDEX idx_salary_payments_period_net ON salary_payments (year, month, net_salary DESC) INCLUDE (employee_id);
+CREATE INDEX idx_salary_payments_period_range ON salary_payments (period) INCLUDE (employee_id, net_salary);
+
+COMMIT;
+ANALYZE salary_payments;
+\endif
+
+-- timesheet_entries
+
+SELECT NOT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = 'timesheet_entries'::regclass) AS migrate_timesheet_entries
+\gset
+
+\if :migrate_timesheet_entries
+BEGIN;
+
+ALTER TABLE timesheet_entries RENAME TO timesheet_entries_unpartitioned;
+
+CREATE TABLE timesheet_entries
+(
+    id           INTEGER NOT NULL,
+    timesheet_id INTEGER NOT NULL,
+    date         DATE    NOT NULL,
+    mark_type_id INTEGER NOT NULL,
+    hours_worked NUMERIC(4, 2) DEFAULT 0 CHECK (hours_worked >= 0 AND hours_worked <= 24),
+    created_at   TIMESTAMP     DEFAULT CURRENT_TIMESTAMP
+) PARTITION BY RANGE (date);
+
+DO
+$$
+    DECLARE
+        first_year INTEGER;
+        last_year  INTEGER := EXTRACT(YEAR FROM CURRENT_DATE)::INTEGER + 1;
+    BEGIN
+        SELECT COALESCE(EXTRACT(YEAR FROM MIN(date))::INTEGER, last_year - 1)
+        INTO first_year
+        FROM timesheet_entries_unpartitioned;
+        FOR y IN first_year..last_year
+            LOOP
+                EXECUTE format('CREATE TABLE %I PARTITION OF timesheet_entries FOR VALUES FROM (%L) TO (%L)',
+                               'timesheet_entries_' || y, make_date(y, 1, 1), make_date(y + 1, 1, 1));
+            END LOOP;
+    END
+$$;
+CREATE TABLE timesheet_entries_default PARTITION OF timesheet_entries DEFAULT;
+
+INSERT INTO timesheet_entries (id, timesheet_id, date, mark_type_id, hours_worked, created_at)
+SELECT id, timesheet_id, date, mark_type_id, hours_worked, created_at
+FROM timesheet_entries_unpartitioned;
+
+DROP TABLE timesheet_entries_unpartitioned;
+
+CREATE SEQUENCE timesheet_entries_id_seq OWNED BY timesheet_entries.id;
+SELECT setval('timesheet_entries_id_seq', COALESCE(MAX(id), 0) + 1, false) FROM timesheet_entries;
+ALTER TABLE timesheet_entries ALTER COLUMN id SET DEFAULT nextval('timesheet_entries_id_seq');
+
+ALTER TABLE timesheet_entries ADD PRIMARY KEY (id, date);
+ALTER TABLE timesheet_entries
+    ADD FOREIGN KEY (timesheet_id) REFERENCES timesheets (id) ON DELETE CASCADE,
+    ADD FOREIGN KEY (mark_type_id) REFERENCES mark_types (id) ON DELETE RESTRICT;
+
+CREATE INDEX idx_timesheet_entries_timesheet ON timesheet_entries (timesheet_id);
+
+COMMIT;
+ANALYZE timesheet_entries;
+\endif
@@ -0,0 +1,53 @@
+-- Закрытие расчетных периодов и снимки их итогов.
+-- Скрипт идемпотентный, запускается через psql:
+--   psql -d salary_analysis -f 005_period_closures.sql
+
+CREATE TABLE IF NOT EXISTS period_closures
+(
+    id               SERIAL PRIMARY KEY,
+    month            INTEGER   NOT NULL CHECK (month >= 1 AND month <= 12),
+    year             INTEGER   NOT NULL CHECK (year >= 2020),
+    closed_by        INTEGER REFERENCES users (id),
+    closed_at        TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    active_employees INTEGER   NOT NULL,
+    employee_count   INTEGER   NOT NULL,
+    total_accrued    NUMERIC(12, 2) DEFAULT 0,
+    total_deducted   NUMERIC(12, 2) DEFAULT 0,
+    total_net        NUMERIC(12, 2) DEFAULT 0,
+    UNIQUE (month, year)
+);
+
+-- Снимки закрытых периодов: без внешних ключей, данные сотрудников и видов оплаты скопированы
+CREATE TABLE IF NOT EXISTS salary_snapshots
+(
+    id              SERIAL PRIMARY KEY,
+    month           INTEGER      NOT NULL,
+    year            INTEGER      NOT NULL,
+    employee_id     INTEGER      NOT NULL,
+    full_name       VARCHAR(200) NOT NULL,
+    department_id   INTEGER,
+    department_name VARCHAR(100),
+    position_id     INTEGER,
+    position_title  VARCHAR(100),
+    total_accrued   NUMERIC(10, 2),
+    total_deducted  NUMERIC(10, 2),
+    net_salary      NUMERIC(10, 2),
+    UNIQUE (employee_id, month, year)
+);
+
+CREATE TABLE IF NOT EXISTS payment_snapshots
+(
+    id                SERIAL PRIMARY KEY,
+    month             INTEGER        NOT NULL,
+    year              INTEGER        NOT NULL,
+    employee_id       INTEGER        NOT NULL,
+    payment_type_code VARCHAR(20)    NOT NULL,
+    payment_type_name VARCHAR(100)   NOT NULL,
+    category          VARCHAR(20)    NOT NULL,
+    amount            NUMERIC(10, 2) NOT NULL,
+    description       TEXT
+);
+
+-- Загрузка снимка закрытого периода
+CREATE INDEX IF NOT EXISTS idx_salary_snapshots_period ON salary_snapshots (year, month);
+CREATE INDEX IF NOT EXISTS idx_payment_snapshots_period_employee ON payment_snapshots (year, month, employee_id);
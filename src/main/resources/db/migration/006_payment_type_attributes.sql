@@ -0,0 +1,59 @@
+-- Код и категория вида оплаты в строках payments: выборки и фильтры по категории и коду
+-- не соединяются с payment_types, а агрегаты за месяц читаются из индекса.
+-- Скрипт идемпотентный, запускается через psql после 004_partition_by_year.sql:
+--   psql -d salary_analysis -f 006_payment_type_attributes.sql
+--
+-- Заполнение переписывает все строки payments, поэтому выполняется в окно обслуживания.
+-- Дальше колонки поддерживает приложение: Payment.setPaymentType и PaymentTypeService.updatePaymentType.
+-- Секционированную таблицу нельзя индексировать CONCURRENTLY, индекс строится обычным CREATE INDEX.
+
+\set ON_ERROR_STOP on
+
+BEGIN;
+
+ALTER TABLE payments
+    ADD COLUMN IF NOT EXISTS payment_type_code VARCHAR(20),
+    ADD COLUMN IF NOT EXISTS category          VARCHAR(20);
+
+UPDATE payments p
+SET payment_type_code = pt.code,
+    category          = pt.category
+FROM payment_types pt
+WHERE pt.id = p.payment_type_id
+  AND (p.payment_type_code IS DISTINCT FROM pt.code OR p.category IS DISTINCT FROM pt.category);
+
+ALTER TABLE payments
+    ALTER COLUMN payment_type_code SET NOT NULL,
+    ALTER COLUMN category SET NOT NULL;
+
+-- sumTaxesByPeriod, findTaxPaymentsByPeriod, countEmployeesWithAccruals,
+-- countDistinctEmployeesByPeriodAndPaymentCode: фильтр по периоду и категории или коду
+CREATE INDEX IF NOT EXISTS idx_payments_period_category
+    ON payments (year, month, category, payment_type_code) INCLUDE (employee_id, amount);
+
+COMMIT;
+
+-- Архивные секции (ArchiveMaintenance) отсоединены от payments и получают колонки отдельно,
+-- иначе следующий переносимый год не присоединится к archive.payments
+SELECT to_regclass('archive.payments') IS NOT NULL AS has_archive
+\gset
+
+\if :has_archive
+BEGIN;
+
+ALTER TABLE archive.payments
+    ADD COLUMN IF NOT EXISTS payment_type_code VARCHAR(20),
+    ADD COLUMN IF NOT EXISTS category          VARCHAR(20);
+
+UPDATE archive.payments p
+SET payment_type_code = pt.code,
+    category          = pt.category
+FROM payment_types pt
+WHERE pt.id = p.payment_type_id
+  AND (p.payment_type_code IS DISTINCT FROM pt.code OR p.category IS DISTINCT FROM pt.category);
+
+COMMIT;
+\endif
+
+-- Карта видимости для index-only scan после перезаписи строк
+VACUUM (ANALYZE) payments;
@@ -17,11 +17,13 @@ CREATE TABLE IF NOT EXISTS employees
 (
     id               SERIAL PRIMARY KEY,
     full_name        VARCHAR(200) NOT NULL,
+    normalized_name  VARCHAR(200),
     hire_date        DATE         NOT NULL,
     termination_date DATE         NULL,
     position_id      INTEGER      NOT NULL REFERENCES positions (id) ON DELETE RESTRICT,
     department_id    INTEGER      NOT NULL REFERENCES departments (id) ON DELETE RESTRICT,
-    created_at       TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    created_at       TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_employees_normalized_name UNIQUE (normalized_name)
 );
 
 CREATE TABLE IF NOT EXISTS user_roles
@@ -65,6 +67,7 @@ CREATE TABLE IF NOT EXISTS timesheets
     employee_id  INTEGER NOT NULL REFERENCES employees (id) ON DELETE CASCADE,
     month        INTEGER NOT NULL CHECK (month >= 1 AND month <= 12),
     year         INTEGER NOT NULL CHECK (year >= 2020),
+    period       INTEGER GENERATED ALWAYS AS (year * 12 + month) STORED,
     total_hours  NUMERIC(6, 2) DEFAULT 0,
     status       VARCHAR(20)   DEFAULT 'DRAFT' CHECK (status IN ('DRAFT', 'CONFIRMED')),
     confirmed_by INTEGER REFERENCES users (id),
@@ -75,46 +78,131 @@ CREATE TABLE IF NOT EXISTS timesheets
 
 CREATE TABLE IF NOT EXISTS timesheet_entries
 (
-    id           SERIAL PRIMARY KEY,
+    id           SERIAL,
     timesheet_id INTEGER NOT NULL REFERENCES timesheets (id) ON DELETE CASCADE,
     date         DATE    NOT NULL,
     mark_type_id INTEGER NOT NULL REFERENCES mark_types (id) ON DELETE RESTRICT,
     hours_worked NUMERIC(4, 2) DEFAULT 0 CHECK (hours_worked >= 0 AND hours_worked <= 24),
-    created_at   TIMESTAMP     DEFAULT CURRENT_TIMESTAMP
-);
+    created_at   TIMESTAMP     DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, date)
+) PARTITION BY RANGE (date);
 
 CREATE TABLE IF NOT EXISTS payments
 (
-    id              SERIAL PRIMARY KEY,
-    employee_id     INTEGER        NOT NULL REFERENCES employees (id) ON DELETE CASCADE,
-    month           INTEGER        NOT NULL CHECK (month >= 1 AND month <= 12),
-    year            INTEGER        NOT NULL CHECK (year >= 2020),
-    payment_type_id INTEGER        NOT NULL REFERENCES payment_types (id) ON DELETE RESTRICT,
-    amount          NUMERIC(10, 2) NOT NULL,
-    description     TEXT,
-    created_by      INTEGER REFERENCES users (id),
-    created_at      TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-);
+    id                SERIAL,
+    employee_id       INTEGER        NOT NULL REFERENCES employees (id) ON DELETE CASCADE,
+    month             INTEGER        NOT NULL CHECK (month >= 1 AND month <= 12),
+    year              INTEGER        NOT NULL CHECK (year >= 2020),
+    period            INTEGER GENERATED ALWAYS AS (year * 12 + month) STORED,
+    payment_type_id   INTEGER        NOT NULL REFERENCES payment_types (id) ON DELETE RESTRICT,
+    payment_type_code VARCHAR(20)    NOT NULL,
+    category          VARCHAR(20)    NOT NULL,
+    amount            NUMERIC(10, 2) NOT NULL,
+    description       TEXT,
+    created_by        INTEGER REFERENCES users (id),
+    created_at        TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, year)
+) PARTITION BY RANGE (year);
 
 CREATE TABLE IF NOT EXISTS salary_payments
 (
-    id               SERIAL PRIMARY KEY,
+    id               SERIAL,
     employee_id      INTEGER NOT NULL REFERENCES employees (id) ON DELETE CASCADE,
     month            INTEGER NOT NULL CHECK (month >= 1 AND month <= 12),
     year             INTEGER NOT NULL CHECK (year >= 2020),
+    period           INTEGER GENERATED ALWAYS AS (year * 12 + month) STORED,
     total_accrued    NUMERIC(10, 2) DEFAULT 0,
     total_deducted   NUMERIC(10, 2) DEFAULT 0,
     net_salary       NUMERIC(10, 2) DEFAULT 0,
     calculation_date TIMESTAMP      DEFAULT CURRENT_TIMESTAMP,
     status           VARCHAR(20)    DEFAULT 'CALCULATED' CHECK (status IN ('CALCULATED', 'PAID')),
+    PRIMARY KEY (id, year),
+    UNIQUE (employee_id, month, year)
+) PARTITION BY RANGE (year);
+
+CREATE TABLE IF NOT EXISTS period_closures
+(
+    id               SERIAL PRIMARY KEY,
+    month            INTEGER   NOT NULL CHECK (month >= 1 AND month <= 12),
+    year             INTEGER   NOT NULL CHECK (year >= 2020),
+    closed_by        INTEGER REFERENCES users (id),
+    closed_at        TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    active_employees INTEGER   NOT NULL,
+    employee_count   INTEGER   NOT NULL,
+    total_accrued    NUMERIC(12, 2) DEFAULT 0,
+    total_deducted   NUMERIC(12, 2) DEFAULT 0,
+    total_net        NUMERIC(12, 2) DEFAULT 0,
+    UNIQUE (month, year)
+);
+
+-- Снимки закрытых периодов: без внешних ключей, данные сотрудников и видов оплаты скопированы
+CREATE TABLE IF NOT EXISTS salary_snapshots
+(
+    id              SERIAL PRIMARY KEY,
+    month           INTEGER      NOT NULL,
+    year            INTEGER      NOT NULL,
+    employee_id     INTEGER      NOT NULL,
+    full_name       VARCHAR(200) NOT NULL,
+    department_id   INTEGER,
+    department_name VARCHAR(100),
+    position_id     INTEGER,
+    position_title  VARCHAR(100),
+    total_accrued   NUMERIC(10, 2),
+    total_deducted  NUMERIC(10, 2),
+    net_salary      NUMERIC(10, 2),
     UNIQUE (employee_id, month, year)
 );
 
+CREATE TABLE IF NOT EXISTS payment_snapshots
+(
+    id                SERIAL PRIMARY KEY,
+    month             INTEGER        NOT NULL,
+    year              INTEGER        NOT NULL,
+    employee_id       INTEGER        NOT NULL,
+    payment_type_code VARCHAR(20)    NOT NULL,
+    payment_type_name VARCHAR(100)   NOT NULL,
+    category          VARCHAR(20)    NOT NULL,
+    amount            NUMERIC(10, 2) NOT NULL,
+    description       TEXT
+);
+
+-- Годы, секции которых перенесены в схему archive (ArchiveMaintenance). Архивные таблицы
+-- archive.payments, archive.salary_payments и archive.timesheet_entries создаются при первом переносе
+CREATE TABLE IF NOT EXISTS archived_years
+(
+    year                 INTEGER PRIMARY KEY,
+    archived_at          TIMESTAMP NOT NULL,
+    payment_rows         BIGINT    NOT NULL,
+    salary_payment_rows  BIGINT    NOT NULL,
+    timesheet_entry_rows BIGINT    NOT NULL
+);
+
+-- Годовые секции создает приложение (PartitionMaintenance), сюда попадают только строки вне них
+CREATE TABLE IF NOT EXISTS timesheet_entries_default PARTITION OF timesheet_entries DEFAULT;
+CREATE TABLE IF NOT EXISTS payments_default PARTITION OF payments DEFAULT;
+CREATE TABLE IF NOT EXISTS salary_payments_default PARTITION OF salary_payments DEFAULT;
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
 CREATE INDEX IF NOT EXISTS idx_employees_department ON employees (department_id);
 CREATE INDEX IF NOT EXISTS idx_employees_position ON employees (position_id);
 CREATE INDEX IF NOT EXISTS idx_users_employee ON users (employee_id);
-CREATE INDEX IF NOT EXISTS idx_timesheets_employee_period ON timesheets (employee_id, month, year);
 CREATE INDEX IF NOT EXISTS idx_timesheet_entries_timesheet ON timesheet_entries (timesheet_id);
 CREATE INDEX IF NOT EXISTS idx_payments_employee_period ON payments (employee_id, month, year);
 CREATE INDEX IF NOT EXISTS idx_payments_type ON payments (payment_type_id);
-CREATE INDEX IF NOT EXISTS idx_salary_payments_employee_period ON salary_payments (employee_id, month, year);
\ No newline at end of file
+
+-- Выборки за месяц: период первым, покрывающие колонки в INCLUDE для index-only scan
+CREATE INDEX IF NOT EXISTS idx_payments_period_type ON payments (year, month, payment_type_id) INCLUDE (employee_id, amount);
+CREATE INDEX IF NOT EXISTS idx_payments_period_category ON payments (year, month, category, payment_type_code) INCLUDE (employee_id, amount);
+CREATE INDEX IF NOT EXISTS idx_salary_payments_period_net ON salary_payments (year, month, net_salary DESC) INCLUDE (employee_id);
+CREATE INDEX IF NOT EXISTS idx_timesheets_period_status ON timesheets (year, month, status) INCLUDE (employee_id, total_hours);
+
+-- Поиск сотрудников по подстроке и нечеткому совпадению ФИО
+CREATE INDEX IF NOT EXISTS idx_employees_normalized_name_trgm ON employees USING gin (normalized_name gin_trgm_ops);
+
+-- Выборки по диапазону месяцев (тренды, распределения)
+CREATE INDEX IF NOT EXISTS idx_salary_payments_period_range ON salary_payments (period) INCLUDE (employee_id, net_salary);
+
+-- Загрузка снимка закрытого периода
+CREATE INDEX IF NOT EXISTS idx_salary_snapshots_period ON salary_snapshots (year, month);
+CREATE INDEX IF NOT EXISTS idx_payment_snapshots_period_employee ON payment_snapshots (year, month, employee_id);
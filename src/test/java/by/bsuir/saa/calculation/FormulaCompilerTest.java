@@ -0,0 +1,158 @@
+package by.bsuir.saa.calculation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FormulaCompilerTest {
+
+    private final FormulaCompiler compiler = new FormulaCompiler();
+
+    private final FormulaContext context = new FormulaContext()
+            .set(FormulaContext.Variable.BASE_SALARY, new BigDecimal("1200.00"))
+            .set(FormulaContext.Variable.HOURS, new BigDecimal("80"))
+            .set(FormulaContext.Variable.NORM_HOURS, new BigDecimal("160"))
+            .set(FormulaContext.Variable.TENURE_YEARS, new BigDecimal("4"))
+            .addPayment("ОКЛ", new BigDecimal("600.00"), true)
+            .addPayment("АЛ", new BigDecimal("-100.00"), false);
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "оклад * часы / норма_часов | 600",
+            "ОКЛ * 0.1 + 5 | 65",
+            "-(2 + 3) * 4 | -20",
+            "2 + 3 * 4 - 10 / 4 | 11.5",
+            "макс(ОКЛ; 700; 650) | 700",
+            "мин(ОКЛ, 700) | 600",
+            "округл(оклад / 7) | 171.43",
+            "округл(оклад / 7; 0) | 171",
+            "если(стаж_лет >= 3; оклад * 0.15; 0) | 180",
+            "если(стаж_лет <> 4; 1; 2) | 2",
+            "ОКЛ = 600 | 1",
+            "ПРЕМ + 1 | 1",
+            "ОКЛАД * 1 | 1200",
+            "начислено | 600"
+    })
+    void evaluatesFormulas(String formula, String expected) {
+        BigDecimal result = compiler.compile(formula).evaluate(context);
+
+        assertEquals(0, new BigDecimal(expected).compareTo(result), () -> formula + " = " + result);
+    }
+
+    @Test
+    void accruedIncludesOnlyAccruals() {
+        FormulaContext accruals = new FormulaContext()
+                .addPayment("ОКЛ", new BigDecimal("500.00"), true)
+                .addPayment("СТАЖ", new BigDecimal("25.00"), true)
+                .addPayment("ПН", new BigDecimal("-68.25"), false);
+
+        assertEquals(new BigDecimal("525.00"), accruals.get(FormulaContext.Variable.ACCRUED));
+        assertEquals(new BigDecimal("-68.25"), accruals.payment("ПН"));
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "'' | формула пуста",
+            "оклад + | неожиданный конец формулы",
+            "(оклад + 1 | ожидается ')'",
+            "оклад 5 | неожиданный символ '5'",
+            "премия * 2 | неизвестная переменная 'премия'",
+            "корень(4) | неизвестная функция 'корень'",
+            "если(1; 2) | неверное число аргументов функции 'если'",
+            "1.2.3 | некорректное число '1.2.3'",
+            "округл(оклад; часы) | число знаков в функции 'округл' должно быть целой константой",
+            "1 / 0 | Деление на ноль",
+            "оклад # 2 | неожиданный символ '#'"
+    })
+    void reportsParseErrors(String formula, String message) {
+        String error = compiler.validate(formula);
+
+        assertNotNull(error, formula);
+        assertTrue(error.contains(message), () -> formula + ": " + error);
+    }
+
+    @Test
+    void reportsErrorPosition() {
+        assertEquals("неожиданный символ '#' (позиция 7)", compiler.validate("оклад # 2"));
+    }
+
+    @Test
+    void validFormulaHasNoError() {
+        assertNull(compiler.validate("если(часы > норма_часов; (часы - норма_часов) * оклад / норма_часов * 2; 0)"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {10_000, 100_000})
+    void deepNestingIsRejectedWithoutStackOverflow(int depth) {
+        List<String> formulas = List.of(
+                "(".repeat(depth) + "1" + ")".repeat(depth),
+                "-".repeat(depth) + "1",
+                "1" + "+1".repeat(depth),
+                "1" + "*1".repeat(depth),
+                "макс(".repeat(depth) + "1" + ")".repeat(depth));
+
+        for (String formula : formulas) {
+            IllegalArgumentException error = assertThrows(IllegalArgumentException.class, () -> FormulaParser.parse(formula));
+            assertTrue(error.getMessage().startsWith("слишком глубокая вложенность формулы"), error.getMessage());
+        }
+    }
+
+    @Test
+    void nestingUpToLimitIsAccepted() {
+        int depth = FormulaParser.MAX_DEPTH - 1;
+
+        assertNull(compiler.validate("(".repeat(depth) + "1" + ")".repeat(depth)));
+    }
+
+    @Test
+    void collectsPaymentReferences() {
+        assertEquals(Set.of("ОКЛ", "СТАЖ"), compiler.paymentReferences("если(ОКЛ > 0; СТАЖ + ОКЛ; оклад)"));
+    }
+
+    @Test
+    void ordersFormulasByDependencies() {
+        Map<String, String> formulas = new LinkedHashMap<>();
+        formulas.put("А", "Б * 2");
+        formulas.put("Б", "ОКЛ * 0.1");
+        formulas.put("В", "А + Б");
+
+        assertEquals(List.of("Б", "А", "В"), compiler.evaluationOrder(formulas));
+    }
+
+    @Test
+    void rejectsCircularReferences() {
+        Map<String, String> formulas = new LinkedHashMap<>();
+        formulas.put("А", "Б * 2");
+        formulas.put("Б", "В + 1");
+        formulas.put("В", "А");
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> compiler.evaluationOrder(formulas));
+        assertEquals("циклическая ссылка между формулами: А → Б → В → А", error.getMessage());
+    }
+
+    @Test
+    void rejectsSelfReference() {
+        assertThrows(IllegalArgumentException.class, () -> compiler.evaluationOrder(Map.of("А", "А + 1")));
+    }
+
+    @Test
+    void divisionByZeroAtRuntimeIsArithmeticError() {
+        CompiledFormula formula = compiler.compile("оклад / дни_отпуска");
+
+        assertThrows(ArithmeticException.class, () -> formula.evaluate(context));
+    }
+}
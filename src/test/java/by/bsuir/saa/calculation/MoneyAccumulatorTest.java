@@ -0,0 +1,111 @@
+package by.bsuir.saa.calculation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MoneyAccumulatorTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            "0, 0", "0.01, 1", "1.005, 101", "1.004, 100", "-1.005, -101", "12.3, 1230", "7, 700", "1234567.89, 123456789"
+    })
+    void toKopecksRoundsHalfUp(String amount, long expected) {
+        assertEquals(expected, PayrollKernel.toKopecks(new BigDecimal(amount)));
+    }
+
+    @Test
+    void toKopecksTreatsNullAsZero() {
+        assertEquals(0, PayrollKernel.toKopecks(null));
+    }
+
+    @Test
+    void toKopecksRejectsOverflow() {
+        assertThrows(ArithmeticException.class, () -> PayrollKernel.toKopecks(new BigDecimal("1e30")));
+    }
+
+    @Test
+    void collectsSumMinMaxAndAverage() {
+        MoneyAccumulator accumulator = amounts("100.00", "0.01", null, "250.50", "-10.00").stream()
+                .collect(MoneyAccumulator.collecting(Function.identity()));
+
+        assertEquals(4, accumulator.getCount());
+        assertEquals(new BigDecimal("340.51"), accumulator.getSum());
+        assertEquals(new BigDecimal("-10.00"), accumulator.getMin());
+        assertEquals(new BigDecimal("250.50"), accumulator.getMax());
+        assertEquals(new BigDecimal("85.13"), accumulator.getAverage());
+        assertEquals(34051, accumulator.getSumKopecks());
+    }
+
+    @Test
+    void averageRoundsHalfUpToKopeck() {
+        MoneyAccumulator accumulator = new MoneyAccumulator()
+                .add(new BigDecimal("0.01"))
+                .add(new BigDecimal("0.02"));
+
+        assertEquals(new BigDecimal("0.02"), accumulator.getAverage());
+    }
+
+    @Test
+    void emptyAccumulatorReturnsZeros() {
+        MoneyAccumulator accumulator = new MoneyAccumulator();
+
+        assertTrue(accumulator.isEmpty());
+        assertEquals(new BigDecimal("0.00"), accumulator.getSum());
+        assertEquals(BigDecimal.ZERO, accumulator.getMin());
+        assertEquals(BigDecimal.ZERO, accumulator.getMax());
+        assertEquals(BigDecimal.ZERO, accumulator.getAverage());
+    }
+
+    @Test
+    void summingMatchesBigDecimalReduceInParallel() {
+        List<BigDecimal> values = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            values.add(BigDecimal.valueOf(i * 37L % 100_003, 2));
+        }
+
+        BigDecimal expected = values.stream().reduce(BigDecimal.ZERO, BigDecimal::add).setScale(2);
+
+        assertEquals(expected, values.parallelStream().collect(MoneyAccumulator.summing(Function.identity())));
+    }
+
+    @Test
+    void summingAbsoluteAddsMagnitudes() {
+        BigDecimal total = amounts("-100.00", "25.50", null, "-0.01").stream()
+                .collect(MoneyAccumulator.summingAbsolute(Function.identity()));
+
+        assertEquals(new BigDecimal("125.51"), total);
+    }
+
+    @Test
+    void totalIsMoney() {
+        MoneyAccumulator accumulator = new MoneyAccumulator()
+                .add(new BigDecimal("10.00"))
+                .add(Money.ofKopecks(-250));
+
+        assertEquals(Money.ofKopecks(750), accumulator.getTotal());
+    }
+
+    @Test
+    void sumOverflowIsReported() {
+        MoneyAccumulator accumulator = new MoneyAccumulator().add(Long.MAX_VALUE);
+
+        assertThrows(ArithmeticException.class, () -> accumulator.add(1));
+    }
+
+    private static List<BigDecimal> amounts(String... values) {
+        return Arrays.stream(values)
+                .map(value -> value == null ? null : new BigDecimal(value))
+                .toList();
+    }
+}
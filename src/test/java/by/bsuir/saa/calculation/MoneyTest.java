@@ -0,0 +1,59 @@
+package by.bsuir.saa.calculation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MoneyTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            "0.00", "0.01", "-0.01", "1.00", "99999999.99", "-12345.67", "0", "12.3", "1.005", "1.004", "-1.005", "5E+2"
+    })
+    void toKopecksMatchesBigDecimalRounding(String amount) {
+        BigDecimal value = new BigDecimal(amount);
+        long expected = value.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+
+        assertEquals(expected, Money.toKopecks(value));
+        assertEquals(value.setScale(2, RoundingMode.HALF_UP), Money.of(value).toBigDecimal());
+    }
+
+    @Test
+    void toKopecksRejectsOverflowWithScaleTwo() {
+        assertThrows(ArithmeticException.class, () -> Money.toKopecks(new BigDecimal("100000000000000000000.00")));
+    }
+
+    @Test
+    void zeroAndNullShareConstant() {
+        assertSame(Money.ZERO, Money.of(null));
+        assertSame(Money.ZERO, Money.of(new BigDecimal("0.00")));
+        assertSame(Money.ZERO, Money.ofKopecks(100).minus(Money.ofKopecks(100)));
+    }
+
+    @Test
+    void arithmetic() {
+        Money amount = Money.of(new BigDecimal("150.25"));
+
+        assertEquals(Money.ofKopecks(15_035), amount.plus(Money.ofKopecks(10)));
+        assertEquals(Money.ofKopecks(-15_025), amount.negate());
+        assertEquals(amount, amount.negate().abs());
+        assertEquals(new BigDecimal("19.53"), amount.percentage(PayrollKernel.INCOME_TAX_RATE).toBigDecimal());
+        assertTrue(amount.isPositive());
+        assertTrue(amount.compareTo(Money.ofKopecks(15_026)) < 0);
+        assertEquals("150.25", amount.toString());
+    }
+
+    @Test
+    void arithmeticOverflowIsReported() {
+        assertThrows(ArithmeticException.class, () -> Money.ofKopecks(Long.MAX_VALUE).plus(Money.ofKopecks(1)));
+        assertThrows(ArithmeticException.class, () -> Money.ofKopecks(Long.MIN_VALUE).negate());
+    }
+}
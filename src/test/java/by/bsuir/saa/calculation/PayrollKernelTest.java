@@ -0,0 +1,125 @@
+package by.bsuir.saa.calculation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Сверка PayrollKernel с прежними формулами сервисов на BigDecimal
+ */
+class PayrollKernelTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            "1000.00, 168, 168.00",
+            "1000.00, 168, 0.00",
+            "1234.56, 160, 87.25",
+            "999.99, 176, 175.50",
+            "1500.00, 151, 100.01",
+            "2333.33, 167, 3.33",
+            "0.01, 168, 168.00",
+            "100000.00, 184, 183.99"
+    })
+    void baseSalaryMatchesBigDecimal(String baseSalary, int standardHours, String hours) {
+        BigDecimal hourlyRate = new BigDecimal(baseSalary)
+                .divide(new BigDecimal(standardHours), 4, RoundingMode.HALF_UP);
+        BigDecimal expected = hourlyRate.multiply(new BigDecimal(hours)).setScale(2, RoundingMode.HALF_UP);
+
+        long actual = PayrollKernel.baseSalary(PayrollKernel.toKopecks(new BigDecimal(baseSalary)), standardHours,
+                PayrollKernel.toHundredths(new BigDecimal(hours)));
+
+        assertEquals(expected, PayrollKernel.fromKopecks(actual));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "0.04", "0.05", "0.15", "0.50", "3.85", "7.69", "11.50", "38.46", "76.92", "1234.57", "99999.99"
+    })
+    void taxesMatchBigDecimalOnHalfKopeckBoundaries(String accrued) {
+        BigDecimal amount = new BigDecimal(accrued);
+        long kopecks = PayrollKernel.toKopecks(amount);
+
+        assertEquals(amount.multiply(new BigDecimal("0.13")).setScale(2, RoundingMode.HALF_UP),
+                PayrollKernel.fromKopecks(PayrollKernel.incomeTax(kopecks)));
+        assertEquals(amount.multiply(new BigDecimal("0.01")).setScale(2, RoundingMode.HALF_UP),
+                PayrollKernel.fromKopecks(PayrollKernel.socialTax(kopecks)));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "0.10, 0.25", "0.02, 0.25", "0.30, 0.05", "0.70, 0.15", "1234.58, 0.25", "999.90, 0.05", "333.30, 0.15"
+    })
+    void percentageMatchesBigDecimal(String amount, String rate) {
+        BigDecimal expected = new BigDecimal(amount).multiply(new BigDecimal(rate)).setScale(2, RoundingMode.HALF_UP);
+
+        long actual = PayrollKernel.percentage(PayrollKernel.toKopecks(new BigDecimal(amount)),
+                PayrollKernel.toRate(new BigDecimal(rate)));
+
+        assertEquals(expected, PayrollKernel.fromKopecks(actual));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "1000.00, 1", "1000.10, 3", "999.99, 14", "1234.57, 28", "0.10, 1", "0.30, 5"
+    })
+    void sickLeaveAndVacationMatchBigDecimal(String baseSalary, long days) {
+        BigDecimal dailyRate = new BigDecimal(baseSalary).divide(new BigDecimal(20), 2, RoundingMode.HALF_UP);
+        BigDecimal sickLeave = dailyRate.multiply(new BigDecimal("0.50")).multiply(new BigDecimal(days))
+                .setScale(2, RoundingMode.HALF_UP);
+        BigDecimal vacation = dailyRate.multiply(new BigDecimal("1.50")).multiply(new BigDecimal(days))
+                .setScale(2, RoundingMode.HALF_UP);
+
+        long dailyRateKopecks = PayrollKernel.dailyRate(PayrollKernel.toKopecks(new BigDecimal(baseSalary)));
+
+        assertEquals(dailyRate, PayrollKernel.fromKopecks(dailyRateKopecks));
+        assertEquals(sickLeave, PayrollKernel.fromKopecks(PayrollKernel.sickLeave(dailyRateKopecks, days)));
+        assertEquals(vacation, PayrollKernel.fromKopecks(PayrollKernel.vacation(dailyRateKopecks, days)));
+    }
+
+    @Test
+    void randomAmountsMatchBigDecimal() {
+        Random random = new Random(20261019L);
+        for (int i = 0; i < 10_000; i++) {
+            BigDecimal baseSalary = BigDecimal.valueOf(random.nextInt(50_000_000), 2);
+            int standardHours = 120 + random.nextInt(80);
+            BigDecimal hours = BigDecimal.valueOf(random.nextInt(25_000), 2);
+
+            BigDecimal expected = baseSalary.divide(new BigDecimal(standardHours), 4, RoundingMode.HALF_UP)
+                    .multiply(hours).setScale(2, RoundingMode.HALF_UP);
+            long actual = PayrollKernel.baseSalary(PayrollKernel.toKopecks(baseSalary), standardHours,
+                    PayrollKernel.toHundredths(hours));
+            assertEquals(expected, PayrollKernel.fromKopecks(actual), () -> baseSalary + " / " + standardHours + " × " + hours);
+
+            BigDecimal expectedTax = expected.multiply(new BigDecimal("0.13")).setScale(2, RoundingMode.HALF_UP);
+            assertEquals(expectedTax, PayrollKernel.fromKopecks(PayrollKernel.incomeTax(actual)));
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "5, 2, 3", "-5, 2, -3", "5, -2, -3", "-5, -2, 3", "4, 3, 1", "-4, 3, -1", "7, 7, 1", "0, 9, 0"
+    })
+    void divideHalfUpRoundsHalfAwayFromZero(long dividend, long divisor, long expected) {
+        assertEquals(expected, PayrollKernel.divideHalfUp(dividend, divisor));
+        assertEquals(BigDecimal.valueOf(dividend).divide(BigDecimal.valueOf(divisor), 0, RoundingMode.HALF_UP).longValueExact(),
+                PayrollKernel.divideHalfUp(dividend, divisor));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"0, 0", "1, 500", "2, 500", "3, 1500", "9, 1500", "10, 2500", "40, 2500"})
+    void seniorityRateByYears(long years, long expectedRate) {
+        assertEquals(expectedRate, PayrollKernel.seniorityRate(years));
+    }
+
+    @Test
+    void hourlyRateRejectsZeroNorm() {
+        assertThrows(IllegalArgumentException.class, () -> PayrollKernel.hourlyRate(100_000, 0));
+    }
+}
@@ -0,0 +1,250 @@
+-- Сравнение планов и времени выполнения запросов за период до и после
+-- индексов из src/main/resources/db/migration/001_period_columns_and_indexes.sql.
+--
+-- Данные генерируются в отдельной схеме period_bench (рабочие таблицы не затрагиваются):
+-- 10 000 сотрудников, 24 месяца, ~1,2 млн строк payments, 240 000 salary_payments и timesheets.
+--   psql -d salary_analysis -f period_indexes_benchmark.sql > period_indexes_benchmark.out
+-- Для каждого запроса выводится EXPLAIN (ANALYZE, BUFFERS) и среднее/минимальное время 20 прогонов
+-- сначала на исходных индексах, затем на новых. Схема удаляется в конце.
+
+\set ON_ERROR_STOP on
+\pset pager off
+
+DROP SCHEMA IF EXISTS period_bench CASCADE;
+CREATE SCHEMA period_bench;
+SET search_path = period_bench;
+
+CREATE TABLE departments
+(
+    id   SERIAL PRIMARY KEY,
+    name VARCHAR(100) NOT NULL UNIQUE
+);
+
+CREATE TABLE employees
+(
+    id            SERIAL PRIMARY KEY,
+    full_name     VARCHAR(200) NOT NULL,
+    department_id INTEGER      NOT NULL REFERENCES departments (id)
+);
+
+CREATE TABLE payment_types
+(
+    id       SERIAL PRIMARY KEY,
+    code     VARCHAR(20)  NOT NULL UNIQUE,
+    name     VARCHAR(100) NOT NULL,
+    category VARCHAR(20)  NOT NULL
+);
+
+CREATE TABLE payments
+(
+    id              SERIAL PRIMARY KEY,
+    employee_id     INTEGER        NOT NULL REFERENCES employees (id),
+    month           INTEGER        NOT NULL,
+    year            INTEGER        NOT NULL,
+    period          INTEGER GENERATED ALWAYS AS (year * 12 + month) STORED,
+    payment_type_id INTEGER        NOT NULL REFERENCES payment_types (id),
+    amount          NUMERIC(10, 2) NOT NULL,
+    description     TEXT,
+    created_at      TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE salary_payments
+(
+    id               SERIAL PRIMARY KEY,
+    employee_id      INTEGER NOT NULL REFERENCES employees (id),
+    month            INTEGER NOT NULL,
+    year             INTEGER NOT NULL,
+    period           INTEGER GENERATED ALWAYS AS (year * 12 + month) STORED,
+    total_accrued    NUMERIC(10, 2) DEFAULT 0,
+    total_deducted   NUMERIC(10, 2) DEFAULT 0,
+    net_salary       NUMERIC(10, 2) DEFAULT 0,
+    calculation_date TIMESTAMP      DEFAULT CURRENT_TIMESTAMP,
+    status           VARCHAR(20)    DEFAULT 'CALCULATED',
+    UNIQUE (employee_id, month, year)
+);
+
+CREATE TABLE timesheets
+(
+    id          SERIAL PRIMARY KEY,
+    employee_id INTEGER NOT NULL REFERENCES employees (id),
+    month       INTEGER NOT NULL,
+    year        INTEGER NOT NULL,
+    period      INTEGER GENERATED ALWAYS AS (year * 12 + month) STORED,
+    total_hours NUMERIC(6, 2) DEFAULT 0,
+    status      VARCHAR(20)   DEFAULT 'DRAFT',
+    created_at  TIMESTAMP     DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE (employee_id, month, year)
+);
+
+INSERT INTO departments (name)
+SELECT 'Подразделение ' || i FROM generate_series(1, 10) i;
+
+INSERT INTO employees (full_name, department_id)
+SELECT 'Сотрудник ' || i, 1 + i % 10 FROM generate_series(1, 10000) i;
+
+INSERT INTO payment_types (code, name, category)
+VALUES ('ОКЛ', 'Оплата по окладу', 'accrual'),
+       ('СТАЖ', 'Надбавка за стаж', 'accrual'),
+       ('ИТР', 'Премия ИТР', 'accrual'),
+       ('ПН', 'Подоходный налог', 'deduction'),
+       ('ФСЗН', 'Взнос в ФСЗН', 'deduction');
+
+INSERT INTO payments (employee_id, month, year, payment_type_id, amount, description)
+SELECT e.id, m.month, m.year, pt.id,
+       CASE WHEN pt.category = 'deduction' THEN -round((50 + random() * 300)::numeric, 2)
+            ELSE round((500 + random() * 3000)::numeric, 2) END,
+       'Начисление ' || pt.code
+FROM employees e
+         CROSS JOIN (SELECT 1 + (i % 12) AS month, 2023 + i / 12 AS year FROM generate_series(0, 23) i) m
+         CROSS JOIN payment_types pt;
+
+INSERT INTO salary_payments (employee_id, month, year, total_accrued, total_deducted, net_salary)
+SELECT p.employee_id, p.month, p.year,
+       SUM(p.amount) FILTER (WHERE p.amount > 0),
+       -SUM(p.amount) FILTER (WHERE p.amount < 0),
+       SUM(p.amount)
+FROM payments p
+GROUP BY p.employee_id, p.month, p.year;
+
+INSERT INTO timesheets (employee_id, month, year, total_hours, status)
+SELECT employee_id, month, year, round((120 + random() * 56)::numeric, 2),
+       CASE WHEN random() < 0.9 THEN 'CONFIRMED' ELSE 'DRAFT' END
+FROM salary_payments;
+
+-- Исходные индексы schema.sql
+CREATE INDEX idx_employees_department ON employees (department_id);
+CREATE INDEX idx_payments_employee_period ON payments (employee_id, month, year);
+CREATE INDEX idx_payments_type ON payments (payment_type_id);
+CREATE INDEX idx_salary_payments_employee_period ON salary_payments (employee_id, month, year);
+CREATE INDEX idx_timesheets_employee_period ON timesheets (employee_id, month, year);
+
+VACUUM ANALYZE;
+
+-- Среднее и минимальное время запроса в миллисекундах по нескольким прогонам
+CREATE FUNCTION bench(label TEXT, query TEXT, runs INTEGER DEFAULT 20)
+    RETURNS TABLE
+            (
+                query_name TEXT,
+                avg_ms     NUMERIC,
+                min_ms     NUMERIC
+            )
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    started TIMESTAMPTZ;
+    elapsed NUMERIC;
+    total   NUMERIC := 0;
+    best    NUMERIC;
+BEGIN
+    EXECUTE query; -- прогрев кэша
+    FOR i IN 1..runs
+        LOOP
+            started := clock_timestamp();
+            EXECUTE query;
+            elapsed := extract(EPOCH FROM clock_timestamp() - started) * 1000;
+            total := total + elapsed;
+            best := LEAST(COALESCE(best, elapsed), elapsed);
+        END LOOP;
+    RETURN QUERY SELECT label, round(total / runs, 3), round(best, 3);
+END;
+$$;
+
+CREATE TABLE bench_queries
+(
+    ord   INTEGER PRIMARY KEY,
+    name  TEXT NOT NULL,
+    query TEXT NOT NULL
+);
+
+INSERT INTO bench_queries
+VALUES (1, 'sumTaxesByPeriod',
+        'SELECT COALESCE(SUM(ABS(p.amount)), 0) FROM payments p JOIN payment_types pt ON pt.id = p.payment_type_id ' ||
+        'WHERE p.month = 6 AND p.year = 2024 AND pt.category = ''deduction'''),
+       (2, 'countDistinctEmployeesByMonthAndYear',
+        'SELECT COUNT(DISTINCT p.employee_id) FROM payments p WHERE p.month = 6 AND p.year = 2024'),
+       (3, 'findEmployeeIdsByPeriodAndPaymentCode',
+        'SELECT DISTINCT p.employee_id FROM payments p JOIN payment_types pt ON pt.id = p.payment_type_id ' ||
+        'WHERE p.month = 6 AND p.year = 2024 AND pt.code = ''ИТР'''),
+       (4, 'findTaxPaymentsByPeriod',
+        'SELECT p.* FROM payments p JOIN payment_types pt ON pt.id = p.payment_type_id ' ||
+        'JOIN employees e ON e.id = p.employee_id ' ||
+        'WHERE p.month = 6 AND p.year = 2024 AND pt.category = ''deduction'' ORDER BY e.full_name, pt.name'),
+       (5, 'findDepartmentSummary',
+        'SELECT d.name, AVG(sp.net_salary), SUM(sp.net_salary), COUNT(*) FROM salary_payments sp ' ||
+        'JOIN employees e ON e.id = sp.employee_id JOIN departments d ON d.id = e.department_id ' ||
+        'WHERE sp.month = 6 AND sp.year = 2024 GROUP BY d.name'),
+       (6, 'findTopByMonthAndYearOrderByNetSalaryDesc',
+        'SELECT sp.* FROM salary_payments sp WHERE sp.month = 6 AND sp.year = 2024 ORDER BY sp.net_salary DESC LIMIT 10'),
+       (7, 'countByMonthAndYearAndStatus',
+        'SELECT COUNT(*) FROM timesheets t WHERE t.month = 6 AND t.year = 2024 AND t.status = ''CONFIRMED'''),
+       (8, 'findMonthlySalaryTrend (year * 12 + month)',
+        'SELECT sp.year, sp.month, COUNT(*), SUM(sp.net_salary) FROM salary_payments sp ' ||
+        'WHERE sp.year * 12 + sp.month BETWEEN 2023 * 12 + 10 AND 2024 * 12 + 3 GROUP BY sp.year, sp.month'),
+       (9, 'findMonthlySalaryTrend (period)',
+        'SELECT sp.year, sp.month, COUNT(*), SUM(sp.net_salary) FROM salary_payments sp ' ||
+        'WHERE sp.period BETWEEN 2023 * 12 + 10 AND 2024 * 12 + 3 GROUP BY sp.year, sp.month');
+
+-- Выводит план и замеры всех запросов
+CREATE FUNCTION bench_all(phase TEXT)
+    RETURNS TABLE
+            (
+                query_name TEXT,
+                avg_ms     NUMERIC,
+                min_ms     NUMERIC
+            )
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    q    RECORD;
+    line TEXT;
+BEGIN
+    FOR q IN SELECT * FROM bench_queries ORDER BY ord
+        LOOP
+            RAISE NOTICE '===== % [%] =====', q.name, phase;
+            FOR line IN EXECUTE 'EXPLAIN (ANALYZE, BUFFERS, COSTS OFF) ' || q.query
+                LOOP
+                    RAISE NOTICE '%', line;
+                END LOOP;
+            RETURN QUERY SELECT * FROM bench(q.name, q.query);
+        END LOOP;
+END;
+$$;
+
+\echo '##### До: исходные индексы'
+CREATE TABLE results_before AS SELECT * FROM bench_all('до');
+
+-- Индексы из миграции
+CREATE INDEX idx_payments_period_type ON payments (year, month, payment_type_id) INCLUDE (employee_id, amount);
+CREATE INDEX idx_salary_payments_period_net ON salary_payments (year, month, net_salary DESC) INCLUDE (employee_id);
+CREATE INDEX idx_salary_payments_period_range ON salary_payments (period) INCLUDE (employee_id, net_salary);
+CREATE INDEX idx_timesheets_period_status ON timesheets (year, month, status) INCLUDE (employee_id, total_hours);
+DROP INDEX idx_salary_payments_employee_period;
+DROP INDEX idx_timesheets_employee_period;
+
+-- Карта видимости нужна для index-only scan
+VACUUM ANALYZE;
+
+\echo '##### После: индексы по периоду'
+CREATE TABLE results_after AS SELECT * FROM bench_all('после');
+
+\echo '##### Сравнение'
+SELECT b.query_name,
+       b.avg_ms                                 AS before_avg_ms,
+       a.avg_ms                                 AS after_avg_ms,
+       round(b.avg_ms / NULLIF(a.avg_ms, 0), 1) AS speedup,
+       b.min_ms                                 AS before_min_ms,
+       a.min_ms                                 AS after_min_ms
+FROM results_before b
+         JOIN results_after a USING (query_name)
+         JOIN bench_queries q ON q.name = b.query_name
+ORDER BY q.ord;
+
+SELECT relname                               AS index_name,
+       pg_size_pretty(pg_relation_size(oid)) AS size
+FROM pg_class
+WHERE relkind = 'i'
+  AND relnamespace = 'period_bench'::regnamespace
+ORDER BY relname;
+
+RESET search_path;
+DROP SCHEMA period_bench CASCADE;